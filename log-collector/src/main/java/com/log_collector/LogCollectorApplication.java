@@ -1,5 +1,7 @@
 package com.log_collector;
 
+import com.log_collector.config.CollectorProperties;
+import com.log_collector.forward.LogForwarder;
 import com.log_collector.tcp.TcpLogServer;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
@@ -14,9 +16,10 @@ public class LogCollectorApplication {
         SpringApplication.run(LogCollectorApplication.class, args);
     }
 
+    // Client for the first log server node; forwarding builds its own per node
     @Bean
-    public WebClient webClient() {
-        return WebClient.create("http://localhost:8082");
+    public WebClient webClient(CollectorProperties properties) {
+        return WebClient.create(LogForwarder.nodeUrls(properties.getForward()).get(0));
     }
 
 
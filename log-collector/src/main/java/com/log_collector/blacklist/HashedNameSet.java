@@ -0,0 +1,109 @@
+package com.log_collector.blacklist;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Immutable set of names kept as a Bloom filter in front of a sorted array
+ * of 64-bit hashes, roughly 8 bytes plus a few bits per name.
+ * <p>
+ * Names themselves are not kept, so membership is exact up to a 64-bit
+ * hash collision: with a million names listed, an unlisted name matches
+ * by accident with a probability of about 5 in 10^14.
+ */
+final class HashedNameSet {
+
+    // Small lists still get enough bits for the probes to spread out
+    private static final int MIN_BITS = 1024;
+
+    private final long[] hashes;
+    private final long[] bits;
+    private final int bitCount;
+    private final int probes;
+
+    private HashedNameSet(long[] hashes, double falsePositiveRate) {
+        this.hashes = hashes;
+        int n = Math.max(1, hashes.length);
+        double p = Math.min(0.5, Math.max(1e-9, falsePositiveRate));
+        long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        this.bitCount = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(MIN_BITS, m));
+        this.probes = Math.max(1, Math.min(16, (int) Math.round((double) bitCount / n * Math.log(2))));
+        this.bits = new long[(bitCount + 63) >>> 6];
+        for (long h : hashes) {
+            int h1 = (int) h;
+            int h2 = (int) (h >>> 32) | 1;
+            for (int i = 0; i < probes; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bitCount);
+                bits[bit >>> 6] |= 1L << bit;
+            }
+        }
+    }
+
+    static HashedNameSet of(Collection<String> names, double falsePositiveRate) {
+        long[] hashes = new long[names.size()];
+        int n = 0;
+        for (String name : names) {
+            hashes[n++] = hash(name);
+        }
+        return fromHashes(hashes, n, falsePositiveRate);
+    }
+
+    /**
+     * Sorts and de-duplicates the first {@code count} hashes in place.
+     */
+    static HashedNameSet fromHashes(long[] hashes, int count, double falsePositiveRate) {
+        Arrays.sort(hashes, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || hashes[unique - 1] != hashes[i]) {
+                hashes[unique++] = hashes[i];
+            }
+        }
+        return new HashedNameSet(Arrays.copyOf(hashes, unique), falsePositiveRate);
+    }
+
+    /**
+     * Bloom filter answer: false means certainly absent.
+     */
+    boolean mightContain(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < probes; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean containsHash(long hash) {
+        return Arrays.binarySearch(hashes, hash) >= 0;
+    }
+
+    int size() {
+        return hashes.length;
+    }
+
+    long sizeInBytes() {
+        return (long) hashes.length * Long.BYTES + (long) bits.length * Long.BYTES;
+    }
+
+    /**
+     * FNV-1a over the UTF-16 chars, finished with the MurmurHash3 mixer so
+     * both halves are usable as Bloom probes.
+     */
+    static long hash(String name) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < name.length(); i++) {
+            h ^= name.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
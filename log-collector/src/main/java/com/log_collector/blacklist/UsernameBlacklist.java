@@ -0,0 +1,216 @@
+package com.log_collector.blacklist;
+
+import com.log_collector.config.CollectorProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Blacklisted usernames, shared by the parser and the processor.
+ * <p>
+ * Names come from {@code collector.blacklist.usernames} plus an optional
+ * file with one name per line ({@code #} starts a comment). They are held
+ * as a {@link HashedNameSet}, so most lookups of names that are not
+ * listed stop at the Bloom filter. The file is polled for changes and the
+ * new set is swapped in atomically; a file that fails to load leaves the
+ * current set in place.
+ */
+@Component
+public class UsernameBlacklist {
+
+    private static final Logger log = LoggerFactory.getLogger(UsernameBlacklist.class);
+
+    private final List<String> configured;
+    private final Path file;
+    private final double falsePositiveRate;
+    private final AtomicReference<HashedNameSet> names = new AtomicReference<>();
+
+    private final Timer checks;
+    private final Counter hits;
+    private final Counter bloomRejected;
+    private final Counter falsePositives;
+    private final Counter reloaded;
+    private final Counter reloadFailed;
+
+    private ScheduledExecutorService watcher;
+    private FileTime lastModified;
+
+    public UsernameBlacklist() {
+        this(new CollectorProperties(), new SimpleMeterRegistry());
+    }
+
+    @Autowired
+    public UsernameBlacklist(CollectorProperties properties, MeterRegistry registry) {
+        CollectorProperties.Blacklist config = properties.getBlacklist();
+        this.configured = config.getUsernames();
+        this.file = config.getFile() == null || config.getFile().isEmpty() ? null : Paths.get(config.getFile());
+        this.falsePositiveRate = config.getFalsePositiveRate();
+
+        this.checks = Timer.builder("collector.blacklist.check")
+                .description("Blacklist membership check latency")
+                .register(registry);
+        this.hits = Counter.builder("collector.blacklist.hits")
+                .description("Usernames found on the blacklist")
+                .register(registry);
+        this.bloomRejected = Counter.builder("collector.blacklist.bloom.rejected")
+                .description("Lookups answered by the Bloom filter alone")
+                .register(registry);
+        this.falsePositives = Counter.builder("collector.blacklist.bloom.false.positives")
+                .description("Bloom filter matches for names that are not listed")
+                .register(registry);
+        this.reloaded = Counter.builder("collector.blacklist.reloads")
+                .tag("result", "success")
+                .description("Blacklist file reloads")
+                .register(registry);
+        this.reloadFailed = Counter.builder("collector.blacklist.reloads")
+                .tag("result", "failure")
+                .description("Blacklist file reloads")
+                .register(registry);
+        Gauge.builder("collector.blacklist.bloom.fpr", this, UsernameBlacklist::observedFalsePositiveRate)
+                .description("Share of unlisted names the Bloom filter let through")
+                .register(registry);
+        Gauge.builder("collector.blacklist.size", names, n -> n.get().size())
+                .description("Usernames currently blacklisted")
+                .register(registry);
+
+        names.set(HashedNameSet.of(configured, falsePositiveRate));
+        if (file != null) {
+            if (!reloadIfChanged()) {
+                log.warn("Blacklist file {} not loaded, using configured usernames", file);
+            }
+            long nanos = config.getReloadInterval().toNanos();
+            watcher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "blacklist-reload");
+                t.setDaemon(true);
+                return t;
+            });
+            watcher.scheduleWithFixedDelay(this::reloadIfChanged, nanos, nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public boolean contains(String username) {
+        if (username == null) {
+            return false;
+        }
+        long start = System.nanoTime();
+        HashedNameSet set = names.get();
+        long hash = HashedNameSet.hash(username);
+        boolean listed;
+        if (!set.mightContain(hash)) {
+            bloomRejected.increment();
+            listed = false;
+        } else {
+            listed = set.containsHash(hash);
+            if (listed) {
+                hits.increment();
+            } else {
+                falsePositives.increment();
+            }
+        }
+        checks.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return listed;
+    }
+
+    /**
+     * Same answer as {@link #contains} without recording metrics, for
+     * pre-checks that are followed by a full parse.
+     */
+    public boolean isListed(String username) {
+        if (username == null) {
+            return false;
+        }
+        HashedNameSet set = names.get();
+        long hash = HashedNameSet.hash(username);
+        return set.mightContain(hash) && set.containsHash(hash);
+    }
+
+    public int size() {
+        return names.get().size();
+    }
+
+    /**
+     * False positives over all lookups of unlisted names so far.
+     */
+    public double observedFalsePositiveRate() {
+        double negatives = bloomRejected.count() + falsePositives.count();
+        return negatives == 0 ? 0 : falsePositives.count() / negatives;
+    }
+
+    /**
+     * Reloads the file if its modification time moved; returns false when
+     * the file could not be read.
+     */
+    synchronized boolean reloadIfChanged() {
+        if (!Files.exists(file)) {
+            return false;
+        }
+        try {
+            FileTime modified = Files.getLastModifiedTime(file);
+            if (modified.equals(lastModified)) {
+                return true;
+            }
+            lastModified = modified;
+            HashedNameSet loaded = load(file);
+            names.set(loaded);
+            reloaded.increment();
+            log.info("Loaded {} blacklisted usernames from {} ({} KiB)", loaded.size(), file, loaded.sizeInBytes() / 1024);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            reloadFailed.increment();
+            log.warn("Cannot load blacklist from {}: {}", file, e.getMessage());
+            return false;
+        }
+    }
+
+    // Streams the file into hashes without keeping the names
+    private HashedNameSet load(Path path) throws IOException {
+        long[] hashes = new long[1024 + configured.size()];
+        int n = 0;
+        for (String name : configured) {
+            hashes[n++] = HashedNameSet.hash(name);
+        }
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int comment = line.indexOf('#');
+                String name = (comment >= 0 ? line.substring(0, comment) : line).trim();
+                if (name.isEmpty()) {
+                    continue;
+                }
+                if (n == hashes.length) {
+                    hashes = Arrays.copyOf(hashes, hashes.length * 2);
+                }
+                hashes[n++] = HashedNameSet.hash(name);
+            }
+        }
+        return HashedNameSet.fromHashes(hashes, n, falsePositiveRate);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (watcher != null) {
+            watcher.shutdownNow();
+        }
+    }
+}
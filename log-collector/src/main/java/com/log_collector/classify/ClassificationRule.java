@@ -0,0 +1,41 @@
+package com.log_collector.classify;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tags a message with service, category and severity when it contains
+ * any of the keywords. When several rules match, the highest priority
+ * wins; ties go to the rule declared first.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClassificationRule {
+
+    private List<String> keywords = new ArrayList<>();
+    private String service;
+    private String eventCategory;
+    private String severity = "INFO";
+    private int priority;
+
+    /**
+     * The built-in rules, in the order the parser has always checked them.
+     */
+    public static List<ClassificationRule> defaults() {
+        List<ClassificationRule> rules = new ArrayList<>();
+        rules.add(new ClassificationRule(List.of("sudo", "session opened"),
+                "linux_login", "login.audit", "INFO", 40));
+        rules.add(new ClassificationRule(List.of("cron", "session closed"),
+                "linux_logout", "logout.audit", "INFO", 30));
+        rules.add(new ClassificationRule(List.of("Microsoft-Windows-Security-Auditing"),
+                "windows_login", "login.audit", "INFO", 20));
+        rules.add(new ClassificationRule(List.of("Application Error"),
+                "windows_event", "system.event", "ERROR", 10));
+        return rules;
+    }
+}
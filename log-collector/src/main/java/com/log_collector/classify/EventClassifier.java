@@ -0,0 +1,167 @@
+package com.log_collector.classify;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.log_collector.config.CollectorProperties;
+import com.log_collector.model.LogEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Sets service, category and severity on parsed events from a set of
+ * keyword rules compiled into a {@link KeywordAutomaton}.
+ * <p>
+ * Rules come from {@code collector.classifier.rules}, or from a JSON rules
+ * file when one is configured. The file is polled for changes and a new
+ * automaton is swapped in atomically, so events being classified keep the
+ * rule set they started with. A file that fails to load leaves the current
+ * rules in place.
+ */
+@Component
+public class EventClassifier {
+
+    private static final Logger log = LoggerFactory.getLogger(EventClassifier.class);
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final TypeReference<List<ClassificationRule>> RULES = new TypeReference<List<ClassificationRule>>() {
+    };
+
+    static final String UNKNOWN = "unknown";
+
+    private final AtomicReference<KeywordAutomaton> automaton = new AtomicReference<>();
+    private final Path rulesFile;
+    private final Counter reloaded;
+    private final Counter reloadFailed;
+
+    private ScheduledExecutorService watcher;
+    private FileTime lastModified;
+
+    public EventClassifier() {
+        this(new CollectorProperties(), new SimpleMeterRegistry());
+    }
+
+    @Autowired
+    public EventClassifier(CollectorProperties properties, MeterRegistry registry) {
+        CollectorProperties.Classifier config = properties.getClassifier();
+        this.rulesFile = config.getRulesFile() == null || config.getRulesFile().isEmpty()
+                ? null
+                : Paths.get(config.getRulesFile());
+        this.reloaded = Counter.builder("collector.classifier.reloads")
+                .tag("result", "success")
+                .description("Rule file reloads")
+                .register(registry);
+        this.reloadFailed = Counter.builder("collector.classifier.reloads")
+                .tag("result", "failure")
+                .description("Rule file reloads")
+                .register(registry);
+        Gauge.builder("collector.classifier.rules", automaton, a -> a.get().ruleCount())
+                .description("Classification rules currently loaded")
+                .register(registry);
+
+        automaton.set(KeywordAutomaton.compile(config.getRules()));
+        if (rulesFile != null) {
+            if (!reloadIfChanged()) {
+                log.warn("Rules file {} not loaded, using configured rules", rulesFile);
+            }
+            long nanos = config.getReloadInterval().toNanos();
+            watcher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "classifier-reload");
+                t.setDaemon(true);
+                return t;
+            });
+            watcher.scheduleWithFixedDelay(this::reloadIfChanged, nanos, nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * @return whether a rule matched; unmatched events are tagged unknown/INFO
+     */
+    public boolean classify(String message, LogEvent event) {
+        return apply(automaton.get().match(message), event);
+    }
+
+    /**
+     * Tags the event with a rule found earlier, e.g. one cached per template.
+     */
+    public boolean apply(ClassificationRule rule, LogEvent event) {
+        if (rule != null) {
+            event.setService(rule.getService());
+            event.setEventCategory(rule.getEventCategory());
+            event.setSeverity(rule.getSeverity());
+            return true;
+        }
+        event.setService(UNKNOWN);
+        event.setEventCategory(UNKNOWN);
+        event.setSeverity("INFO");
+        return false;
+    }
+
+    /**
+     * The rule set in use; a new instance after every reload.
+     */
+    public KeywordAutomaton automaton() {
+        return automaton.get();
+    }
+
+    /**
+     * Compiles and swaps in a new rule set.
+     */
+    public void reload(List<ClassificationRule> rules) {
+        automaton.set(KeywordAutomaton.compile(rules));
+    }
+
+    public int ruleCount() {
+        return automaton.get().ruleCount();
+    }
+
+    /**
+     * Reloads the rules file if its modification time moved; returns false
+     * when the file could not be read or compiled.
+     */
+    synchronized boolean reloadIfChanged() {
+        if (!Files.exists(rulesFile)) {
+            return false;
+        }
+        try {
+            FileTime modified = Files.getLastModifiedTime(rulesFile);
+            if (modified.equals(lastModified)) {
+                return true;
+            }
+            lastModified = modified;
+            List<ClassificationRule> rules = mapper.readValue(rulesFile.toFile(), RULES);
+            reload(rules);
+            reloaded.increment();
+            log.info("Loaded {} classification rules from {}", rules.size(), rulesFile);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            reloadFailed.increment();
+            log.warn("Cannot load classification rules from {}: {}", rulesFile, e.getMessage());
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (watcher != null) {
+            watcher.shutdownNow();
+        }
+    }
+}
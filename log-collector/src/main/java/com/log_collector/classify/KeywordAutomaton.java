@@ -0,0 +1,155 @@
+package com.log_collector.classify;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aho-Corasick automaton over the keywords of a rule set, compiled to a
+ * dense transition table so a message is classified in one pass whatever
+ * the number of rules.
+ * <p>
+ * Characters that appear in no keyword share a single column, which keeps
+ * the table at (states x distinct keyword characters). Instances are
+ * immutable and safe to share between threads.
+ */
+public final class KeywordAutomaton {
+
+    private static final int NO_MATCH = Integer.MAX_VALUE;
+
+    // Rules ordered best first; a state's output is an index into this array
+    private final ClassificationRule[] ranked;
+    private final int[] charClass;
+    private final int width;
+    private final int[] next;
+    private final int[] output;
+
+    private KeywordAutomaton(ClassificationRule[] ranked, int[] charClass, int width, int[] next, int[] output) {
+        this.ranked = ranked;
+        this.charClass = charClass;
+        this.width = width;
+        this.next = next;
+        this.output = output;
+    }
+
+    public static KeywordAutomaton compile(List<ClassificationRule> rules) {
+        List<ClassificationRule> ranked = new ArrayList<>(rules);
+        // Stable sort, so equal priorities keep declaration order
+        ranked.sort(Comparator.comparingInt(ClassificationRule::getPriority).reversed());
+
+        // Column per distinct keyword character, column 0 for everything else
+        int maxChar = 0;
+        Map<Character, Integer> columns = new HashMap<>();
+        for (ClassificationRule rule : ranked) {
+            if (rule.getKeywords() == null || rule.getKeywords().isEmpty()) {
+                throw new IllegalArgumentException("rule for service " + rule.getService() + " has no keywords");
+            }
+            for (String keyword : rule.getKeywords()) {
+                if (keyword == null || keyword.isEmpty()) {
+                    throw new IllegalArgumentException("empty keyword in rule for service " + rule.getService());
+                }
+                for (int i = 0; i < keyword.length(); i++) {
+                    char c = keyword.charAt(i);
+                    columns.putIfAbsent(c, columns.size() + 1);
+                    maxChar = Math.max(maxChar, c);
+                }
+            }
+        }
+        int[] charClass = new int[maxChar + 1];
+        for (Map.Entry<Character, Integer> e : columns.entrySet()) {
+            charClass[e.getKey()] = e.getValue();
+        }
+        int width = columns.size() + 1;
+
+        // Trie, with -1 for a missing edge
+        List<int[]> edges = new ArrayList<>();
+        List<Integer> outputs = new ArrayList<>();
+        edges.add(newRow(width));
+        outputs.add(NO_MATCH);
+        for (int rank = 0; rank < ranked.size(); rank++) {
+            for (String keyword : ranked.get(rank).getKeywords()) {
+                int state = 0;
+                for (int i = 0; i < keyword.length(); i++) {
+                    int column = charClass[keyword.charAt(i)];
+                    if (edges.get(state)[column] < 0) {
+                        edges.get(state)[column] = edges.size();
+                        edges.add(newRow(width));
+                        outputs.add(NO_MATCH);
+                    }
+                    state = edges.get(state)[column];
+                }
+                outputs.set(state, Math.min(outputs.get(state), rank));
+            }
+        }
+
+        // Breadth-first: fill missing edges from failure links and inherit
+        // the best output reachable through them
+        int states = edges.size();
+        int[] next = new int[states * width];
+        int[] output = new int[states];
+        int[] fail = new int[states];
+        ArrayDeque<Integer> pending = new ArrayDeque<>();
+        for (int column = 0; column < width; column++) {
+            int child = edges.get(0)[column];
+            if (child < 0) {
+                next[column] = 0;
+            } else {
+                next[column] = child;
+                fail[child] = 0;
+                pending.add(child);
+            }
+        }
+        output[0] = outputs.get(0);
+        while (!pending.isEmpty()) {
+            int state = pending.poll();
+            output[state] = Math.min(outputs.get(state), output[fail[state]]);
+            for (int column = 0; column < width; column++) {
+                int child = edges.get(state)[column];
+                int fallback = next[fail[state] * width + column];
+                if (child < 0) {
+                    next[state * width + column] = fallback;
+                } else {
+                    next[state * width + column] = child;
+                    fail[child] = fallback;
+                    pending.add(child);
+                }
+            }
+        }
+        return new KeywordAutomaton(ranked.toArray(new ClassificationRule[0]), charClass, width, next, output);
+    }
+
+    /**
+     * Best matching rule, or null when the message contains no keyword.
+     */
+    public ClassificationRule match(String message) {
+        int state = 0;
+        int best = NO_MATCH;
+        for (int i = 0; i < message.length() && best > 0; i++) {
+            char c = message.charAt(i);
+            int column = c < charClass.length ? charClass[c] : 0;
+            state = next[state * width + column];
+            if (output[state] < best) {
+                best = output[state];
+            }
+        }
+        return best == NO_MATCH ? null : ranked[best];
+    }
+
+    public int ruleCount() {
+        return ranked.length;
+    }
+
+    int stateCount() {
+        return output.length;
+    }
+
+    private static int[] newRow(int width) {
+        int[] row = new int[width];
+        Arrays.fill(row, -1);
+        return row;
+    }
+}
@@ -1,23 +1,123 @@
 package com.log_collector.config;
 
+import com.log_collector.queue.PartitionedLogQueue;
+import com.log_collector.queue.RingBufferLogQueue;
+import com.log_collector.queue.SheddingLogQueue;
+import com.log_collector.queue.SpillLog;
+import com.log_collector.queue.SpillingLogQueue;
+import com.log_collector.service.LogParser;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 @Configuration
+@EnableConfigurationProperties(CollectorProperties.class)
 public class CollectorConfig {
 
+    private final CollectorProperties properties;
+    private final MeterRegistry registry;
+    private final ObjectProvider<LogParser> parser;
+
+    public CollectorConfig() {
+        this(new CollectorProperties(), new SimpleMeterRegistry());
+    }
+
+    public CollectorConfig(CollectorProperties properties, MeterRegistry registry) {
+        this(properties, registry, null);
+    }
+
+    @Autowired
+    public CollectorConfig(CollectorProperties properties, MeterRegistry registry, ObjectProvider<LogParser> parser) {
+        this.properties = properties;
+        this.registry = registry;
+        this.parser = parser;
+    }
+
     @Bean
     public BlockingQueue<String> logQueue() {
-        return new ArrayBlockingQueue<>(1000); // backpressure
+        CollectorProperties.Shed shed = properties.getShed();
+        if (!shed.isEnabled()) {
+            return baseQueue();
+        }
+        if (properties.getQueue().getPartitions() > 0) {
+            throw new IllegalStateException("collector.shed cannot be combined with collector.queue.partitions");
+        }
+        LogParser triage = parser != null ? parser.getObject() : new LogParser(properties);
+        return new SheddingLogQueue(baseQueue(), triage::triage,
+                shed.getReservedCapacity(),
+                shed.getSampleThreshold(),
+                shed.getDropThreshold(),
+                shed.getSampleRate(),
+                registry);
+    }
+
+    private BlockingQueue<String> baseQueue() {
+        CollectorProperties.Queue queue = properties.getQueue();
+        CollectorProperties.Spill spill = properties.getSpill();
+        if (queue.getPartitions() > 0) {
+            if (spill.isEnabled()) {
+                throw new IllegalStateException("collector.queue.partitions cannot be combined with collector.spill");
+            }
+            // Capacity is shared out evenly, so a single hot host can fill only its own share
+            int share = Math.max(1, (queue.getCapacity() + queue.getPartitions() - 1) / queue.getPartitions());
+            List<BlockingQueue<String>> partitions = new ArrayList<>(queue.getPartitions());
+            for (int i = 0; i < queue.getPartitions(); i++) {
+                partitions.add(memoryQueue(share));
+            }
+            return new PartitionedLogQueue(partitions, LogParser::hostHash, registry);
+        }
+
+        BlockingQueue<String> memory = memoryQueue(queue.getCapacity());
+        int capacity = memory.remainingCapacity();
+        if (!spill.isEnabled()) {
+            return memory;
+        }
+        try {
+            SpillLog log = SpillLog.open(
+                    Paths.get(spill.getDirectory()),
+                    (int) spill.getSegmentSize().toBytes(),
+                    spill.getMaxDiskSize().toBytes());
+            int threshold = Math.max(1, (int) (capacity * spill.getThreshold()));
+            return new SpillingLogQueue(memory, log, threshold, spill.getReplayInterval(), registry);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open spill directory " + spill.getDirectory(), e);
+        }
+    }
+
+    private BlockingQueue<String> memoryQueue(int capacity) {
+        CollectorProperties.Queue queue = properties.getQueue();
+        return queue.getType() == CollectorProperties.QueueType.RING
+                ? new RingBufferLogQueue(capacity, queue.getWaitStrategy())
+                : new ArrayBlockingQueue<>(capacity); // backpressure
     }
 
-    @Bean(destroyMethod = "shutdown")
+    @Bean(destroyMethod = "shutdownNow")
     public ExecutorService workerPool() {
-        return Executors.newFixedThreadPool(4);
+        CollectorProperties.Workers workers = properties.getWorkers();
+        int partitions = properties.getQueue().getPartitions();
+        // Threads start on demand, so room to grow to the autoscale maximum costs nothing up front
+        int threads = partitions > 0
+                ? partitions
+                : Math.max(workers.getCount(), workers.getAutoscale().getMax());
+        if (threads != workers.getCount()) {
+            CollectorProperties.Workers sized = new CollectorProperties.Workers();
+            sized.setMode(workers.getMode());
+            sized.setCount(threads);
+            workers = sized;
+        }
+        return WorkerThreads.create(workers);
     }
 }
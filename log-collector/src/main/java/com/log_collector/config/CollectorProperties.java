@@ -0,0 +1,300 @@
+package com.log_collector.config;
+
+import com.log_collector.classify.ClassificationRule;
+import com.log_collector.queue.WaitStrategy;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tunables for the collector, bound from the {@code collector.*} keys.
+ * Defaults match the values that used to be hardcoded.
+ */
+@Data
+@ConfigurationProperties(prefix = "collector")
+public class CollectorProperties {
+
+    private Tcp tcp = new Tcp();
+    private Queue queue = new Queue();
+    private Spill spill = new Spill();
+    private Shed shed = new Shed();
+    private Pipeline pipeline = new Pipeline();
+    private Workers workers = new Workers();
+    private Parser parser = new Parser();
+    private Classifier classifier = new Classifier();
+    private Blacklist blacklist = new Blacklist();
+    private Forward forward = new Forward();
+
+    @Data
+    public static class Tcp {
+
+        private String host = "0.0.0.0";
+        private int port = 9000;
+
+        // Netty event loops reading connections; 0 keeps Reactor Netty's default of one per core
+        private int eventLoops = 0;
+
+        // Longest accepted line in bytes, delimiter excluded
+        private int maxFrameLength = 64 * 1024;
+
+        // What to do with a line when the log queue is full
+        private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+
+        // PAUSE policy: stop reading above high water, resume at low water (fractions of capacity)
+        private double highWaterMark = 0.8;
+        private double lowWaterMark = 0.5;
+
+        // PAUSE policy: frames requested from a connection per credit grant
+        private int readCredit = 64;
+
+        private Duration resumeCheckInterval = Duration.ofMillis(5);
+    }
+
+    @Data
+    public static class Queue {
+
+        private int capacity = 1000;
+
+        // ARRAY: ArrayBlockingQueue. RING: lock-free ring buffer, capacity rounded up to a power of two
+        private QueueType type = QueueType.ARRAY;
+
+        // RING only: how idle workers wait for lines
+        private WaitStrategy waitStrategy = WaitStrategy.BLOCKING;
+
+        // Split the queue by hostname hash with one in-order consumer per partition; 0 keeps one shared queue
+        private int partitions = 0;
+    }
+
+    @Data
+    public static class Pipeline {
+
+        // QUEUE hands lines to worker threads; REACTIVE forwards straight from the connection's flux;
+        // INLINE parses and batches on the event loop that read the line
+        private PipelineMode mode = PipelineMode.QUEUE;
+
+        // REACTIVE and INLINE: lines requested from a connection ahead of parsing
+        private int prefetch = 256;
+    }
+
+    @Data
+    public static class Workers {
+
+        // Consumer loops taking lines from the queue; a partitioned queue gets one per partition instead
+        private int count = 4;
+
+        // VIRTUAL needs a Java 21+ runtime; older runtimes fall back to PLATFORM
+        private WorkerMode mode = WorkerMode.PLATFORM;
+
+        private Autoscale autoscale = new Autoscale();
+    }
+
+    @Data
+    public static class Autoscale {
+
+        // Grow and shrink the worker loops within min..max from queue depth and worker utilisation
+        private boolean enabled = false;
+        private int min = 1;
+        private int max = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+        private Duration interval = Duration.ofSeconds(1);
+
+        // Scale up when the queue is at least this full and workers at least this busy
+        private double scaleUpDepth = 0.5;
+        private double scaleUpUtilization = 0.8;
+
+        // Scale down when the queue is at most this full and workers at most this busy
+        private double scaleDownDepth = 0.1;
+        private double scaleDownUtilization = 0.3;
+
+        // Consecutive intervals a condition must hold before acting
+        private int scaleUpIntervals = 2;
+        private int scaleDownIntervals = 5;
+    }
+
+    @Data
+    public static class Parser {
+
+        // Single-pass scanner; false runs every line through the regex path
+        private boolean fastPath = true;
+
+        // Zone for RFC 3164 timestamps, which carry none
+        private ZoneId zone = ZoneId.systemDefault();
+
+        private Templates templates = new Templates();
+    }
+
+    @Data
+    public static class Templates {
+
+        // Mine message templates and cache classification and field positions per template
+        private boolean enabled = false;
+
+        // LRU-evicted beyond this
+        private int maxTemplates = 1000;
+
+        // Share of tokens a message must have in common with a template to join it
+        private double similarity = 0.5;
+
+        // Leading tokens, besides the token count, that pick the bucket to search
+        private int prefixTokens = 2;
+    }
+
+    @Data
+    public static class Classifier {
+
+        // Keyword rules; the highest priority match wins
+        private List<ClassificationRule> rules = ClassificationRule.defaults();
+
+        // Optional JSON array of rules, reloaded when its modification time changes
+        private String rulesFile;
+
+        private Duration reloadInterval = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class Blacklist {
+
+        private List<String> usernames = new ArrayList<>(List.of("root", "admin"));
+
+        // Optional file with one username per line, added to the list above and reloaded on change
+        private String file;
+
+        private Duration reloadInterval = Duration.ofSeconds(5);
+
+        // Bloom filter sizing
+        private double falsePositiveRate = 0.01;
+    }
+
+    @Data
+    public static class Spill {
+
+        // Overflow to memory-mapped files on disk once the queue passes the threshold
+        private boolean enabled = false;
+        private String directory = "spill";
+        private DataSize segmentSize = DataSize.ofMegabytes(16);
+        private DataSize maxDiskSize = DataSize.ofGigabytes(1);
+
+        // Fraction of the queue capacity at which new lines start going to disk
+        private double threshold = 0.9;
+        private Duration replayInterval = Duration.ofMillis(10);
+    }
+
+    @Data
+    public static class Shed {
+
+        // Triage lines once the queue fills up and shed INFO/unknown ones first; ERROR and blacklisted are kept
+        private boolean enabled = false;
+
+        // Fractions of queue capacity: sample routine lines above the first, drop them above the second
+        private double sampleThreshold = 0.7;
+        private double dropThreshold = 0.9;
+
+        // Share of routine lines kept while sampling
+        private double sampleRate = 0.1;
+
+        // Lane for critical lines that find the queue full
+        private int reservedCapacity = 100;
+    }
+
+    @Data
+    public static class Forward {
+
+        private String baseUrl = "http://localhost:8082";
+
+        // Log server nodes to spread events over; empty means base-url alone
+        private List<String> nodes = new ArrayList<>();
+        private Routing routing = new Routing();
+        private Batch batch = new Batch();
+
+        // HTTP: one request per event or batch. STREAM: a WebSocket with server credit and acks
+        private Transport transport = Transport.HTTP;
+
+        // Requests allowed in flight at once; workers block when the cap is reached
+        private int maxInFlight = 64;
+        private Retry retry = new Retry();
+    }
+
+    @Data
+    public static class Routing {
+
+        // Event field hashed onto the node ring
+        private RoutingKey key = RoutingKey.HOSTNAME;
+
+        // Ring points per node; more points spread keys more evenly
+        private int virtualNodes = 128;
+
+        // Health checks, only with more than one node
+        private String healthPath = "/actuator/health";
+        private Duration healthInterval = Duration.ofSeconds(5);
+        private Duration healthTimeout = Duration.ofSeconds(1);
+    }
+
+    @Data
+    public static class Retry {
+
+        // Retries after the first attempt; 0 disables retrying
+        private int maxRetries = 3;
+        private Duration initialBackoff = Duration.ofMillis(100);
+        private Duration maxBackoff = Duration.ofSeconds(2);
+
+        // Fraction of each backoff that is randomised, 0..1
+        private double jitter = 0.5;
+    }
+
+    @Data
+    public static class Batch {
+
+        // Off: one POST /ingest per event. On: POST /ingest/batch with up to `size` events
+        private boolean enabled = false;
+        private int size = 500;
+
+        // Longest time the first event of a partial batch waits before it is sent
+        private Duration linger = Duration.ofMillis(20);
+
+        // Body of /ingest/batch requests; BINARY falls back to JSON if the server answers 415
+        private WireFormat format = WireFormat.JSON;
+
+        // BINARY only: deflate the encoded batch
+        private boolean compress = false;
+    }
+
+    public enum RoutingKey {
+        HOSTNAME,
+        SERVICE
+    }
+
+    public enum Transport {
+        HTTP,
+        STREAM
+    }
+
+    public enum WireFormat {
+        JSON,
+        BINARY
+    }
+
+    public enum PipelineMode {
+        QUEUE,
+        REACTIVE,
+        INLINE
+    }
+
+    public enum WorkerMode {
+        PLATFORM,
+        VIRTUAL
+    }
+
+    public enum QueueType {
+        ARRAY,
+        RING
+    }
+
+    public enum OverflowPolicy {
+        DROP,
+        PAUSE
+    }
+}
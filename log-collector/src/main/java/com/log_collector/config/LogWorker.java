@@ -1,57 +1,342 @@
 package com.log_collector.config;
 
+import com.log_collector.forward.EventBatcher;
+import com.log_collector.forward.LogForwarder;
 import com.log_collector.model.LogEvent;
+import com.log_collector.queue.PartitionedLogQueue;
 import com.log_collector.service.LogParser;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 @Component
 public class LogWorker {
 
+    private static final Logger log = LoggerFactory.getLogger(LogWorker.class);
+
+    // Lines a worker takes from the queue in one go
+    private static final int DRAIN_BATCH = 64;
+
+    // How often an idle worker checks whether it has been asked to retire
+    private static final long RETIRE_CHECK_MILLIS = 100;
+
     private final BlockingQueue<String> queue;
     private final ExecutorService workers;
     private final LogParser parser;
-    private final WebClient webClient;
+    private final LogForwarder forwarder;
+    private final EventBatcher batcher;
+    private final int workerCount;
+    private final PartitionedLogQueue partitioned;
+    private final int orderedBatchSize;
+
+    // Shared-queue loops only: started but not yet exited, and asked to exit
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger retiring = new AtomicInteger();
+    private final LongAdder busyNanos = new LongAdder();
+    private final Timer parseTime;
 
     public LogWorker(
             BlockingQueue<String> queue,
             ExecutorService workers,
             LogParser parser,
             WebClient.Builder builder
+    ) {
+        this(queue, workers, parser, builder, new CollectorProperties(), new SimpleMeterRegistry());
+    }
+
+    @Autowired
+    public LogWorker(
+            BlockingQueue<String> queue,
+            ExecutorService workers,
+            LogParser parser,
+            WebClient.Builder builder,
+            CollectorProperties properties,
+            MeterRegistry registry
     ) {
         this.queue = queue;
         this.workers = workers;
         this.parser = parser;
-        this.webClient = builder.baseUrl("http://localhost:8082").build();
+        this.parseTime = Timer.builder("collector.worker.parse")
+                .description("Time a worker spends parsing one line")
+                .register(registry);
+        Gauge.builder("collector.workers.active", this, LogWorker::activeWorkers)
+                .description("Worker loops consuming the shared queue")
+                .register(registry);
+        // In REACTIVE and INLINE modes lines never reach the queue and the pipeline owns forwarding
+        if (properties.getPipeline().getMode() != CollectorProperties.PipelineMode.QUEUE) {
+            this.workerCount = 0;
+            this.forwarder = null;
+            this.batcher = null;
+            this.partitioned = null;
+            this.orderedBatchSize = 0;
+            return;
+        }
+        this.forwarder = new LogForwarder(
+                builder,
+                properties.getForward(),
+                registry);
+
+        CollectorProperties.Batch batch = properties.getForward().getBatch();
+        if (queue instanceof PartitionedLogQueue) {
+            // One consumer per partition; a shared batcher would interleave partitions
+            this.partitioned = (PartitionedLogQueue) queue;
+            this.workerCount = partitioned.partitionCount();
+            this.batcher = null;
+            this.orderedBatchSize = batch.isEnabled() ? batch.getSize() : 1;
+        } else {
+            this.partitioned = null;
+            this.workerCount = properties.getWorkers().getCount();
+            this.batcher = batch.isEnabled()
+                    ? new EventBatcher(batch.getSize(), batch.getLinger(), this::forwardBatch, registry)
+                    : null;
+            this.orderedBatchSize = 0;
+        }
 
         startWorkers();
     }
 
     private void startWorkers() {
-        for (int i = 0; i < 4; i++) {
-            workers.submit(this::consume);
+        if (partitioned != null) {
+            for (int i = 0; i < workerCount; i++) {
+                BlockingQueue<String> partition = partitioned.partition(i);
+                workers.submit(() -> consumeInOrder(partition));
+            }
+        } else if (workerCount > 0) {
+            resize(workerCount);
         }
     }
 
-    private void consume() {
+    /**
+     * Whether {@link #resize} applies: only loops on the shared queue can
+     * be added and retired.
+     */
+    public boolean isResizable() {
+        return forwarder != null && partitioned == null;
+    }
+
+    /**
+     * Starts or retires worker loops until {@code target} are consuming.
+     * A retired loop finishes the lines it holds and exits at its next
+     * check; the target is capped by the pool's thread limit.
+     *
+     * @return the worker count now targeted
+     */
+    public synchronized int resize(int target) {
+        if (!isResizable()) {
+            throw new IllegalStateException("worker count is fixed in this mode");
+        }
+        int capped = Math.max(1, Math.min(target, poolLimit()));
+        int current = activeWorkers();
+        if (capped > current) {
+            int revived = revive(capped - current);
+            for (int i = current + revived; i < capped; i++) {
+                running.incrementAndGet();
+                workers.submit(this::consume);
+            }
+        } else if (capped < current) {
+            retiring.addAndGet(current - capped);
+        }
+        return capped;
+    }
+
+    /**
+     * Worker loops consuming the shared queue, not counting those asked to retire.
+     */
+    public int activeWorkers() {
+        return Math.max(0, running.get() - retiring.get());
+    }
+
+    /**
+     * Most loops the pool can run at once.
+     */
+    public int poolLimit() {
+        return workers instanceof ThreadPoolExecutor
+                ? ((ThreadPoolExecutor) workers).getMaximumPoolSize()
+                : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Total time workers have spent parsing and forwarding, as opposed to waiting for lines.
+     */
+    long busyNanos() {
+        return busyNanos.sum();
+    }
+
+    /**
+     * Retirements asked for that no loop has claimed yet.
+     */
+    int retiringWorkers() {
+        return retiring.get();
+    }
+
+    // Cancels up to wanted pending retirements that no loop has claimed yet; caller holds the lock
+    private int revive(int wanted) {
+        int revived = Math.min(retiring.get(), wanted);
+        retiring.addAndGet(-revived);
+        return revived;
+    }
+
+    /*
+     * Claims one pending retirement for the calling loop. The loop stops
+     * counting as running in the same step, under the lock resize() holds,
+     * so a resize never sees a loop that is on its way out as active.
+     */
+    private boolean retire() {
+        if (retiring.get() == 0) {
+            return false;
+        }
+        synchronized (this) {
+            if (retiring.get() == 0) {
+                return false;
+            }
+            retiring.decrementAndGet();
+            running.decrementAndGet();
+            return true;
+        }
+    }
+
+    /**
+     * Consumer for one partition: each request completes before the next
+     * is sent, so a host's events reach the server in arrival order. With
+     * batching on, every drain goes out as one batch.
+     */
+    private void consumeInOrder(BlockingQueue<String> partition) {
+        int limit = orderedBatchSize > 1 ? orderedBatchSize : DRAIN_BATCH;
+        List<String> lines = new ArrayList<>(limit);
+        List<LogEvent> events = new ArrayList<>(limit);
         while (true) {
             try {
-                String raw = queue.take(); // blocks safely
-                LogEvent event = parser.parse(raw);
-
-                webClient.post()
-                        .uri("/ingest")
-                        .bodyValue(event)
-                        .retrieve()
-                        .bodyToMono(Void.class)
-                        .subscribe();
+                lines.add(partition.take());
+                partition.drainTo(lines, limit - 1);
 
+                for (String raw : lines) {
+                    try {
+                        events.add(parser.parse(raw));
+                    } catch (RuntimeException e) {
+                        log.warn("Cannot parse log line", e);
+                    }
+                }
+                if (orderedBatchSize > 1) {
+                    if (!events.isEmpty()) {
+                        awaitQuietly(forwarder.postBatch(events));
+                    }
+                } else {
+                    for (LogEvent event : events) {
+                        awaitQuietly(forwarder.post(event));
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return; // pool is shutting down
             } catch (Exception e) {
-                e.printStackTrace();
+                log.error("Worker failed to process lines", e);
+            } finally {
+                lines.clear();
+                events.clear();
+            }
+        }
+    }
+
+    // Failures are already counted and logged by the forwarder
+    private static void awaitQuietly(Mono<Void> request) throws InterruptedException {
+        try {
+            request.onErrorResume(e -> Mono.empty()).block();
+        } catch (RuntimeException e) {
+            if (Exceptions.unwrap(e) instanceof InterruptedException) {
+                throw new InterruptedException();
             }
+            throw e;
+        }
+    }
+
+    private void consume() {
+        List<String> lines = new ArrayList<>(DRAIN_BATCH);
+        boolean retired = false;
+        try {
+            while (!(retired = retire())) {
+                try {
+                    String first = queue.poll(RETIRE_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    lines.add(first);
+                    queue.drainTo(lines, DRAIN_BATCH - 1);
+
+                    long start = System.nanoTime();
+                    for (String raw : lines) {
+                        process(raw);
+                    }
+                    busyNanos.add(System.nanoTime() - start);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return; // pool is shutting down
+                } catch (Exception e) {
+                    log.error("Worker failed to process lines", e);
+                } finally {
+                    lines.clear();
+                }
+            }
+        } finally {
+            // A retired loop was taken off the count when it claimed the retirement
+            if (!retired) {
+                running.decrementAndGet();
+            }
+        }
+    }
+
+    private void process(String raw) throws InterruptedException {
+        LogEvent event;
+        long start = System.nanoTime();
+        try {
+            event = parser.parse(raw);
+        } catch (RuntimeException e) {
+            log.warn("Cannot parse log line", e);
+            return;
+        } finally {
+            parseTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        if (batcher != null) {
+            batcher.add(event);
+            return;
+        }
+
+        forwarder.forward(event); // blocks while too many requests are in flight
+    }
+
+    private void forwardBatch(List<LogEvent> batch) {
+        try {
+            forwarder.forwardBatch(batch);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (batcher != null) {
+            batcher.close();
+        }
+        if (forwarder != null) {
+            forwarder.close();
         }
     }
 }
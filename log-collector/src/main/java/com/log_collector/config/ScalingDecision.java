@@ -0,0 +1,29 @@
+package com.log_collector.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * One autoscaler evaluation that changed, or deliberately held, the worker
+ * count, with the readings it was based on.
+ */
+@Data
+@AllArgsConstructor
+public class ScalingDecision {
+
+    private Instant time;
+    private int from;
+    private int to;
+    private String reason;
+
+    // Queue fill ratio, 0..1
+    private double queueDepth;
+
+    // Share of the interval workers spent parsing and forwarding, 0..1
+    private double utilization;
+
+    private double parseMicros;
+    private double forwardMillis;
+}
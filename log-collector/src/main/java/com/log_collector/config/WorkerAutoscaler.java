@@ -0,0 +1,294 @@
+package com.log_collector.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resizes {@link LogWorker}'s loops on the shared queue from what it sees
+ * every {@code collector.workers.autoscale.interval}: queue depth, the
+ * share of time workers spend busy, mean parse time and mean forward
+ * latency.
+ * <p>
+ * It scales up, by half again, only when the queue is backing up and the
+ * workers are busy. It scales down, one at a time, only when the queue is
+ * nearly empty and the workers are mostly idle. Each condition must hold
+ * for several intervals in a row, and the gap between the two thresholds
+ * keeps the count from flapping. Growth is held back while the forwarder is
+ * throttling, since extra workers would only wait on the same in-flight
+ * cap. The last decisions are kept for the {@code workers} actuator
+ * endpoint.
+ */
+@Component
+public class WorkerAutoscaler {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkerAutoscaler.class);
+
+    private static final int HISTORY = 50;
+
+    private final LogWorker worker;
+    private final BlockingQueue<String> queue;
+    private final MeterRegistry registry;
+    private final CollectorProperties.Autoscale config;
+    private final Deque<ScalingDecision> decisions = new ArrayDeque<>();
+    private final Counter scaledUp;
+    private final Counter scaledDown;
+    private final Counter held;
+
+    private volatile int min;
+    private volatile int max;
+    private volatile ScalingDecision lastSample;
+    private ScheduledExecutorService ticker;
+
+    // Readings at the previous tick, to turn cumulative totals into per-interval values
+    private long lastTick = System.nanoTime();
+    private long lastBusy;
+    private double lastParseNanos;
+    private long lastParseCount;
+    private double lastForwardNanos;
+    private long lastForwardCount;
+    private double lastThrottled;
+    private int upStreak;
+    private int downStreak;
+
+    @Autowired
+    public WorkerAutoscaler(LogWorker worker,
+                            BlockingQueue<String> logQueue,
+                            CollectorProperties properties,
+                            MeterRegistry registry) {
+        this.worker = worker;
+        this.queue = logQueue;
+        this.registry = registry;
+        this.config = properties.getWorkers().getAutoscale();
+        if (config.getMin() < 1 || config.getMax() < config.getMin()) {
+            throw new IllegalArgumentException("need 1 <= min <= max, got "
+                    + config.getMin() + " and " + config.getMax());
+        }
+        this.min = config.getMin();
+        this.max = config.getMax();
+        this.scaledUp = decisions("up");
+        this.scaledDown = decisions("down");
+        this.held = decisions("hold");
+
+        if (config.isEnabled()) {
+            if (!worker.isResizable()) {
+                log.warn("Worker autoscaling needs the shared queue in QUEUE mode; keeping the worker count fixed");
+                return;
+            }
+            clamp("startup bounds");
+            long nanos = config.getInterval().toNanos();
+            ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "worker-autoscaler");
+                t.setDaemon(true);
+                return t;
+            });
+            ticker.scheduleWithFixedDelay(this::tickSafely, nanos, nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Counter decisions(String direction) {
+        return Counter.builder("collector.workers.scaling")
+                .tag("direction", direction)
+                .description("Worker autoscaler decisions")
+                .register(registry);
+    }
+
+    public boolean isEnabled() {
+        return ticker != null;
+    }
+
+    public int min() {
+        return min;
+    }
+
+    public int max() {
+        return max;
+    }
+
+    private void tickSafely() {
+        try {
+            tick();
+        } catch (RuntimeException e) {
+            log.warn("Worker autoscaler tick failed", e);
+        }
+    }
+
+    /**
+     * One evaluation; returns the decision if the count changed or growth was held back.
+     */
+    synchronized ScalingDecision tick() {
+        long now = System.nanoTime();
+        long elapsed = Math.max(1, now - lastTick);
+        lastTick = now;
+        int active = worker.activeWorkers();
+
+        long busy = worker.busyNanos();
+        double utilization = active == 0 ? 0 : Math.min(1.0, (double) (busy - lastBusy) / ((double) elapsed * active));
+        lastBusy = busy;
+
+        Timer parse = registry.find("collector.worker.parse").timer();
+        double parseMicros = 0;
+        if (parse != null) {
+            double total = parse.totalTime(TimeUnit.NANOSECONDS);
+            long count = parse.count();
+            parseMicros = count > lastParseCount ? (total - lastParseNanos) / (count - lastParseCount) / 1e3 : 0;
+            lastParseNanos = total;
+            lastParseCount = count;
+        }
+
+        double forwardTotal = 0;
+        long forwardCount = 0;
+        for (Timer t : registry.find("collector.forward.latency").timers()) {
+            forwardTotal += t.totalTime(TimeUnit.NANOSECONDS);
+            forwardCount += t.count();
+        }
+        double forwardMillis = forwardCount > lastForwardCount
+                ? (forwardTotal - lastForwardNanos) / (forwardCount - lastForwardCount) / 1e6
+                : 0;
+        lastForwardNanos = forwardTotal;
+        lastForwardCount = forwardCount;
+
+        Counter throttle = registry.find("collector.forward.throttled").counter();
+        double throttled = throttle != null ? throttle.count() : 0;
+        boolean saturated = throttled > lastThrottled;
+        lastThrottled = throttled;
+
+        int capacity = queue.size() + queue.remainingCapacity();
+        double depth = capacity == 0 ? 0 : (double) queue.size() / capacity;
+
+        lastSample = new ScalingDecision(Instant.now(), active, active, "sample",
+                depth, utilization, parseMicros, forwardMillis);
+
+        if (depth >= config.getScaleUpDepth() && utilization >= config.getScaleUpUtilization()) {
+            upStreak++;
+            downStreak = 0;
+        } else if (depth <= config.getScaleDownDepth() && utilization <= config.getScaleDownUtilization()) {
+            downStreak++;
+            upStreak = 0;
+        } else {
+            upStreak = 0;
+            downStreak = 0;
+        }
+
+        if (upStreak >= config.getScaleUpIntervals() && active < max) {
+            upStreak = 0;
+            if (saturated) {
+                held.increment();
+                return record(active, active, "hold: forwarder at its in-flight cap", depth, utilization,
+                        parseMicros, forwardMillis);
+            }
+            int target = worker.resize(Math.min(max, active + Math.max(1, active / 2)));
+            scaledUp.increment();
+            return record(active, target, "queue backing up with busy workers", depth, utilization,
+                    parseMicros, forwardMillis);
+        }
+        if (downStreak >= config.getScaleDownIntervals() && active > min) {
+            downStreak = 0;
+            int target = worker.resize(active - 1);
+            scaledDown.increment();
+            return record(active, target, "queue drained with idle workers", depth, utilization,
+                    parseMicros, forwardMillis);
+        }
+        return null;
+    }
+
+    /**
+     * Sets the worker count by hand; the autoscaler, if running, keeps
+     * adjusting from there within its bounds.
+     */
+    public synchronized ScalingDecision resize(int workers) {
+        int active = worker.activeWorkers();
+        int target = worker.resize(workers);
+        return record(active, target, "manual", lastDepth(), lastUtilization(), 0, 0);
+    }
+
+    /**
+     * Changes the autoscaling bounds and moves the worker count inside them.
+     */
+    public synchronized ScalingDecision setBounds(int newMin, int newMax) {
+        if (newMin < 1 || newMax < newMin) {
+            throw new IllegalArgumentException("need 1 <= min <= max, got " + newMin + " and " + newMax);
+        }
+        min = newMin;
+        max = newMax;
+        upStreak = 0;
+        downStreak = 0;
+        return clamp("bounds changed");
+    }
+
+    private ScalingDecision clamp(String reason) {
+        if (!worker.isResizable()) {
+            return null;
+        }
+        int active = worker.activeWorkers();
+        int target = Math.max(min, Math.min(max, active));
+        if (target == active) {
+            return null;
+        }
+        return record(active, worker.resize(target), reason, lastDepth(), lastUtilization(), 0, 0);
+    }
+
+    private ScalingDecision record(int from, int to, String reason, double depth, double utilization,
+                                   double parseMicros, double forwardMillis) {
+        ScalingDecision decision = new ScalingDecision(Instant.now(), from, to, reason,
+                depth, utilization, parseMicros, forwardMillis);
+        synchronized (decisions) {
+            if (decisions.size() == HISTORY) {
+                decisions.removeFirst();
+            }
+            decisions.addLast(decision);
+        }
+        if (from != to) {
+            log.info("Workers {} -> {}: {}", from, to, reason);
+        }
+        return decision;
+    }
+
+    private double lastDepth() {
+        ScalingDecision sample = lastSample;
+        return sample != null ? sample.getQueueDepth() : 0;
+    }
+
+    private double lastUtilization() {
+        ScalingDecision sample = lastSample;
+        return sample != null ? sample.getUtilization() : 0;
+    }
+
+    /**
+     * Readings from the latest evaluation, or null before the first one.
+     */
+    public ScalingDecision lastSample() {
+        return lastSample;
+    }
+
+    /**
+     * Decisions oldest first, up to the last {@value #HISTORY}.
+     */
+    public List<ScalingDecision> decisions() {
+        synchronized (decisions) {
+            return new ArrayList<>(decisions);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+}
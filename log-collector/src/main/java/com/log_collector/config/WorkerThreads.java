@@ -0,0 +1,56 @@
+package com.log_collector.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates the executor that runs {@link LogWorker} loops.
+ * <p>
+ * Virtual threads are looked up reflectively because the collector is
+ * compiled for an older language level; on a runtime without them the
+ * platform pool is used and a warning is logged.
+ */
+public final class WorkerThreads {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkerThreads.class);
+
+    private static final Method VIRTUAL_EXECUTOR = findVirtualExecutor();
+
+    private WorkerThreads() {
+    }
+
+    public static ExecutorService create(CollectorProperties.Workers config) {
+        if (config.getCount() <= 0) {
+            throw new IllegalArgumentException("worker count must be positive: " + config.getCount());
+        }
+        if (config.getMode() == CollectorProperties.WorkerMode.VIRTUAL) {
+            if (virtualThreadsSupported()) {
+                try {
+                    return (ExecutorService) VIRTUAL_EXECUTOR.invoke(null);
+                } catch (ReflectiveOperationException e) {
+                    log.warn("Cannot create virtual thread executor, using platform threads", e);
+                }
+            } else {
+                log.warn("Virtual threads need Java 21+ (running {}), using platform threads",
+                        System.getProperty("java.version"));
+            }
+        }
+        return Executors.newFixedThreadPool(config.getCount());
+    }
+
+    public static boolean virtualThreadsSupported() {
+        return VIRTUAL_EXECUTOR != null;
+    }
+
+    private static Method findVirtualExecutor() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
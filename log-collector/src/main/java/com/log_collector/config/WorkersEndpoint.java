@@ -0,0 +1,69 @@
+package com.log_collector.config;
+
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * {@code /actuator/workers}: current worker and queue sizing with the
+ * autoscaler's recent decisions. A POST with {@code workers} and/or
+ * {@code min}/{@code max} changes them without a redeploy.
+ */
+@Component
+@Endpoint(id = "workers")
+public class WorkersEndpoint {
+
+    private final LogWorker worker;
+    private final WorkerAutoscaler autoscaler;
+    private final BlockingQueue<String> queue;
+
+    public WorkersEndpoint(LogWorker worker, WorkerAutoscaler autoscaler, BlockingQueue<String> logQueue) {
+        this.worker = worker;
+        this.autoscaler = autoscaler;
+        this.queue = logQueue;
+    }
+
+    @ReadOperation
+    public Map<String, Object> sizing() {
+        Map<String, Object> workers = new LinkedHashMap<>();
+        workers.put("active", worker.activeWorkers());
+        workers.put("resizable", worker.isResizable());
+        workers.put("poolLimit", worker.poolLimit());
+        workers.put("autoscale", autoscaler.isEnabled());
+        workers.put("min", autoscaler.min());
+        workers.put("max", autoscaler.max());
+
+        Map<String, Object> queueSizing = new LinkedHashMap<>();
+        queueSizing.put("depth", queue.size());
+        queueSizing.put("capacity", queue.size() + queue.remainingCapacity());
+
+        Map<String, Object> sizing = new LinkedHashMap<>();
+        sizing.put("workers", workers);
+        sizing.put("queue", queueSizing);
+        sizing.put("lastSample", autoscaler.lastSample());
+        sizing.put("decisions", autoscaler.decisions());
+        return sizing;
+    }
+
+    @WriteOperation
+    public Map<String, Object> update(@Nullable Integer workers, @Nullable Integer min, @Nullable Integer max) {
+        try {
+            if (min != null || max != null) {
+                autoscaler.setBounds(min != null ? min : autoscaler.min(), max != null ? max : autoscaler.max());
+            }
+            if (workers != null) {
+                autoscaler.resize(workers);
+            }
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+        return sizing();
+    }
+}
@@ -0,0 +1,108 @@
+package com.log_collector.forward;
+
+import com.log_collector.model.LogEvent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Groups events into batches that are handed to a sink once they reach
+ * {@code maxSize} events or once the oldest event has waited {@code linger}.
+ * Safe for concurrent producers; size-triggered batches are flushed on the
+ * producing thread, linger-triggered ones on a timer thread.
+ */
+public class EventBatcher implements AutoCloseable {
+
+    private final int maxSize;
+    private final long lingerNanos;
+    private final Consumer<List<LogEvent>> sink;
+    private final DistributionSummary batchSize;
+    private final ScheduledExecutorService timer;
+
+    private List<LogEvent> buffer;
+
+    public EventBatcher(int maxSize, Duration linger, Consumer<List<LogEvent>> sink, MeterRegistry registry) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("batch size must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.lingerNanos = linger.toNanos();
+        this.sink = sink;
+        this.buffer = new ArrayList<>(maxSize);
+        this.batchSize = DistributionSummary.builder("collector.forward.batch.size")
+                .description("Events per forwarded batch")
+                .register(registry);
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "event-batcher");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public void add(LogEvent event) {
+        List<LogEvent> full = null;
+        synchronized (this) {
+            buffer.add(event);
+            if (buffer.size() == 1 && buffer.size() < maxSize) {
+                List<LogEvent> current = buffer;
+                timer.schedule(() -> flushIfCurrent(current), lingerNanos, TimeUnit.NANOSECONDS);
+            }
+            if (buffer.size() >= maxSize) {
+                full = swap();
+            }
+        }
+        if (full != null) {
+            emit(full);
+        }
+    }
+
+    /**
+     * Sends whatever is buffered right now.
+     */
+    public void flush() {
+        List<LogEvent> batch;
+        synchronized (this) {
+            batch = buffer.isEmpty() ? null : swap();
+        }
+        if (batch != null) {
+            emit(batch);
+        }
+    }
+
+    private void flushIfCurrent(List<LogEvent> expected) {
+        List<LogEvent> batch = null;
+        synchronized (this) {
+            // The batch may already have gone out because it filled up
+            if (buffer == expected && !buffer.isEmpty()) {
+                batch = swap();
+            }
+        }
+        if (batch != null) {
+            emit(batch);
+        }
+    }
+
+    private List<LogEvent> swap() {
+        List<LogEvent> batch = buffer;
+        buffer = new ArrayList<>(maxSize);
+        return batch;
+    }
+
+    private void emit(List<LogEvent> batch) {
+        batchSize.record(batch.size());
+        sink.accept(batch);
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        flush();
+    }
+}
@@ -0,0 +1,81 @@
+package com.log_collector.forward;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Consistent hash ring: each member owns {@code virtualNodes} points and a
+ * key belongs to the first point at or after its hash. Adding or removing
+ * a member only moves the keys next to its points, roughly {@code 1/n} of
+ * them, and keys of a member that is skipped move to the next member on
+ * the ring rather than being reshuffled.
+ */
+final class HashRing<T> {
+
+    private final long[] points;
+    private final T[] owners;
+
+    @SuppressWarnings("unchecked")
+    HashRing(List<T> members, Function<T, String> name, int virtualNodes) {
+        if (members.isEmpty()) {
+            throw new IllegalArgumentException("ring needs at least one member");
+        }
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("virtualNodes must be positive: " + virtualNodes);
+        }
+        int size = members.size() * virtualNodes;
+        long[][] pairs = new long[size][];
+        int n = 0;
+        for (int m = 0; m < members.size(); m++) {
+            String prefix = name.apply(members.get(m)) + "#";
+            for (int v = 0; v < virtualNodes; v++) {
+                pairs[n++] = new long[]{hash(prefix + v), m};
+            }
+        }
+        Arrays.sort(pairs, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        this.points = new long[size];
+        this.owners = (T[]) new Object[size];
+        for (int i = 0; i < size; i++) {
+            points[i] = pairs[i][0];
+            owners[i] = members.get((int) pairs[i][1]);
+        }
+    }
+
+    /**
+     * Owner of {@code key}, skipping members that fail {@code usable}; the
+     * plain owner when none pass.
+     */
+    T route(String key, Predicate<T> usable) {
+        int start = Arrays.binarySearch(points, hash(key));
+        if (start < 0) {
+            start = -start - 1;
+        }
+        for (int n = 0; n < points.length; n++) {
+            T owner = owners[(start + n) % points.length];
+            if (usable.test(owner)) {
+                return owner;
+            }
+        }
+        return owners[start % points.length];
+    }
+
+    /**
+     * FNV-1a over the UTF-16 chars, finished with the MurmurHash3 mixer so
+     * similar keys land far apart.
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,415 @@
+package com.log_collector.forward;
+
+import com.log_collector.config.CollectorProperties;
+import com.log_collector.model.LogEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.reactive.socket.CloseStatus;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import org.springframework.web.reactive.socket.client.WebSocketClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.client.WebsocketClientSpec;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long-lived WebSocket to the log server's {@value #PATH} that batches
+ * flow over continuously, instead of one HTTP request per batch.
+ * <p>
+ * Each batch goes out as a binary message: an 8-byte sequence number
+ * followed by the {@link LogBatchCodec} encoding. The server answers with
+ * text messages: {@code credit <n>} allows {@code n} more batches, and
+ * {@code ack <seq>} confirms every batch up to {@code seq}. Batches wait
+ * here until there is credit, and the Mono returned by {@link #send}
+ * completes on the ack. A slow server therefore holds back credit, the
+ * forwarder's in-flight cap fills and workers stop taking lines. A batch
+ * the server cannot decode is answered with {@code nack <seq> <reason>}
+ * and fails without being resent; an older server closes the connection
+ * with 1007 instead, which fails the oldest unacknowledged batch.
+ * <p>
+ * When the connection drops, unacknowledged batches are kept and resent
+ * in order after reconnecting with backoff. Delivery is at least once: a
+ * batch the server stored but could not acknowledge is sent again. With
+ * several log servers, the forwarder instead fails the waiting batches
+ * with {@link UnavailableException} once a connection attempt fails, and
+ * re-routes them to another node.
+ */
+public class IngestStream {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestStream.class);
+
+    public static final String PATH = "/ingest/stream";
+    static final String CREDIT = "credit ";
+    static final String ACK = "ack ";
+    static final String NACK = "nack ";
+
+    // How long close() waits for outstanding batches to be acknowledged
+    static final long CLOSE_GRACE_MILLIS = 5_000;
+    // How long a dropped connection waits for the server's close code
+    private static final Duration CLOSE_STATUS_WAIT = Duration.ofSeconds(1);
+
+    private final WebSocketClient client;
+    private final URI uri;
+    private final boolean compress;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+
+    private final Counter connected;
+    private final Counter connectFailures;
+    private final Counter resent;
+    private final Counter rejected;
+
+    // All guarded by this
+    private final ArrayDeque<Frame> unsent = new ArrayDeque<>();
+    private final ArrayDeque<Frame> unacked = new ArrayDeque<>();
+    private long nextSeq = 1;
+    private int credit;
+    private Sinks.Many<byte[]> current;   // connection being opened or open
+    private boolean open;
+    private boolean reconnectPending;
+    private int failures;
+    private boolean closed;
+    private Disposable connection;
+    private volatile Runnable onConnectFailure;
+    long closeGraceMillis = CLOSE_GRACE_MILLIS;
+
+    public IngestStream(CollectorProperties.Forward config, MeterRegistry registry) {
+        this(config.getBaseUrl(), config, registry);
+    }
+
+    /**
+     * Stream to the log server at {@code baseUrl}; metrics carry it as the {@code node} tag.
+     */
+    public IngestStream(String baseUrl, CollectorProperties.Forward config, MeterRegistry registry) {
+        this(new ReactorNettyWebSocketClient(HttpClient.create(),
+                        () -> WebsocketClientSpec.builder().maxFramePayloadLength(Long.BYTES + LogBatchCodec.MAX_BATCH_BYTES)),
+                baseUrl,
+                config,
+                registry);
+    }
+
+    IngestStream(WebSocketClient client, String baseUrl, CollectorProperties.Forward config, MeterRegistry registry) {
+        this.client = client;
+        this.uri = uri(baseUrl);
+        this.compress = config.getBatch().isCompress();
+        this.initialBackoff = config.getRetry().getInitialBackoff();
+        this.maxBackoff = config.getRetry().getMaxBackoff();
+
+        this.connected = connects(registry, baseUrl, "success");
+        this.connectFailures = connects(registry, baseUrl, "failure");
+        this.resent = Counter.builder("collector.stream.resent")
+                .description("Batches sent again after the ingest stream reconnected")
+                .tag("node", baseUrl)
+                .register(registry);
+        this.rejected = Counter.builder("collector.stream.rejected")
+                .description("Batches the log server could not decode and rejected")
+                .tag("node", baseUrl)
+                .register(registry);
+        Gauge.builder("collector.stream.credit", this, IngestStream::credit)
+                .description("Batches the log server currently allows on the ingest stream")
+                .tag("node", baseUrl)
+                .register(registry);
+        Gauge.builder("collector.stream.unacked", this, IngestStream::pending)
+                .description("Batches held until the log server acknowledges them")
+                .tag("node", baseUrl)
+                .register(registry);
+    }
+
+    private static Counter connects(MeterRegistry registry, String node, String result) {
+        return Counter.builder("collector.stream.connects")
+                .description("Ingest stream connection attempts")
+                .tag("node", node)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    /**
+     * WebSocket address of the stream endpoint for an http(s) base URL.
+     */
+    static URI uri(String baseUrl) {
+        String base = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        if (base.startsWith("https://")) {
+            return URI.create("wss://" + base.substring(8) + PATH);
+        }
+        if (base.startsWith("http://")) {
+            return URI.create("ws://" + base.substring(7) + PATH);
+        }
+        return URI.create(base + PATH);
+    }
+
+    /**
+     * Queues a batch for the stream; the returned Mono completes once the
+     * server has acknowledged it. It fails if the server rejects the batch,
+     * or if the stream is closed or its batches are failed over first.
+     */
+    public Mono<Void> send(List<LogEvent> batch) {
+        return Mono.defer(() -> {
+            byte[] encoded = LogBatchCodec.encode(batch, compress);
+            Frame frame;
+            synchronized (this) {
+                if (closed) {
+                    return Mono.error(new IllegalStateException("Ingest stream is closed"));
+                }
+                frame = new Frame(nextSeq++, encoded);
+                unsent.add(frame);
+                if (current == null && !reconnectPending) {
+                    connect();
+                }
+                drain();
+            }
+            return frame.acked.asMono();
+        });
+    }
+
+    private void connect() {
+        Sinks.Many<byte[]> outbound = Sinks.many().unicast().onBackpressureBuffer();
+        current = outbound;
+        connection = client.execute(uri, session -> {
+                    opened(outbound);
+                    Mono<Void> out = session.send(outbound.asFlux()
+                            .map(bytes -> session.binaryMessage(factory -> factory.wrap(bytes))));
+                    Mono<Void> in = session.receive()
+                            .map(WebSocketMessage::getPayloadAsText)
+                            .doOnNext(text -> control(outbound, text))
+                            .then();
+                    // The connection is over when the server closes it or sending fails;
+                    // its close code tells whether the server rejected a batch
+                    return Mono.firstWithSignal(in, out)
+                            .then(session.closeStatus()
+                                    .timeout(CLOSE_STATUS_WAIT, Mono.empty())
+                                    .doOnNext(status -> closedBy(outbound, status))
+                                    .then());
+                })
+                .subscribe(null,
+                        e -> disconnected(outbound, e),
+                        () -> disconnected(outbound, null));
+    }
+
+    private synchronized void opened(Sinks.Many<byte[]> outbound) {
+        if (outbound == current) {
+            open = true;
+            failures = 0;
+            connected.increment();
+        }
+    }
+
+    private synchronized void control(Sinks.Many<byte[]> outbound, String text) {
+        if (outbound != current) {
+            return;
+        }
+        try {
+            if (text.startsWith(CREDIT)) {
+                credit += Integer.parseInt(text.substring(CREDIT.length()).trim());
+                drain();
+            } else if (text.startsWith(ACK)) {
+                long seq = Long.parseLong(text.substring(ACK.length()).trim());
+                while (!unacked.isEmpty() && unacked.peekFirst().seq <= seq) {
+                    unacked.pollFirst().acked.tryEmitEmpty();
+                }
+                notifyAll();
+            } else if (text.startsWith(NACK)) {
+                String rest = text.substring(NACK.length()).trim();
+                int space = rest.indexOf(' ');
+                long seq = Long.parseLong(space < 0 ? rest : rest.substring(0, space));
+                reject(seq, space < 0 ? "" : rest.substring(space + 1));
+            }
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring ingest stream message: {}", text);
+        }
+    }
+
+    // A 1007 close from a server that does not send nack rejects the oldest outstanding batch
+    private synchronized void closedBy(Sinks.Many<byte[]> outbound, CloseStatus status) {
+        if (outbound == current && status.getCode() == CloseStatus.BAD_DATA.getCode() && !unacked.isEmpty()) {
+            reject(unacked.peekFirst().seq, status.getReason());
+        }
+    }
+
+    // Fails a batch the server could not decode; sending it again would only fail again
+    private void reject(long seq, String reason) {
+        Iterator<Frame> frames = unacked.iterator();
+        while (frames.hasNext()) {
+            Frame frame = frames.next();
+            if (frame.seq == seq) {
+                frames.remove();
+                rejected.increment();
+                log.warn("Log server rejected batch {}: {}", seq, reason);
+                frame.acked.tryEmitError(new IllegalArgumentException("Log server rejected batch: " + reason));
+                notifyAll();
+                return;
+            }
+        }
+    }
+
+    // Sends queued batches while the server allows it
+    private void drain() {
+        while (open && credit > 0 && !unsent.isEmpty()) {
+            Frame frame = unsent.pollFirst();
+            unacked.addLast(frame);
+            credit--;
+            current.tryEmitNext(frame.bytes);
+        }
+    }
+
+    private void disconnected(Sinks.Many<byte[]> outbound, Throwable error) {
+        boolean unreachable;
+        synchronized (this) {
+            if (outbound != current) {
+                return;
+            }
+            unreachable = !open;
+            if (unreachable) {
+                connectFailures.increment();
+            }
+            if (error != null) {
+                log.warn("Ingest stream failed: {}", error.toString());
+            }
+            current = null;
+            open = false;
+            credit = 0;
+
+            // Unacknowledged batches go back in front, still in sequence order
+            Iterator<Frame> back = unacked.descendingIterator();
+            while (back.hasNext()) {
+                unsent.addFirst(back.next());
+                resent.increment();
+            }
+            unacked.clear();
+            notifyAll();
+
+            if (!closed && !unsent.isEmpty()) {
+                failures++;
+                long delay = Math.min(maxBackoff.toMillis(), initialBackoff.toMillis() << Math.min(20, failures - 1));
+                reconnectPending = true;
+                Mono.delay(Duration.ofMillis(delay)).subscribe(tick -> reconnect());
+            }
+        }
+        // Outside the lock: the listener may fail batches over to another node's stream
+        Runnable listener = onConnectFailure;
+        if (unreachable && listener != null) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Runs {@code listener} each time a connection attempt fails, that is
+     * when the server cannot be reached at all.
+     */
+    void onConnectFailure(Runnable listener) {
+        this.onConnectFailure = listener;
+    }
+
+    /**
+     * Fails every batch not yet acknowledged with {@code error}, sent or
+     * not, so that their senders can deliver them elsewhere. The stream
+     * stays usable, and a pending reconnect is dropped as nothing waits
+     * for it any more.
+     */
+    void failPending(RuntimeException error) {
+        List<Frame> failed;
+        synchronized (this) {
+            failed = new ArrayList<>(unacked.size() + unsent.size());
+            failed.addAll(unacked);
+            failed.addAll(unsent);
+            unacked.clear();
+            unsent.clear();
+            notifyAll();
+        }
+        for (Frame frame : failed) {
+            frame.acked.tryEmitError(error);
+        }
+    }
+
+    private synchronized void reconnect() {
+        reconnectPending = false;
+        if (!closed && current == null && !unsent.isEmpty()) {
+            connect();
+        }
+    }
+
+    public synchronized int credit() {
+        return credit;
+    }
+
+    /**
+     * Batches not yet acknowledged, sent or not.
+     */
+    public synchronized int pending() {
+        return unsent.size() + unacked.size();
+    }
+
+    /**
+     * Stops taking batches, waits briefly for outstanding ones to be
+     * acknowledged and closes the connection. Batches still outstanding
+     * after that fail.
+     */
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(closeGraceMillis);
+            try {
+                long left;
+                while (current != null && pending() > 0
+                        && (left = deadline - System.nanoTime()) > 0) {
+                    TimeUnit.NANOSECONDS.timedWait(this, left);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            IllegalStateException failure = new IllegalStateException("Ingest stream is closed");
+            for (Frame frame : unacked) {
+                frame.acked.tryEmitError(failure);
+            }
+            for (Frame frame : unsent) {
+                frame.acked.tryEmitError(failure);
+            }
+            unacked.clear();
+            unsent.clear();
+            current = null;
+            open = false;
+        }
+        if (connection != null) {
+            connection.dispose();
+        }
+    }
+
+    /**
+     * Batch failed because its log server is down; safe to send elsewhere.
+     */
+    public static class UnavailableException extends RuntimeException {
+
+        public UnavailableException(String message) {
+            super(message);
+        }
+    }
+
+    private static final class Frame {
+
+        final long seq;
+        final byte[] bytes;
+        final Sinks.Empty<Void> acked = Sinks.empty();
+
+        Frame(long seq, byte[] batch) {
+            this.seq = seq;
+            this.bytes = ByteBuffer.allocate(Long.BYTES + batch.length)
+                    .putLong(seq)
+                    .put(batch)
+                    .array();
+        }
+    }
+}
@@ -0,0 +1,431 @@
+package com.log_collector.forward;
+
+import com.log_collector.config.CollectorProperties;
+import com.log_collector.model.LogEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Posts events to the log server with a cap on concurrent requests.
+ * <p>
+ * Callers block in {@link #forward} while the cap is reached, which pushes
+ * back on the worker loop instead of piling up pending requests. Connection
+ * errors and 5xx responses are retried with exponential backoff and jitter;
+ * anything else fails immediately. Every request ends up counted as a
+ * success or a failure.
+ * <p>
+ * {@link #post} and {@link #postBatch} are the same requests as cold
+ * Monos for callers that bound concurrency with Reactor operators instead.
+ * <p>
+ * With the {@code BINARY} batch format, batches go out as
+ * {@link LogBatchCodec#CONTENT_TYPE}. A server that answers 415 gets that
+ * batch again as JSON, and JSON is used from then on.
+ * <p>
+ * With the {@code STREAM} transport, events and batches go over one
+ * {@link IngestStream} instead, and a request completes when the server
+ * acknowledges it.
+ * <p>
+ * With several log server nodes, each event goes to the node its routing
+ * key hashes to on a {@link HashRing}, and batches are split by node. A
+ * node whose request still fails after retries is marked down, and its
+ * events go to the next node on the ring; health checks bring it back.
+ */
+public class LogForwarder {
+
+    private static final Logger log = LoggerFactory.getLogger(LogForwarder.class);
+
+    static final String INGEST = "/ingest";
+    static final String INGEST_BATCH = "/ingest/batch";
+
+    private final List<ServerNode> nodes;
+    private final HashRing<ServerNode> ring;    // null with a single node
+    private final Function<LogEvent, String> routingKey;
+    private final boolean streaming;
+    private final Semaphore permits;
+    private final int maxInFlight;
+    private final AtomicInteger active = new AtomicInteger();
+    private final Retry retry;
+    private final boolean compress;
+    private volatile boolean binary;
+    private final String healthPath;
+    private final Duration healthTimeout;
+    private final ScheduledExecutorService health;
+
+    private final Counter success;
+    private final Counter failure;
+    private final Counter retries;
+    private final Counter throttled;
+    private final Counter formatFallbacks;
+    private final Counter failovers;
+    private final Timer singleLatency;
+    private final Timer batchLatency;
+    private final Timer streamLatency;
+
+    /**
+     * Forwarder to the single log server {@code webClient} points at.
+     */
+    public LogForwarder(WebClient webClient, CollectorProperties.Forward config, MeterRegistry registry) {
+        this(Collections.singletonList(config.getBaseUrl()), url -> webClient, config, registry);
+    }
+
+    /**
+     * Forwarder to every node in {@link #nodeUrls}, with a client per node built from {@code builder}.
+     */
+    public LogForwarder(WebClient.Builder builder, CollectorProperties.Forward config, MeterRegistry registry) {
+        this(nodeUrls(config), clients(builder, nodeUrls(config).size()), config, registry);
+    }
+
+    private LogForwarder(List<String> urls,
+                         Function<String, WebClient> clients,
+                         CollectorProperties.Forward config,
+                         MeterRegistry registry) {
+        if (config.getMaxInFlight() <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive: " + config.getMaxInFlight());
+        }
+        this.maxInFlight = config.getMaxInFlight();
+        this.permits = new Semaphore(maxInFlight);
+        this.binary = config.getBatch().getFormat() == CollectorProperties.WireFormat.BINARY;
+        this.compress = config.getBatch().isCompress();
+        this.streaming = config.getTransport() == CollectorProperties.Transport.STREAM;
+
+        this.success = outcome(registry, "success");
+        this.failure = outcome(registry, "failure");
+        this.retries = Counter.builder("collector.forward.retries")
+                .description("Forward attempts that were retried")
+                .register(registry);
+        this.throttled = Counter.builder("collector.forward.throttled")
+                .description("Forwards that had to wait for an in-flight slot")
+                .register(registry);
+        this.singleLatency = latency(registry, INGEST);
+        this.batchLatency = latency(registry, INGEST_BATCH);
+        this.streamLatency = latency(registry, IngestStream.PATH);
+        this.formatFallbacks = Counter.builder("collector.forward.format.fallback")
+                .description("Binary batches the log server rejected with 415 and that were resent as JSON")
+                .register(registry);
+        this.failovers = Counter.builder("collector.forward.failovers")
+                .description("Requests re-routed to other nodes after their node failed")
+                .register(registry);
+        Gauge.builder("collector.forward.in-flight", this, LogForwarder::inFlight)
+                .description("Requests currently in flight to the log server")
+                .register(registry);
+
+        CollectorProperties.Retry policy = config.getRetry();
+        this.retry = Retry.backoff(policy.getMaxRetries(), policy.getInitialBackoff())
+                .maxBackoff(policy.getMaxBackoff())
+                .jitter(policy.getJitter())
+                .filter(LogForwarder::isRetryable)
+                .doBeforeRetry(signal -> retries.increment())
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+
+        List<ServerNode> servers = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            servers.add(new ServerNode(url, clients.apply(url),
+                    streaming ? new IngestStream(url, config, registry) : null,
+                    registry));
+        }
+        this.nodes = Collections.unmodifiableList(servers);
+
+        CollectorProperties.Routing routing = config.getRouting();
+        this.routingKey = routing.getKey() == CollectorProperties.RoutingKey.SERVICE
+                ? LogEvent::getService
+                : LogEvent::getHostname;
+        this.healthPath = routing.getHealthPath();
+        this.healthTimeout = routing.getHealthTimeout();
+        if (nodes.size() > 1) {
+            this.ring = new HashRing<>(nodes, node -> node.url, routing.getVirtualNodes());
+            for (ServerNode node : nodes) {
+                if (node.stream != null) {
+                    node.stream.onConnectFailure(node::streamUnreachable);
+                }
+            }
+            this.health = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "forward-health");
+                t.setDaemon(true);
+                return t;
+            });
+            long interval = routing.getHealthInterval().toMillis();
+            health.scheduleWithFixedDelay(this::checkHealth, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            this.ring = null;
+            this.health = null;
+        }
+    }
+
+    /**
+     * Log server nodes from {@code nodes}, or {@code base-url} when none are listed.
+     */
+    public static List<String> nodeUrls(CollectorProperties.Forward config) {
+        List<String> urls = new ArrayList<>();
+        for (String node : config.getNodes()) {
+            String url = node == null ? "" : node.trim();
+            if (!url.isEmpty() && !urls.contains(url)) {
+                urls.add(url);
+            }
+        }
+        return urls.isEmpty() ? Collections.singletonList(config.getBaseUrl()) : urls;
+    }
+
+    // A single node keeps using the shared builder; several need a copy each
+    private static Function<String, WebClient> clients(WebClient.Builder builder, int nodes) {
+        if (nodes == 1) {
+            return url -> builder.baseUrl(url).build();
+        }
+        return url -> builder.clone().baseUrl(url).build();
+    }
+
+    private static Counter outcome(MeterRegistry registry, String outcome) {
+        return Counter.builder("collector.forward.requests")
+                .description("Forward requests by final outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static Timer latency(MeterRegistry registry, String path) {
+        return Timer.builder("collector.forward.latency")
+                .description("Time from sending a request until it finally succeeds or fails, retries included")
+                .tag("path", path)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    static boolean isRetryable(Throwable t) {
+        if (t instanceof WebClientRequestException || t instanceof IngestStream.UnavailableException) {
+            return true;
+        }
+        return t instanceof WebClientResponseException
+                && ((WebClientResponseException) t).getStatusCode().is5xxServerError();
+    }
+
+    public void forward(LogEvent event) throws InterruptedException {
+        send(post(event));
+    }
+
+    public void forwardBatch(List<LogEvent> batch) throws InterruptedException {
+        send(postBatch(batch));
+    }
+
+    /**
+     * Non-blocking variant of {@link #forward}: nothing is sent until the
+     * returned Mono is subscribed, and the caller bounds concurrency.
+     */
+    public Mono<Void> post(LogEvent event) {
+        return track(streaming ? streamLatency : singleLatency,
+                deliver(Collections.singletonList(event), true, nodes.size() - 1));
+    }
+
+    /**
+     * Non-blocking variant of {@link #forwardBatch}.
+     */
+    public Mono<Void> postBatch(List<LogEvent> batch) {
+        return track(streaming ? streamLatency : batchLatency, deliver(batch, false, nodes.size() - 1));
+    }
+
+    // Sends each event to its node; the split is made at subscription so it follows node health
+    private Mono<Void> deliver(List<LogEvent> events, boolean single, int failoversLeft) {
+        return Mono.defer(() -> {
+            if (ring == null) {
+                return attempt(nodes.get(0), events, single);
+            }
+            Map<ServerNode, List<LogEvent>> byNode = new LinkedHashMap<>();
+            for (LogEvent event : events) {
+                byNode.computeIfAbsent(route(event), node -> new ArrayList<>()).add(event);
+            }
+            List<Mono<Void>> sends = new ArrayList<>(byNode.size());
+            for (Map.Entry<ServerNode, List<LogEvent>> entry : byNode.entrySet()) {
+                sends.add(failingOver(entry.getKey(), entry.getValue(), single, failoversLeft));
+            }
+            return sends.size() == 1 ? sends.get(0) : Mono.whenDelayError(sends);
+        });
+    }
+
+    private Mono<Void> failingOver(ServerNode node, List<LogEvent> events, boolean single, int failoversLeft) {
+        Mono<Void> attempt = attempt(node, events, single);
+        if (failoversLeft <= 0) {
+            return attempt;
+        }
+        return attempt.onErrorResume(LogForwarder::isRetryable, e -> {
+            node.markDown();
+            if (!anyUp()) {
+                return Mono.error(e);
+            }
+            failovers.increment();
+            return deliver(events, single, failoversLeft - 1);
+        });
+    }
+
+    private boolean anyUp() {
+        for (ServerNode node : nodes) {
+            if (node.isUp()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    ServerNode route(LogEvent event) {
+        if (ring == null) {
+            return nodes.get(0);
+        }
+        String key = routingKey.apply(event);
+        return ring.route(key != null ? key : "", ServerNode::isUp);
+    }
+
+    // One node's request with retries, counted against that node
+    private Mono<Void> attempt(ServerNode node, List<LogEvent> events, boolean single) {
+        Mono<Void> request;
+        if (node.stream != null) {
+            request = node.stream.send(events);
+        } else if (single) {
+            request = Mono.defer(() -> node.webClient.post()
+                            .uri(INGEST)
+                            .bodyValue(events.get(0))
+                            .retrieve()
+                            .bodyToMono(Void.class))
+                    .retryWhen(retry);
+        } else {
+            request = batchRequest(node.webClient, events);
+        }
+        return request
+                .doOnSuccess(v -> {
+                    node.success.increment();
+                    node.events.increment(events.size());
+                })
+                .doOnError(e -> node.failure.increment());
+    }
+
+    private Mono<Void> batchRequest(WebClient webClient, List<LogEvent> batch) {
+        return Mono.defer(() -> {
+            // Encoded once so retries resend the same bytes
+            byte[] encoded = binary ? LogBatchCodec.encode(batch, compress) : null;
+            return Mono.defer(() -> {
+                if (encoded == null || !binary) {
+                    return sendBatch(webClient, MediaType.APPLICATION_JSON, batch);
+                }
+                return sendBatch(webClient, LogBatchCodec.MEDIA_TYPE, encoded)
+                        .onErrorResume(LogForwarder::isUnsupportedMediaType, e -> {
+                            if (binary) {
+                                binary = false;
+                                log.warn("Log server does not accept {}, sending JSON batches", LogBatchCodec.CONTENT_TYPE);
+                            }
+                            formatFallbacks.increment();
+                            return sendBatch(webClient, MediaType.APPLICATION_JSON, batch);
+                        });
+            }).retryWhen(retry);
+        });
+    }
+
+    private static Mono<Void> sendBatch(WebClient webClient, MediaType contentType, Object body) {
+        return webClient.post()
+                .uri(INGEST_BATCH)
+                .contentType(contentType)
+                .bodyValue(body)
+                .retrieve()
+                .bodyToMono(Void.class);
+    }
+
+    private static boolean isUnsupportedMediaType(Throwable t) {
+        return t instanceof WebClientResponseException
+                && ((WebClientResponseException) t).getStatusCode().value() == 415;
+    }
+
+    // Outcome counters, latency and the in-flight count for one forward
+    private Mono<Void> track(Timer latency, Mono<Void> request) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            active.incrementAndGet();
+            return request
+                    .doOnSuccess(v -> success.increment())
+                    .doOnError(e -> {
+                        failure.increment();
+                        log.warn("Forward failed: {}", e.toString());
+                    })
+                    .doFinally(signal -> {
+                        latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        active.decrementAndGet();
+                    });
+        });
+    }
+
+    private void send(Mono<Void> request) throws InterruptedException {
+        if (!permits.tryAcquire()) {
+            throttled.increment();
+            permits.acquire();
+        }
+
+        request.doFinally(signal -> permits.release())
+                .subscribe(null, e -> {
+                    // already counted and logged
+                });
+    }
+
+    /**
+     * Probes every node's health endpoint; a node is up while it answers 2xx in time.
+     */
+    void checkHealth() {
+        for (ServerNode node : nodes) {
+            node.webClient.get()
+                    .uri(healthPath)
+                    .retrieve()
+                    .toBodilessEntity()
+                    .timeout(healthTimeout)
+                    .subscribe(ok -> node.markUp(), e -> node.markDown());
+        }
+    }
+
+    List<ServerNode> nodes() {
+        return nodes;
+    }
+
+    public int inFlight() {
+        return active.get();
+    }
+
+    public int maxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Stops health checks and closes ingest streams, if used, once
+     * outstanding batches are acknowledged or their grace period runs out.
+     */
+    public void close() {
+        if (health != null) {
+            health.shutdownNow();
+        }
+        for (ServerNode node : nodes) {
+            if (node.stream != null) {
+                node.stream.close();
+            }
+        }
+    }
+
+    /**
+     * Whether batches currently go out in the binary format.
+     */
+    public boolean isBinary() {
+        return binary;
+    }
+}
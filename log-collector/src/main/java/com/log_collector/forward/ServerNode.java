@@ -0,0 +1,99 @@
+package com.log_collector.forward;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One log server instance the forwarder sends to, with its own client,
+ * stream and health state.
+ */
+final class ServerNode {
+
+    private static final Logger log = LoggerFactory.getLogger(ServerNode.class);
+
+    final String url;
+    final WebClient webClient;
+    final IngestStream stream;
+
+    final Counter success;
+    final Counter failure;
+    final Counter events;
+
+    private final AtomicBoolean up = new AtomicBoolean(true);
+
+    ServerNode(String url, WebClient webClient, IngestStream stream, MeterRegistry registry) {
+        this.url = url;
+        this.webClient = webClient;
+        this.stream = stream;
+        this.success = requests(registry, url, "success");
+        this.failure = requests(registry, url, "failure");
+        this.events = Counter.builder("collector.forward.node.events")
+                .description("Events a log server node accepted")
+                .tag("node", url)
+                .register(registry);
+        Gauge.builder("collector.forward.node.up", this, node -> node.isUp() ? 1 : 0)
+                .description("1 while the node passes health checks and requests, 0 while it is failed over")
+                .tag("node", url)
+                .register(registry);
+    }
+
+    private static Counter requests(MeterRegistry registry, String url, String outcome) {
+        return Counter.builder("collector.forward.node.requests")
+                .description("Requests to one log server node by outcome, before any failover")
+                .tag("node", url)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    boolean isUp() {
+        return up.get();
+    }
+
+    /**
+     * @return whether this changed the node's state
+     */
+    boolean markUp() {
+        if (!up.compareAndSet(false, true)) {
+            return false;
+        }
+        log.info("Log server node up: {}", url);
+        return true;
+    }
+
+    boolean markDown() {
+        if (!up.compareAndSet(true, false)) {
+            return false;
+        }
+        log.warn("Log server node down, failing over: {}", url);
+        failStream();
+        return true;
+    }
+
+    /**
+     * The node's stream could not connect: the node is down, and batches
+     * queued on the stream since it was marked down fail over too.
+     */
+    void streamUnreachable() {
+        if (!markDown()) {
+            failStream();
+        }
+    }
+
+    // Batches waiting on a down node's stream would otherwise wait for it to come back
+    private void failStream() {
+        if (stream != null) {
+            stream.failPending(new IngestStream.UnavailableException("Log server node down: " + url));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return url;
+    }
+}
@@ -14,4 +14,14 @@ public class LogEvent {
     private String hostname;
     private String rawMessage;
     private boolean blacklisted;
+
+    // Syslog header fields, null when the line has no such header
+    private String facility;
+    private String appName;
+    private String procId;
+    private String msgId;
+    private String structuredData;
+
+    // Message template the collector matched, when template mining is on
+    private String templateId;
 }
@@ -0,0 +1,108 @@
+package com.log_collector.pipeline;
+
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Non-blocking counterpart of a {@link java.util.concurrent.Semaphore} for
+ * Reactor pipelines: {@link #run} subscribes to a request once one of the
+ * permits is free and gives the permit back when the request terminates or
+ * is cancelled. Waiting requests are started in arrival order.
+ */
+final class InFlightGate {
+
+    // Both guarded by this
+    private int available;
+    private final ArrayDeque<Waiter> waiting = new ArrayDeque<>();
+
+    InFlightGate(int permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("permits must be positive: " + permits);
+        }
+        this.available = permits;
+    }
+
+    <T> Mono<T> run(Mono<T> request) {
+        return Mono.create(sink -> {
+            Disposable.Swap subscription = Disposables.swap();
+            AtomicBoolean released = new AtomicBoolean();
+            Runnable done = () -> {
+                if (released.compareAndSet(false, true)) {
+                    release();
+                }
+            };
+            Waiter waiter = new Waiter(() -> subscription.update(request
+                    .doFinally(signal -> done.run())
+                    .subscribe(sink::success, sink::error, sink::success)));
+            sink.onCancel(() -> {
+                subscription.dispose();
+                if (!withdraw(waiter)) {
+                    done.run();
+                }
+            });
+            if (admit(waiter)) {
+                waiter.start.run();
+            }
+        });
+    }
+
+    // Takes a permit for the waiter, or queues it
+    private synchronized boolean admit(Waiter waiter) {
+        if (waiter.cancelled) {
+            return false;
+        }
+        if (available > 0) {
+            available--;
+            waiter.granted = true;
+            return true;
+        }
+        waiting.addLast(waiter);
+        return false;
+    }
+
+    // Whether a cancelled waiter left before it was given a permit
+    private synchronized boolean withdraw(Waiter waiter) {
+        if (waiting.remove(waiter) || !waiter.granted) {
+            waiter.cancelled = true;
+            return true;
+        }
+        return false;
+    }
+
+    // Hands the permit to the longest waiter, or returns it to the pool
+    private void release() {
+        Waiter next;
+        synchronized (this) {
+            next = waiting.pollFirst();
+            if (next == null) {
+                available++;
+                return;
+            }
+            next.granted = true;
+        }
+        next.start.run();
+    }
+
+    synchronized int available() {
+        return available;
+    }
+
+    synchronized int waiting() {
+        return waiting.size();
+    }
+
+    private static final class Waiter {
+
+        final Runnable start;
+        boolean granted;      // guarded by the gate
+        boolean cancelled;    // guarded by the gate
+
+        Waiter(Runnable start) {
+            this.start = start;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.log_collector.pipeline;
+
+import com.log_collector.config.CollectorProperties;
+import com.log_collector.forward.LogForwarder;
+import com.log_collector.model.LogEvent;
+import com.log_collector.service.LogParser;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.EventLoop;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.Connection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thread-per-core collector pipeline: each line is parsed on the Netty
+ * event loop that read it and added to a batch owned by that loop, which
+ * the loop also flushes. Nothing is shared between loops on the hot path,
+ * so adding cores ({@code collector.tcp.event-loops}) adds parsing
+ * capacity.
+ * <p>
+ * Each loop keeps at most {@code collector.forward.max-in-flight} requests
+ * open. At the cap, the loop stops requesting lines from its connections
+ * until a request completes, and Reactor Netty stops reading their sockets.
+ * Parsing runs on the I/O thread, so this mode suits cheap parsing only: a
+ * slow line holds up every connection on the same loop.
+ */
+@Component
+@ConditionalOnProperty(name = "collector.pipeline.mode", havingValue = "inline")
+public class InlinePipeline implements LinePipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(InlinePipeline.class);
+
+    private final LogParser parser;
+    private final LogForwarder forwarder;
+    private final CollectorProperties.Batch batch;
+    private final long lingerNanos;
+    private final int prefetch;
+    private final int maxInFlight;
+    private final Map<EventLoop, Lane> lanes = new ConcurrentHashMap<>();
+    private final Counter parseErrors;
+    private final Counter stalls;
+
+    @Autowired
+    public InlinePipeline(LogParser parser,
+                          WebClient.Builder builder,
+                          CollectorProperties properties,
+                          MeterRegistry registry) {
+        this(parser,
+                new LogForwarder(
+                        builder,
+                        properties.getForward(),
+                        registry),
+                properties,
+                registry);
+    }
+
+    public InlinePipeline(LogParser parser,
+                          LogForwarder forwarder,
+                          CollectorProperties properties,
+                          MeterRegistry registry) {
+        if (properties.getPipeline().getPrefetch() <= 0) {
+            throw new IllegalArgumentException("prefetch must be positive: " + properties.getPipeline().getPrefetch());
+        }
+        this.parser = parser;
+        this.forwarder = forwarder;
+        this.batch = properties.getForward().getBatch();
+        this.lingerNanos = batch.getLinger().toNanos();
+        this.prefetch = properties.getPipeline().getPrefetch();
+        this.maxInFlight = forwarder.maxInFlight();
+        this.parseErrors = Counter.builder("collector.pipeline.parse.errors")
+                .description("Lines the pipeline could not parse")
+                .register(registry);
+        this.stalls = Counter.builder("collector.pipeline.stalls")
+                .description("Times an event loop stopped reading because its forwards in flight hit the cap")
+                .register(registry);
+        Gauge.builder("collector.pipeline.lanes", lanes, Map::size)
+                .description("Event loops holding a batch of their own")
+                .register(registry);
+    }
+
+    @Override
+    public Mono<Void> process(Connection connection, Flux<String> lines) {
+        return process(connection.channel().eventLoop(), lines);
+    }
+
+    /**
+     * Runs lines through the lane of {@code loop}; {@code lines} must emit
+     * on that loop, as a connection's inbound flux does.
+     */
+    Mono<Void> process(EventLoop loop, Flux<String> lines) {
+        Lane lane = lanes.computeIfAbsent(loop, Lane::new);
+        return lines.concatMap(lane::accept, prefetch).then();
+    }
+
+    public LogForwarder forwarder() {
+        return forwarder;
+    }
+
+    int laneCount() {
+        return lanes.size();
+    }
+
+    @PreDestroy
+    public void stop() {
+        for (Lane lane : lanes.values()) {
+            lane.execute(lane::flush);
+        }
+        forwarder.close();
+    }
+
+    /**
+     * Per event loop state. Only the owning loop touches it, so no field
+     * needs synchronisation; completions from the HTTP client are handed
+     * back to the loop.
+     */
+    private final class Lane {
+
+        private final EventLoop loop;
+        private List<LogEvent> pending;
+        private ScheduledFuture<?> linger;
+        private int inFlight;
+        private Sinks.Empty<Void> drained;
+
+        Lane(EventLoop loop) {
+            this.loop = loop;
+            this.pending = new ArrayList<>(batch.getSize());
+        }
+
+        // Completes at once unless this loop is at its in-flight cap
+        Mono<Void> accept(String raw) {
+            LogEvent event;
+            try {
+                event = parser.parse(raw);
+            } catch (RuntimeException e) {
+                parseErrors.increment();
+                log.warn("Cannot parse log line", e);
+                return Mono.empty();
+            }
+
+            if (!batch.isEnabled()) {
+                send(forwarder.post(event));
+            } else {
+                pending.add(event);
+                if (pending.size() >= batch.getSize()) {
+                    flush();
+                } else if (linger == null) {
+                    linger = loop.schedule(this::flush, lingerNanos, TimeUnit.NANOSECONDS);
+                }
+            }
+
+            if (inFlight < maxInFlight) {
+                return Mono.empty();
+            }
+            if (drained == null) {
+                drained = Sinks.empty();
+                stalls.increment();
+            }
+            return drained.asMono();
+        }
+
+        void flush() {
+            if (linger != null) {
+                linger.cancel(false);
+                linger = null;
+            }
+            if (pending.isEmpty()) {
+                return;
+            }
+            List<LogEvent> full = pending;
+            pending = new ArrayList<>(batch.getSize());
+            send(forwarder.postBatch(full));
+        }
+
+        private void send(Mono<Void> request) {
+            inFlight++;
+            request.doFinally(signal -> execute(this::completed))
+                    .subscribe(null, e -> {
+                        // counted and logged by the forwarder
+                    });
+        }
+
+        private void completed() {
+            inFlight--;
+            if (drained != null && inFlight < maxInFlight) {
+                Sinks.Empty<Void> resume = drained;
+                drained = null;
+                resume.tryEmitEmpty();
+            }
+        }
+
+        void execute(Runnable task) {
+            if (loop.inEventLoop()) {
+                task.run();
+                return;
+            }
+            try {
+                loop.execute(task);
+            } catch (RejectedExecutionException e) {
+                // loop already shut down; nothing left to resume
+            }
+        }
+    }
+}
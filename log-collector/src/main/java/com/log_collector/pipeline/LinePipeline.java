@@ -0,0 +1,18 @@
+package com.log_collector.pipeline;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+
+/**
+ * Takes over a TCP connection's lines in the pipeline modes that bypass the
+ * log queue. {@link com.log_collector.tcp.TcpLogServer} calls it once per
+ * connection.
+ */
+public interface LinePipeline {
+
+    /**
+     * Consumes one connection's lines; completes when the connection closes.
+     */
+    Mono<Void> process(Connection connection, Flux<String> lines);
+}
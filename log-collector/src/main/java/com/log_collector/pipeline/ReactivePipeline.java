@@ -0,0 +1,120 @@
+package com.log_collector.pipeline;
+
+import com.log_collector.config.CollectorProperties;
+import com.log_collector.forward.LogForwarder;
+import com.log_collector.model.LogEvent;
+import com.log_collector.service.LogParser;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+
+/**
+ * Collector pipeline without the blocking queue: lines from a TCP
+ * connection are parsed, optionally batched and posted to the log server
+ * by Reactor operators on the connection's own flux.
+ * <p>
+ * Nothing is buffered beyond the operators' bounded prefetch. When the
+ * log server is slow, in-flight requests reach their limit, demand stops
+ * flowing upstream and Reactor Netty stops reading the socket, with no
+ * thread hand-off in between. The in-flight limit is shared by all
+ * connections: a request waits in an {@link InFlightGate} for a free slot.
+ * A failed forward is counted by {@link LogForwarder} and skipped, so it
+ * does not close the connection.
+ */
+@Component
+@ConditionalOnProperty(name = "collector.pipeline.mode", havingValue = "reactive")
+public class ReactivePipeline implements LinePipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactivePipeline.class);
+
+    private final LogParser parser;
+    private final LogForwarder forwarder;
+    private final CollectorProperties.Batch batch;
+    private final int prefetch;
+    private final int concurrency;
+    private final InFlightGate gate;
+    private final Counter parseErrors;
+
+    @Autowired
+    public ReactivePipeline(LogParser parser,
+                            WebClient.Builder builder,
+                            CollectorProperties properties,
+                            MeterRegistry registry) {
+        this(parser,
+                new LogForwarder(
+                        builder,
+                        properties.getForward(),
+                        registry),
+                properties,
+                registry);
+    }
+
+    public ReactivePipeline(LogParser parser,
+                            LogForwarder forwarder,
+                            CollectorProperties properties,
+                            MeterRegistry registry) {
+        if (properties.getPipeline().getPrefetch() <= 0) {
+            throw new IllegalArgumentException("prefetch must be positive: " + properties.getPipeline().getPrefetch());
+        }
+        this.parser = parser;
+        this.forwarder = forwarder;
+        this.batch = properties.getForward().getBatch();
+        this.prefetch = properties.getPipeline().getPrefetch();
+        // Per connection at most as many as the gate admits overall
+        this.concurrency = forwarder.maxInFlight();
+        this.gate = new InFlightGate(concurrency);
+        this.parseErrors = Counter.builder("collector.pipeline.parse.errors")
+                .description("Lines the reactive pipeline could not parse")
+                .register(registry);
+    }
+
+    @Override
+    public Mono<Void> process(Connection connection, Flux<String> lines) {
+        return process(lines);
+    }
+
+    /**
+     * Runs one connection's lines through the pipeline; completes when the
+     * connection closes and every forward has finished.
+     */
+    public Mono<Void> process(Flux<String> lines) {
+        Flux<LogEvent> events = lines
+                .limitRate(prefetch)
+                .handle((raw, sink) -> {
+                    try {
+                        sink.next(parser.parse(raw));
+                    } catch (RuntimeException e) {
+                        parseErrors.increment();
+                        log.warn("Cannot parse log line", e);
+                    }
+                });
+
+        if (batch.isEnabled()) {
+            return events
+                    .bufferTimeout(batch.getSize(), batch.getLinger(), true)
+                    .flatMap(b -> gate.run(forwarder.postBatch(b)).onErrorResume(e -> Mono.empty()), concurrency, 1)
+                    .then();
+        }
+        return events
+                .flatMap(e -> gate.run(forwarder.post(e)).onErrorResume(err -> Mono.empty()), concurrency, 1)
+                .then();
+    }
+
+    public LogForwarder forwarder() {
+        return forwarder;
+    }
+
+    @PreDestroy
+    public void stop() {
+        forwarder.close();
+    }
+}
@@ -0,0 +1,29 @@
+package com.log_collector.queue;
+
+/**
+ * How much a line matters when the collector has to shed load.
+ */
+public enum LoadClass {
+
+    // ERROR or worse, or a blacklisted user: never shed
+    CRITICAL,
+
+    // WARNING and NOTICE: kept while the queue has room
+    ELEVATED,
+
+    // INFO, DEBUG and unknown severities: sampled, then dropped, first
+    ROUTINE;
+
+    /**
+     * Class for a syslog severity code (0-7, -1 when unknown).
+     */
+    public static LoadClass of(int severity, boolean blacklisted) {
+        if (blacklisted || (severity >= 0 && severity <= 3)) {
+            return CRITICAL;
+        }
+        if (severity == 4 || severity == 5) {
+            return ELEVATED;
+        }
+        return ROUTINE;
+    }
+}
@@ -0,0 +1,251 @@
+package com.log_collector.queue;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.ToIntFunction;
+
+/**
+ * Log queue split into partitions by a key hash, so every line with the
+ * same key lands in the same partition and keeps its arrival order there.
+ * <p>
+ * Producers use it as one {@link BlockingQueue}: a line is offered to its
+ * own partition and is refused when that partition is full, even if others
+ * have room. Consumers that need the ordering take from
+ * {@link #partition(int)}, one consumer per partition. The aggregate
+ * {@link #poll()} and {@link #take()} visit partitions in turn and are
+ * meant for tests and tooling, not the hot path.
+ */
+public class PartitionedLogQueue extends AbstractQueue<String> implements BlockingQueue<String> {
+
+    // How long the aggregate take() parks between sweeps of empty partitions
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final List<BlockingQueue<String>> partitions;
+    private final ToIntFunction<String> key;
+    private final LongAdder[] lines;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public PartitionedLogQueue(List<BlockingQueue<String>> partitions,
+                               ToIntFunction<String> key,
+                               MeterRegistry registry) {
+        if (partitions.isEmpty()) {
+            throw new IllegalArgumentException("at least one partition is needed");
+        }
+        this.partitions = new ArrayList<>(partitions);
+        this.key = key;
+        this.lines = new LongAdder[partitions.size()];
+        for (int i = 0; i < lines.length; i++) {
+            LongAdder count = new LongAdder();
+            lines[i] = count;
+            BlockingQueue<String> partition = this.partitions.get(i);
+            String tag = Integer.toString(i);
+            Gauge.builder("collector.queue.partition.depth", partition, BlockingQueue::size)
+                    .tag("partition", tag)
+                    .description("Lines waiting in a queue partition")
+                    .register(registry);
+            FunctionCounter.builder("collector.queue.partition.lines", count, LongAdder::sum)
+                    .tag("partition", tag)
+                    .description("Lines accepted by a queue partition")
+                    .register(registry);
+        }
+        Gauge.builder("collector.queue.partition.skew", this, PartitionedLogQueue::skew)
+                .description("Lines in the busiest partition relative to an even split; 1 is balanced")
+                .register(registry);
+    }
+
+    public int partitionCount() {
+        return partitions.size();
+    }
+
+    public BlockingQueue<String> partition(int index) {
+        return partitions.get(index);
+    }
+
+    public int partitionOf(String line) {
+        int h = key.applyAsInt(line);
+        return Math.floorMod(h ^ (h >>> 16), partitions.size());
+    }
+
+    /**
+     * Lines accepted by the busiest partition divided by the mean over all
+     * partitions, since startup; 0 before the first line.
+     */
+    public double skew() {
+        long total = 0;
+        long max = 0;
+        for (LongAdder count : lines) {
+            long n = count.sum();
+            total += n;
+            max = Math.max(max, n);
+        }
+        return total == 0 ? 0 : (double) max * lines.length / total;
+    }
+
+    @Override
+    public boolean offer(String line) {
+        int i = partitionOf(line);
+        if (!partitions.get(i).offer(line)) {
+            return false;
+        }
+        lines[i].increment();
+        return true;
+    }
+
+    @Override
+    public boolean offer(String line, long timeout, TimeUnit unit) throws InterruptedException {
+        int i = partitionOf(line);
+        if (!partitions.get(i).offer(line, timeout, unit)) {
+            return false;
+        }
+        lines[i].increment();
+        return true;
+    }
+
+    @Override
+    public void put(String line) throws InterruptedException {
+        int i = partitionOf(line);
+        partitions.get(i).put(line);
+        lines[i].increment();
+    }
+
+    @Override
+    public String poll() {
+        int start = Math.floorMod(next.getAndIncrement(), partitions.size());
+        for (int k = 0; k < partitions.size(); k++) {
+            String line = partitions.get((start + k) % partitions.size()).poll();
+            if (line != null) {
+                return line;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true) {
+            String line = poll();
+            if (line != null) {
+                return line;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            park(Math.min(remaining, IDLE_PARK_NANOS));
+        }
+    }
+
+    @Override
+    public String take() throws InterruptedException {
+        while (true) {
+            String line = poll();
+            if (line != null) {
+                return line;
+            }
+            park(IDLE_PARK_NANOS);
+        }
+    }
+
+    private static void park(long nanos) throws InterruptedException {
+        LockSupport.parkNanos(nanos);
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+
+    @Override
+    public String peek() {
+        for (BlockingQueue<String> partition : partitions) {
+            String line = partition.peek();
+            if (line != null) {
+                return line;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (BlockingQueue<String> partition : partitions) {
+            size += partition.size();
+        }
+        return size;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        long remaining = 0;
+        for (BlockingQueue<String> partition : partitions) {
+            remaining += partition.remainingCapacity();
+        }
+        return (int) Math.min(Integer.MAX_VALUE, remaining);
+    }
+
+    @Override
+    public int drainTo(Collection<? super String> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super String> c, int maxElements) {
+        int drained = 0;
+        for (BlockingQueue<String> partition : partitions) {
+            if (drained >= maxElements) {
+                break;
+            }
+            drained += partition.drainTo(c, maxElements - drained);
+        }
+        return drained;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private int index;
+            private Iterator<String> current = Collections.emptyIterator();
+            private Iterator<String> last;
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && index < partitions.size()) {
+                    current = partitions.get(index++).iterator();
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                last = current;
+                return current.next();
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                last.remove();
+                last = null;
+            }
+        };
+    }
+}
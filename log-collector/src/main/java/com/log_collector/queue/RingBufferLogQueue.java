@@ -0,0 +1,233 @@
+package com.log_collector.queue;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free multi-producer, multi-consumer queue over a
+ * preallocated ring of slots.
+ * <p>
+ * Each slot carries a sequence number telling producers and consumers
+ * whose turn it is, so claiming a slot is a single CAS on the producer or
+ * consumer cursor and no lock is shared between the two sides. Slots are
+ * reused for the lifetime of the queue. {@link #drainTo(Collection, int)}
+ * claims a run of ready slots with one CAS, which lets workers consume in
+ * batches. Capacity is rounded up to a power of two.
+ */
+public class RingBufferLogQueue extends AbstractQueue<String> implements BlockingQueue<String> {
+
+    private static final long WAIT_SLICE = TimeUnit.DAYS.toNanos(1);
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final String[] slots;
+
+    private final PaddedCursor tail = new PaddedCursor();
+    private final PaddedCursor head = new PaddedCursor();
+
+    private final WaitStrategy.Waiter notEmpty;
+    private final WaitStrategy.Waiter notFull;
+
+    public RingBufferLogQueue(int requestedCapacity, WaitStrategy waitStrategy) {
+        if (requestedCapacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + requestedCapacity);
+        }
+        this.capacity = requestedCapacity == 1 ? 1 : Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.mask = capacity - 1;
+        this.sequences = new AtomicLongArray(capacity);
+        this.slots = new String[capacity];
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.notEmpty = waitStrategy.newWaiter();
+        this.notFull = waitStrategy.newWaiter();
+    }
+
+    @Override
+    public boolean offer(String line) {
+        if (line == null) {
+            throw new NullPointerException();
+        }
+        long pos = tail.get();
+        while (true) {
+            int index = (int) pos & mask;
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slots[index] = line;
+                    // Publishing the sequence makes the slot visible to consumers
+                    sequences.set(index, pos + 1);
+                    notEmpty.signalAll();
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false; // full
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    @Override
+    public String poll() {
+        long pos = head.get();
+        while (true) {
+            int index = (int) pos & mask;
+            long diff = sequences.get(index) - (pos + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    return release(index, pos);
+                }
+                pos = head.get();
+            } else if (diff < 0) {
+                return null; // empty
+            } else {
+                pos = head.get();
+            }
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super String> c, int maxElements) {
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        while (maxElements > 0) {
+            long pos = head.get();
+            int ready = 0;
+            while (ready < maxElements && sequences.get((int) (pos + ready) & mask) == pos + ready + 1) {
+                ready++;
+            }
+            if (ready == 0) {
+                return 0;
+            }
+            if (head.compareAndSet(pos, pos + ready)) {
+                for (int i = 0; i < ready; i++) {
+                    c.add(release((int) (pos + i) & mask, pos + i));
+                }
+                return ready;
+            }
+        }
+        return 0;
+    }
+
+    private String release(int index, long pos) {
+        String line = slots[index];
+        slots[index] = null;
+        sequences.set(index, pos + capacity);
+        notFull.signalAll();
+        return line;
+    }
+
+    @Override
+    public int drainTo(Collection<? super String> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void put(String line) throws InterruptedException {
+        while (!offer(line)) {
+            notFull.await(this::hasSpace, System.nanoTime() + WAIT_SLICE);
+        }
+    }
+
+    @Override
+    public boolean offer(String line, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!offer(line)) {
+            if (!notFull.await(this::hasSpace, deadline)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String take() throws InterruptedException {
+        String line;
+        while ((line = poll()) == null) {
+            notEmpty.await(this::hasItems, System.nanoTime() + WAIT_SLICE);
+        }
+        return line;
+    }
+
+    @Override
+    public String poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        String line;
+        while ((line = poll()) == null) {
+            if (!notEmpty.await(this::hasItems, deadline)) {
+                return null;
+            }
+        }
+        return line;
+    }
+
+    private boolean hasItems() {
+        long pos = head.get();
+        return sequences.get((int) pos & mask) == pos + 1;
+    }
+
+    private boolean hasSpace() {
+        long pos = tail.get();
+        return sequences.get((int) pos & mask) == pos;
+    }
+
+    @Override
+    public String peek() {
+        long pos = head.get();
+        int index = (int) pos & mask;
+        return sequences.get(index) == pos + 1 ? slots[index] : null;
+    }
+
+    @Override
+    public int size() {
+        // Read head first so a concurrent poll cannot make the result negative
+        long h = head.get();
+        long t = tail.get();
+        return (int) Math.max(0, Math.min(capacity, t - h));
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return capacity - size();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Weakly consistent snapshot of the lines currently queued.
+     */
+    @Override
+    public Iterator<String> iterator() {
+        List<String> snapshot = new ArrayList<>();
+        long pos = head.get();
+        long end = tail.get();
+        for (; pos < end; pos++) {
+            int index = (int) pos & mask;
+            String line = slots[index];
+            if (sequences.get(index) == pos + 1 && line != null) {
+                snapshot.add(line);
+            }
+        }
+        return Collections.unmodifiableList(snapshot).iterator();
+    }
+
+    // Keeps the two hot cursors on separate cache lines
+    @SuppressWarnings("unused")
+    private static final class PaddedCursor extends AtomicLong {
+        long p1, p2, p3, p4, p5, p6, p7;
+    }
+}
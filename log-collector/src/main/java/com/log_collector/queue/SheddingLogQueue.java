@@ -0,0 +1,203 @@
+package com.log_collector.queue;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Overload stage in front of the log queue that sheds the least important
+ * lines first.
+ * <p>
+ * Below {@code sampleThreshold} of capacity lines go straight through and
+ * are not inspected. Above it each line is triaged into a {@link LoadClass}:
+ * {@link LoadClass#ROUTINE} lines are sampled at {@code sampleRate}, and
+ * above {@code dropThreshold} dropped. {@link LoadClass#CRITICAL} lines
+ * that find the queue full go to a separate reserved lane, which consumers
+ * drain before the queue.
+ * <p>
+ * {@link #offer} returns true for lines shed on purpose, since they are
+ * accounted for here and must not be retried or counted again by the
+ * caller. It returns false only for a line that should be kept but finds
+ * no room, leaving it to the overflow policy.
+ */
+public class SheddingLogQueue extends AbstractQueue<String> implements BlockingQueue<String> {
+
+    private final BlockingQueue<String> queue;
+    private final BlockingQueue<String> reserved;
+    private final Function<String, LoadClass> triage;
+    private final int sampleAt;
+    private final int dropAt;
+    private final double sampleRate;
+    private final AtomicLong routineSeen = new AtomicLong();
+
+    private final Counter[] dropped = new Counter[LoadClass.values().length];
+    private final Counter sampled;
+    private final Counter reservedUsed;
+
+    public SheddingLogQueue(BlockingQueue<String> queue,
+                            Function<String, LoadClass> triage,
+                            int reservedCapacity,
+                            double sampleThreshold,
+                            double dropThreshold,
+                            double sampleRate,
+                            MeterRegistry registry) {
+        if (reservedCapacity <= 0) {
+            throw new IllegalArgumentException("reserved capacity must be positive: " + reservedCapacity);
+        }
+        if (sampleThreshold < 0 || sampleThreshold > dropThreshold || dropThreshold > 1) {
+            throw new IllegalArgumentException("need 0 <= sample threshold <= drop threshold <= 1, got "
+                    + sampleThreshold + " and " + dropThreshold);
+        }
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("sample rate must be within 0..1: " + sampleRate);
+        }
+        this.queue = queue;
+        this.reserved = new ArrayBlockingQueue<>(reservedCapacity);
+        this.triage = triage;
+        int capacity = queue.size() + queue.remainingCapacity();
+        this.sampleAt = (int) (capacity * sampleThreshold);
+        this.dropAt = (int) (capacity * dropThreshold);
+        this.sampleRate = sampleRate;
+
+        for (LoadClass c : LoadClass.values()) {
+            dropped[c.ordinal()] = Counter.builder("collector.shed.dropped")
+                    .tag("class", c.name().toLowerCase(Locale.ROOT))
+                    .description("Lines dropped by the overload stage")
+                    .register(registry);
+        }
+        this.sampled = Counter.builder("collector.shed.sampled")
+                .tag("class", LoadClass.ROUTINE.name().toLowerCase(Locale.ROOT))
+                .description("Lines skipped by overload sampling")
+                .register(registry);
+        this.reservedUsed = Counter.builder("collector.shed.reserved")
+                .description("Critical lines that went to the reserved lane because the queue was full")
+                .register(registry);
+        Gauge.builder("collector.shed.reserved.depth", reserved, BlockingQueue::size)
+                .description("Critical lines waiting in the reserved lane")
+                .register(registry);
+    }
+
+    @Override
+    public boolean offer(String line) {
+        int depth = queue.size();
+        if (depth < sampleAt && queue.offer(line)) {
+            return true;
+        }
+
+        LoadClass c = triage.apply(line);
+        if (c == LoadClass.ROUTINE) {
+            if (depth >= dropAt) {
+                dropped[c.ordinal()].increment();
+                return true;
+            }
+            if (!sample()) {
+                sampled.increment();
+                return true;
+            }
+        }
+        if (queue.offer(line)) {
+            return true;
+        }
+        if (c == LoadClass.CRITICAL && reserved.offer(line)) {
+            reservedUsed.increment();
+            return true;
+        }
+        dropped[c.ordinal()].increment();
+        return c == LoadClass.ROUTINE;
+    }
+
+    // Keeps sampleRate of the routine lines seen while sampling, evenly spaced
+    private boolean sample() {
+        long n = routineSeen.getAndIncrement();
+        return (long) ((n + 1) * sampleRate) > (long) (n * sampleRate);
+    }
+
+    @Override
+    public boolean offer(String line, long timeout, TimeUnit unit) throws InterruptedException {
+        return offer(line) || queue.offer(line, timeout, unit);
+    }
+
+    @Override
+    public void put(String line) throws InterruptedException {
+        if (!offer(line)) {
+            queue.put(line);
+        }
+    }
+
+    @Override
+    public String poll() {
+        String line = reserved.poll();
+        return line != null ? line : queue.poll();
+    }
+
+    @Override
+    public String poll(long timeout, TimeUnit unit) throws InterruptedException {
+        String line = reserved.poll();
+        return line != null ? line : queue.poll(timeout, unit);
+    }
+
+    @Override
+    public String take() throws InterruptedException {
+        // The lane only fills while the queue is full, so waiting on the queue cannot strand it
+        String line = reserved.poll();
+        return line != null ? line : queue.take();
+    }
+
+    @Override
+    public String peek() {
+        String line = reserved.peek();
+        return line != null ? line : queue.peek();
+    }
+
+    @Override
+    public int drainTo(Collection<? super String> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super String> c, int maxElements) {
+        int drained = reserved.drainTo(c, maxElements);
+        if (drained < maxElements) {
+            drained += queue.drainTo(c, maxElements - drained);
+        }
+        return drained;
+    }
+
+    @Override
+    public int size() {
+        return reserved.size() + queue.size();
+    }
+
+    /**
+     * Room in the queue itself; the reserved lane is kept out of it.
+     */
+    @Override
+    public int remainingCapacity() {
+        return queue.remainingCapacity();
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        // Snapshot; removing through it is not supported
+        List<String> lines = new ArrayList<>(reserved);
+        lines.addAll(queue);
+        return Collections.unmodifiableList(lines).iterator();
+    }
+
+    public int reservedSize() {
+        return reserved.size();
+    }
+}
@@ -0,0 +1,284 @@
+package com.log_collector.queue;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only FIFO of strings kept in memory-mapped segment files.
+ * <p>
+ * Each segment is a fixed-size file of records laid out as
+ * {@code [int length][int crc32][utf-8 bytes]}. Files are zero-filled when
+ * created, so a zero length marks the end of the written data. The read
+ * position is kept in a small mapped checkpoint file. On open, segments are
+ * scanned and the first torn or corrupt record ends its segment, so a crash
+ * mid-write loses at most that record. Disk use is capped at
+ * {@code maxSegments} files; appends are rejected beyond that.
+ */
+public class SpillLog implements Closeable {
+
+    private static final int HEADER = 8;
+    private static final String SUFFIX = ".seg";
+    private static final String CHECKPOINT = "checkpoint";
+
+    private final Path dir;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final CRC32 crc = new CRC32();
+
+    private final ArrayDeque<Long> segments = new ArrayDeque<>();
+    private long nextId;
+
+    private long tailId = -1;
+    private MappedByteBuffer tail;
+
+    private long headId = -1;
+    private MappedByteBuffer head;
+    private int readOffset;
+
+    private final MappedByteBuffer checkpoint;
+
+    private long pending;
+    private long corrupt;
+
+    private SpillLog(Path dir, int segmentSize, int maxSegments, MappedByteBuffer checkpoint) {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Opens the log in {@code dir}, recovering any segments left by a previous run.
+     */
+    public static SpillLog open(Path dir, int segmentSize, long maxBytes) throws IOException {
+        if (segmentSize <= HEADER) {
+            throw new IllegalArgumentException("segmentSize too small: " + segmentSize);
+        }
+        Files.createDirectories(dir);
+        int maxSegments = (int) Math.max(2, maxBytes / segmentSize);
+        SpillLog log = new SpillLog(dir, segmentSize, maxSegments, map(dir.resolve(CHECKPOINT), 16));
+        log.recover();
+        return log;
+    }
+
+    private void recover() throws IOException {
+        long checkpointId = checkpoint.getLong(0);
+        int checkpointOffset = (int) checkpoint.getLong(8);
+
+        List<Long> ids = listSegments();
+        for (long id : ids) {
+            if (id < checkpointId) {
+                Files.deleteIfExists(segmentPath(id));
+            } else {
+                segments.add(id);
+            }
+        }
+        if (segments.isEmpty()) {
+            nextId = Math.max(checkpointId, ids.isEmpty() ? 0 : ids.get(ids.size() - 1) + 1);
+            return;
+        }
+
+        headId = segments.peekFirst();
+        readOffset = headId == checkpointId ? checkpointOffset : 0;
+
+        for (long id : segments) {
+            MappedByteBuffer segment = map(segmentPath(id), segmentSize);
+            int end = scan(segment, id == headId ? readOffset : 0);
+            if (id == segments.peekLast()) {
+                // Clear anything after the last good record so it is never read back
+                for (int i = end; i < segmentSize; i++) {
+                    segment.put(i, (byte) 0);
+                }
+                segment.position(end);
+                tail = segment;
+                tailId = id;
+            }
+        }
+        nextId = tailId + 1;
+        head = headId == tailId ? tail : map(segmentPath(headId), segmentSize);
+    }
+
+    // Counts valid records from offset and returns where they end
+    private int scan(MappedByteBuffer segment, int offset) {
+        while (offset + HEADER <= segmentSize) {
+            int length = segment.getInt(offset);
+            if (length == 0) {
+                break;
+            }
+            if (length < 0 || (long) offset + HEADER + length > segmentSize
+                    || checksum(segment, offset + HEADER, length) != segment.getInt(offset + 4)) {
+                corrupt++;
+                break;
+            }
+            pending++;
+            offset += HEADER + length;
+        }
+        return offset;
+    }
+
+    public synchronized boolean append(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int needed = HEADER + bytes.length;
+        if (needed > segmentSize) {
+            return false;
+        }
+        if (tail == null || tail.remaining() < needed) {
+            if (!roll()) {
+                return false;
+            }
+        }
+
+        int offset = tail.position();
+        crc.reset();
+        crc.update(bytes);
+        tail.putInt(offset + 4, (int) crc.getValue());
+        tail.position(offset + HEADER);
+        tail.put(bytes);
+        // Length goes in last: a record is visible only once it is complete
+        tail.putInt(offset, bytes.length);
+        pending++;
+        return true;
+    }
+
+    private boolean roll() throws IOException {
+        if (segments.size() >= maxSegments) {
+            return false;
+        }
+        if (tail != null) {
+            tail.force();
+        }
+        long id = nextId++;
+        MappedByteBuffer segment = map(segmentPath(id), segmentSize);
+        segments.add(id);
+        tail = segment;
+        tailId = id;
+        if (head == null) {
+            head = segment;
+            headId = id;
+            readOffset = 0;
+        }
+        return true;
+    }
+
+    /**
+     * Removes and returns the oldest record, or null when the log is empty.
+     */
+    public synchronized String poll() throws IOException {
+        while (pending > 0) {
+            boolean sealed = headId != tailId;
+            int limit = sealed ? segmentSize : tail.position();
+
+            int length = readOffset + HEADER <= limit ? head.getInt(readOffset) : 0;
+            if (length <= 0 || (long) readOffset + HEADER + length > limit
+                    || checksum(head, readOffset + HEADER, length) != head.getInt(readOffset + 4)) {
+                if (!sealed) {
+                    // Only reachable if the count drifted; nothing left to read
+                    pending = 0;
+                    return null;
+                }
+                dropHead();
+                continue;
+            }
+
+            byte[] bytes = new byte[length];
+            MappedByteBuffer record = head.duplicate();
+            record.position(readOffset + HEADER);
+            record.get(bytes);
+            readOffset += HEADER + length;
+            pending--;
+            writeCheckpoint();
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        return null;
+    }
+
+    private void dropHead() throws IOException {
+        segments.pollFirst();
+        Files.deleteIfExists(segmentPath(headId));
+        headId = segments.peekFirst();
+        head = headId == tailId ? tail : map(segmentPath(headId), segmentSize);
+        readOffset = 0;
+        writeCheckpoint();
+    }
+
+    private void writeCheckpoint() {
+        checkpoint.putLong(0, headId);
+        checkpoint.putLong(8, readOffset);
+    }
+
+    private int checksum(MappedByteBuffer segment, int offset, int length) {
+        crc.reset();
+        MappedByteBuffer slice = segment.duplicate();
+        slice.limit(offset + length).position(offset);
+        crc.update(slice);
+        return (int) crc.getValue();
+    }
+
+    public synchronized long pending() {
+        return pending;
+    }
+
+    public synchronized boolean isEmpty() {
+        return pending == 0;
+    }
+
+    public synchronized long diskBytes() {
+        return (long) segments.size() * segmentSize;
+    }
+
+    /**
+     * Records skipped during recovery because their checksum or length was invalid.
+     */
+    public synchronized long corruptRecords() {
+        return corrupt;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (tail != null) {
+            tail.force();
+        }
+        checkpoint.force();
+    }
+
+    private List<Long> listSegments() throws IOException {
+        List<Long> ids = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    ids.add(Long.parseLong(name.substring(0, name.length() - SUFFIX.length())));
+                } catch (NumberFormatException ignored) {
+                    // not one of ours
+                }
+            }
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    private Path segmentPath(long id) {
+        return dir.resolve(String.format("%020d%s", id, SUFFIX));
+    }
+
+    private static MappedByteBuffer map(Path file, int size) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            if (raf.length() < size) {
+                raf.setLength(size);
+            }
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.log_collector.queue;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A log queue that overflows to a {@link SpillLog} on disk.
+ * <p>
+ * Lines go to the in-memory queue until it reaches {@code threshold}. From
+ * then on every new line is appended to the spill log, which keeps arrival
+ * order, until a background replayer has moved the whole spill back into
+ * memory. Consumers only ever see the in-memory queue, so {@link #size()}
+ * and {@link #remainingCapacity()} describe memory alone; {@link #offer}
+ * fails only once the spill log's disk budget is used up.
+ */
+public class SpillingLogQueue extends AbstractQueue<String> implements BlockingQueue<String>, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(SpillingLogQueue.class);
+
+    private static final int REPLAY_CHUNK = 256;
+
+    private final BlockingQueue<String> memory;
+    private final SpillLog spill;
+    private final int threshold;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ScheduledExecutorService replayer;
+
+    private final Counter spilled;
+    private final Counter replayed;
+    private final Counter rejected;
+
+    private volatile boolean spilling;
+
+    public SpillingLogQueue(BlockingQueue<String> memory,
+                            SpillLog spill,
+                            int threshold,
+                            Duration replayInterval,
+                            MeterRegistry registry) {
+        int capacity = memory.size() + memory.remainingCapacity();
+        if (threshold <= 0 || threshold > capacity) {
+            throw new IllegalArgumentException("threshold must be in 1.." + capacity + ": " + threshold);
+        }
+        this.memory = memory;
+        this.spill = spill;
+        this.threshold = threshold;
+        this.spilling = !spill.isEmpty();
+
+        this.spilled = Counter.builder("collector.spill.written")
+                .description("Lines written to the disk spill")
+                .register(registry);
+        this.replayed = Counter.builder("collector.spill.replayed")
+                .description("Lines moved from the disk spill back into memory")
+                .register(registry);
+        this.rejected = Counter.builder("collector.spill.rejected")
+                .description("Lines refused because the disk spill was full")
+                .register(registry);
+        Gauge.builder("collector.spill.pending", spill, SpillLog::pending)
+                .description("Lines waiting in the disk spill")
+                .register(registry);
+        Gauge.builder("collector.spill.disk.bytes", spill, SpillLog::diskBytes)
+                .description("Disk space held by spill segments")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("collector.spill.corrupt", spill, SpillLog::corruptRecords)
+                .description("Spill records skipped during recovery")
+                .register(registry);
+
+        this.replayer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "spill-replay");
+            t.setDaemon(true);
+            return t;
+        });
+        long nanos = replayInterval.toNanos();
+        replayer.scheduleWithFixedDelay(this::replay, nanos, nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public boolean offer(String line) {
+        if (!spilling && memory.size() < threshold && memory.offer(line)) {
+            return true;
+        }
+
+        lock.lock();
+        try {
+            if (!spilling && memory.size() < threshold && memory.offer(line)) {
+                return true;
+            }
+            if (spill.append(line)) {
+                spilling = true;
+                spilled.increment();
+                return true;
+            }
+            rejected.increment();
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves spilled lines back into memory, oldest first, while there is room below the threshold.
+     */
+    void replay() {
+        try {
+            while (spilling && memory.size() < threshold) {
+                lock.lock();
+                try {
+                    for (int i = 0; i < REPLAY_CHUNK && memory.size() < threshold; i++) {
+                        String line = spill.poll();
+                        if (line == null) {
+                            spilling = false;
+                            return;
+                        }
+                        // Cannot fail: only this thread adds to memory while spilling
+                        memory.offer(line);
+                        replayed.increment();
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Spill replay failed", e);
+        }
+    }
+
+    public long spilled() {
+        return spill.pending();
+    }
+
+    @Override
+    public void put(String line) throws InterruptedException {
+        while (!offer(line)) {
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+    }
+
+    @Override
+    public boolean offer(String line, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!offer(line)) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+        return true;
+    }
+
+    @Override
+    public String take() throws InterruptedException {
+        return memory.take();
+    }
+
+    @Override
+    public String poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return memory.poll(timeout, unit);
+    }
+
+    @Override
+    public String poll() {
+        return memory.poll();
+    }
+
+    @Override
+    public String peek() {
+        return memory.peek();
+    }
+
+    @Override
+    public int size() {
+        return memory.size();
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return memory.remainingCapacity();
+    }
+
+    @Override
+    public int drainTo(Collection<? super String> c) {
+        return memory.drainTo(c);
+    }
+
+    @Override
+    public int drainTo(Collection<? super String> c, int maxElements) {
+        return memory.drainTo(c, maxElements);
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return memory.iterator();
+    }
+
+    @Override
+    public void close() {
+        replayer.shutdownNow();
+        spill.close();
+    }
+}
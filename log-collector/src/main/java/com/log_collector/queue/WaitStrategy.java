@@ -0,0 +1,126 @@
+package com.log_collector.queue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * How a thread waits for a {@link RingBufferLogQueue} to become ready.
+ * BLOCKING parks on a condition and costs a signal per publish while
+ * someone is waiting; YIELDING spins briefly then yields the CPU;
+ * BUSY_SPIN never gives up the core and has the lowest wake-up latency.
+ */
+public enum WaitStrategy {
+
+    BLOCKING {
+        @Override
+        Waiter newWaiter() {
+            return new BlockingWaiter();
+        }
+    },
+    YIELDING {
+        @Override
+        Waiter newWaiter() {
+            return new SpinningWaiter(true);
+        }
+    },
+    BUSY_SPIN {
+        @Override
+        Waiter newWaiter() {
+            return new SpinningWaiter(false);
+        }
+    };
+
+    abstract Waiter newWaiter();
+
+    interface Waiter {
+
+        /**
+         * Waits until {@code ready} holds or the deadline (a {@link System#nanoTime()} value) passes.
+         */
+        boolean await(BooleanSupplier ready, long deadline) throws InterruptedException;
+
+        void signalAll();
+    }
+
+    private static final class BlockingWaiter implements Waiter {
+
+        // Bounds the damage of a missed signal
+        private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+        private final AtomicInteger waiters = new AtomicInteger();
+
+        @Override
+        public boolean await(BooleanSupplier ready, long deadline) throws InterruptedException {
+            if (ready.getAsBoolean()) {
+                return true;
+            }
+            lock.lockInterruptibly();
+            waiters.incrementAndGet();
+            try {
+                while (!ready.getAsBoolean()) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    changed.awaitNanos(Math.min(remaining, MAX_PARK_NANOS));
+                }
+                return true;
+            } finally {
+                waiters.decrementAndGet();
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void signalAll() {
+            if (waiters.get() > 0) {
+                lock.lock();
+                try {
+                    changed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    private static final class SpinningWaiter implements Waiter {
+
+        private static final int SPINS_BEFORE_YIELD = 100;
+
+        private final boolean yield;
+
+        SpinningWaiter(boolean yield) {
+            this.yield = yield;
+        }
+
+        @Override
+        public boolean await(BooleanSupplier ready, long deadline) throws InterruptedException {
+            int spins = 0;
+            while (!ready.getAsBoolean()) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                if (System.nanoTime() >= deadline) {
+                    return false;
+                }
+                if (yield && ++spins > SPINS_BEFORE_YIELD) {
+                    Thread.yield();
+                } else {
+                    Thread.onSpinWait();
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void signalAll() {
+            // spinners notice on their own
+        }
+    }
+}
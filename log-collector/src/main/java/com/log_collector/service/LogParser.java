@@ -1,22 +1,34 @@
 package com.log_collector.service;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.log_collector.blacklist.UsernameBlacklist;
+import com.log_collector.classify.ClassificationRule;
+import com.log_collector.classify.EventClassifier;
+import com.log_collector.config.CollectorProperties;
 import com.log_collector.model.LogEvent;
+import com.log_collector.queue.LoadClass;
+import com.log_collector.template.TemplateMiner;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.time.Instant;
-import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 @Component
 public class LogParser {
 
-    private static final Set<String> BLACKLIST =
-            Set.of("root", "admin");
-
     private static final ObjectMapper mapper = new ObjectMapper();
+    private static final JsonFactory json = mapper.getFactory();
 
     // Regex patterns
     private static final Pattern LINUX_USER_PATTERN =
@@ -24,29 +36,307 @@ public class LogParser {
     private static final Pattern WINDOWS_USER_PATTERN =
             Pattern.compile("Account Name:\\s*(\\w+)");
 
+    private static final String LINUX_USER = "user";
+    private static final String WINDOWS_USER = "Account Name:";
+
+    private final boolean fastPath;
+    private final EventClassifier classifier;
+    private final UsernameBlacklist blacklist;
+    private final SyslogParser syslog;
+    private final TemplateMiner templates;
+    private final Timer ingestLag;
+
+    public LogParser() {
+        this(new CollectorProperties());
+    }
+
+    public LogParser(CollectorProperties properties) {
+        this(properties, new SimpleMeterRegistry());
+    }
+
+    private LogParser(CollectorProperties properties, MeterRegistry registry) {
+        this(properties, new EventClassifier(properties, registry), new UsernameBlacklist(properties, registry), registry);
+    }
+
+    @Autowired
+    public LogParser(CollectorProperties properties,
+                     EventClassifier classifier,
+                     UsernameBlacklist blacklist,
+                     MeterRegistry registry) {
+        this.fastPath = properties.getParser().isFastPath();
+        this.classifier = classifier;
+        this.blacklist = blacklist;
+        this.syslog = new SyslogParser(properties.getParser().getZone());
+        this.templates = properties.getParser().getTemplates().isEnabled()
+                ? new TemplateMiner(classifier, properties.getParser().getTemplates(), registry)
+                : null;
+        this.ingestLag = Timer.builder("collector.parser.ingest.lag")
+                .description("Time from the syslog header timestamp to parsing in the collector")
+                .register(registry);
+    }
+
     public LogEvent parse(String raw) {
+        if (templates != null) {
+            String message = fastPath ? scanMessage(raw) : null;
+            return parseTemplated(message != null ? message : extractMessage(raw));
+        }
+        if (fastPath) {
+            LogEvent event = parseFast(raw);
+            if (event != null) {
+                return event;
+            }
+        }
+        return parseRegex(raw);
+    }
 
+    /**
+     * Load class of the event {@link #parse} would build, worked out from
+     * the PRI, the matching rule and the username alone, for shedding
+     * decisions ahead of the queue.
+     */
+    public LoadClass triage(String raw) {
+        String message = fastPath ? scanMessage(raw) : null;
+        if (message == null) {
+            message = extractMessage(raw);
+        }
+        ClassificationRule rule = classifier.automaton().match(message);
+        int severity = SyslogParser.severityCode(rule != null ? rule.getSeverity() : "INFO");
+        int pri = SyslogParser.priority(message);
+        // Same precedence as build()
+        if (pri >= 0 && (rule == null || severity < 0 || (pri & 7) < severity)) {
+            severity = pri & 7;
+        }
+        return LoadClass.of(severity, blacklist.isListed(scanUsername(message)));
+    }
+
+    /**
+     * Single pass over the payload: streaming JSON, then hand-written
+     * scans for hostname and username. Returns null for payloads only the
+     * tree-based path can interpret exactly (a non-string "message").
+     */
+    LogEvent parseFast(String raw) {
+        String message = scanMessage(raw);
+        if (message == null) {
+            return null;
+        }
+        return build(message, scanHostname(message), scanUsername(message), null);
+    }
+
+    /**
+     * Hostname, username position and classification come from the
+     * message's template; only slot values are read from the message.
+     */
+    LogEvent parseTemplated(String message) {
+        TemplateMiner.Match match = templates.match(message);
+        String username = match.username();
+        return build(message, match.hostname(), username != null ? username : scanUsername(message), match);
+    }
+
+    /**
+     * Original regex-based path, kept as the fallback.
+     */
+    LogEvent parseRegex(String raw) {
         String message = extractMessage(raw);
+        return build(message, extractHostname(message), extractUsername(message), null);
+    }
 
+    private LogEvent build(String message, String hostname, String username, TemplateMiner.Match template) {
         LogEvent event = new LogEvent();
-        event.setTimestamp(Instant.now());
+        Instant now = Instant.now();
+        event.setTimestamp(now);
         event.setRawMessage(message);
 
-        event.setHostname(extractHostname(message));
+        event.setHostname(hostname);
 
         // Username
-        String username = extractUsername(message);
         event.setUsername(username);
 
         //  Blacklist
-        event.setBlacklisted(BLACKLIST.contains(username));
+        event.setBlacklisted(blacklist.contains(username));
 
         // Service + category + severity
-        classifyEvent(message, event);
+        boolean matched;
+        if (template != null) {
+            event.setTemplateId(template.template().getId());
+            matched = classifier.apply(template.rule(), event);
+        } else {
+            matched = classifier.classify(message, event);
+        }
+
+        // Syslog header: event time, hostname, facility, app and PRI severity
+        int severity = syslog.parse(message, event);
+        if (severity >= 0) {
+            int classified = SyslogParser.severityCode(event.getSeverity());
+            // PRI decides, except that a matching rule is never downgraded (lower code = more severe)
+            if (!matched || classified < 0 || severity < classified) {
+                event.setSeverity(SyslogParser.severityName(severity));
+            }
+        }
+        if (event.getTimestamp() != now) {
+            Duration lag = Duration.between(event.getTimestamp(), now);
+            ingestLag.record(lag.isNegative() ? Duration.ZERO : lag);
+        }
 
         return event;
     }
 
+    // Fast path helpers
+
+    private String scanMessage(String raw) {
+        int i = 0;
+        while (i < raw.length() && isJsonWhitespace(raw.charAt(i))) {
+            i++;
+        }
+        // Anything but an object, valid JSON or not, leaves the payload as it is
+        if (i == raw.length() || (raw.charAt(i) != '{' && raw.charAt(i) != '\uFEFF')) {
+            return raw;
+        }
+
+        try (JsonParser parser = json.createParser(raw)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return raw;
+            }
+            String message = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("message".equals(field)) {
+                    if (value != JsonToken.VALUE_STRING) {
+                        return null;
+                    }
+                    message = parser.getText(); // last one wins, as in a tree
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return message != null ? message : raw;
+        } catch (IOException e) {
+            return raw; // fallback for safety
+        }
+    }
+
+    /**
+     * Hash of the hostname the parser would extract from {@code raw}, from
+     * its syslog header if it has one, computed on the raw line without
+     * copying it, for partitioning by host.
+     * JSON escapes are hashed as written, which only matters for hostnames
+     * that contain them.
+     */
+    public static int hostHash(String raw) {
+        int start = 0;
+        int end = raw.length();
+        int field = raw.indexOf("\"message\"");
+        if (field >= 0 && raw.indexOf('{') >= 0 && raw.indexOf('{') < field) {
+            int i = skipJsonWhitespace(raw, field + 9);
+            if (i < end && raw.charAt(i) == ':') {
+                i = skipJsonWhitespace(raw, i + 1);
+                if (i < end && raw.charAt(i) == '"') {
+                    start = i + 1;
+                    int close = start;
+                    while (close < end && raw.charAt(close) != '"') {
+                        close += raw.charAt(close) == '\\' ? 2 : 1;
+                    }
+                    end = Math.min(close, end);
+                }
+            }
+        }
+
+        // A syslog header names the host; otherwise it is the second token, as in scanHostname
+        long header = SyslogParser.hostnameBounds(raw, start, end);
+        int from;
+        int to;
+        if (header >= 0) {
+            from = (int) (header >>> 32);
+            to = (int) header;
+        } else {
+            int first = raw.indexOf(' ', start);
+            if (first < 0 || first >= end) {
+                return 0;
+            }
+            from = first + 1;
+            to = raw.indexOf(' ', from);
+            to = to < 0 || to > end ? end : to;
+        }
+        int h = 0x811c9dc5;
+        for (int i = from; i < to; i++) {
+            h ^= raw.charAt(i);
+            h *= 0x01000193;
+        }
+        return h;
+    }
+
+    private static int skipJsonWhitespace(String raw, int i) {
+        while (i < raw.length() && isJsonWhitespace(raw.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    // Same result as message.split(" ")[1], without building the array
+    static String scanHostname(String message) {
+        int first = message.indexOf(' ');
+        if (first < 0) {
+            return "unknown";
+        }
+        int second = message.indexOf(' ', first + 1);
+        int end = second < 0 ? message.length() : second;
+        if (end > first + 1) {
+            return message.substring(first + 1, end);
+        }
+        // An empty token only counts if something other than spaces follows it
+        for (int i = end; i < message.length(); i++) {
+            if (message.charAt(i) != ' ') {
+                return "";
+            }
+        }
+        return "unknown";
+    }
+
+    // Same result as the LINUX then WINDOWS user patterns
+    static String scanUsername(String message) {
+        String linux = scanAfter(message, LINUX_USER, true);
+        if (linux != null) {
+            return linux;
+        }
+        String windows = scanAfter(message, WINDOWS_USER, false);
+        return windows != null ? windows : "unknown";
+    }
+
+    private static String scanAfter(String message, String label, boolean needsSpace) {
+        int from = 0;
+        int at;
+        while ((at = message.indexOf(label, from)) >= 0) {
+            int i = at + label.length();
+            int spaceStart = i;
+            while (i < message.length() && isRegexWhitespace(message.charAt(i))) {
+                i++;
+            }
+            int wordStart = i;
+            while (i < message.length() && isWordChar(message.charAt(i))) {
+                i++;
+            }
+            if (i > wordStart && (!needsSpace || wordStart > spaceStart)) {
+                return message.substring(wordStart, i);
+            }
+            from = at + 1;
+        }
+        return null;
+    }
+
+    private static boolean isJsonWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+
+    // \s without UNICODE_CHARACTER_CLASS
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    // \w without UNICODE_CHARACTER_CLASS
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
     // Helpers
 
 
@@ -78,33 +368,4 @@ public class LogParser {
         String[] parts = message.split(" ");
         return parts.length > 1 ? parts[1] : "unknown";
     }
-
-    private void classifyEvent(String message, LogEvent event) {
-
-        if (message.contains("sudo") || message.contains("session opened")) {
-            event.setService("linux_login");
-            event.setEventCategory("login.audit");
-            event.setSeverity("INFO");
-
-        } else if (message.contains("cron") || message.contains("session closed")) {
-            event.setService("linux_logout");
-            event.setEventCategory("logout.audit");
-            event.setSeverity("INFO");
-
-        } else if (message.contains("Microsoft-Windows-Security-Auditing")) {
-            event.setService("windows_login");
-            event.setEventCategory("login.audit");
-            event.setSeverity("INFO");
-
-        } else if (message.contains("Application Error")) {
-            event.setService("windows_event");
-            event.setEventCategory("system.event");
-            event.setSeverity("ERROR");
-
-        } else {
-            event.setService("unknown");
-            event.setEventCategory("unknown");
-            event.setSeverity("INFO");
-        }
-    }
 }
@@ -1,21 +1,28 @@
 package com.log_collector.service;
 
+import com.log_collector.blacklist.UsernameBlacklist;
 import com.log_collector.model.LogEvent;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
 import java.time.Instant;
-import java.util.Set;
 
 @Service
 public class LogProcessor {
 
     private final WebClient webClient;
-    private final Set<String> blacklist = Set.of("root", "admin");
+    private final UsernameBlacklist blacklist;
 
     public LogProcessor(WebClient webClient) {
+        this(webClient, new UsernameBlacklist());
+    }
+
+    @Autowired
+    public LogProcessor(WebClient webClient, UsernameBlacklist blacklist) {
         this.webClient = webClient;
+        this.blacklist = blacklist;
     }
 
     public Mono<Void> process(String raw) {
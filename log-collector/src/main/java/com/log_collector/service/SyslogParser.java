@@ -0,0 +1,502 @@
+package com.log_collector.service;
+
+import com.log_collector.model.LogEvent;
+
+import java.time.Clock;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Reads the syslog header in front of a message: {@code <PRI>} followed by
+ * either an RFC 5424 header or a (lenient) RFC 3164 one.
+ * <p>
+ * Header fields are written straight onto the {@link LogEvent}; the
+ * message body is not copied. Timestamps are scanned by hand rather than
+ * through a formatter. RFC 3164 timestamps carry no year or zone, so they
+ * are read in the configured zone and placed in the most recent year that
+ * does not put them in the future.
+ */
+public class SyslogParser {
+
+    static final String[] SEVERITIES = {
+            "EMERGENCY", "ALERT", "CRITICAL", "ERROR", "WARNING", "NOTICE", "INFO", "DEBUG"
+    };
+
+    static final String[] FACILITIES = {
+            "kern", "user", "mail", "daemon", "auth", "syslog", "lpr", "news",
+            "uucp", "cron", "authpriv", "ftp", "ntp", "security", "console", "solaris-cron",
+            "local0", "local1", "local2", "local3", "local4", "local5", "local6", "local7"
+    };
+
+    private static final String MONTHS = "JanFebMarAprMayJunJulAugSepOctNovDec";
+    private static final long FUTURE_SLACK_SECONDS = 86_400;
+
+    private final ZoneId zone;
+    private final Clock clock;
+
+    public SyslogParser(ZoneId zone) {
+        this(zone, Clock.systemUTC());
+    }
+
+    SyslogParser(ZoneId zone, Clock clock) {
+        this.zone = zone;
+        this.clock = clock;
+    }
+
+    /**
+     * Fills timestamp, hostname, facility, appName, procId, msgId and
+     * structuredData from the header, where present.
+     *
+     * @return the PRI severity (0-7), or -1 if the message has no PRI
+     */
+    public int parse(String message, LogEvent event) {
+        int pri = priority(message);
+        if (pri < 0) {
+            return -1;
+        }
+        int i = message.indexOf('>') + 1;
+        event.setFacility(FACILITIES[pri >> 3]);
+
+        if (!parse5424(message, i, event)) {
+            parse3164(message, i, event);
+        }
+        return pri & 7;
+    }
+
+    /**
+     * The PRI value (0-191) at the start of {@code message}, or -1 if it has none.
+     */
+    public static int priority(String message) {
+        return priority(message, 0, message.length());
+    }
+
+    // The PRI value of the message in [start, end) of m, or -1
+    private static int priority(String m, int start, int end) {
+        if (end - start < 3 || m.charAt(start) != '<') {
+            return -1;
+        }
+        int pri = 0;
+        int i = start + 1;
+        while (i < end && i < start + 4 && isDigit(m.charAt(i))) {
+            pri = pri * 10 + (m.charAt(i) - '0');
+            i++;
+        }
+        if (i == start + 1 || i >= end || m.charAt(i) != '>' || pri > 191) {
+            return -1;
+        }
+        return pri;
+    }
+
+    /**
+     * Where the hostname that {@link #parse} takes from the header of the
+     * message in {@code [start, end)} of {@code m} lies, packed as
+     * {@code hostStart << 32 | hostEnd}, or -1 if the header names none.
+     * Scans the same header grammar without copying the message, for
+     * partitioning raw lines by host. An RFC 3164 timestamp is only checked
+     * for its shape, so an impossible date such as {@code Feb 30} counts as
+     * a timestamp here but not in {@link #parse}.
+     */
+    static long hostnameBounds(String m, int start, int end) {
+        if (priority(m, start, end) < 0) {
+            return -1;
+        }
+        int i = m.indexOf('>', start) + 1;
+        long bounds = hostname5424(m, i, end);
+        return bounds != NOT_5424 ? bounds : hostname3164(m, i, end);
+    }
+
+    private static final long NOT_5424 = -2;
+
+    // As parse5424, up to the hostname, returning NOT_5424 where parse5424 would fail
+    private static long hostname5424(String m, int start, int end) {
+        int i = versionEnd(m, start, end);
+        if (i < 0) {
+            return NOT_5424;
+        }
+        int tsStart = i + 1;
+        int tsEnd = indexOfSpace(m, tsStart, end);
+        if (tsEnd < 0 || (!isNil(m, tsStart, tsEnd) && parseRfc3339(m, tsStart, tsEnd) == null)) {
+            return NOT_5424;
+        }
+        int hostStart = tsEnd + 1;
+        i = hostStart;
+        int hostEnd = -1;
+        for (int f = 0; f < 4; f++) {
+            int fieldEnd = indexOfSpace(m, i, end);
+            if (fieldEnd < 0 || fieldEnd == i) {
+                return NOT_5424;
+            }
+            if (f == 0) {
+                hostEnd = fieldEnd;
+            }
+            i = fieldEnd + 1;
+        }
+        int sdEnd = structuredDataEnd(m, i, end);
+        if (sdEnd < 0 || (sdEnd < end && m.charAt(sdEnd) != ' ')) {
+            return NOT_5424;
+        }
+        return isNil(m, hostStart, hostEnd) ? -1 : (long) hostStart << 32 | hostEnd;
+    }
+
+    // As parse3164, up to the hostname
+    private static long hostname3164(String m, int start, int end) {
+        int i = start;
+        while (i < end && m.charAt(i) == ' ') {
+            i++;
+        }
+        int afterTimestamp = bsdTimestampShape(m, i, end) ? i + 15 : -1;
+        if (afterTimestamp < 0) {
+            int tokenEnd = indexOfSpace(m, i, end);
+            if (tokenEnd > i && parseRfc3339(m, i, tokenEnd) != null) {
+                afterTimestamp = tokenEnd;
+            }
+        }
+        if (afterTimestamp >= 0) {
+            i = afterTimestamp;
+            while (i < end && m.charAt(i) == ' ') {
+                i++;
+            }
+        }
+        int tokenEnd = indexOfSpace(m, i, end);
+        if (tokenEnd < 0) {
+            tokenEnd = end;
+        }
+        if (tokenEnd == i || isTag(m, i, tokenEnd)) {
+            return -1;
+        }
+        return (long) i << 32 | tokenEnd;
+    }
+
+    public static String severityName(int severity) {
+        return SEVERITIES[severity];
+    }
+
+    /**
+     * Numeric syslog severity for a name, or -1 for names outside the table.
+     */
+    public static int severityCode(String name) {
+        if (name == null) {
+            return -1;
+        }
+        for (int i = 0; i < SEVERITIES.length; i++) {
+            if (SEVERITIES[i].equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        if ("WARN".equalsIgnoreCase(name)) {
+            return 4;
+        }
+        return -1;
+    }
+
+    // VERSION SP TIMESTAMP SP HOSTNAME SP APP-NAME SP PROCID SP MSGID SP STRUCTURED-DATA [SP MSG]
+    private boolean parse5424(String m, int start, LogEvent event) {
+        int len = m.length();
+        int i = versionEnd(m, start, len);
+        if (i < 0) {
+            return false;
+        }
+        int tsStart = ++i;
+        int tsEnd = m.indexOf(' ', tsStart);
+        if (tsEnd < 0) {
+            return false;
+        }
+        Instant timestamp = null;
+        if (!isNil(m, tsStart, tsEnd)) {
+            timestamp = parseRfc3339(m, tsStart, tsEnd);
+            if (timestamp == null) {
+                return false;
+            }
+        }
+
+        String[] fields = new String[4];
+        i = tsEnd + 1;
+        for (int f = 0; f < fields.length; f++) {
+            int end = m.indexOf(' ', i);
+            if (end < 0 || end == i) {
+                return false;
+            }
+            fields[f] = isNil(m, i, end) ? null : m.substring(i, end);
+            i = end + 1;
+        }
+
+        int sdEnd = structuredDataEnd(m, i, len);
+        if (sdEnd < 0 || (sdEnd < len && m.charAt(sdEnd) != ' ')) {
+            return false;
+        }
+
+        if (timestamp != null) {
+            event.setTimestamp(timestamp);
+        }
+        if (fields[0] != null) {
+            event.setHostname(fields[0]);
+        }
+        event.setAppName(fields[1]);
+        event.setProcId(fields[2]);
+        event.setMsgId(fields[3]);
+        event.setStructuredData(isNil(m, i, sdEnd) ? null : m.substring(i, sdEnd));
+        return true;
+    }
+
+    // [TIMESTAMP SP] HOSTNAME SP TAG[PROCID]: MSG, tolerating a space after PRI
+    private void parse3164(String m, int start, LogEvent event) {
+        int len = m.length();
+        int i = start;
+        while (i < len && m.charAt(i) == ' ') {
+            i++;
+        }
+
+        int afterTimestamp = parseBsdTimestamp(m, i, event);
+        if (afterTimestamp < 0) {
+            int end = m.indexOf(' ', i);
+            Instant iso = end > i ? parseRfc3339(m, i, end) : null;
+            if (iso != null) {
+                event.setTimestamp(iso);
+                afterTimestamp = end;
+            }
+        }
+        if (afterTimestamp >= 0) {
+            i = afterTimestamp;
+            while (i < len && m.charAt(i) == ' ') {
+                i++;
+            }
+        }
+
+        int tokenEnd = m.indexOf(' ', i);
+        if (tokenEnd < 0) {
+            tokenEnd = len;
+        }
+        if (tokenEnd == i) {
+            return;
+        }
+        // A token ending in ':' or carrying [pid] is the tag of a header without hostname
+        if (parseTag(m, i, tokenEnd, event)) {
+            return;
+        }
+        event.setHostname(m.substring(i, tokenEnd));
+
+        i = tokenEnd + 1;
+        if (i < len) {
+            int tagEnd = m.indexOf(' ', i);
+            parseTag(m, i, tagEnd < 0 ? len : tagEnd, event);
+        }
+    }
+
+    private boolean parseTag(String m, int start, int end, LogEvent event) {
+        if (!isTag(m, start, end)) {
+            return false;
+        }
+        int nameEnd = end - 1;
+        String procId = null;
+        if (m.charAt(nameEnd - 1) == ']') {
+            int open = m.lastIndexOf('[', nameEnd - 1);
+            procId = m.substring(open + 1, nameEnd - 1);
+            nameEnd = open;
+        }
+        event.setAppName(m.substring(start, nameEnd));
+        event.setProcId(procId);
+        return true;
+    }
+
+    // TAG: or TAG[PROCID]: in [start, end)
+    private static boolean isTag(String m, int start, int end) {
+        if (m.charAt(end - 1) != ':' || end - 1 == start) {
+            return false;
+        }
+        int nameEnd = end - 1;
+        if (m.charAt(nameEnd - 1) == ']') {
+            int open = m.lastIndexOf('[', nameEnd - 1);
+            if (open <= start) {
+                return false;
+            }
+            nameEnd = open;
+        }
+        for (int i = start; i < nameEnd; i++) {
+            char c = m.charAt(i);
+            if (c == '[' || c == ']' || c == ':') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // VERSION SP at start, returning the index of the space or -1
+    private static int versionEnd(String m, int start, int end) {
+        int i = start;
+        if (i + 1 >= end || m.charAt(i) < '1' || m.charAt(i) > '9') {
+            return -1;
+        }
+        while (i < end && isDigit(m.charAt(i))) {
+            i++;
+        }
+        if (i - start > 2 || i >= end || m.charAt(i) != ' ') {
+            return -1;
+        }
+        return i;
+    }
+
+    // Separators, month name and digits of "Mmm dd hh:mm:ss" at i
+    private static boolean bsdTimestampShape(String m, int i, int end) {
+        if (i + 15 > end || m.charAt(i + 3) != ' ' || m.charAt(i + 6) != ' '
+                || m.charAt(i + 9) != ':' || m.charAt(i + 12) != ':') {
+            return false;
+        }
+        int day = m.charAt(i + 4) == ' ' ? digits(m, i + 5, 1) : digits(m, i + 4, 2);
+        return month(m, i) >= 0 && day >= 0 && digits(m, i + 7, 2) >= 0 && digits(m, i + 10, 2) >= 0
+                && digits(m, i + 13, 2) >= 0;
+    }
+
+    // 0-11 for the month name at i, or -1
+    private static int month(String m, int i) {
+        for (int k = 0; k < 12; k++) {
+            if (MONTHS.regionMatches(k * 3, m, i, 3)) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOfSpace(String m, int from, int end) {
+        int i = m.indexOf(' ', from);
+        return i < end ? i : -1;
+    }
+
+    // "Mmm dd hh:mm:ss", returning the index just past it or -1
+    private int parseBsdTimestamp(String m, int i, LogEvent event) {
+        if (!bsdTimestampShape(m, i, m.length())) {
+            return -1;
+        }
+        int month = month(m, i);
+        int day = m.charAt(i + 4) == ' ' ? digits(m, i + 5, 1) : digits(m, i + 4, 2);
+        int hour = digits(m, i + 7, 2);
+        int minute = digits(m, i + 10, 2);
+        int second = digits(m, i + 13, 2);
+        Instant now = clock.instant();
+        int year = LocalDate.ofInstant(now, zone).getYear();
+        try {
+            Instant t = LocalDateTime.of(year, month + 1, day, hour, minute, second).atZone(zone).toInstant();
+            if (t.getEpochSecond() > now.getEpochSecond() + FUTURE_SLACK_SECONDS) {
+                t = LocalDateTime.of(year - 1, month + 1, day, hour, minute, second).atZone(zone).toInstant();
+            }
+            event.setTimestamp(t);
+            return i + 15;
+        } catch (DateTimeException e) {
+            return -1;
+        }
+    }
+
+    // YYYY-MM-DDThh:mm:ss[.frac](Z|+hh:mm|-hh:mm) in [start, end)
+    static Instant parseRfc3339(String m, int start, int end) {
+        if (end - start < 20 || m.charAt(start + 4) != '-' || m.charAt(start + 7) != '-'
+                || (m.charAt(start + 10) != 'T' && m.charAt(start + 10) != 't')
+                || m.charAt(start + 13) != ':' || m.charAt(start + 16) != ':') {
+            return null;
+        }
+        int year = digits(m, start, 4);
+        int month = digits(m, start + 5, 2);
+        int day = digits(m, start + 8, 2);
+        int hour = digits(m, start + 11, 2);
+        int minute = digits(m, start + 14, 2);
+        int second = digits(m, start + 17, 2);
+        if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0) {
+            return null;
+        }
+
+        int i = start + 19;
+        int nanos = 0;
+        if (m.charAt(i) == '.') {
+            int scale = 100_000_000;
+            i++;
+            int fracStart = i;
+            while (i < end && isDigit(m.charAt(i))) {
+                nanos += (m.charAt(i) - '0') * scale;
+                scale /= 10;
+                i++;
+            }
+            if (i == fracStart || i - fracStart > 9) {
+                return null;
+            }
+        }
+
+        int offsetSeconds;
+        if (i == end - 1 && (m.charAt(i) == 'Z' || m.charAt(i) == 'z')) {
+            offsetSeconds = 0;
+        } else if (i == end - 6 && (m.charAt(i) == '+' || m.charAt(i) == '-') && m.charAt(i + 3) == ':') {
+            int oh = digits(m, i + 1, 2);
+            int om = digits(m, i + 4, 2);
+            if (oh < 0 || om < 0 || oh > 23 || om > 59) {
+                return null;
+            }
+            offsetSeconds = (oh * 3600 + om * 60) * (m.charAt(i) == '-' ? -1 : 1);
+        } else {
+            return null;
+        }
+
+        if (hour > 23 || minute > 59 || second > 60) {
+            return null;
+        }
+        try {
+            long epochDay = LocalDate.of(year, month, day).toEpochDay();
+            // A leap second is folded into the last second of the minute
+            long epochSecond = epochDay * 86_400 + hour * 3600 + minute * 60 + Math.min(second, 59) - offsetSeconds;
+            return Instant.ofEpochSecond(epochSecond, nanos);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    // NILVALUE or one or more [id param="value" ...] elements; returns the index past them or -1
+    private static int structuredDataEnd(String m, int i, int len) {
+        if (i >= len) {
+            return -1;
+        }
+        if (m.charAt(i) == '-') {
+            return i + 1;
+        }
+        while (i < len && m.charAt(i) == '[') {
+            boolean quoted = false;
+            i++;
+            while (i < len) {
+                char c = m.charAt(i);
+                if (quoted && c == '\\' && i + 1 < len) {
+                    i += 2;
+                    continue;
+                }
+                if (c == '"') {
+                    quoted = !quoted;
+                } else if (c == ']' && !quoted) {
+                    break;
+                }
+                i++;
+            }
+            if (i >= len) {
+                return -1;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isNil(String m, int start, int end) {
+        return end - start == 1 && m.charAt(start) == '-';
+    }
+
+    private static int digits(String m, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = m.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,52 @@
+package com.log_collector.tcp;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Counters for the TCP framing stage, published as
+ * {@code collector.tcp.frames{result=accepted|oversize|malformed}}.
+ */
+public class FrameMetrics {
+
+    private final Counter accepted;
+    private final Counter oversize;
+    private final Counter malformed;
+
+    public FrameMetrics(MeterRegistry registry) {
+        this.accepted = frames(registry, "accepted");
+        this.oversize = frames(registry, "oversize");
+        this.malformed = frames(registry, "malformed");
+    }
+
+    private static Counter frames(MeterRegistry registry, String result) {
+        return Counter.builder("collector.tcp.frames")
+                .description("Inbound TCP frames by framing outcome")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    public void accepted() {
+        accepted.increment();
+    }
+
+    public void oversize() {
+        oversize.increment();
+    }
+
+    public void malformed() {
+        malformed.increment();
+    }
+
+    public double acceptedCount() {
+        return accepted.count();
+    }
+
+    public double oversizeCount() {
+        return oversize.count();
+    }
+
+    public double malformedCount() {
+        return malformed.count();
+    }
+}
@@ -0,0 +1,76 @@
+package com.log_collector.tcp;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.util.ByteProcessor;
+
+import java.util.List;
+
+/**
+ * Splits the inbound byte stream on '\n' (optionally preceded by '\r').
+ * Frames are emitted as retained slices of the cumulation buffer, so no
+ * bytes are copied. Lines longer than the limit are discarded up to the
+ * next delimiter and reported through {@link FrameMetrics}.
+ */
+public class LineFrameDecoder extends ByteToMessageDecoder {
+
+    private final int maxFrameLength;
+    private final FrameMetrics metrics;
+
+    private boolean discarding;
+
+    public LineFrameDecoder(int maxFrameLength, FrameMetrics metrics) {
+        if (maxFrameLength <= 0) {
+            throw new IllegalArgumentException("maxFrameLength must be positive: " + maxFrameLength);
+        }
+        this.maxFrameLength = maxFrameLength;
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+        while (in.isReadable()) {
+            int eol = in.forEachByte(ByteProcessor.FIND_LF);
+
+            if (eol < 0) {
+                if (!discarding && in.readableBytes() > maxFrameLength) {
+                    discarding = true;
+                    metrics.oversize();
+                }
+                if (discarding) {
+                    in.skipBytes(in.readableBytes());
+                }
+                return;
+            }
+
+            if (discarding) {
+                in.readerIndex(eol + 1);
+                discarding = false;
+                continue;
+            }
+
+            int length = eol - in.readerIndex();
+            if (length > 0 && in.getByte(eol - 1) == '\r') {
+                length--;
+            }
+
+            if (length > maxFrameLength) {
+                metrics.oversize();
+            } else if (length > 0) {
+                out.add(in.retainedSlice(in.readerIndex(), length));
+            }
+            in.readerIndex(eol + 1);
+        }
+    }
+
+    @Override
+    protected void decodeLast(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        decode(ctx, in, out);
+
+        // A client may close without terminating its last line
+        if (in.isReadable() && !discarding) {
+            out.add(in.readRetainedSlice(in.readableBytes()));
+        }
+    }
+}
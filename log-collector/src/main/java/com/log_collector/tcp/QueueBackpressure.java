@@ -0,0 +1,278 @@
+package com.log_collector.tcp;
+
+import com.log_collector.config.CollectorProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Credit-based flow control between TCP connections and the log queue.
+ * <p>
+ * Each connection is granted a small number of frames at a time. Once the
+ * queue passes the high-water mark no further credit is granted, so Reactor
+ * Netty stops reading the socket (auto-read off) and TCP flow control pushes
+ * back on the client. Frames that were already in flight are parked per
+ * connection rather than dropped. Connections resume once the queue drains
+ * to the low-water mark.
+ */
+public class QueueBackpressure {
+
+    private static final Logger log = LoggerFactory.getLogger(QueueBackpressure.class);
+
+    private final BlockingQueue<String> queue;
+    private final int highWater;
+    private final int lowWater;
+    private final int credit;
+    private final Duration checkInterval;
+
+    private final Map<String, Feeder> connections = new ConcurrentHashMap<>();
+    private final Timer pausedTimer;
+
+    private ScheduledExecutorService resumer;
+
+    public QueueBackpressure(BlockingQueue<String> queue,
+                             CollectorProperties.Tcp config,
+                             MeterRegistry registry) {
+        int capacity = queue.size() + queue.remainingCapacity();
+        if (config.getLowWaterMark() > config.getHighWaterMark()) {
+            throw new IllegalArgumentException("lowWaterMark must not exceed highWaterMark");
+        }
+        this.queue = queue;
+        this.highWater = Math.max(1, (int) (capacity * config.getHighWaterMark()));
+        this.lowWater = (int) (capacity * config.getLowWaterMark());
+        this.credit = Math.max(1, config.getReadCredit());
+        this.checkInterval = config.getResumeCheckInterval();
+
+        this.pausedTimer = Timer.builder("collector.tcp.read.paused")
+                .description("Time a connection spent with socket reads paused")
+                .register(registry);
+        Gauge.builder("collector.tcp.connections.paused", this, QueueBackpressure::pausedConnections)
+                .description("Connections currently paused by queue backpressure")
+                .register(registry);
+    }
+
+    public synchronized void start() {
+        if (resumer == null) {
+            resumer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "tcp-backpressure");
+                t.setDaemon(true);
+                return t;
+            });
+            long nanos = checkInterval.toNanos();
+            resumer.scheduleWithFixedDelay(this::resumeIfDrained, nanos, nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public synchronized void stop() {
+        if (resumer != null) {
+            resumer.shutdownNow();
+            resumer = null;
+        }
+    }
+
+    /**
+     * Feeds the frames of one connection into the queue. The returned Mono
+     * completes when the connection's inbound side completes.
+     */
+    public Mono<Void> feed(String connectionId, Flux<String> frames) {
+        return Mono.create(sink -> {
+            Feeder feeder = new Feeder(connectionId, sink);
+            sink.onDispose(feeder);
+            connections.put(connectionId, feeder);
+            frames.subscribe(feeder);
+        });
+    }
+
+    void resumeIfDrained() {
+        if (queue.size() > lowWater) {
+            return;
+        }
+        for (Feeder feeder : connections.values()) {
+            feeder.resume();
+        }
+    }
+
+    int pausedConnections() {
+        int paused = 0;
+        for (Feeder feeder : connections.values()) {
+            if (feeder.isPaused()) paused++;
+        }
+        return paused;
+    }
+
+    /**
+     * Total time each open connection has spent paused so far.
+     */
+    public Map<String, Duration> pausedTimeByConnection() {
+        Map<String, Duration> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Feeder> entry : connections.entrySet()) {
+            result.put(entry.getKey(), Duration.ofNanos(entry.getValue().pausedNanos()));
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    private final class Feeder extends BaseSubscriber<String> {
+
+        private final String id;
+        private final MonoSink<Void> sink;
+        private final ArrayDeque<String> parked = new ArrayDeque<>();
+
+        private int outstanding;
+        private boolean paused;
+        private boolean inboundDone;
+        private long pausedSince;
+        private long pausedTotal;
+
+        Feeder(String id, MonoSink<Void> sink) {
+            this.id = id;
+            this.sink = sink;
+        }
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            synchronized (this) {
+                outstanding = credit;
+            }
+            subscription.request(credit);
+        }
+
+        @Override
+        protected void hookOnNext(String msg) {
+            long grant = 0;
+            synchronized (this) {
+                outstanding--;
+                if (!parked.isEmpty() || !queue.offer(msg)) {
+                    parked.add(msg);
+                    pause();
+                } else if (queue.size() >= highWater) {
+                    pause();
+                }
+                if (!paused) {
+                    grant = replenish();
+                }
+            }
+            if (grant > 0) request(grant);
+        }
+
+        void resume() {
+            long grant;
+            boolean drained;
+            synchronized (this) {
+                if (!paused) {
+                    return;
+                }
+                while (!parked.isEmpty()) {
+                    if (!queue.offer(parked.peek())) {
+                        return;
+                    }
+                    parked.poll();
+                }
+                long duration = System.nanoTime() - pausedSince;
+                pausedTotal += duration;
+                pausedTimer.record(duration, TimeUnit.NANOSECONDS);
+                paused = false;
+                drained = inboundDone;
+                grant = drained ? 0 : replenish();
+            }
+            if (drained) {
+                finish(0);
+                sink.success();
+            } else if (grant > 0) {
+                request(grant);
+            }
+        }
+
+        private void pause() {
+            if (!paused) {
+                paused = true;
+                pausedSince = System.nanoTime();
+            }
+        }
+
+        // Tops the connection back up once half of its credit is used
+        private long replenish() {
+            if (outstanding > credit / 2) {
+                return 0;
+            }
+            long grant = credit - outstanding;
+            outstanding = credit;
+            return grant;
+        }
+
+        synchronized boolean isPaused() {
+            return paused;
+        }
+
+        synchronized long pausedNanos() {
+            return paused ? pausedTotal + System.nanoTime() - pausedSince : pausedTotal;
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            boolean drained;
+            synchronized (this) {
+                inboundDone = true;
+                drained = parked.isEmpty();
+            }
+            // Parked lines are still delivered after the client disconnects
+            if (drained) {
+                finish(0);
+                sink.success();
+            }
+        }
+
+        @Override
+        protected void hookOnError(Throwable t) {
+            finish(discardParked());
+            sink.error(t);
+        }
+
+        @Override
+        protected void hookOnCancel() {
+            finish(discardParked());
+        }
+
+        private synchronized int discardParked() {
+            int lost = parked.size();
+            parked.clear();
+            return lost;
+        }
+
+        private void finish(int lost) {
+            if (connections.remove(id) == null) {
+                return;
+            }
+            long pausedMs;
+            synchronized (this) {
+                if (paused) {
+                    long duration = System.nanoTime() - pausedSince;
+                    pausedTotal += duration;
+                    pausedTimer.record(duration, TimeUnit.NANOSECONDS);
+                    paused = false;
+                }
+                pausedMs = TimeUnit.NANOSECONDS.toMillis(pausedTotal);
+            }
+            if (pausedMs > 0 || lost > 0) {
+                log.info("Connection {} closed after {} ms paused; {} parked lines discarded", id, pausedMs, lost);
+            }
+        }
+    }
+}
@@ -1,43 +1,161 @@
 package com.log_collector.tcp;
 
+import com.log_collector.config.CollectorProperties;
+import com.log_collector.pipeline.LinePipeline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
 import reactor.netty.DisposableServer;
+import reactor.netty.NettyInbound;
+import reactor.netty.resources.LoopResources;
 import reactor.netty.tcp.TcpServer;
 
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.BlockingQueue;
 
 @Component
 public class TcpLogServer {
 
+    private static final Logger log = LoggerFactory.getLogger(TcpLogServer.class);
+
     private final BlockingQueue<String> queue;
+    private final CollectorProperties.Tcp config;
+    private final FrameMetrics frameMetrics;
+    private final Counter dropped;
+    private final QueueBackpressure backpressure;
+    private final LinePipeline pipeline;
+    private LoopResources loops;
     private DisposableServer server;
 
     public TcpLogServer(BlockingQueue<String> queue) {
+        this(queue, new CollectorProperties(), new SimpleMeterRegistry());
+    }
+
+    public TcpLogServer(BlockingQueue<String> queue,
+                        CollectorProperties properties,
+                        MeterRegistry registry) {
+        this(queue, properties, registry, (LinePipeline) null);
+    }
+
+    @Autowired
+    public TcpLogServer(BlockingQueue<String> queue,
+                        CollectorProperties properties,
+                        MeterRegistry registry,
+                        ObjectProvider<LinePipeline> pipeline) {
+        this(queue, properties, registry, pipeline.getIfAvailable());
+    }
+
+    public TcpLogServer(BlockingQueue<String> queue,
+                        CollectorProperties properties,
+                        MeterRegistry registry,
+                        LinePipeline pipeline) {
+        CollectorProperties.PipelineMode mode = properties.getPipeline().getMode();
+        if (mode != CollectorProperties.PipelineMode.QUEUE && pipeline == null) {
+            throw new IllegalStateException("pipeline mode " + mode + " needs a LinePipeline");
+        }
         this.queue = queue;
+        this.pipeline = mode == CollectorProperties.PipelineMode.QUEUE ? null : pipeline;
+        this.config = properties.getTcp();
+        this.frameMetrics = new FrameMetrics(registry);
+        this.dropped = Counter.builder("collector.tcp.dropped")
+                .description("Lines dropped because the log queue was full")
+                .register(registry);
+        this.backpressure = this.pipeline == null
+                && config.getOverflowPolicy() == CollectorProperties.OverflowPolicy.PAUSE
+                ? new QueueBackpressure(queue, config, registry)
+                : null;
     }
 
     @PostConstruct
     public void start() {
-        server = TcpServer.create()
-                .host("0.0.0.0")
-                .port(9000)
-                .handle((in, out) ->
-                        in.receive()
-                                .asString()
-                                .doOnNext(msg -> {
-                                    if (!queue.offer(msg)) {
-                                        System.err.println("Queue full. Dropping log");
-                                    }
-                                })
-                                .then()
-                )
+        if (backpressure != null) {
+            backpressure.start();
+        }
+        TcpServer tcp = TcpServer.create();
+        if (config.getEventLoops() > 0) {
+            loops = LoopResources.create("collector-tcp", config.getEventLoops(), true);
+            tcp = tcp.runOn(loops);
+        }
+        server = tcp
+                .host(config.getHost())
+                .port(config.getPort())
+                .doOnConnection(conn -> conn.addHandlerLast(
+                        "lineFrameDecoder",
+                        new LineFrameDecoder(config.getMaxFrameLength(), frameMetrics)))
+                .handle((in, out) -> pipeline != null
+                        ? process(in, frames(in))
+                        : enqueue(in, frames(in)))
                 .bindNow();
     }
 
+    private Flux<String> frames(NettyInbound in) {
+        return in.receive()
+                .handle((frame, sink) -> {
+                    String msg = toMessage(frame);
+                    if (msg != null) {
+                        sink.next(msg);
+                    }
+                });
+    }
+
+    private Mono<Void> process(NettyInbound in, Flux<String> frames) {
+        Connection[] conn = new Connection[1];
+        in.withConnection(c -> conn[0] = c);
+        return pipeline.process(conn[0], frames);
+    }
+
+    private Mono<Void> enqueue(NettyInbound in, Flux<String> frames) {
+        if (backpressure != null) {
+            String[] id = new String[1];
+            in.withConnection(conn -> id[0] = conn.channel().id().asShortText()
+                    + "/" + conn.channel().remoteAddress());
+            return backpressure.feed(id[0], frames);
+        }
+
+        return frames
+                .doOnNext(msg -> {
+                    if (!queue.offer(msg)) {
+                        dropped.increment();
+                        log.warn("Queue full. Dropping log");
+                    }
+                })
+                .then();
+    }
+
+    // Decodes one complete frame; frames that are not valid UTF-8 are counted and skipped
+    String toMessage(ByteBuf frame) {
+        if (!ByteBufUtil.isText(frame, StandardCharsets.UTF_8)) {
+            frameMetrics.malformed();
+            return null;
+        }
+        frameMetrics.accepted();
+        return frame.toString(StandardCharsets.UTF_8);
+    }
+
+    FrameMetrics frameMetrics() {
+        return frameMetrics;
+    }
+
+    QueueBackpressure backpressure() {
+        return backpressure;
+    }
+
     @PreDestroy
     public void stop() {
         if (server != null) server.disposeNow();
+        if (loops != null) loops.disposeLater().block();
+        if (backpressure != null) backpressure.stop();
     }
 }
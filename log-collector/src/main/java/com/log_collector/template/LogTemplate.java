@@ -0,0 +1,201 @@
+package com.log_collector.template;
+
+import com.log_collector.classify.ClassificationRule;
+import com.log_collector.classify.KeywordAutomaton;
+
+/**
+ * A message shape: constant tokens plus variable slots. Everything that
+ * only depends on the constant tokens is worked out once here.
+ * <p>
+ * Instances are immutable apart from the access stamp and the cached
+ * classification; a merge replaces the template with a new instance.
+ */
+public final class LogTemplate {
+
+    static final String WILDCARD = "<*>";
+
+    private final String id;
+    // null marks a variable slot
+    private final String[] tokens;
+    private final String text;
+    private final int wildcards;
+
+    // Hostname is the second token; username follows "user" or "Account Name:"
+    private final String hostname;
+    private final int usernameToken;
+    private final String username;
+
+    private volatile long lastUsed;
+    private volatile Classified classified;
+
+    LogTemplate(String[] tokens) {
+        this.tokens = tokens;
+
+        StringBuilder sb = new StringBuilder();
+        int slots = 0;
+        for (int i = 0; i < tokens.length; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            if (tokens[i] == null) {
+                sb.append(WILDCARD);
+                slots++;
+            } else {
+                sb.append(tokens[i]);
+            }
+        }
+        this.text = sb.toString();
+        this.wildcards = slots;
+        this.id = idOf(text);
+
+        this.hostname = tokens.length > 1 ? tokens[1] : "unknown";
+        this.usernameToken = findUsernameToken(tokens);
+        this.username = usernameToken >= 0 && tokens[usernameToken] != null
+                ? wordPrefix(tokens[usernameToken], 0, tokens[usernameToken].length())
+                : null;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public int length() {
+        return tokens.length;
+    }
+
+    public int wildcards() {
+        return wildcards;
+    }
+
+    String token(int i) {
+        return tokens[i];
+    }
+
+    /**
+     * Hostname for a message of this shape; null when it sits in a slot.
+     */
+    String hostname() {
+        return tokens.length > 1 && tokens[1] == null ? null : hostname;
+    }
+
+    /**
+     * Token holding the username, or -1 when the template has no label.
+     */
+    int usernameToken() {
+        return usernameToken;
+    }
+
+    /**
+     * Username when it is part of the constant text, otherwise null.
+     */
+    String username() {
+        return username;
+    }
+
+    /**
+     * Rule for the constant text under the given rule set, recomputed
+     * after a reload.
+     */
+    ClassificationRule rule(KeywordAutomaton automaton) {
+        return classified(automaton, null).rule;
+    }
+
+    /**
+     * Rule for one message of this shape: the cached rule, unless a slot of
+     * a message seen while learning the template held a keyword the
+     * constant text lacks, as in {@code sudo[4242]:}. Messages of such a
+     * template are classified one by one.
+     */
+    ClassificationRule rule(KeywordAutomaton automaton, String message) {
+        Classified c = classified(automaton, message);
+        return c.perMessage ? automaton.match(message) : c.rule;
+    }
+
+    /**
+     * Checks a message the template was created or merged from for keywords
+     * in its slots; {@code perMessage} carries the flag over from the
+     * template a merge replaces. Call before publishing the template.
+     */
+    void learn(KeywordAutomaton automaton, String message, boolean perMessage) {
+        ClassificationRule rule = rule(automaton);
+        if (perMessage || automaton.match(message) != rule) {
+            classified = new Classified(automaton, rule, true);
+        }
+    }
+
+    boolean perMessage(KeywordAutomaton automaton) {
+        return classified(automaton, null).perMessage;
+    }
+
+    private Classified classified(KeywordAutomaton automaton, String message) {
+        Classified c = classified;
+        if (c == null || c.automaton != automaton) {
+            // After a reload, the message at hand is the only one left to check the slots with
+            ClassificationRule rule = automaton.match(text);
+            c = new Classified(automaton, rule, message != null && automaton.match(message) != rule);
+            classified = c;
+        }
+        return c;
+    }
+
+    long lastUsed() {
+        return lastUsed;
+    }
+
+    void touch(long tick) {
+        lastUsed = tick;
+    }
+
+    static String wordPrefix(String s, int start, int end) {
+        int i = start;
+        while (i < end && isWordChar(s.charAt(i))) {
+            i++;
+        }
+        return i > start ? s.substring(start, i) : null;
+    }
+
+    private static int findUsernameToken(String[] tokens) {
+        for (int i = 0; i + 1 < tokens.length; i++) {
+            if ("user".equals(tokens[i])) {
+                return i + 1;
+            }
+        }
+        for (int i = 0; i + 2 < tokens.length; i++) {
+            if ("Account".equals(tokens[i]) && "Name:".equals(tokens[i + 1])) {
+                return i + 2;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    // FNV-1a over the template text, so the same shape gets the same id on every collector
+    private static String idOf(String text) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return String.format("%016x", hash);
+    }
+
+    private static final class Classified {
+
+        final KeywordAutomaton automaton;
+        final ClassificationRule rule;
+        final boolean perMessage;
+
+        Classified(KeywordAutomaton automaton, ClassificationRule rule, boolean perMessage) {
+            this.automaton = automaton;
+            this.rule = rule;
+            this.perMessage = perMessage;
+        }
+    }
+}
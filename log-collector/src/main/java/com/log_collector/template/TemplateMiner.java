@@ -0,0 +1,355 @@
+package com.log_collector.template;
+
+import com.log_collector.classify.ClassificationRule;
+import com.log_collector.classify.EventClassifier;
+import com.log_collector.classify.KeywordAutomaton;
+import com.log_collector.config.CollectorProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Groups messages into {@link LogTemplate}s, Drain style: messages are
+ * bucketed by token count and their first tokens, and within a bucket a
+ * message joins the most similar template when enough of its tokens
+ * match. Tokens that differ become variable slots; tokens with digits
+ * start out as slots.
+ * <p>
+ * Lookups are lock-free. Creating, merging and evicting templates happens
+ * under one lock, which is rare once the fleet's shapes have been seen.
+ * The number of templates is capped and the least recently used one is
+ * evicted to make room. A merge that would change a template's
+ * classification is refused and the message gets a template of its own,
+ * so a cached classification always matches its template's constant text.
+ * Slots can still hide a keyword, since every token with a digit starts out
+ * as one: a template whose learned messages classify differently from its
+ * constant text classifies each of its messages on its own.
+ */
+public class TemplateMiner {
+
+    private final EventClassifier classifier;
+    private final int maxTemplates;
+    private final double similarity;
+    private final int prefixTokens;
+
+    private final Map<String, Leaf> leaves = new ConcurrentHashMap<>();
+    private final Map<LogTemplate, Leaf> templates = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter merged;
+    private final Counter created;
+    private final Counter evicted;
+
+    public TemplateMiner(EventClassifier classifier, CollectorProperties.Templates config, MeterRegistry registry) {
+        if (config.getMaxTemplates() <= 0) {
+            throw new IllegalArgumentException("maxTemplates must be positive: " + config.getMaxTemplates());
+        }
+        this.classifier = classifier;
+        this.maxTemplates = config.getMaxTemplates();
+        this.similarity = config.getSimilarity();
+        this.prefixTokens = Math.max(0, config.getPrefixTokens());
+
+        this.hits = lookup(registry, "hit");
+        this.merged = lookup(registry, "merge");
+        this.created = lookup(registry, "new");
+        this.evicted = Counter.builder("collector.parser.template.evictions")
+                .description("Templates evicted to stay within the cap")
+                .register(registry);
+        Gauge.builder("collector.parser.templates", templates, Map::size)
+                .description("Templates currently cached")
+                .register(registry);
+    }
+
+    public Match match(String message) {
+        int[] bounds = tokenize(message);
+        int length = bounds.length / 2;
+        String key = key(message, bounds, length);
+
+        Leaf leaf = leaves.get(key);
+        if (leaf != null) {
+            LogTemplate best = best(leaf.templates, message, bounds);
+            if (best != null && matchesConstants(best, message, bounds)) {
+                best.touch(clock.incrementAndGet());
+                hits.increment();
+                return new Match(best, message, bounds);
+            }
+        }
+        return new Match(learn(key, message, bounds), message, bounds);
+    }
+
+    public int size() {
+        return templates.size();
+    }
+
+    private synchronized LogTemplate learn(String key, String message, int[] bounds) {
+        Leaf leaf = leaves.computeIfAbsent(key, k -> new Leaf());
+
+        // Another worker may have learned this shape while we waited
+        LogTemplate best = best(leaf.templates, message, bounds);
+        if (best != null && matchesConstants(best, message, bounds)) {
+            best.touch(clock.incrementAndGet());
+            hits.increment();
+            return best;
+        }
+
+        KeywordAutomaton automaton = classifier.automaton();
+        if (best != null) {
+            LogTemplate merge = merge(best, message, bounds);
+            if (merge.rule(automaton) == best.rule(automaton)) {
+                merge.learn(automaton, message, best.perMessage(automaton));
+                replace(leaf, best, merge);
+                merge.touch(clock.incrementAndGet());
+                merged.increment();
+                return merge;
+            }
+        }
+
+        if (templates.size() >= maxTemplates) {
+            evictLeastRecentlyUsed();
+            leaf = leaves.computeIfAbsent(key, k -> new Leaf());
+        }
+        LogTemplate fresh = fromMessage(message, bounds);
+        fresh.learn(automaton, message, false);
+        add(leaf, fresh);
+        fresh.touch(clock.incrementAndGet());
+        created.increment();
+        return fresh;
+    }
+
+    // Most similar template in the bucket at or above the threshold, fewest slots on ties
+    private LogTemplate best(LogTemplate[] candidates, String message, int[] bounds) {
+        int length = bounds.length / 2;
+        LogTemplate best = null;
+        int bestEqual = -1;
+        for (LogTemplate t : candidates) {
+            int equal = 0;
+            for (int i = 0; i < length; i++) {
+                String token = t.token(i);
+                if (token != null && tokenEquals(token, message, bounds, i)) {
+                    equal++;
+                }
+            }
+            if (equal > bestEqual || (equal == bestEqual && t.wildcards() < best.wildcards())) {
+                best = t;
+                bestEqual = equal;
+            }
+        }
+        if (best == null || (length > 0 && (double) bestEqual / length < similarity)) {
+            return null;
+        }
+        return best;
+    }
+
+    private static boolean matchesConstants(LogTemplate t, String message, int[] bounds) {
+        for (int i = 0; i < t.length(); i++) {
+            String token = t.token(i);
+            if (token != null && !tokenEquals(token, message, bounds, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static LogTemplate merge(LogTemplate t, String message, int[] bounds) {
+        String[] tokens = new String[t.length()];
+        for (int i = 0; i < tokens.length; i++) {
+            String token = t.token(i);
+            tokens[i] = token != null && tokenEquals(token, message, bounds, i) ? token : null;
+        }
+        return new LogTemplate(tokens);
+    }
+
+    private static LogTemplate fromMessage(String message, int[] bounds) {
+        String[] tokens = new String[bounds.length / 2];
+        for (int i = 0; i < tokens.length; i++) {
+            int start = bounds[2 * i];
+            int end = bounds[2 * i + 1];
+            tokens[i] = hasDigit(message, start, end) ? null : message.substring(start, end);
+        }
+        return new LogTemplate(tokens);
+    }
+
+    private void add(Leaf leaf, LogTemplate t) {
+        LogTemplate[] current = leaf.templates;
+        LogTemplate[] next = new LogTemplate[current.length + 1];
+        System.arraycopy(current, 0, next, 0, current.length);
+        next[current.length] = t;
+        leaf.templates = next;
+        templates.put(t, leaf);
+    }
+
+    private void replace(Leaf leaf, LogTemplate old, LogTemplate t) {
+        LogTemplate[] next = leaf.templates.clone();
+        for (int i = 0; i < next.length; i++) {
+            if (next[i] == old) {
+                next[i] = t;
+            }
+        }
+        leaf.templates = next;
+        templates.remove(old);
+        templates.put(t, leaf);
+    }
+
+    private void evictLeastRecentlyUsed() {
+        LogTemplate oldest = null;
+        for (LogTemplate t : templates.keySet()) {
+            if (oldest == null || t.lastUsed() < oldest.lastUsed()) {
+                oldest = t;
+            }
+        }
+        if (oldest == null) {
+            return;
+        }
+        Leaf leaf = templates.remove(oldest);
+        LogTemplate[] current = leaf.templates;
+        LogTemplate[] next = new LogTemplate[current.length - 1];
+        int n = 0;
+        for (LogTemplate t : current) {
+            if (t != oldest) {
+                next[n++] = t;
+            }
+        }
+        leaf.templates = next;
+        if (next.length == 0) {
+            leaves.values().remove(leaf);
+        }
+        evicted.increment();
+    }
+
+    // Token count plus the leading tokens, with numeric-looking tokens folded to a slot
+    private String key(String message, int[] bounds, int length) {
+        StringBuilder sb = new StringBuilder(32).append(length);
+        for (int i = 0; i < Math.min(prefixTokens, length); i++) {
+            int start = bounds[2 * i];
+            int end = bounds[2 * i + 1];
+            sb.append(' ');
+            if (hasDigit(message, start, end)) {
+                sb.append(LogTemplate.WILDCARD);
+            } else {
+                sb.append(message, start, end);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Start/end pairs of the tokens between single spaces, dropping trailing
+     * empty tokens the way {@code String.split(" ")} does.
+     */
+    static int[] tokenize(String message) {
+        int count = 1;
+        for (int i = 0; i < message.length(); i++) {
+            if (message.charAt(i) == ' ') {
+                count++;
+            }
+        }
+        int[] bounds = new int[count * 2];
+        int start = 0;
+        int n = 0;
+        for (int i = 0; i <= message.length(); i++) {
+            if (i == message.length() || message.charAt(i) == ' ') {
+                bounds[2 * n] = start;
+                bounds[2 * n + 1] = i;
+                n++;
+                start = i + 1;
+            }
+        }
+        while (n > 0 && bounds[2 * n - 2] == bounds[2 * n - 1]) {
+            n--;
+        }
+        if (n == 0 && message.isEmpty()) {
+            n = 1;
+        }
+        if (n * 2 == bounds.length) {
+            return bounds;
+        }
+        int[] trimmed = new int[n * 2];
+        System.arraycopy(bounds, 0, trimmed, 0, trimmed.length);
+        return trimmed;
+    }
+
+    private static boolean tokenEquals(String token, String message, int[] bounds, int i) {
+        int start = bounds[2 * i];
+        int end = bounds[2 * i + 1];
+        return token.length() == end - start && message.regionMatches(start, token, 0, token.length());
+    }
+
+    private static boolean hasDigit(String s, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Counter lookup(MeterRegistry registry, String result) {
+        return Counter.builder("collector.parser.template.lookups")
+                .tag("result", result)
+                .description("Template lookups by outcome")
+                .register(registry);
+    }
+
+    private static final class Leaf {
+        volatile LogTemplate[] templates = new LogTemplate[0];
+    }
+
+    /**
+     * A message matched to its template, with the token bounds needed to
+     * read slot values.
+     */
+    public final class Match {
+
+        private final LogTemplate template;
+        private final String message;
+        private final int[] bounds;
+
+        Match(LogTemplate template, String message, int[] bounds) {
+            this.template = template;
+            this.message = message;
+            this.bounds = bounds;
+        }
+
+        public LogTemplate template() {
+            return template;
+        }
+
+        public String hostname() {
+            String constant = template.hostname();
+            return constant != null ? constant : slot(1);
+        }
+
+        /**
+         * Username from the template's label position, or null when the
+         * template cannot say and the message has to be scanned.
+         */
+        public String username() {
+            if (template.username() != null) {
+                return template.username();
+            }
+            int token = template.usernameToken();
+            if (token < 0) {
+                return null;
+            }
+            return LogTemplate.wordPrefix(message, bounds[2 * token], bounds[2 * token + 1]);
+        }
+
+        /**
+         * Classification of the message, usually the one cached on the
+         * template; null when no rule matched.
+         */
+        public ClassificationRule rule() {
+            return template.rule(classifier.automaton(), message);
+        }
+
+        public String slot(int i) {
+            return message.substring(bounds[2 * i], bounds[2 * i + 1]);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.log_collector.bench;
+
+import com.log_collector.config.CollectorProperties;
+import com.log_collector.service.LogParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Events per second through the fast path vs the regex path on a mix of
+ * JSON-wrapped syslog lines and plain text.
+ * <p>
+ * Run with {@code mvn test -Dtest=ParserBenchmark -Dbench=true}.
+ */
+@EnabledIfSystemProperty(named = "bench", matches = "true")
+class ParserBenchmark {
+
+    private static final int ROUNDS = 5;
+    private static final int EVENTS = 500_000;
+    private static final String[] LINES = {
+            "{\"message\":\"<86> aiops9242 sudo: pam_unix(sudo:session): session opened for user root(uid=0)\"}",
+            "{\"message\":\"<13> DESKTOP-1 Microsoft-Windows-Security-Auditing An account was logged on. Account Name: alice\"}",
+            "<86> aiops9242 CRON[1234]: pam_unix(cron:session): session closed for user bob",
+            "{\"host\":\"srv-7\",\"message\":\"<11> srv-7 Application Error faulting module ntdll.dll\"}"
+    };
+
+    @Test
+    void compareParserPaths() {
+        LogParser fastParser = parser(true);
+        LogParser regexParser = parser(false);
+        for (int round = 0; round < ROUNDS; round++) {
+            long fast = run(fastParser);
+            long regex = run(regexParser);
+            System.out.printf("round %d  fast=%,10.0f events/s  regex=%,10.0f events/s%n",
+                    round, EVENTS / (fast / 1e9), EVENTS / (regex / 1e9));
+        }
+    }
+
+    private static LogParser parser(boolean fastPath) {
+        CollectorProperties properties = new CollectorProperties();
+        properties.getParser().setFastPath(fastPath);
+        return new LogParser(properties);
+    }
+
+    private long run(LogParser parser) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < EVENTS; i++) {
+            String line = LINES[i & 3];
+            sink += parser.parse(line).getUsername().length();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (sink == 42) {
+            System.out.print("");
+        }
+        return elapsed;
+    }
+}
@@ -0,0 +1,150 @@
+package com.log_collector.bench;
+
+import com.log_collector.config.CollectorProperties;
+import com.log_collector.config.LogWorker;
+import com.log_collector.config.WorkerThreads;
+import com.log_collector.pipeline.InlinePipeline;
+import com.log_collector.pipeline.ReactivePipeline;
+import com.log_collector.service.LogParser;
+import com.log_collector.tcp.TcpLogServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * End-to-end throughput and latency, from writing a line to the TCP socket
+ * to the event reaching a stub log server that answers after 1 ms, for the
+ * queue + worker pipeline, the reactive pipeline and inline parsing on the
+ * event loops. All lines are written
+ * at once, so latency includes the time a line waits behind the backlog.
+ * <p>
+ * Run with {@code mvn test -Dtest=PipelineModeBenchmark -Dbench=true}.
+ */
+@EnabledIfSystemProperty(named = "bench", matches = "true")
+class PipelineModeBenchmark {
+
+    private static final int EVENTS = 20_000;
+    private static final Duration SERVER_DELAY = Duration.ofMillis(1);
+    private static final Pattern SENT = Pattern.compile("sent=(\\d+)");
+
+    @Test
+    void comparePipelineModes() throws Exception {
+        for (boolean batched : new boolean[]{false, true}) {
+            run(CollectorProperties.PipelineMode.QUEUE, batched);
+            run(CollectorProperties.PipelineMode.REACTIVE, batched);
+            run(CollectorProperties.PipelineMode.INLINE, batched);
+        }
+    }
+
+    private void run(CollectorProperties.PipelineMode mode, boolean batched) throws Exception {
+        long[] latencies = new long[EVENTS];
+        AtomicInteger received = new AtomicInteger();
+        CountDownLatch finished = new CountDownLatch(1);
+
+        DisposableServer ingest = HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .handle((req, res) -> req.receive().aggregate().asString()
+                        .flatMap(body -> {
+                            long now = System.nanoTime();
+                            Matcher m = SENT.matcher(body);
+                            while (m.find()) {
+                                int n = received.getAndIncrement();
+                                if (n < EVENTS) {
+                                    latencies[n] = now - Long.parseLong(m.group(1));
+                                }
+                                if (n == EVENTS - 1) {
+                                    finished.countDown();
+                                }
+                            }
+                            return Mono.delay(SERVER_DELAY);
+                        })
+                        .then(res.status(200).send()))
+                .bindNow();
+
+        CollectorProperties properties = new CollectorProperties();
+        properties.getTcp().setHost("127.0.0.1");
+        properties.getTcp().setPort(freePort());
+        properties.getTcp().setOverflowPolicy(CollectorProperties.OverflowPolicy.PAUSE);
+        properties.getPipeline().setMode(mode);
+        properties.getForward().setBaseUrl("http://127.0.0.1:" + ingest.port());
+        properties.getForward().getBatch().setEnabled(batched);
+        properties.getForward().getBatch().setSize(100);
+        properties.getForward().getBatch().setLinger(Duration.ofMillis(5));
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        LogParser parser = new LogParser(properties);
+        BlockingQueue<String> queue = new ArrayBlockingQueue<>(properties.getQueue().getCapacity());
+        ExecutorService pool = null;
+        LogWorker worker = null;
+        TcpLogServer server;
+        if (mode == CollectorProperties.PipelineMode.INLINE) {
+            InlinePipeline pipeline = new InlinePipeline(parser, WebClient.builder(), properties, registry);
+            server = new TcpLogServer(queue, properties, registry, pipeline);
+        } else if (mode == CollectorProperties.PipelineMode.REACTIVE) {
+            ReactivePipeline pipeline = new ReactivePipeline(parser, WebClient.builder(), properties, registry);
+            server = new TcpLogServer(queue, properties, registry, pipeline);
+        } else {
+            pool = WorkerThreads.create(properties.getWorkers());
+            worker = new LogWorker(queue, pool, parser, WebClient.builder(), properties, registry);
+            server = new TcpLogServer(queue, properties, registry);
+        }
+        server.start();
+
+        long start = System.nanoTime();
+        try (Socket socket = new Socket("127.0.0.1", properties.getTcp().getPort())) {
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream(), 64 * 1024);
+            for (int i = 0; i < EVENTS; i++) {
+                String line = "{\"message\":\"<86> aiops9242 sudo: session opened for user root seq=" + i
+                        + " sent=" + System.nanoTime() + "\"}\n";
+                out.write(line.getBytes(StandardCharsets.UTF_8));
+            }
+            out.flush();
+            boolean done = finished.await(5, TimeUnit.MINUTES);
+            long elapsed = System.nanoTime() - start;
+
+            Arrays.sort(latencies);
+            System.out.printf("%-8s batch=%-5s throughput=%,10.0f events/s  p50=%8.2f ms  p99=%8.2f ms%s%n",
+                    mode, batched,
+                    Math.min(received.get(), EVENTS) / (elapsed / 1e9),
+                    latencies[EVENTS / 2] / 1e6,
+                    latencies[(int) (EVENTS * 0.99)] / 1e6,
+                    done ? "" : "  (timed out at " + received.get() + " events)");
+        } finally {
+            server.stop();
+            if (worker != null) {
+                worker.stop();
+            }
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+            ingest.disposeNow();
+        }
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.log_collector.bench;
+
+import com.log_collector.config.CollectorProperties;
+import com.log_collector.config.WorkerThreads;
+import com.log_collector.service.LogParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Throughput and p99 latency of the worker loop on platform vs virtual
+ * threads, with each event paying a simulated 1 ms blocking forward.
+ * <p>
+ * Run with {@code mvn test -Dtest=WorkerModeBenchmark -Dbench=true}.
+ */
+@EnabledIfSystemProperty(named = "bench", matches = "true")
+class WorkerModeBenchmark {
+
+    private static final int EVENTS = 20_000;
+    private static final long BLOCKING_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final String LINE =
+            "{\"message\":\"<86> aiops9242 sudo: pam_unix(sudo:session): session opened for user root(uid=0)\"}";
+
+    @Test
+    void compareWorkerModes() throws Exception {
+        run(CollectorProperties.WorkerMode.PLATFORM, 4);
+        run(CollectorProperties.WorkerMode.PLATFORM, 256);
+        if (WorkerThreads.virtualThreadsSupported()) {
+            run(CollectorProperties.WorkerMode.VIRTUAL, 256);
+            run(CollectorProperties.WorkerMode.VIRTUAL, 4096);
+        } else {
+            System.out.printf("VIRTUAL skipped: not available on Java %s%n", System.getProperty("java.version"));
+        }
+    }
+
+    private void run(CollectorProperties.WorkerMode mode, int workers) throws Exception {
+        CollectorProperties.Workers config = new CollectorProperties.Workers();
+        config.setMode(mode);
+        config.setCount(workers);
+
+        BlockingQueue<Long> queue = new LinkedBlockingQueue<>();
+        long[] latencies = new long[EVENTS];
+        AtomicInteger done = new AtomicInteger();
+        CountDownLatch finished = new CountDownLatch(1);
+        LogParser parser = new LogParser();
+
+        ExecutorService pool = WorkerThreads.create(config);
+        for (int i = 0; i < workers; i++) {
+            pool.submit(() -> {
+                try {
+                    while (true) {
+                        long enqueued = queue.take();
+                        parser.parse(LINE);
+                        LockSupport.parkNanos(BLOCKING_NANOS); // stands in for a synchronous ack
+                        int n = done.getAndIncrement();
+                        latencies[n] = System.nanoTime() - enqueued;
+                        if (n == EVENTS - 1) {
+                            finished.countDown();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < EVENTS; i++) {
+            queue.add(System.nanoTime());
+        }
+        finished.await(5, TimeUnit.MINUTES);
+        long elapsed = System.nanoTime() - start;
+        pool.shutdownNow();
+
+        Arrays.sort(latencies);
+        System.out.printf("%-8s workers=%-5d throughput=%,10.0f events/s  p50=%8.2f ms  p99=%8.2f ms%n",
+                mode, workers,
+                EVENTS / (elapsed / 1e9),
+                latencies[EVENTS / 2] / 1e6,
+                latencies[(int) (EVENTS * 0.99)] / 1e6);
+    }
+}
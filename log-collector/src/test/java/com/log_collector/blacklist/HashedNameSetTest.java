@@ -0,0 +1,51 @@
+package com.log_collector.blacklist;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedNameSetTest {
+
+    @Test
+    void testMembershipIsExact() {
+        HashedNameSet set = HashedNameSet.of(List.of("root", "admin", "root"), 0.01);
+
+        assertEquals(2, set.size());
+        assertTrue(set.containsHash(HashedNameSet.hash("root")));
+        assertTrue(set.mightContain(HashedNameSet.hash("admin")));
+        assertFalse(set.containsHash(HashedNameSet.hash("Root")));
+    }
+
+    @Test
+    void testBloomFilterHasNoFalseNegativesAndBoundedFalsePositives() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            names.add("svc-" + i);
+        }
+        HashedNameSet set = HashedNameSet.of(names, 0.01);
+
+        for (String name : names) {
+            assertTrue(set.mightContain(HashedNameSet.hash(name)));
+        }
+        int falsePositives = 0;
+        int trials = 100_000;
+        for (int i = 0; i < trials; i++) {
+            if (set.mightContain(HashedNameSet.hash("user-" + i))) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < trials * 0.02, "false positives: " + falsePositives);
+        assertTrue(set.sizeInBytes() < 100_000 * 10L);
+    }
+
+    @Test
+    void testEmptySetRejectsEverything() {
+        HashedNameSet set = HashedNameSet.of(List.of(), 0.01);
+
+        assertFalse(set.mightContain(HashedNameSet.hash("root")));
+        assertEquals(0, set.size());
+    }
+}
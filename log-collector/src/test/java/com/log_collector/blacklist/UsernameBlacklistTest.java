@@ -0,0 +1,91 @@
+package com.log_collector.blacklist;
+
+import com.log_collector.config.CollectorProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UsernameBlacklistTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testDefaultUsernames() {
+        UsernameBlacklist blacklist = new UsernameBlacklist();
+
+        assertTrue(blacklist.contains("root"));
+        assertTrue(blacklist.contains("admin"));
+        assertFalse(blacklist.contains("alice"));
+        assertFalse(blacklist.contains(null));
+    }
+
+    @Test
+    void testLoadsLargeFileAndReloadsOnChange() throws Exception {
+        Path file = dir.resolve("blacklist.txt");
+        List<String> lines = new ArrayList<>();
+        lines.add("# compromised accounts");
+        for (int i = 0; i < 200_000; i++) {
+            lines.add("svc-" + i);
+        }
+        lines.add("mallory  # added by hand");
+        lines.add("");
+        Files.write(file, lines);
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        UsernameBlacklist blacklist = new UsernameBlacklist(properties(file), registry);
+        try {
+            assertEquals(200_003, blacklist.size());
+            assertTrue(blacklist.contains("svc-199999"));
+            assertTrue(blacklist.contains("mallory"));
+            assertTrue(blacklist.contains("root"));
+            assertFalse(blacklist.contains("alice"));
+
+            Files.write(file, List.of("alice"));
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (!blacklist.contains("alice") && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(blacklist.contains("alice"));
+            assertFalse(blacklist.contains("svc-1"));
+            assertEquals(1.0, registry.get("collector.blacklist.reloads").tag("result", "success").counter().count(), 1.0);
+        } finally {
+            blacklist.stop();
+        }
+    }
+
+    @Test
+    void testMetricsTrackChecksAndFalsePositiveRate() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        UsernameBlacklist blacklist = new UsernameBlacklist(new CollectorProperties(), registry);
+
+        for (int i = 0; i < 1_000; i++) {
+            blacklist.contains("user" + i);
+        }
+        blacklist.contains("root");
+
+        assertEquals(1_001, registry.get("collector.blacklist.check").timer().count());
+        assertEquals(1.0, registry.get("collector.blacklist.hits").counter().count());
+        double fpr = registry.get("collector.blacklist.bloom.fpr").gauge().value();
+        assertEquals(blacklist.observedFalsePositiveRate(), fpr);
+        assertTrue(fpr < 0.05, "fpr " + fpr);
+    }
+
+    private static CollectorProperties properties(Path file) {
+        CollectorProperties properties = new CollectorProperties();
+        properties.getBlacklist().setFile(file.toString());
+        properties.getBlacklist().setReloadInterval(Duration.ofMillis(20));
+        return properties;
+    }
+}
@@ -0,0 +1,92 @@
+package com.log_collector.classify;
+
+import com.log_collector.config.CollectorProperties;
+import com.log_collector.model.LogEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventClassifierTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testUnmatchedMessageIsUnknown() {
+        LogEvent event = new LogEvent();
+        new EventClassifier().classify("nothing", event);
+
+        assertEquals("unknown", event.getService());
+        assertEquals("unknown", event.getEventCategory());
+        assertEquals("INFO", event.getSeverity());
+    }
+
+    @Test
+    void testReloadSwapsRules() {
+        EventClassifier classifier = new EventClassifier();
+        classifier.reload(List.of(new ClassificationRule(List.of("kernel"), "kernel", "system.event", "WARN", 1)));
+
+        LogEvent event = new LogEvent();
+        classifier.classify("kernel: oom-killer invoked", event);
+        assertEquals("kernel", event.getService());
+        assertEquals("WARN", event.getSeverity());
+        assertEquals(1, classifier.ruleCount());
+    }
+
+    @Test
+    void testRulesFileIsLoadedAndReloadedOnChange() throws Exception {
+        Path file = dir.resolve("rules.json");
+        Files.writeString(file, "[{\"keywords\":[\"nginx\"],\"service\":\"web\",\"eventCategory\":\"http\",\"priority\":1}]");
+
+        EventClassifier classifier = new EventClassifier(properties(file), new SimpleMeterRegistry());
+        try {
+            assertEquals("web", classify(classifier, "nginx: 502"));
+
+            Files.writeString(file, "[{\"keywords\":[\"502\"],\"service\":\"gateway\",\"eventCategory\":\"http\",\"severity\":\"ERROR\"}]");
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (!"gateway".equals(classify(classifier, "nginx: 502")) && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals("gateway", classify(classifier, "nginx: 502"));
+        } finally {
+            classifier.stop();
+        }
+    }
+
+    @Test
+    void testBrokenRulesFileKeepsCurrentRules() throws Exception {
+        Path file = dir.resolve("rules.json");
+        Files.writeString(file, "[{\"keywords\":[],\"service\":\"broken\"}]");
+
+        EventClassifier classifier = new EventClassifier(properties(file), new SimpleMeterRegistry());
+        try {
+            assertEquals(ClassificationRule.defaults().size(), classifier.ruleCount());
+            assertEquals("linux_login", classify(classifier, "sudo: session opened"));
+        } finally {
+            classifier.stop();
+        }
+    }
+
+    private static CollectorProperties properties(Path file) {
+        CollectorProperties properties = new CollectorProperties();
+        properties.getClassifier().setRulesFile(file.toString());
+        properties.getClassifier().setReloadInterval(Duration.ofMillis(20));
+        return properties;
+    }
+
+    private static String classify(EventClassifier classifier, String message) {
+        LogEvent event = new LogEvent();
+        classifier.classify(message, event);
+        return event.getService();
+    }
+}
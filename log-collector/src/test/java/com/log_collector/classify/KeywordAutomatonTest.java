@@ -0,0 +1,86 @@
+package com.log_collector.classify;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeywordAutomatonTest {
+
+    @Test
+    void testDefaultRulesFollowTheOriginalChainOrder() {
+        KeywordAutomaton automaton = KeywordAutomaton.compile(ClassificationRule.defaults());
+
+        // "session closed" alone is a logout, but sudo outranks it
+        assertEquals("linux_logout", automaton.match("CRON[1]: session closed for user bob").getService());
+        assertEquals("linux_login", automaton.match("session closed after sudo").getService());
+        assertEquals("windows_event", automaton.match("srv Application Error").getService());
+        assertEquals("windows_login",
+                automaton.match("Application Error Microsoft-Windows-Security-Auditing").getService());
+        assertNull(automaton.match("nothing to see"));
+        assertNull(automaton.match(""));
+    }
+
+    @Test
+    void testOverlappingKeywordsFoundThroughFailureLinks() {
+        List<ClassificationRule> rules = List.of(
+                rule("he", 1), rule("she", 2), rule("hers", 3), rule("his", 0));
+        KeywordAutomaton automaton = KeywordAutomaton.compile(rules);
+
+        assertEquals("hers", automaton.match("ushers").getService());
+        assertEquals("she", automaton.match("ushe").getService());
+        assertEquals("his", automaton.match("this").getService());
+        assertNull(automaton.match("h e r s"));
+    }
+
+    @Test
+    void testEqualPrioritiesKeepDeclarationOrder() {
+        KeywordAutomaton automaton = KeywordAutomaton.compile(List.of(rule("b", 5), rule("a", 5)));
+
+        assertEquals("b", automaton.match("a b").getService());
+    }
+
+    @Test
+    void testAgreesWithContainsOnRandomInput() {
+        Random random = new Random(7);
+        List<ClassificationRule> rules = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            rules.add(rule(randomWord(random, 1 + random.nextInt(4)), random.nextInt(10)));
+        }
+        KeywordAutomaton automaton = KeywordAutomaton.compile(rules);
+
+        for (int n = 0; n < 2_000; n++) {
+            String message = randomWord(random, random.nextInt(30));
+            ClassificationRule expected = null;
+            for (ClassificationRule r : rules) {
+                if (message.contains(r.getKeywords().get(0))
+                        && (expected == null || r.getPriority() > expected.getPriority())) {
+                    expected = r;
+                }
+            }
+            assertSame(expected, automaton.match(message), message);
+        }
+    }
+
+    @Test
+    void testRejectsEmptyKeywords() {
+        assertThrows(IllegalArgumentException.class, () -> KeywordAutomaton.compile(List.of(rule("", 1))));
+        assertThrows(IllegalArgumentException.class,
+                () -> KeywordAutomaton.compile(List.of(new ClassificationRule())));
+    }
+
+    private static ClassificationRule rule(String keyword, int priority) {
+        return new ClassificationRule(List.of(keyword), keyword, "test", "INFO", priority);
+    }
+
+    private static String randomWord(Random random, int length) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            sb.append("abcx \u00e9".charAt(random.nextInt(6)));
+        }
+        return sb.toString();
+    }
+}
@@ -1,8 +1,15 @@
 package com.log_collector.config;
 
 import org.junit.jupiter.api.BeforeEach;
+import com.log_collector.queue.PartitionedLogQueue;
+import com.log_collector.queue.RingBufferLogQueue;
+import com.log_collector.queue.SheddingLogQueue;
+import com.log_collector.queue.SpillingLogQueue;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.nio.file.Path;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 
@@ -88,4 +95,74 @@ class CollectorConfigTest {
         pool1.shutdown();
         pool2.shutdown();
     }
-}
\ No newline at end of file
+
+    @Test
+    void testLogQueueUsesConfiguredCapacity() {
+        CollectorProperties properties = new CollectorProperties();
+        properties.getQueue().setCapacity(50);
+
+        BlockingQueue<String> queue = new CollectorConfig(properties, new SimpleMeterRegistry()).logQueue();
+
+        assertEquals(50, queue.remainingCapacity());
+    }
+
+    @Test
+    void testLogQueueSpillsToDiskWhenEnabled(@TempDir Path dir) {
+        CollectorProperties properties = new CollectorProperties();
+        properties.getSpill().setEnabled(true);
+        properties.getSpill().setDirectory(dir.toString());
+
+        BlockingQueue<String> queue = new CollectorConfig(properties, new SimpleMeterRegistry()).logQueue();
+
+        assertInstanceOf(SpillingLogQueue.class, queue);
+        ((SpillingLogQueue) queue).close();
+    }
+
+    @Test
+    void testLogQueueUsesRingBufferWhenConfigured() {
+        CollectorProperties properties = new CollectorProperties();
+        properties.getQueue().setType(CollectorProperties.QueueType.RING);
+
+        BlockingQueue<String> queue = new CollectorConfig(properties, new SimpleMeterRegistry()).logQueue();
+
+        assertInstanceOf(RingBufferLogQueue.class, queue);
+        assertEquals(1024, queue.remainingCapacity());
+    }
+
+    @Test
+    void testLogQueueIsPartitionedWhenConfigured() {
+        CollectorProperties properties = new CollectorProperties();
+        properties.getQueue().setPartitions(4);
+        CollectorConfig partitioned = new CollectorConfig(properties, new SimpleMeterRegistry());
+
+        BlockingQueue<String> queue = partitioned.logQueue();
+        ExecutorService pool = partitioned.workerPool();
+
+        assertInstanceOf(PartitionedLogQueue.class, queue);
+        assertEquals(4, ((PartitionedLogQueue) queue).partitionCount());
+        assertEquals(1000, queue.remainingCapacity());
+        pool.shutdown();
+    }
+
+    @Test
+    void testPartitionsRejectSpill(@TempDir Path dir) {
+        CollectorProperties properties = new CollectorProperties();
+        properties.getQueue().setPartitions(2);
+        properties.getSpill().setEnabled(true);
+        properties.getSpill().setDirectory(dir.toString());
+
+        assertThrows(IllegalStateException.class,
+                () -> new CollectorConfig(properties, new SimpleMeterRegistry()).logQueue());
+    }
+
+    @Test
+    void testLogQueueShedsWhenEnabled() {
+        CollectorProperties properties = new CollectorProperties();
+        properties.getShed().setEnabled(true);
+
+        BlockingQueue<String> queue = new CollectorConfig(properties, new SimpleMeterRegistry()).logQueue();
+
+        assertInstanceOf(SheddingLogQueue.class, queue);
+        assertEquals(1000, queue.remainingCapacity());
+    }
+}
@@ -1,6 +1,7 @@
 package com.log_collector.config;
 
 import com.log_collector.model.LogEvent;
+import com.log_collector.queue.PartitionedLogQueue;
 import com.log_collector.service.LogParser;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,9 +9,15 @@ import org.junit.jupiter.api.Test;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.*;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -46,6 +53,9 @@ class LogWorkerTest {
         when(requestBodyUriSpec.uri(anyString())).thenReturn(requestBodySpec);
         when(requestBodyUriSpec.bodyValue(any()))
                 .thenReturn((WebClient.RequestHeadersSpec) requestBodySpec);
+        when(requestBodySpec.contentType(any())).thenReturn(requestBodySpec);
+        when(requestBodySpec.bodyValue(any()))
+                .thenReturn((WebClient.RequestHeadersSpec) requestBodySpec);
         when(requestBodySpec.retrieve()).thenReturn(responseSpec);
         when(responseSpec.bodyToMono(Void.class)).thenReturn(Mono.empty());
     }
@@ -214,6 +224,133 @@ class LogWorkerTest {
         verify(responseSpec, timeout(1000)).bodyToMono(Void.class);
     }
 
+    @Test
+    void testBatchModePostsToBatchEndpoint() throws Exception {
+        LogEvent event = createLogEvent();
+        when(parser.parse(anyString())).thenReturn(event);
+
+        CollectorProperties properties = new CollectorProperties();
+        properties.getForward().getBatch().setEnabled(true);
+        properties.getForward().getBatch().setSize(3);
+        properties.getForward().getBatch().setLinger(Duration.ofHours(1));
+
+        new LogWorker(queue, executorService, parser, webClientBuilder, properties, new SimpleMeterRegistry());
+
+        queue.put("a");
+        queue.put("b");
+        queue.put("c");
+
+        verify(requestBodyUriSpec, timeout(1000)).uri("/ingest/batch");
+        verify(requestBodySpec, timeout(1000)).bodyValue(List.of(event, event, event));
+        verify(requestBodyUriSpec, never()).uri("/ingest");
+    }
+
+    @Test
+    void testPartitionedQueueKeepsPerHostOrder() throws Exception {
+        when(parser.parse(anyString())).thenAnswer(inv -> {
+            LogEvent event = createLogEvent();
+            event.setRawMessage(inv.getArgument(0));
+            return event;
+        });
+        List<String> sent = new CopyOnWriteArrayList<>();
+        when(requestBodySpec.bodyValue(any())).thenAnswer(inv -> {
+            sent.add(((LogEvent) inv.getArgument(0)).getRawMessage());
+            return requestBodySpec;
+        });
+        PartitionedLogQueue partitioned = new PartitionedLogQueue(
+                List.of(new LinkedBlockingQueue<>(), new LinkedBlockingQueue<>(), new LinkedBlockingQueue<>()),
+                LogParser::hostHash,
+                new SimpleMeterRegistry());
+
+        new LogWorker(partitioned, executorService, parser, webClientBuilder,
+                new CollectorProperties(), new SimpleMeterRegistry());
+
+        for (int i = 0; i < 50; i++) {
+            for (String host : List.of("alpha", "bravo", "charlie")) {
+                partitioned.put("<86> " + host + " sudo: seq " + i);
+            }
+        }
+
+        verify(requestBodySpec, timeout(5000).times(150)).bodyValue(any());
+        for (String host : List.of("alpha", "bravo", "charlie")) {
+            List<String> ordered = new ArrayList<>();
+            for (String line : sent) {
+                if (line.contains(" " + host + " ")) {
+                    ordered.add(line);
+                }
+            }
+            assertEquals(50, ordered.size());
+            for (int i = 0; i < 50; i++) {
+                assertEquals("<86> " + host + " sudo: seq " + i, ordered.get(i));
+            }
+        }
+    }
+
+    @Test
+    void testResizeStartsAndRetiresWorkers() throws Exception {
+        when(parser.parse(anyString())).thenReturn(createLogEvent());
+        LogWorker worker = new LogWorker(queue, executorService, parser, webClientBuilder);
+
+        assertEquals(4, worker.activeWorkers());
+        assertEquals(1, worker.resize(1));
+        assertEquals(1, worker.activeWorkers());
+        assertEquals(4, worker.resize(10)); // capped by the pool
+        assertEquals(2, worker.resize(2));
+
+        queue.put("still consumed");
+        verify(parser, timeout(1000)).parse("still consumed");
+        assertEquals(2, worker.activeWorkers());
+    }
+
+    @Test
+    void testResizeKeepsCountsRightWhileLoopsRetire() throws Exception {
+        executorService.shutdownNow();
+        executorService = Executors.newFixedThreadPool(64);
+        LogWorker worker = new LogWorker(queue, executorService, parser, webClientBuilder);
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) executorService;
+
+        // Idle loops claim retirements at their poll timeouts, racing the revivals here
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        int round = 0;
+        while (System.nanoTime() < deadline) {
+            worker.resize(round++ % 2 == 0 ? 1 : 64);
+            if (round % 16 == 0) {
+                Thread.sleep(1);
+            }
+        }
+        worker.resize(2);
+
+        long settle = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (pool.getActiveCount() != 2 && System.nanoTime() < settle) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, pool.getActiveCount());
+        assertEquals(2, worker.activeWorkers());
+    }
+
+    @Test
+    void testGrowRightAfterShrinkRestoresTheCount() throws Exception {
+        LogWorker worker = new LogWorker(queue, executorService, parser, webClientBuilder);
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) executorService;
+
+        for (int round = 0; round < 20; round++) {
+            worker.resize(3);
+            // Grow again as soon as a loop has claimed the retirement, while it may still be exiting
+            long claim = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            while (worker.retiringWorkers() > 0 && System.nanoTime() < claim) {
+                Thread.onSpinWait();
+            }
+            worker.resize(4);
+
+            long settle = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            while (pool.getActiveCount() != 4 && System.nanoTime() < settle) {
+                Thread.sleep(5);
+            }
+            assertEquals(4, pool.getActiveCount(), "round " + round);
+            assertEquals(4, worker.activeWorkers(), "round " + round);
+        }
+    }
+
     private LogEvent createLogEvent() {
         LogEvent event = new LogEvent();
         event.setTimestamp(Instant.now());
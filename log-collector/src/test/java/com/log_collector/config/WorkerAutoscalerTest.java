@@ -0,0 +1,142 @@
+package com.log_collector.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class WorkerAutoscalerTest {
+
+    private LogWorker worker;
+    private AtomicInteger active;
+    private BlockingQueue<String> queue;
+    private CollectorProperties properties;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        active = new AtomicInteger(4);
+        worker = mock(LogWorker.class);
+        when(worker.isResizable()).thenReturn(true);
+        when(worker.poolLimit()).thenReturn(64);
+        when(worker.activeWorkers()).thenAnswer(inv -> active.get());
+        when(worker.resize(anyInt())).thenAnswer(inv -> {
+            active.set(inv.getArgument(0));
+            return active.get();
+        });
+        queue = new ArrayBlockingQueue<>(10);
+        properties = new CollectorProperties();
+        properties.getWorkers().getAutoscale().setMin(2);
+        properties.getWorkers().getAutoscale().setMax(8);
+        registry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void testScalesUpAfterConsecutiveBusyIntervals() {
+        busy();
+        fill(8);
+        WorkerAutoscaler autoscaler = new WorkerAutoscaler(worker, queue, properties, registry);
+
+        assertNull(autoscaler.tick());
+        ScalingDecision decision = autoscaler.tick();
+
+        assertNotNull(decision);
+        assertEquals(4, decision.getFrom());
+        assertEquals(6, decision.getTo());
+        assertEquals(0.8, decision.getQueueDepth());
+        assertEquals(List.of(decision), autoscaler.decisions());
+        assertEquals(1.0, registry.get("collector.workers.scaling").tag("direction", "up").counter().count());
+    }
+
+    @Test
+    void testHoldsWhileForwarderIsThrottling() {
+        busy();
+        fill(8);
+        Counter throttled = registry.counter("collector.forward.throttled");
+        WorkerAutoscaler autoscaler = new WorkerAutoscaler(worker, queue, properties, registry);
+
+        autoscaler.tick();
+        throttled.increment();
+        ScalingDecision decision = autoscaler.tick();
+
+        assertEquals(4, decision.getTo());
+        assertTrue(decision.getReason().startsWith("hold"));
+        verify(worker, never()).resize(anyInt());
+    }
+
+    @Test
+    void testScalesDownOneAtATimeToMin() {
+        when(worker.busyNanos()).thenReturn(0L);
+        WorkerAutoscaler autoscaler = new WorkerAutoscaler(worker, queue, properties, registry);
+
+        for (int i = 0; i < 30; i++) {
+            autoscaler.tick();
+        }
+
+        assertEquals(2, active.get());
+        assertEquals(2, autoscaler.decisions().size());
+        assertEquals(3, autoscaler.decisions().get(0).getTo());
+    }
+
+    @Test
+    void testMiddleBandResetsStreaks() {
+        busy();
+        WorkerAutoscaler autoscaler = new WorkerAutoscaler(worker, queue, properties, registry);
+
+        for (int i = 0; i < 10; i++) {
+            fill(i % 2 == 0 ? 8 : 3);
+            assertNull(autoscaler.tick());
+        }
+        verify(worker, never()).resize(anyInt());
+    }
+
+    @Test
+    void testBoundsAndManualResize() {
+        WorkerAutoscaler autoscaler = new WorkerAutoscaler(worker, queue, properties, registry);
+
+        assertEquals(6, autoscaler.setBounds(6, 10).getTo());
+        assertEquals(3, autoscaler.resize(3).getTo());
+        assertThrows(IllegalArgumentException.class, () -> autoscaler.setBounds(5, 4));
+    }
+
+    @Test
+    void testEndpointReportsAndChangesSizing() {
+        WorkerAutoscaler autoscaler = new WorkerAutoscaler(worker, queue, properties, registry);
+        WorkersEndpoint endpoint = new WorkersEndpoint(worker, autoscaler, queue);
+        fill(3);
+
+        Map<String, Object> sizing = endpoint.update(5, null, null);
+
+        Map<?, ?> workers = (Map<?, ?>) sizing.get("workers");
+        Map<?, ?> queueSizing = (Map<?, ?>) sizing.get("queue");
+        assertEquals(5, workers.get("active"));
+        assertEquals(2, workers.get("min"));
+        assertEquals(3, queueSizing.get("depth"));
+        assertEquals(10, queueSizing.get("capacity"));
+        assertEquals(1, ((List<?>) sizing.get("decisions")).size());
+        assertThrows(InvalidEndpointRequestException.class, () -> endpoint.update(null, 0, null));
+    }
+
+    // Workers busy for the whole of every interval
+    private void busy() {
+        when(worker.busyNanos()).thenAnswer(inv -> System.nanoTime() * 64);
+    }
+
+    private void fill(int lines) {
+        queue.clear();
+        for (int i = 0; i < lines; i++) {
+            queue.add("line" + i);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.log_collector.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkerThreadsTest {
+
+    @Test
+    void testPlatformModeRunsTasks() throws Exception {
+        ExecutorService pool = WorkerThreads.create(new CollectorProperties.Workers());
+        try {
+            Future<String> name = pool.submit(() -> Thread.currentThread().getName());
+            assertTrue(name.get(1, TimeUnit.SECONDS).startsWith("pool-"));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void testVirtualModeRunsTasksOnAnyRuntime() throws Exception {
+        CollectorProperties.Workers config = new CollectorProperties.Workers();
+        config.setMode(CollectorProperties.WorkerMode.VIRTUAL);
+
+        ExecutorService pool = WorkerThreads.create(config);
+        try {
+            assertEquals(42, pool.submit(() -> 42).get(1, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void testRejectsNonPositiveCount() {
+        CollectorProperties.Workers config = new CollectorProperties.Workers();
+        config.setCount(0);
+
+        assertThrows(IllegalArgumentException.class, () -> WorkerThreads.create(config));
+    }
+}
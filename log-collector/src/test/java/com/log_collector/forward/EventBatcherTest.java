@@ -0,0 +1,87 @@
+package com.log_collector.forward;
+
+import com.log_collector.model.LogEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventBatcherTest {
+
+    private List<List<LogEvent>> batches;
+    private SimpleMeterRegistry registry;
+    private EventBatcher batcher;
+
+    @BeforeEach
+    void setUp() {
+        batches = new CopyOnWriteArrayList<>();
+        registry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (batcher != null) {
+            batcher.close();
+        }
+    }
+
+    @Test
+    void testFlushesWhenBatchIsFull() {
+        batcher = new EventBatcher(3, Duration.ofHours(1), batches::add, registry);
+
+        for (int i = 0; i < 7; i++) {
+            batcher.add(event("u" + i));
+        }
+
+        assertEquals(2, batches.size());
+        assertEquals(3, batches.get(0).size());
+        assertEquals("u3", batches.get(1).get(0).getUsername());
+        assertEquals(2, registry.get("collector.forward.batch.size").summary().count());
+    }
+
+    @Test
+    void testFlushesPartialBatchAfterLinger() throws Exception {
+        CountDownLatch flushed = new CountDownLatch(1);
+        batcher = new EventBatcher(100, Duration.ofMillis(20), batch -> {
+            batches.add(batch);
+            flushed.countDown();
+        }, registry);
+
+        batcher.add(event("a"));
+        batcher.add(event("b"));
+
+        assertTrue(flushed.await(2, TimeUnit.SECONDS));
+        assertEquals(1, batches.size());
+        assertEquals(2, batches.get(0).size());
+    }
+
+    @Test
+    void testCloseFlushesRemainder() {
+        batcher = new EventBatcher(100, Duration.ofHours(1), batches::add, registry);
+        batcher.add(event("a"));
+
+        batcher.close();
+
+        assertEquals(1, batches.size());
+    }
+
+    @Test
+    void testRejectsNonPositiveSize() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new EventBatcher(0, Duration.ofMillis(20), batches::add, registry));
+    }
+
+    private static LogEvent event(String username) {
+        LogEvent event = new LogEvent();
+        event.setUsername(username);
+        return event;
+    }
+}
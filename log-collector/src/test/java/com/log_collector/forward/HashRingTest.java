@@ -0,0 +1,69 @@
+package com.log_collector.forward;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashRingTest {
+
+    private static final int KEYS = 30_000;
+
+    @Test
+    void testSpreadsKeysEvenly() {
+        HashRing<String> ring = new HashRing<>(List.of("a", "b", "c"), n -> n, 128);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.route("host-" + i, n -> true), 1, Integer::sum);
+        }
+
+        assertEquals(3, counts.size());
+        for (int count : counts.values()) {
+            assertTrue(count > KEYS / 3 * 0.8 && count < KEYS / 3 * 1.2, counts.toString());
+        }
+    }
+
+    @Test
+    void testAddingNodeOnlyMovesKeysToIt() {
+        HashRing<String> before = new HashRing<>(List.of("a", "b", "c"), n -> n, 128);
+        HashRing<String> after = new HashRing<>(List.of("a", "b", "c", "d"), n -> n, 128);
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = "host-" + i;
+            String was = before.route(key, n -> true);
+            String now = after.route(key, n -> true);
+            if (!was.equals(now)) {
+                assertEquals("d", now);
+                moved++;
+            }
+        }
+
+        assertTrue(moved > KEYS / 4 * 0.8 && moved < KEYS / 4 * 1.2, "moved " + moved);
+    }
+
+    @Test
+    void testSkipsUnusableNodesOnly() {
+        HashRing<String> ring = new HashRing<>(List.of("a", "b", "c"), n -> n, 128);
+        for (int i = 0; i < KEYS; i++) {
+            String key = "host-" + i;
+            String owner = ring.route(key, n -> true);
+            String failover = ring.route(key, n -> !n.equals("b"));
+            if (owner.equals("b")) {
+                assertNotEquals("b", failover);
+            } else {
+                assertEquals(owner, failover);
+            }
+        }
+
+        assertEquals(ring.route("x", n -> true), ring.route("x", n -> false));
+    }
+
+    @Test
+    void testRejectsEmptyRing() {
+        assertThrows(IllegalArgumentException.class, () -> new HashRing<String>(List.of(), n -> n, 128));
+        assertThrows(IllegalArgumentException.class, () -> new HashRing<>(List.of("a"), n -> n, 0));
+    }
+}
@@ -0,0 +1,219 @@
+package com.log_collector.forward;
+
+import com.log_collector.config.CollectorProperties;
+import com.log_collector.model.LogEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngestStreamTest {
+
+    private final BlockingQueue<byte[]> received = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Sinks.Many<String>> connections = new LinkedBlockingQueue<>();
+    private DisposableServer server;
+    private SimpleMeterRegistry registry;
+    private IngestStream stream;
+
+    @BeforeEach
+    void setUp() {
+        // Stands in for the log server: records batches, and the test decides on credit and acks
+        server = HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .route(routes -> routes.ws(IngestStream.PATH, (in, out) -> {
+                    Sinks.Many<String> control = Sinks.many().unicast().onBackpressureBuffer();
+                    connections.add(control);
+                    Mono<Void> reading = in.receive().asByteArray().doOnNext(received::add).then();
+                    return Mono.firstWithSignal(out.sendString(control.asFlux()).then(), reading);
+                }))
+                .bindNow();
+
+        CollectorProperties.Forward config = new CollectorProperties.Forward();
+        config.setBaseUrl("http://127.0.0.1:" + server.port());
+        config.getRetry().setInitialBackoff(Duration.ofMillis(10));
+        registry = new SimpleMeterRegistry();
+        stream = new IngestStream(config, registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stream.close();
+        server.disposeNow();
+    }
+
+    @Test
+    void testSendsOnlyWithCreditAndCompletesOnAck() throws Exception {
+        CompletableFuture<Void> first = stream.send(List.of(event("a"))).toFuture();
+        CompletableFuture<Void> second = stream.send(List.of(event("b"))).toFuture();
+        CompletableFuture<Void> third = stream.send(List.of(event("c"))).toFuture();
+        Sinks.Many<String> control = connections.poll(5, TimeUnit.SECONDS);
+        assertNotNull(control);
+        assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+
+        control.tryEmitNext("credit 2");
+        assertEquals(1, seq(received.poll(5, TimeUnit.SECONDS)));
+        assertEquals(2, seq(received.poll(5, TimeUnit.SECONDS)));
+        assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+
+        control.tryEmitNext("ack 2");
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+        assertFalse(third.isDone());
+        assertEquals(1, stream.pending());
+
+        control.tryEmitNext("credit 1");
+        byte[] last = received.poll(5, TimeUnit.SECONDS);
+        assertEquals(3, seq(last));
+        assertEquals(List.of(event("c")), LogBatchCodec.decode(Arrays.copyOfRange(last, Long.BYTES, last.length)));
+        control.tryEmitNext("ack 3");
+        third.get(5, TimeUnit.SECONDS);
+        assertEquals(0, stream.pending());
+    }
+
+    @Test
+    void testResendsUnackedBatchesAfterReconnect() throws Exception {
+        CompletableFuture<Void> sent = stream.send(List.of(event("a"))).toFuture();
+        Sinks.Many<String> control = connections.poll(5, TimeUnit.SECONDS);
+        control.tryEmitNext("credit 4");
+        assertEquals(1, seq(received.poll(5, TimeUnit.SECONDS)));
+
+        control.tryEmitComplete(); // server goes away before acking
+
+        Sinks.Many<String> again = connections.poll(5, TimeUnit.SECONDS);
+        assertNotNull(again);
+        assertFalse(sent.isDone());
+        again.tryEmitNext("credit 4");
+        assertEquals(1, seq(received.poll(5, TimeUnit.SECONDS)));
+        again.tryEmitNext("ack 1");
+
+        sent.get(5, TimeUnit.SECONDS);
+        assertEquals(1.0, registry.get("collector.stream.resent").counter().count());
+        assertEquals(2.0, registry.get("collector.stream.connects").tag("result", "success").counter().count());
+    }
+
+    @Test
+    void testFailsRejectedBatchWithoutResending() throws Exception {
+        CompletableFuture<Void> bad = stream.send(List.of(event("a"))).toFuture();
+        CompletableFuture<Void> good = stream.send(List.of(event("b"))).toFuture();
+        Sinks.Many<String> control = connections.poll(5, TimeUnit.SECONDS);
+        control.tryEmitNext("credit 2");
+        assertEquals(1, seq(received.poll(5, TimeUnit.SECONDS)));
+        assertEquals(2, seq(received.poll(5, TimeUnit.SECONDS)));
+
+        control.tryEmitNext("nack 1 Batch too large");
+        control.tryEmitNext("ack 2");
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> bad.get(5, TimeUnit.SECONDS));
+        assertTrue(failure.getCause() instanceof IllegalArgumentException);
+        good.get(5, TimeUnit.SECONDS);
+        CompletableFuture<Void> later = stream.send(List.of(event("c"))).toFuture();
+        control.tryEmitNext("credit 1");
+        assertEquals(3, seq(received.poll(5, TimeUnit.SECONDS)));
+        control.tryEmitNext("ack 3");
+        later.get(5, TimeUnit.SECONDS);
+        assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+        assertEquals(1.0, registry.get("collector.stream.rejected").counter().count());
+        assertEquals(0.0, registry.get("collector.stream.resent").counter().count());
+    }
+
+    @Test
+    void testBadDataCloseRejectsOldestBatch() throws Exception {
+        // A server without nack: closes with 1007 on the first batch, then takes everything
+        AtomicInteger connects = new AtomicInteger();
+        DisposableServer strict = HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .route(routes -> routes.ws(IngestStream.PATH, (in, out) -> {
+                    if (connects.getAndIncrement() == 0) {
+                        return out.sendString(Mono.just("credit 4"))
+                                .then(in.receive().concatMap(frame -> out.sendClose(1007, "Unsupported batch version")));
+                    }
+                    return out.sendString(Flux.concat(Mono.just("credit 4"),
+                            in.receive().asByteArray().map(frame -> "ack " + ByteBuffer.wrap(frame).getLong())));
+                }))
+                .bindNow();
+        CollectorProperties.Forward config = new CollectorProperties.Forward();
+        config.setBaseUrl("http://127.0.0.1:" + strict.port());
+        config.getRetry().setInitialBackoff(Duration.ofMillis(10));
+        IngestStream other = new IngestStream(config, new SimpleMeterRegistry());
+        try {
+            CompletableFuture<Void> bad = other.send(List.of(event("a"))).toFuture();
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> bad.get(5, TimeUnit.SECONDS));
+            assertTrue(failure.getCause() instanceof IllegalArgumentException);
+
+            other.send(List.of(event("b"))).block(Duration.ofSeconds(5));
+            assertEquals(2, connects.get());
+        } finally {
+            other.close();
+            strict.disposeNow();
+        }
+    }
+
+    @Test
+    void testFailsPendingBatchesOnClose() {
+        stream.closeGraceMillis = 50;
+        CompletableFuture<Void> sent = stream.send(List.of(event("a"))).toFuture();
+
+        stream.close();
+
+        assertTrue(sent.isCompletedExceptionally());
+        assertThrows(IllegalStateException.class, () -> stream.send(List.of(event("b"))).block());
+    }
+
+    @Test
+    void testFailsPendingBatchesAndKeepsStreaming() throws Exception {
+        CompletableFuture<Void> sent = stream.send(List.of(event("a"))).toFuture();
+        Sinks.Many<String> control = connections.poll(5, TimeUnit.SECONDS);
+        control.tryEmitNext("credit 4");
+        assertEquals(1, seq(received.poll(5, TimeUnit.SECONDS)));
+        CompletableFuture<Void> second = stream.send(List.of(event("b"))).toFuture();
+        assertEquals(2, seq(received.poll(5, TimeUnit.SECONDS)));
+
+        stream.failPending(new IngestStream.UnavailableException("node down"));
+
+        assertTrue(sent.isCompletedExceptionally());
+        assertTrue(second.isCompletedExceptionally());
+        assertEquals(0, stream.pending());
+        CompletableFuture<Void> next = stream.send(List.of(event("c"))).toFuture();
+        assertEquals(3, seq(received.poll(5, TimeUnit.SECONDS)));
+        control.tryEmitNext("ack 3");
+        next.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testDerivesWebSocketUri() {
+        assertEquals(URI.create("ws://localhost:8082/ingest/stream"), IngestStream.uri("http://localhost:8082/"));
+        assertEquals(URI.create("wss://logs.example.com/ingest/stream"), IngestStream.uri("https://logs.example.com"));
+    }
+
+    private static long seq(byte[] frame) {
+        assertNotNull(frame);
+        return ByteBuffer.wrap(frame).getLong();
+    }
+
+    private static LogEvent event(String message) {
+        LogEvent event = new LogEvent();
+        event.setRawMessage(message);
+        return event;
+    }
+}
@@ -0,0 +1,173 @@
+package com.log_collector.forward;
+
+import com.log_collector.model.LogEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogBatchCodecTest {
+
+    // Collector encodings, pinned byte for byte here and in the log server's LogBatchCodecTest
+    private static final byte[] COLLECTOR_BATCH = {
+            'L', 'B', 1, 0,
+            1,                                      // one event
+            (byte) 0xB3, 0x41,                      // timestamp, service, username, hostname, blacklisted, templateId
+            (byte) 0xC8, 0x01, 0x02,                // +100 s, +1 ns
+            0, 3, 's', 's', 'h',                    // service: new entry 0
+            0, 4, 'r', 'o', 'o', 't',               // username: new entry 1
+            1,                                      // hostname: entry 0
+            0, 2, 't', '1'                          // templateId: new entry 2
+    };
+
+    // Three events in every encoding path: all fields, a backwards timestamp with a repeated host, no timestamp
+    private static final byte[] FULL_BATCH = {
+            'L', 'B', 1, 0,
+            3,
+            -1, 127, -64, -24, -47, -107, 13, -24, 7, 0, 4, 115, 115, 104, 100, 0,
+            11, 108, 111, 103, 105, 110, 46, 97, 117, 100, 105, 116, 0, 4, 73, 78,
+            70, 79, 0, 4, 114, 111, 111, 116, 0, 2, 104, 49, 2, 111, 107, 0,
+            4, 97, 117, 116, 104, 1, 0, 2, 52, 50, 0, 3, 73, 68, 49, 3,
+            91, 97, 93, 0, 2, 116, 49,
+            97, 1, -25, 7, 5, 2, -61, -87,
+            2, 1
+    };
+
+    @Test
+    void testEncodesPinnedLayout() {
+        LogEvent single = new LogEvent();
+        single.setTimestamp(Instant.ofEpochSecond(100, 1));
+        single.setService("ssh");
+        single.setUsername("root");
+        single.setHostname("ssh");
+        single.setBlacklisted(true);
+        single.setTemplateId("t1");
+
+        // The log server decodes these same bytes; changing them breaks the wire format
+        assertEquals(Arrays.toString(COLLECTOR_BATCH), Arrays.toString(LogBatchCodec.encode(List.of(single), false)));
+        assertEquals(Arrays.toString(FULL_BATCH), Arrays.toString(LogBatchCodec.encode(fullBatch(), false)));
+        assertEquals(fullBatch(), LogBatchCodec.decode(FULL_BATCH));
+    }
+
+    @Test
+    void testRoundTripsEveryField() {
+        LogEvent full = event(Instant.parse("2026-01-04T10:00:00.123456789Z"), "host-a", "session opened for user root");
+        full.setBlacklisted(true);
+        full.setFacility("authpriv");
+        full.setAppName("sshd");
+        full.setProcId("42");
+        full.setMsgId("ID47");
+        full.setStructuredData("[exampleSDID@32473 iut=\"3\"]");
+        full.setTemplateId("9f86d081884c7d65");
+
+        // Earlier than the first event, no timestamp, only nulls
+        LogEvent earlier = event(Instant.parse("2026-01-04T09:59:59.5Z"), "h\u00f6st-b", "caf\u00e9 \u2713");
+        LogEvent untimed = event(null, "host-a", "no time");
+        LogEvent empty = new LogEvent();
+
+        List<LogEvent> batch = List.of(full, earlier, untimed, empty);
+
+        assertEquals(batch, LogBatchCodec.decode(LogBatchCodec.encode(batch, false)));
+        assertEquals(batch, LogBatchCodec.decode(LogBatchCodec.encode(batch, true)));
+        assertEquals(List.of(), LogBatchCodec.decode(LogBatchCodec.encode(List.of(), true)));
+    }
+
+    @Test
+    void testRepeatedStringsAreWrittenOnce() {
+        List<LogEvent> batch = new ArrayList<>();
+        Instant start = Instant.parse("2026-01-04T10:00:00Z");
+        for (int i = 0; i < 100; i++) {
+            batch.add(event(start.plusMillis(i), "aiops9242", "m" + i));
+        }
+
+        byte[] encoded = LogBatchCodec.encode(batch, false);
+
+        assertEquals(1, occurrences(encoded, "linux_login"));
+        assertEquals(1, occurrences(encoded, "aiops9242"));
+        assertTrue(encoded.length < 100 * 20, "bytes: " + encoded.length);
+    }
+
+    @Test
+    void testCompressionShrinksRepetitiveBatches() {
+        List<LogEvent> batch = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            batch.add(event(Instant.EPOCH, "host", "pam_unix(sudo:session): session opened for user root(uid=0) by (uid=" + i + ")"));
+        }
+
+        byte[] plain = LogBatchCodec.encode(batch, false);
+        byte[] deflated = LogBatchCodec.encode(batch, true);
+
+        assertTrue(deflated.length * 4 < plain.length, plain.length + " vs " + deflated.length);
+        assertEquals(batch, LogBatchCodec.decode(deflated));
+    }
+
+    @Test
+    void testRejectsMalformedInput() {
+        byte[] valid = LogBatchCodec.encode(List.of(event(Instant.EPOCH, "host", "message")), false);
+
+        assertThrows(IllegalArgumentException.class, () -> LogBatchCodec.decode(new byte[0]));
+        assertThrows(IllegalArgumentException.class, () -> LogBatchCodec.decode("[{}]".getBytes()));
+        assertThrows(IllegalArgumentException.class, () -> LogBatchCodec.decode(Arrays.copyOf(valid, valid.length - 1)));
+        assertThrows(IllegalArgumentException.class, () -> LogBatchCodec.decode(Arrays.copyOf(valid, valid.length + 1)));
+
+        byte[] wrongVersion = valid.clone();
+        wrongVersion[2] = 9;
+        assertThrows(IllegalArgumentException.class, () -> LogBatchCodec.decode(wrongVersion));
+
+        // Claims a huge inflated size
+        byte[] bomb = {'L', 'B', 1, 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07};
+        assertThrows(IllegalArgumentException.class, () -> LogBatchCodec.decode(bomb));
+    }
+
+    private static LogEvent event(Instant timestamp, String hostname, String message) {
+        LogEvent event = new LogEvent();
+        event.setTimestamp(timestamp);
+        event.setService("linux_login");
+        event.setEventCategory("login.audit");
+        event.setSeverity("INFO");
+        event.setUsername("root");
+        event.setHostname(hostname);
+        event.setRawMessage(message);
+        return event;
+    }
+
+    private static int occurrences(byte[] data, String s) {
+        byte[] needle = s.getBytes();
+        int count = 0;
+        for (int i = 0; i + needle.length <= data.length; i++) {
+            if (Arrays.equals(data, i, i + needle.length, needle, 0, needle.length)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static List<LogEvent> fullBatch() {
+        LogEvent full = new LogEvent();
+        full.setTimestamp(Instant.ofEpochSecond(1767520800L, 500));
+        full.setService("sshd");
+        full.setEventCategory("login.audit");
+        full.setSeverity("INFO");
+        full.setUsername("root");
+        full.setHostname("h1");
+        full.setBlacklisted(true);
+        full.setRawMessage("ok");
+        full.setFacility("auth");
+        full.setAppName("sshd");
+        full.setProcId("42");
+        full.setMsgId("ID1");
+        full.setStructuredData("[a]");
+        full.setTemplateId("t1");
+        LogEvent earlier = new LogEvent();
+        earlier.setTimestamp(Instant.ofEpochSecond(1767520799L, 0));
+        earlier.setHostname("h1");
+        earlier.setRawMessage("\u00e9");
+        LogEvent untimed = new LogEvent();
+        untimed.setService("sshd");
+        return List.of(full, earlier, untimed);
+    }
+}
@@ -0,0 +1,364 @@
+package com.log_collector.forward;
+
+import com.log_collector.config.CollectorProperties;
+import com.log_collector.model.LogEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class LogForwarderTest {
+
+    private static final Pattern HOSTNAME = Pattern.compile("\"hostname\":\"([^\"]+)\"");
+
+    private WebClient webClient;
+    private WebClient.RequestBodySpec requestBodySpec;
+    private WebClient.ResponseSpec responseSpec;
+    private CollectorProperties.Forward config;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        webClient = mock(WebClient.class);
+        WebClient.RequestBodyUriSpec requestBodyUriSpec = mock(WebClient.RequestBodyUriSpec.class);
+        requestBodySpec = mock(WebClient.RequestBodySpec.class);
+        responseSpec = mock(WebClient.ResponseSpec.class);
+
+        when(webClient.post()).thenReturn(requestBodyUriSpec);
+        when(requestBodyUriSpec.uri(anyString())).thenReturn(requestBodySpec);
+        when(requestBodySpec.contentType(any())).thenReturn(requestBodySpec);
+        when(requestBodySpec.bodyValue(any()))
+                .thenReturn((WebClient.RequestHeadersSpec) requestBodySpec);
+        when(requestBodySpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.bodyToMono(Void.class)).thenReturn(Mono.empty());
+
+        config = new CollectorProperties.Forward();
+        config.getRetry().setInitialBackoff(Duration.ofMillis(1));
+        config.getRetry().setMaxBackoff(Duration.ofMillis(5));
+        registry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void testCountsSuccess() throws Exception {
+        LogForwarder forwarder = new LogForwarder(webClient, config, registry);
+
+        forwarder.forward(new LogEvent());
+        forwarder.forwardBatch(List.of(new LogEvent(), new LogEvent()));
+
+        assertEquals(2.0, count("collector.forward.requests", "success"));
+        assertEquals(0, forwarder.inFlight());
+    }
+
+    @Test
+    void testRetriesConnectionErrorsWithBackoff() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        when(responseSpec.bodyToMono(Void.class)).thenReturn(Mono.defer(() ->
+                attempts.incrementAndGet() < 3 ? Mono.error(connectionRefused()) : Mono.empty()));
+
+        new LogForwarder(webClient, config, registry).forward(new LogEvent());
+
+        awaitCount("success", 1.0);
+        assertEquals(3, attempts.get());
+        assertEquals(2.0, registry.get("collector.forward.retries").counter().count());
+    }
+
+    @Test
+    void testGivesUpAfterMaxRetries() throws Exception {
+        config.getRetry().setMaxRetries(2);
+        when(responseSpec.bodyToMono(Void.class)).thenReturn(Mono.error(
+                WebClientResponseException.create(503, "Unavailable", HttpHeaders.EMPTY, new byte[0], null)));
+
+        new LogForwarder(webClient, config, registry).forward(new LogEvent());
+
+        awaitCount("failure", 1.0);
+        assertEquals(2.0, registry.get("collector.forward.retries").counter().count());
+    }
+
+    @Test
+    void testDoesNotRetryClientErrors() throws Exception {
+        when(responseSpec.bodyToMono(Void.class)).thenReturn(Mono.error(
+                WebClientResponseException.create(400, "Bad Request", HttpHeaders.EMPTY, new byte[0], null)));
+
+        new LogForwarder(webClient, config, registry).forward(new LogEvent());
+
+        assertEquals(1.0, count("collector.forward.requests", "failure"));
+        assertEquals(0.0, registry.get("collector.forward.retries").counter().count());
+    }
+
+    @Test
+    void testBlocksCallerAtInFlightCap() throws Exception {
+        config.setMaxInFlight(1);
+        Sinks.Empty<Void> response = Sinks.empty();
+        when(responseSpec.bodyToMono(Void.class)).thenReturn(response.asMono(), Mono.empty());
+        LogForwarder forwarder = new LogForwarder(webClient, config, registry);
+
+        forwarder.forward(new LogEvent());
+        assertEquals(1, forwarder.inFlight());
+
+        CountDownLatch secondSent = new CountDownLatch(1);
+        Thread worker = new Thread(() -> {
+            try {
+                forwarder.forward(new LogEvent());
+                secondSent.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        worker.start();
+
+        assertFalse(secondSent.await(200, TimeUnit.MILLISECONDS));
+
+        response.tryEmitEmpty();
+        assertTrue(secondSent.await(2, TimeUnit.SECONDS));
+        assertEquals(1.0, registry.get("collector.forward.throttled").counter().count());
+    }
+
+    @Test
+    void testSendsBinaryBatches() throws Exception {
+        config.getBatch().setFormat(CollectorProperties.WireFormat.BINARY);
+        LogForwarder forwarder = new LogForwarder(webClient, config, registry);
+
+        forwarder.forwardBatch(List.of(new LogEvent(), new LogEvent()));
+
+        verify(requestBodySpec).contentType(LogBatchCodec.MEDIA_TYPE);
+        verify(requestBodySpec).bodyValue(any(byte[].class));
+        assertTrue(forwarder.isBinary());
+    }
+
+    @Test
+    void testFallsBackToJsonOnUnsupportedMediaType() throws Exception {
+        config.getBatch().setFormat(CollectorProperties.WireFormat.BINARY);
+        when(responseSpec.bodyToMono(Void.class)).thenReturn(
+                Mono.error(WebClientResponseException.create(415, "Unsupported Media Type", HttpHeaders.EMPTY, new byte[0], null)),
+                Mono.empty());
+        LogForwarder forwarder = new LogForwarder(webClient, config, registry);
+        List<LogEvent> batch = List.of(new LogEvent());
+
+        forwarder.forwardBatch(batch);
+        forwarder.forwardBatch(batch);
+
+        verify(requestBodySpec, times(1)).contentType(LogBatchCodec.MEDIA_TYPE);
+        verify(requestBodySpec, times(2)).bodyValue(batch);
+        assertFalse(forwarder.isBinary());
+        assertEquals(2.0, count("collector.forward.requests", "success"));
+        assertEquals(1.0, registry.get("collector.forward.format.fallback").counter().count());
+    }
+
+    @Test
+    void testRoutesEachHostToOneNode() throws Exception {
+        List<BlockingQueue<String>> received = new ArrayList<>();
+        List<DisposableServer> servers = new ArrayList<>();
+        try {
+            for (int i = 0; i < 3; i++) {
+                BlockingQueue<String> bodies = new LinkedBlockingQueue<>();
+                received.add(bodies);
+                servers.add(stubServer(bodies));
+                config.getNodes().add("http://127.0.0.1:" + servers.get(i).port());
+            }
+            config.getBatch().setEnabled(true);
+            LogForwarder forwarder = new LogForwarder(WebClient.builder(), config, registry);
+
+            List<LogEvent> batch = new ArrayList<>();
+            for (int i = 0; i < 60; i++) {
+                batch.add(hostEvent("host-" + (i % 20)));
+            }
+            forwarder.postBatch(batch).block(Duration.ofSeconds(5));
+            forwarder.postBatch(batch).block(Duration.ofSeconds(5));
+
+            Map<String, Integer> nodeOfHost = new HashMap<>();
+            int total = 0;
+            for (int node = 0; node < 3; node++) {
+                for (String body : received.get(node)) {
+                    Matcher m = HOSTNAME.matcher(body);
+                    while (m.find()) {
+                        total++;
+                        assertEquals(node, nodeOfHost.merge(m.group(1), node, (a, b) -> a));
+                    }
+                }
+            }
+            assertEquals(120, total);
+            assertTrue(new HashSet<>(nodeOfHost.values()).size() > 1, nodeOfHost.toString());
+            assertEquals(120.0, registry.find("collector.forward.node.events").counters().stream()
+                    .mapToDouble(Counter::count).sum());
+            forwarder.close();
+        } finally {
+            servers.forEach(DisposableServer::disposeNow);
+        }
+    }
+
+    @Test
+    void testFailsOverAndRecoversWithHealthChecks() throws Exception {
+        BlockingQueue<String> bodies = new LinkedBlockingQueue<>();
+        DisposableServer live = stubServer(bodies);
+        DisposableServer gone = stubServer(new LinkedBlockingQueue<>());
+        String goneUrl = "http://127.0.0.1:" + gone.port();
+        gone.disposeNow();
+        try {
+            config.getRetry().setMaxRetries(0);
+            config.setNodes(List.of("http://127.0.0.1:" + live.port(), goneUrl));
+            LogForwarder forwarder = new LogForwarder(WebClient.builder(), config, registry);
+
+            for (int i = 0; i < 20; i++) {
+                forwarder.post(hostEvent("host-" + i)).block(Duration.ofSeconds(5));
+            }
+
+            assertEquals(20, bodies.size());
+            assertEquals(1.0, registry.get("collector.forward.failovers").counter().count());
+            assertEquals(0.0, registry.get("collector.forward.node.up").tag("node", goneUrl).gauge().value());
+            assertEquals(20.0, count("collector.forward.requests", "success"));
+
+            // The live node, marked down by mistake, comes back with the next health check
+            forwarder.nodes().get(0).markDown();
+            forwarder.checkHealth();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+            while (!forwarder.nodes().get(0).isUp() && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertTrue(forwarder.nodes().get(0).isUp());
+            assertFalse(forwarder.nodes().get(1).isUp());
+            forwarder.close();
+        } finally {
+            live.disposeNow();
+        }
+    }
+
+    @Test
+    void testFailsOverStreamBatchesWhenANodeDies() throws Exception {
+        AtomicInteger liveEvents = new AtomicInteger();
+        DisposableServer live = streamServer(liveEvents, Disposables.composite());
+        Disposable.Composite dyingSessions = Disposables.composite();
+        DisposableServer dying = streamServer(new AtomicInteger(), dyingSessions);
+        String dyingUrl = "http://127.0.0.1:" + dying.port();
+        try {
+            config.setTransport(CollectorProperties.Transport.STREAM);
+            config.setMaxInFlight(4);
+            // Only the failed reconnect may mark the node down here
+            config.getRouting().setHealthInterval(Duration.ofMinutes(10));
+            config.setNodes(List.of("http://127.0.0.1:" + live.port(), dyingUrl));
+            LogForwarder forwarder = new LogForwarder(WebClient.builder(), config, registry);
+            List<LogEvent> batch = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                batch.add(hostEvent("host-" + i));
+            }
+            forwarder.postBatch(batch).block(Duration.ofSeconds(5));
+            int before = liveEvents.get();
+            assertTrue(before < 40, "both nodes take part of the batch");
+
+            dyingSessions.dispose();
+            dying.disposeNow();
+            // Five times the cap: a batch stuck on the dead node would block here for good
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                for (int i = 0; i < 20; i++) {
+                    forwarder.forwardBatch(batch);
+                }
+            });
+
+            awaitCount("success", 21.0);
+            assertEquals(before + 20 * 40, liveEvents.get());
+            assertEquals(0, forwarder.inFlight());
+            assertTrue(registry.get("collector.forward.failovers").counter().count() >= 1);
+            assertEquals(0.0, registry.get("collector.forward.node.up").tag("node", dyingUrl).gauge().value());
+            forwarder.close();
+        } finally {
+            live.disposeNow();
+        }
+    }
+
+    @Test
+    void testRejectsNonPositiveCap() {
+        config.setMaxInFlight(0);
+
+        assertThrows(IllegalArgumentException.class, () -> new LogForwarder(webClient, config, registry));
+    }
+
+    private double count(String name, String outcome) {
+        return registry.get(name).tag("outcome", outcome).counter().count();
+    }
+
+    private void awaitCount(String outcome, double expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (count("collector.forward.requests", outcome) < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, count("collector.forward.requests", outcome));
+    }
+
+    private static DisposableServer stubServer(BlockingQueue<String> bodies) {
+        return HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .route(routes -> routes
+                        .post("/ingest", (req, res) -> req.receive().aggregate().asString()
+                                .doOnNext(bodies::add)
+                                .then(res.send()))
+                        .post("/ingest/batch", (req, res) -> req.receive().aggregate().asString()
+                                .doOnNext(bodies::add)
+                                .then(res.send()))
+                        .get("/actuator/health", (req, res) -> res.sendString(Mono.just("{\"status\":\"UP\"}"))))
+                .bindNow();
+    }
+
+    // Grants plenty of credit and acknowledges every batch as it arrives
+    private static DisposableServer streamServer(AtomicInteger events, Disposable.Composite sessions) {
+        return HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .route(routes -> routes
+                        .ws(IngestStream.PATH, (in, out) -> out.withConnection(sessions::add).sendString(Flux.concat(
+                                Mono.just(IngestStream.CREDIT + 1000),
+                                in.receive().asByteArray().map(frame -> {
+                                    long seq = ByteBuffer.wrap(frame).getLong();
+                                    events.addAndGet(LogBatchCodec.decode(
+                                            Arrays.copyOfRange(frame, Long.BYTES, frame.length)).size());
+                                    return IngestStream.ACK + seq;
+                                }))))
+                        .get("/actuator/health", (req, res) -> res.sendString(Mono.just("{\"status\":\"UP\"}"))))
+                .bindNow();
+    }
+
+    private static LogEvent hostEvent(String hostname) {
+        LogEvent event = new LogEvent();
+        event.setHostname(hostname);
+        return event;
+    }
+
+    private static WebClientRequestException connectionRefused() {
+        return new WebClientRequestException(new IOException("Connection refused"),
+                HttpMethod.POST, URI.create("http://localhost:8082/ingest"), HttpHeaders.EMPTY);
+    }
+}
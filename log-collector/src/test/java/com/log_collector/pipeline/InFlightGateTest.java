@@ -0,0 +1,50 @@
+package com.log_collector.pipeline;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class InFlightGateTest {
+
+    @Test
+    void startsWaitingRequestsAsPermitsComeBack() {
+        InFlightGate gate = new InFlightGate(1);
+        Sinks.Empty<Void> first = Sinks.empty();
+        AtomicInteger secondStarted = new AtomicInteger();
+
+        gate.run(first.asMono()).subscribe();
+        gate.run(Mono.fromRunnable(secondStarted::incrementAndGet)).subscribe();
+        assertEquals(0, secondStarted.get());
+        assertEquals(1, gate.waiting());
+
+        first.tryEmitEmpty();
+        assertEquals(1, secondStarted.get());
+        assertEquals(1, gate.available());
+    }
+
+    @Test
+    void returnsPermitsOfCancelledAndFailedRequests() {
+        InFlightGate gate = new InFlightGate(1);
+        Disposable running = gate.run(Mono.never()).subscribe();
+        Disposable queued = gate.run(Mono.never()).subscribe();
+
+        queued.dispose();
+        assertEquals(0, gate.waiting());
+        running.dispose();
+        assertEquals(1, gate.available());
+
+        gate.run(Mono.error(new IllegalStateException("down"))).subscribe(null, e -> { });
+        assertEquals(1, gate.available());
+    }
+
+    @Test
+    void rejectsNonPositivePermits() {
+        assertThrows(IllegalArgumentException.class, () -> new InFlightGate(0));
+    }
+}
@@ -0,0 +1,158 @@
+package com.log_collector.pipeline;
+
+import com.log_collector.config.CollectorProperties;
+import com.log_collector.forward.LogForwarder;
+import com.log_collector.model.LogEvent;
+import com.log_collector.service.LogParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.EventLoop;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class InlinePipelineTest {
+
+    private LogForwarder forwarder;
+    private CollectorProperties properties;
+    private SimpleMeterRegistry registry;
+    private EventLoop loop;
+    private EventLoop otherLoop;
+
+    @BeforeEach
+    void setUp() {
+        forwarder = mock(LogForwarder.class);
+        when(forwarder.maxInFlight()).thenReturn(4);
+        when(forwarder.post(any())).thenReturn(Mono.empty());
+        when(forwarder.postBatch(anyList())).thenReturn(Mono.empty());
+
+        properties = new CollectorProperties();
+        properties.getPipeline().setMode(CollectorProperties.PipelineMode.INLINE);
+        registry = new SimpleMeterRegistry();
+        loop = new DefaultEventLoop();
+        otherLoop = new DefaultEventLoop();
+    }
+
+    @AfterEach
+    void tearDown() {
+        loop.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+        otherLoop.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testParsesAndPostsOnTheReadingLoop() {
+        List<Boolean> onLoop = new CopyOnWriteArrayList<>();
+        when(forwarder.post(any())).thenAnswer(inv -> {
+            onLoop.add(loop.inEventLoop());
+            return Mono.empty();
+        });
+        InlinePipeline pipeline = new InlinePipeline(new LogParser(), forwarder, properties, registry);
+
+        pipeline.process(loop, lines(loop, 3)).block(Duration.ofSeconds(5));
+
+        assertEquals(List.of(true, true, true), onLoop);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testBatchesAcrossConnectionsOfOneLoop() {
+        properties.getForward().getBatch().setEnabled(true);
+        properties.getForward().getBatch().setSize(4);
+        properties.getForward().getBatch().setLinger(Duration.ofSeconds(10));
+        List<Integer> sizes = new CopyOnWriteArrayList<>();
+        when(forwarder.postBatch(anyList())).thenAnswer(inv -> {
+            sizes.add(((List<LogEvent>) inv.getArgument(0)).size());
+            return Mono.empty();
+        });
+        InlinePipeline pipeline = new InlinePipeline(new LogParser(), forwarder, properties, registry);
+
+        pipeline.process(loop, lines(loop, 2)).block(Duration.ofSeconds(5));
+        pipeline.process(loop, lines(loop, 2)).block(Duration.ofSeconds(5));
+        pipeline.process(otherLoop, lines(otherLoop, 2)).block(Duration.ofSeconds(5));
+
+        assertEquals(List.of(4), sizes);
+        assertEquals(2, pipeline.laneCount());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testLoopFlushesPartialBatchAfterLinger() throws Exception {
+        properties.getForward().getBatch().setEnabled(true);
+        properties.getForward().getBatch().setSize(100);
+        properties.getForward().getBatch().setLinger(Duration.ofMillis(20));
+        List<Integer> sizes = new CopyOnWriteArrayList<>();
+        when(forwarder.postBatch(anyList())).thenAnswer(inv -> {
+            sizes.add(((List<LogEvent>) inv.getArgument(0)).size());
+            return Mono.empty();
+        });
+        InlinePipeline pipeline = new InlinePipeline(new LogParser(), forwarder, properties, registry);
+
+        pipeline.process(loop, lines(loop, 3)).block(Duration.ofSeconds(5));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (sizes.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(List.of(3), sizes);
+    }
+
+    @Test
+    void testStopsReadingAtTheInFlightCap() throws Exception {
+        when(forwarder.maxInFlight()).thenReturn(2);
+        List<Sinks.Empty<Void>> pending = new CopyOnWriteArrayList<>();
+        when(forwarder.post(any())).thenAnswer(inv -> {
+            Sinks.Empty<Void> ack = Sinks.empty();
+            pending.add(ack);
+            return ack.asMono();
+        });
+        InlinePipeline pipeline = new InlinePipeline(new LogParser(), forwarder, properties, registry);
+
+        pipeline.process(loop, lines(loop, 100)).subscribe();
+        Thread.sleep(100);
+
+        assertEquals(2, pending.size());
+        assertEquals(1.0, registry.get("collector.pipeline.stalls").counter().count());
+
+        pending.get(0).tryEmitEmpty();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (pending.size() < 3 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(3, pending.size());
+    }
+
+    @Test
+    void testSkipsLinesTheParserRejects() {
+        LogParser parser = mock(LogParser.class);
+        when(parser.parse("bad")).thenThrow(new IllegalArgumentException("bad line"));
+        when(parser.parse("good")).thenReturn(new LogEvent());
+        InlinePipeline pipeline = new InlinePipeline(parser, forwarder, properties, registry);
+
+        pipeline.process(loop, Flux.just("good", "bad", "good").subscribeOn(Schedulers.fromExecutor(loop)))
+                .block(Duration.ofSeconds(5));
+
+        verify(forwarder, times(2)).post(any(LogEvent.class));
+        assertEquals(1.0, registry.get("collector.pipeline.parse.errors").counter().count());
+    }
+
+    // Lines emitted on the given loop, as a connection's inbound flux would be
+    private static Flux<String> lines(EventLoop loop, int count) {
+        return Flux.range(0, count)
+                .map(i -> "{\"message\":\"line " + i + "\"}")
+                .subscribeOn(Schedulers.fromExecutor(loop));
+    }
+}
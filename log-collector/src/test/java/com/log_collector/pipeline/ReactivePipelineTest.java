@@ -0,0 +1,147 @@
+package com.log_collector.pipeline;
+
+import com.log_collector.config.CollectorProperties;
+import com.log_collector.forward.LogForwarder;
+import com.log_collector.model.LogEvent;
+import com.log_collector.service.LogParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class ReactivePipelineTest {
+
+    private LogForwarder forwarder;
+    private CollectorProperties properties;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        forwarder = mock(LogForwarder.class);
+        when(forwarder.maxInFlight()).thenReturn(4);
+        when(forwarder.post(any())).thenReturn(Mono.empty());
+        when(forwarder.postBatch(anyList())).thenReturn(Mono.empty());
+
+        properties = new CollectorProperties();
+        properties.getPipeline().setMode(CollectorProperties.PipelineMode.REACTIVE);
+        registry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void testPostsEveryParsedLine() {
+        ReactivePipeline pipeline = new ReactivePipeline(new LogParser(), forwarder, properties, registry);
+
+        pipeline.process(Flux.just(
+                "{\"message\":\"Accepted password for user alice from 10.0.0.1\"}",
+                "{\"message\":\"kernel panic\"}")).block(Duration.ofSeconds(5));
+
+        verify(forwarder, times(2)).post(any(LogEvent.class));
+        verify(forwarder, never()).postBatch(anyList());
+    }
+
+    @Test
+    void testSkipsLinesTheParserRejects() {
+        LogParser parser = mock(LogParser.class);
+        when(parser.parse("bad")).thenThrow(new IllegalArgumentException("bad line"));
+        when(parser.parse("good")).thenReturn(new LogEvent());
+        ReactivePipeline pipeline = new ReactivePipeline(parser, forwarder, properties, registry);
+
+        pipeline.process(Flux.just("good", "bad", "good")).block(Duration.ofSeconds(5));
+
+        verify(forwarder, times(2)).post(any(LogEvent.class));
+        assertEquals(1.0, registry.get("collector.pipeline.parse.errors").counter().count());
+    }
+
+    @Test
+    void testForwardFailureDoesNotEndTheConnection() {
+        when(forwarder.post(any())).thenReturn(Mono.error(new IllegalStateException("down")), Mono.empty());
+        ReactivePipeline pipeline = new ReactivePipeline(new LogParser(), forwarder, properties, registry);
+
+        pipeline.process(Flux.just("{\"message\":\"a\"}", "{\"message\":\"b\"}")).block(Duration.ofSeconds(5));
+
+        verify(forwarder, times(2)).post(any(LogEvent.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testBatchesWhenBatchingIsEnabled() {
+        properties.getForward().getBatch().setEnabled(true);
+        properties.getForward().getBatch().setSize(3);
+        properties.getForward().getBatch().setLinger(Duration.ofSeconds(10));
+        List<Integer> sizes = new ArrayList<>();
+        when(forwarder.postBatch(anyList())).thenAnswer(inv -> {
+            sizes.add(((List<LogEvent>) inv.getArgument(0)).size());
+            return Mono.empty();
+        });
+        ReactivePipeline pipeline = new ReactivePipeline(new LogParser(), forwarder, properties, registry);
+
+        pipeline.process(Flux.range(0, 7).map(i -> "{\"message\":\"line " + i + "\"}")).block(Duration.ofSeconds(5));
+
+        assertEquals(List.of(3, 3, 1), sizes);
+        verify(forwarder, never()).post(any());
+    }
+
+    @Test
+    void testStopsRequestingLinesWhileForwardsAreInFlight() {
+        when(forwarder.maxInFlight()).thenReturn(2);
+        properties.getPipeline().setPrefetch(8);
+        List<Sinks.Empty<Void>> pending = new ArrayList<>();
+        when(forwarder.post(any())).thenAnswer(inv -> {
+            Sinks.Empty<Void> ack = Sinks.empty();
+            pending.add(ack);
+            return ack.asMono();
+        });
+        AtomicLong requested = new AtomicLong();
+        ReactivePipeline pipeline = new ReactivePipeline(new LogParser(), forwarder, properties, registry);
+
+        pipeline.process(Flux.range(0, 1000)
+                        .map(i -> "{\"message\":\"line " + i + "\"}")
+                        .doOnRequest(requested::addAndGet))
+                .subscribe();
+
+        assertEquals(2, pending.size());
+        assertTrue(requested.get() <= 8, "requested " + requested.get());
+
+        pending.get(0).tryEmitEmpty();
+        assertEquals(3, pending.size());
+    }
+
+    @Test
+    void testSharesTheInFlightLimitAcrossConnections() {
+        when(forwarder.maxInFlight()).thenReturn(2);
+        List<Sinks.Empty<Void>> started = new ArrayList<>();
+        when(forwarder.post(any())).thenAnswer(inv -> {
+            Sinks.Empty<Void> ack = Sinks.empty();
+            return ack.asMono().doOnSubscribe(s -> started.add(ack));
+        });
+        ReactivePipeline pipeline = new ReactivePipeline(new LogParser(), forwarder, properties, registry);
+
+        for (int connection = 0; connection < 3; connection++) {
+            pipeline.process(Flux.range(0, 10).map(i -> "{\"message\":\"line " + i + "\"}")).subscribe();
+        }
+
+        assertEquals(2, started.size());
+        started.get(0).tryEmitEmpty();
+        assertEquals(3, started.size());
+    }
+
+    @Test
+    void testRejectsNonPositivePrefetch() {
+        properties.getPipeline().setPrefetch(0);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new ReactivePipeline(new LogParser(), forwarder, properties, registry));
+    }
+}
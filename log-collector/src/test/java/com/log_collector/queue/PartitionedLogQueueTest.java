@@ -0,0 +1,97 @@
+package com.log_collector.queue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionedLogQueueTest {
+
+    private SimpleMeterRegistry registry;
+    private PartitionedLogQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        List<BlockingQueue<String>> partitions = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            partitions.add(new ArrayBlockingQueue<>(8));
+        }
+        // Key is the text before the first ':'
+        queue = new PartitionedLogQueue(partitions, line -> line.substring(0, line.indexOf(':')).hashCode(), registry);
+    }
+
+    @Test
+    void testSameKeyKeepsOrderInOnePartition() {
+        for (int i = 0; i < 5; i++) {
+            assertTrue(queue.offer("web1:" + i));
+        }
+
+        BlockingQueue<String> partition = queue.partition(queue.partitionOf("web1:x"));
+        assertEquals(5, partition.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals("web1:" + i, partition.poll());
+        }
+    }
+
+    @Test
+    void testFullPartitionRefusesWhileOthersHaveRoom() {
+        for (int i = 0; i < 8; i++) {
+            assertTrue(queue.offer("hot:" + i));
+        }
+
+        assertFalse(queue.offer("hot:8"));
+        assertEquals(24, queue.remainingCapacity());
+        assertEquals(8, queue.size());
+    }
+
+    @Test
+    void testPublishesDepthAndSkew() {
+        assertEquals(0.0, registry.get("collector.queue.partition.skew").gauge().value());
+        for (int i = 0; i < 6; i++) {
+            queue.offer("hot:" + i);
+        }
+        int hot = queue.partitionOf("hot:x");
+
+        assertEquals(6.0, registry.get("collector.queue.partition.depth")
+                .tag("partition", Integer.toString(hot)).gauge().value());
+        assertEquals(6.0, registry.get("collector.queue.partition.lines")
+                .tag("partition", Integer.toString(hot)).functionCounter().count());
+        assertEquals(4.0, registry.get("collector.queue.partition.skew").gauge().value());
+    }
+
+    @Test
+    void testAggregateViewCoversAllPartitions() throws Exception {
+        List<String> offered = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            String line = "host" + i + ":x";
+            offered.add(line);
+            queue.put(line);
+        }
+
+        List<String> iterated = new ArrayList<>();
+        queue.forEach(iterated::add);
+        assertEquals(16, iterated.size());
+        assertTrue(iterated.containsAll(offered));
+
+        assertNotNull(queue.take());
+        assertNotNull(queue.poll(10, TimeUnit.MILLISECONDS));
+        List<String> drained = new ArrayList<>();
+        assertEquals(14, queue.drainTo(drained));
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testRejectsEmptyPartitionList() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new PartitionedLogQueue(new ArrayList<>(), String::hashCode, registry));
+    }
+}
@@ -0,0 +1,107 @@
+package com.log_collector.queue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RingBufferLogQueueTest {
+
+    @Test
+    void testRoundsCapacityUpToPowerOfTwo() {
+        assertEquals(1024, new RingBufferLogQueue(1000, WaitStrategy.BLOCKING).remainingCapacity());
+        assertEquals(8, new RingBufferLogQueue(8, WaitStrategy.BLOCKING).capacity());
+        assertThrows(IllegalArgumentException.class, () -> new RingBufferLogQueue(0, WaitStrategy.BLOCKING));
+    }
+
+    @Test
+    void testFifoAndFullQueue() {
+        RingBufferLogQueue queue = new RingBufferLogQueue(4, WaitStrategy.BLOCKING);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer("m" + i));
+        }
+        assertFalse(queue.offer("overflow"));
+        assertEquals(4, queue.size());
+        assertEquals("m0", queue.peek());
+
+        assertEquals("m0", queue.poll());
+        assertTrue(queue.offer("m4"));
+        assertEquals(List.of("m1", "m2", "m3", "m4"), new ArrayList<>(queue));
+    }
+
+    @Test
+    void testDrainToClaimsBatch() {
+        RingBufferLogQueue queue = new RingBufferLogQueue(16, WaitStrategy.BLOCKING);
+        for (int i = 0; i < 10; i++) {
+            queue.offer("m" + i);
+        }
+
+        List<String> batch = new ArrayList<>();
+        assertEquals(6, queue.drainTo(batch, 6));
+        assertEquals("m5", batch.get(5));
+        assertEquals(4, queue.drainTo(batch));
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.drainTo(batch, 6));
+    }
+
+    @Test
+    void testPollTimesOutWhenEmpty() throws Exception {
+        RingBufferLogQueue queue = new RingBufferLogQueue(4, WaitStrategy.BLOCKING);
+
+        assertNull(queue.poll(20, TimeUnit.MILLISECONDS));
+    }
+
+    @ParameterizedTest
+    @EnumSource(WaitStrategy.class)
+    void testManyProducersAndConsumersSeeEveryLineOnce(WaitStrategy strategy) throws Exception {
+        RingBufferLogQueue queue = new RingBufferLogQueue(64, strategy);
+        int producers = 4;
+        int perProducer = 5_000;
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        AtomicInteger received = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(producers * 2);
+
+        for (int c = 0; c < producers; c++) {
+            pool.submit(() -> {
+                List<String> batch = new ArrayList<>();
+                while (received.get() < producers * perProducer) {
+                    String first = queue.poll(10, TimeUnit.MILLISECONDS);
+                    if (first == null) continue;
+                    batch.add(first);
+                    queue.drainTo(batch, 15);
+                    for (String line : batch) {
+                        assertTrue(seen.add(line));
+                        received.incrementAndGet();
+                    }
+                    batch.clear();
+                }
+                return null;
+            });
+        }
+        for (int p = 0; p < producers; p++) {
+            int id = p;
+            pool.submit(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    queue.put(id + ":" + i);
+                }
+                return null;
+            });
+        }
+
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(producers * perProducer, seen.size());
+        assertTrue(queue.isEmpty());
+    }
+}
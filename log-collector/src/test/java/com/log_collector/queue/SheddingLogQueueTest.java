@@ -0,0 +1,120 @@
+package com.log_collector.queue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SheddingLogQueueTest {
+
+    private SimpleMeterRegistry registry;
+    private BlockingQueue<String> queue;
+    private AtomicInteger triaged;
+    private Function<String, LoadClass> triage;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        queue = new ArrayBlockingQueue<>(10);
+        triaged = new AtomicInteger();
+        // Class is the text before the first ':'
+        triage = line -> {
+            triaged.incrementAndGet();
+            return LoadClass.valueOf(line.substring(0, line.indexOf(':')));
+        };
+    }
+
+    // Sampling from 5 lines (50%), dropping routine lines from 8 (80%)
+    private SheddingLogQueue shedding(double sampleRate) {
+        return new SheddingLogQueue(queue, triage, 2, 0.5, 0.8, sampleRate, registry);
+    }
+
+    @Test
+    void testBelowThresholdLinesAreNotTriaged() {
+        SheddingLogQueue shed = shedding(0.5);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(shed.offer("ROUTINE:" + i));
+        }
+
+        assertEquals(5, queue.size());
+        assertEquals(0, triaged.get());
+    }
+
+    @Test
+    void testRoutineLinesAreSampledThenDropped() {
+        SheddingLogQueue shed = shedding(0.5);
+        fill(5);
+
+        for (int i = 0; i < 7; i++) {
+            assertTrue(shed.offer("ROUTINE:" + i));
+        }
+
+        // 5 queued -> sample keeps 1 of 2 until depth 8, then routine lines are dropped
+        assertEquals(8, queue.size());
+        assertEquals(3.0, registry.get("collector.shed.sampled").counter().count());
+        assertEquals(1.0, dropped("routine"));
+    }
+
+    @Test
+    void testElevatedLinesAreKeptWhileThereIsRoom() {
+        SheddingLogQueue shed = shedding(0.0);
+        fill(8);
+
+        assertTrue(shed.offer("ELEVATED:a"));
+        assertTrue(shed.offer("ELEVATED:b"));
+        assertFalse(shed.offer("ELEVATED:c"));
+
+        assertEquals(10, queue.size());
+        assertEquals(1.0, dropped("elevated"));
+    }
+
+    @Test
+    void testCriticalLinesUseReservedLaneAndAreTakenFirst() throws Exception {
+        SheddingLogQueue shed = shedding(0.0);
+        fill(10);
+
+        assertTrue(shed.offer("CRITICAL:a"));
+        assertTrue(shed.offer("CRITICAL:b"));
+        assertFalse(shed.offer("CRITICAL:c"));
+
+        assertEquals(2, shed.reservedSize());
+        assertEquals(12, shed.size());
+        assertEquals(0, shed.remainingCapacity());
+        assertEquals(2.0, registry.get("collector.shed.reserved").counter().count());
+        assertEquals(1.0, dropped("critical"));
+
+        assertEquals("CRITICAL:a", shed.take());
+        List<String> drained = new ArrayList<>();
+        shed.drainTo(drained, 2);
+        assertEquals(List.of("CRITICAL:b", "fill:0"), drained);
+    }
+
+    @Test
+    void testRejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new SheddingLogQueue(queue, triage, 0, 0.5, 0.8, 0.1, registry));
+        assertThrows(IllegalArgumentException.class,
+                () -> new SheddingLogQueue(queue, triage, 2, 0.9, 0.8, 0.1, registry));
+        assertThrows(IllegalArgumentException.class,
+                () -> new SheddingLogQueue(queue, triage, 2, 0.5, 0.8, 1.5, registry));
+    }
+
+    private void fill(int lines) {
+        for (int i = 0; i < lines; i++) {
+            queue.add("fill:" + i);
+        }
+    }
+
+    private double dropped(String loadClass) {
+        return registry.get("collector.shed.dropped").tag("class", loadClass).counter().count();
+    }
+}
@@ -0,0 +1,116 @@
+package com.log_collector.queue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpillLogTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testPollsInAppendOrder() throws Exception {
+        SpillLog log = SpillLog.open(dir, 1024, 1 << 20);
+
+        assertTrue(log.append("first"));
+        assertTrue(log.append("second"));
+
+        assertEquals(2, log.pending());
+        assertEquals("first", log.poll());
+        assertEquals("second", log.poll());
+        assertNull(log.poll());
+        assertTrue(log.isEmpty());
+    }
+
+    @Test
+    void testRollsSegmentsAndDeletesConsumedOnes() throws Exception {
+        SpillLog log = SpillLog.open(dir, 64, 1 << 20);
+
+        for (int i = 0; i < 20; i++) {
+            assertTrue(log.append("line-" + i));
+        }
+        assertTrue(segmentCount() > 1);
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals("line-" + i, log.poll());
+        }
+        assertEquals(1, segmentCount());
+    }
+
+    @Test
+    void testRejectsAppendsBeyondDiskBudget() throws Exception {
+        SpillLog log = SpillLog.open(dir, 64, 128);
+
+        int accepted = 0;
+        while (log.append("0123456789") && accepted < 100) {
+            accepted++;
+        }
+
+        assertTrue(accepted < 100);
+        assertEquals(128, log.diskBytes());
+        assertFalse(log.append("x".repeat(100)));
+    }
+
+    @Test
+    void testRecoversUnreadRecordsAfterRestart() throws Exception {
+        SpillLog log = SpillLog.open(dir, 64, 1 << 20);
+        for (int i = 0; i < 10; i++) {
+            log.append("line-" + i);
+        }
+        assertEquals("line-0", log.poll());
+        assertEquals("line-1", log.poll());
+        log.close();
+
+        SpillLog reopened = SpillLog.open(dir, 64, 1 << 20);
+
+        assertEquals(8, reopened.pending());
+        for (int i = 2; i < 10; i++) {
+            assertEquals("line-" + i, reopened.poll());
+        }
+        assertTrue(reopened.append("after-restart"));
+        assertEquals("after-restart", reopened.poll());
+    }
+
+    @Test
+    void testDropsTornRecordOnRecovery() throws Exception {
+        SpillLog log = SpillLog.open(dir, 1024, 1 << 20);
+        log.append("good");
+        log.append("torn");
+        log.close();
+
+        // Corrupt one payload byte of the second record
+        Path segment = segments()[0];
+        try (RandomAccessFile raf = new RandomAccessFile(segment.toFile(), "rw")) {
+            raf.seek(8 + 4 + 8);
+            raf.write('X');
+        }
+
+        SpillLog reopened = SpillLog.open(dir, 1024, 1 << 20);
+
+        assertEquals(1, reopened.pending());
+        assertEquals(1, reopened.corruptRecords());
+        assertEquals("good", reopened.poll());
+        assertNull(reopened.poll());
+
+        // New appends land where the torn record was
+        reopened.append("next");
+        assertEquals("next", reopened.poll());
+    }
+
+    private long segmentCount() throws Exception {
+        return segments().length;
+    }
+
+    private Path[] segments() throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.toString().endsWith(".seg")).sorted().toArray(Path[]::new);
+        }
+    }
+}
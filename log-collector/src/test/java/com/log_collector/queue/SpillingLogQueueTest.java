@@ -0,0 +1,83 @@
+package com.log_collector.queue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpillingLogQueueTest {
+
+    @TempDir
+    Path dir;
+
+    private SpillingLogQueue queue;
+
+    @AfterEach
+    void tearDown() {
+        if (queue != null) {
+            queue.close();
+        }
+    }
+
+    @Test
+    void testSpillsAboveThresholdAndReplaysInOrder() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        queue = new SpillingLogQueue(new ArrayBlockingQueue<>(10), SpillLog.open(dir, 4096, 1 << 20),
+                5, Duration.ofMillis(1), registry);
+
+        for (int i = 0; i < 50; i++) {
+            assertTrue(queue.offer("line-" + i));
+        }
+        assertTrue(queue.size() <= 5);
+        assertTrue(registry.get("collector.spill.written").counter().count() >= 45);
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals("line-" + i, queue.poll(2, TimeUnit.SECONDS));
+        }
+        assertEquals(0, queue.spilled());
+    }
+
+    @Test
+    void testRejectsWhenDiskBudgetIsUsed() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        queue = new SpillingLogQueue(new ArrayBlockingQueue<>(2), SpillLog.open(dir, 64, 128),
+                2, Duration.ofHours(1), registry);
+
+        int accepted = 0;
+        while (queue.offer("0123456789") && accepted < 100) {
+            accepted++;
+        }
+
+        assertTrue(accepted < 100);
+        assertEquals(1.0, registry.get("collector.spill.rejected").counter().count());
+    }
+
+    @Test
+    void testReplaysSpillLeftByPreviousRun() throws Exception {
+        SpillLog previous = SpillLog.open(dir, 4096, 1 << 20);
+        previous.append("left-over");
+        previous.close();
+
+        queue = new SpillingLogQueue(new ArrayBlockingQueue<>(10), SpillLog.open(dir, 4096, 1 << 20),
+                5, Duration.ofMillis(1), new SimpleMeterRegistry());
+        queue.offer("new");
+
+        assertEquals("left-over", queue.poll(2, TimeUnit.SECONDS));
+        assertEquals("new", queue.poll(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testRejectsThresholdAboveCapacity() throws Exception {
+        SpillLog log = SpillLog.open(dir, 4096, 1 << 20);
+
+        assertThrows(IllegalArgumentException.class, () -> new SpillingLogQueue(
+                new ArrayBlockingQueue<>(10), log, 11, Duration.ofMillis(1), new SimpleMeterRegistry()));
+    }
+}
@@ -1,8 +1,15 @@
 package com.log_collector.service;
 
+import com.log_collector.config.CollectorProperties;
 import com.log_collector.model.LogEvent;
+import com.log_collector.queue.LoadClass;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.Instant;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class LogParserTest {
@@ -87,4 +94,211 @@ class LogParserTest {
         LogEvent event = logParser.parse(raw);
         assertTrue(event.isBlacklisted());
     }
-}
\ No newline at end of file
+
+    /**
+     * Coverage: fast path and regex path agree on every field but the timestamp.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "host02 user alice session closed",
+            "win-srv Microsoft-Windows-Security-Auditing Account Name: bob",
+            "server-03 Application Error occurred",
+            "nothing",
+            "{\"other_key\": \"val\"}",
+            "host user root",
+            "{\"message\":\"<86> aiops9242 sudo: pam_unix(sudo:session): session opened for user root(uid=0)\"}",
+            "{\"message\":\"<13> DESKTOP-1 Microsoft-Windows-Security-Auditing Account Name:\\tcarol\"}",
+            " {\"a\":[1,{\"b\":null}],\"message\":\"x y\",\"message\":\"last one wins\"}",
+            "{\"message\": 42}",
+            "{\"message\": null}",
+            "{\"message\": {\"nested\": true}}",
+            "{\"message\": \"broken\"",
+            "[\"message\"]",
+            "123",
+            "",
+            "a  b",
+            "a   ",
+            " lead",
+            "superuser  root username admin",
+            "username: x user - user\t_svc",
+            "Account Name:",
+            "Account Name:   dave user",
+            "caf\u00e9 user \u00e9ric"
+    })
+    void testFastPathMatchesRegexPath(String raw) {
+        LogEvent regex = logParser.parseRegex(raw);
+        LogEvent fast = logParser.parse(raw);
+
+        assertEquals(regex.getRawMessage(), fast.getRawMessage());
+        assertEquals(regex.getHostname(), fast.getHostname());
+        assertEquals(regex.getUsername(), fast.getUsername());
+        assertEquals(regex.isBlacklisted(), fast.isBlacklisted());
+        assertEquals(regex.getService(), fast.getService());
+        assertEquals(regex.getEventCategory(), fast.getEventCategory());
+        assertEquals(regex.getSeverity(), fast.getSeverity());
+        assertEquals(regex.getAppName(), fast.getAppName());
+        assertEquals(regex.getFacility(), fast.getFacility());
+    }
+
+    /**
+     * Coverage: non-string message values are left to the tree-based path.
+     */
+    @Test
+    void testFastPathDefersNonStringMessage() {
+        assertNull(logParser.parseFast("{\"message\": 1.50}"));
+        assertEquals("1.5", logParser.parse("{\"message\": 1.50}").getRawMessage());
+    }
+
+    /**
+     * Coverage: PRI severity, without downgrading a rule's severity.
+     */
+    @Test
+    void testPriSeverity() {
+        assertEquals("CRITICAL",
+                logParser.parse("<34> aiops9242 cron: pam_unix(cron:session): session closed for user root").getSeverity());
+        assertEquals("ERROR", logParser.parse("<102> WIN-PC Application Error: Application crash detected").getSeverity());
+        assertEquals("DEBUG", logParser.parse("<15> host app: nothing matched").getSeverity());
+    }
+
+    /**
+     * Coverage: header timestamp and hostname replace receive time and the second word.
+     */
+    @Test
+    void testSyslogHeaderFields() {
+        LogEvent event = logParser.parse(
+                "{\"message\":\"<165>1 2003-10-11T22:14:15.003Z mymachine evntslog 99 ID47 - user bob logged in\"}");
+
+        assertEquals(Instant.parse("2003-10-11T22:14:15.003Z"), event.getTimestamp());
+        assertEquals("mymachine", event.getHostname());
+        assertEquals("evntslog", event.getAppName());
+        assertEquals("99", event.getProcId());
+        assertEquals("local4", event.getFacility());
+        assertEquals("NOTICE", event.getSeverity());
+        assertEquals("bob", event.getUsername());
+    }
+
+    /**
+     * Coverage: triage gives the load class of the event parse() builds.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "<86> aiops9242 sudo: pam_unix(sudo:session): session opened for user root(uid=0)",
+            "<86> aiops9242 sudo: pam_unix(sudo:session): session opened for user alice(uid=0)",
+            "<34> aiops9242 cron: pam_unix(cron:session): session closed for user bob",
+            "<134> WIN-PC Application Error: Application crash detected",
+            "<12> host app: disk almost full",
+            "{\"message\":\"<13> host app: notice\"}",
+            "host user admin logged in",
+            "plain text"
+    })
+    void testTriageMatchesParsedEvent(String raw) {
+        LogEvent event = logParser.parse(raw);
+
+        assertEquals(LoadClass.of(SyslogParser.severityCode(event.getSeverity()), event.isBlacklisted()),
+                logParser.triage(raw));
+    }
+
+    @Test
+    void testTriageClasses() {
+        assertEquals(LoadClass.CRITICAL, logParser.triage("<134> WIN-PC Application Error: crash"));
+        assertEquals(LoadClass.CRITICAL, logParser.triage("<86> h sudo: session opened for user root"));
+        assertEquals(LoadClass.ELEVATED, logParser.triage("<12> host app: disk almost full"));
+        assertEquals(LoadClass.ROUTINE, logParser.triage("<86> h sudo: session opened for user alice"));
+        assertEquals(LoadClass.ROUTINE, logParser.triage("plain text"));
+    }
+
+    /**
+     * Coverage: the partition hash follows the hostname the parser extracts, JSON or plain.
+     */
+    @Test
+    void testHostHashFollowsHostname() {
+        int plain = LogParser.hostHash("<86> aiops9242 sudo: session opened for user root");
+
+        assertEquals(plain, LogParser.hostHash("{\"message\":\"<86> aiops9242 sudo: session opened for user root\"}"));
+        assertEquals(plain, LogParser.hostHash("{\"level\":\"x\", \"message\" : \"<34> aiops9242 cron: closed\"}"));
+        assertEquals(plain, LogParser.hostHash("<1> aiops9242"));
+        assertNotEquals(plain, LogParser.hostHash("<86> aiops9243 sudo: session opened for user root"));
+        assertEquals(LogParser.hostHash("single"), LogParser.hostHash("{\"message\":\"single\"}"));
+    }
+
+    /**
+     * Coverage: RFC 5424 and RFC 3164 headers partition by their hostname, not the token after PRI.
+     */
+    @Test
+    void testHostHashFollowsSyslogHeaderHostname() {
+        String[] lines = {
+                "<34>1 2003-10-11T22:14:15.003Z mymachine.example.com su - ID47 - BOM'su root' failed",
+                "<165>1 2003-08-24T05:14:15.000003-07:00 192.0.2.1 myproc 8710 - [exampleSDID@32473 eventSource=Application] msg",
+                "<34>1 2003-10-11T22:14:15Z - su - - - no hostname",
+                "<34>Oct 11 22:14:15 mymachine su: 'su root' failed for lonvick",
+                "<13>Feb  5 17:32:18 10.0.0.99 Use the BFG!",
+                "<13>2026-01-04T10:00:00Z web-03 sshd[42]: Accepted",
+                "<13>Oct 11 22:14:15 cron[7]: no hostname",
+                "<86> aiops9242 sudo: session opened for user root"
+        };
+        for (String line : lines) {
+            String hostname = logParser.parse(line).getHostname();
+            assertEquals(LogParser.hostHash("x " + hostname), LogParser.hostHash(line), line);
+            assertEquals(LogParser.hostHash(line), LogParser.hostHash("{\"message\":\"" + line.replace("\"", "\\\"") + "\"}"), line);
+        }
+        assertEquals(LogParser.hostHash("<34>Oct 11 22:14:15 mymachine su: a"),
+                LogParser.hostHash("<34>Oct 12 09:00:01 mymachine cron: b"));
+    }
+
+    /**
+     * Coverage: template mode gives the same fields as per-message parsing on client-style traffic.
+     */
+    @Test
+    void testTemplateModeMatchesPerMessageParsing() {
+        CollectorProperties properties = new CollectorProperties();
+        properties.getParser().getTemplates().setEnabled(true);
+        LogParser templated = new LogParser(properties);
+
+        String[] users = {"root", "alice", "admin", "bob_2"};
+        for (int i = 0; i < 200; i++) {
+            String user = users[i % users.length];
+            String[] lines = {
+                    "<86> aiops" + (i % 7) + " sudo: pam_unix(sudo:session): session opened for user " + user + "(uid=" + i + ")",
+                    "<34> aiops" + (i % 7) + " cron: pam_unix(cron:session): session closed for user " + user,
+                    "<134> WIN-PC" + (i % 3) + " Microsoft-Windows-Security-Auditing: Account Name: " + user,
+                    "<102> WIN-PC Application Error: Application crash detected in pid " + i,
+                    "host" + i + " user " + user + " session closed"
+            };
+            for (String line : lines) {
+                LogEvent expected = logParser.parse(line);
+                LogEvent actual = templated.parse(line);
+
+                assertEquals(expected.getHostname(), actual.getHostname(), line);
+                assertEquals(expected.getUsername(), actual.getUsername(), line);
+                assertEquals(expected.isBlacklisted(), actual.isBlacklisted(), line);
+                assertEquals(expected.getService(), actual.getService(), line);
+                assertEquals(expected.getEventCategory(), actual.getEventCategory(), line);
+                assertEquals(expected.getSeverity(), actual.getSeverity(), line);
+                assertNotNull(actual.getTemplateId());
+                assertNull(expected.getTemplateId());
+            }
+        }
+    }
+
+    /**
+     * Coverage: a rule keyword inside a token with digits, such as a PID-tagged app name, still classifies.
+     */
+    @Test
+    void testTemplateModeKeepsKeywordsInsideVariableTokens() {
+        CollectorProperties properties = new CollectorProperties();
+        properties.getParser().getTemplates().setEnabled(true);
+        LogParser templated = new LogParser(properties);
+
+        for (int pid = 4242; pid < 4252; pid++) {
+            String raw = "{\"message\":\"<86> aiops9242 sudo[" + pid
+                    + "]: alice : TTY=pts/0 ; PWD=/home/alice ; USER=root ; COMMAND=/bin/ls\"}";
+            LogEvent expected = logParser.parse(raw);
+            LogEvent actual = templated.parse(raw);
+
+            assertEquals("linux_login", expected.getService());
+            assertEquals(expected.getService(), actual.getService(), raw);
+            assertEquals(expected.getEventCategory(), actual.getEventCategory(), raw);
+            assertEquals(expected.getSeverity(), actual.getSeverity(), raw);
+        }
+    }
+}
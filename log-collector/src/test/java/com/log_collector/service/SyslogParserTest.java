@@ -0,0 +1,124 @@
+package com.log_collector.service;
+
+import com.log_collector.model.LogEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyslogParserTest {
+
+    private SyslogParser parser;
+    private LogEvent event;
+
+    @BeforeEach
+    void setUp() {
+        parser = new SyslogParser(ZoneOffset.UTC, Clock.fixed(Instant.parse("2026-01-04T10:00:00Z"), ZoneOffset.UTC));
+        event = new LogEvent();
+    }
+
+    @Test
+    void testClientLineWithoutTimestamp() {
+        int severity = parser.parse("<86> aiops9242 sudo: pam_unix(sudo:session): session opened", event);
+
+        assertEquals(6, severity);
+        assertEquals("authpriv", event.getFacility());
+        assertEquals("aiops9242", event.getHostname());
+        assertEquals("sudo", event.getAppName());
+        assertNull(event.getProcId());
+        assertNull(event.getTimestamp());
+    }
+
+    @Test
+    void testRfc3164WithTimestampAndPid() {
+        int severity = parser.parse("<34>Jan  3 22:14:15 mymachine CRON[1234]: session closed for user root", event);
+
+        assertEquals(2, severity);
+        assertEquals("auth", event.getFacility());
+        assertEquals(Instant.parse("2026-01-03T22:14:15Z"), event.getTimestamp());
+        assertEquals("mymachine", event.getHostname());
+        assertEquals("CRON", event.getAppName());
+        assertEquals("1234", event.getProcId());
+    }
+
+    @Test
+    void testRfc3164TimestampAfterNowBelongsToLastYear() {
+        parser.parse("<13>Dec 31 23:59:59 host app: late", event);
+
+        assertEquals(Instant.parse("2025-12-31T23:59:59Z"), event.getTimestamp());
+    }
+
+    @Test
+    void testRfc3164WithoutHostname() {
+        parser.parse("<13>Jan  4 09:00:00 su[77]: 'su root' failed", event);
+
+        assertNull(event.getHostname());
+        assertEquals("su", event.getAppName());
+        assertEquals("77", event.getProcId());
+    }
+
+    @Test
+    void testTagWithoutColonIsNotAnAppName() {
+        parser.parse("<102> WIN-PC Application Error: Application crash detected", event);
+
+        assertEquals("WIN-PC", event.getHostname());
+        assertNull(event.getAppName());
+    }
+
+    @Test
+    void testRfc5424FullHeader() {
+        int severity = parser.parse("<165>1 2003-10-11T22:14:15.003Z mymachine.example.com evntslog - ID47 "
+                + "[exampleSDID@32473 iut=\"3\" eventSource=\"App\\\"lication\"][meta x=\"]\"] An application event", event);
+
+        assertEquals(5, severity);
+        assertEquals("local4", event.getFacility());
+        assertEquals(Instant.parse("2003-10-11T22:14:15.003Z"), event.getTimestamp());
+        assertEquals("mymachine.example.com", event.getHostname());
+        assertEquals("evntslog", event.getAppName());
+        assertNull(event.getProcId());
+        assertEquals("ID47", event.getMsgId());
+        assertEquals("[exampleSDID@32473 iut=\"3\" eventSource=\"App\\\"lication\"][meta x=\"]\"]",
+                event.getStructuredData());
+    }
+
+    @Test
+    void testRfc5424NilValuesAndOffset() {
+        parser.parse("<14>1 2026-01-04T12:30:00.5+02:00 - - 42 - -", event);
+
+        assertEquals(Instant.parse("2026-01-04T10:30:00.5Z"), event.getTimestamp());
+        assertNull(event.getHostname());
+        assertNull(event.getAppName());
+        assertEquals("42", event.getProcId());
+        assertNull(event.getStructuredData());
+    }
+
+    @Test
+    void testNotSyslog() {
+        assertEquals(-1, parser.parse("host02 user alice", event));
+        assertEquals(-1, parser.parse("<192> too big", event));
+        assertEquals(-1, parser.parse("<1234> too long", event));
+        assertEquals(-1, parser.parse("<> empty", event));
+        assertNull(event.getFacility());
+    }
+
+    @Test
+    void testRfc3339Parsing() {
+        assertEquals(Instant.parse("1985-04-12T23:20:50.520Z"),
+                SyslogParser.parseRfc3339("1985-04-12T23:20:50.52Z", 0, 23));
+        assertEquals(Instant.parse("1996-12-20T00:39:57Z"),
+                SyslogParser.parseRfc3339("1996-12-19T16:39:57-08:00", 0, 25));
+        assertNull(SyslogParser.parseRfc3339("2026-02-30T00:00:00Z", 0, 20));
+        assertNull(SyslogParser.parseRfc3339("2026-01-04 10:00:00Z", 0, 20));
+    }
+
+    @Test
+    void testSeverityNames() {
+        assertEquals("ERROR", SyslogParser.severityName(3));
+        assertEquals(4, SyslogParser.severityCode("warn"));
+        assertEquals(-1, SyslogParser.severityCode("HIGH"));
+    }
+}
@@ -0,0 +1,98 @@
+package com.log_collector.tcp;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LineFrameDecoderTest {
+
+    private FrameMetrics metrics;
+    private EmbeddedChannel channel;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new FrameMetrics(new SimpleMeterRegistry());
+        channel = new EmbeddedChannel(new LineFrameDecoder(16, metrics));
+    }
+
+    @Test
+    void testSplitsChunkHoldingManyLines() {
+        channel.writeInbound(bytes("one\ntwo\r\nthree\n"));
+
+        assertEquals("one", readFrame());
+        assertEquals("two", readFrame());
+        assertEquals("three", readFrame());
+        assertNull(channel.readInbound());
+    }
+
+    @Test
+    void testJoinsLineTornAcrossChunks() {
+        channel.writeInbound(bytes("{\"mess"));
+        assertNull(channel.readInbound());
+
+        channel.writeInbound(bytes("age\"}\n"));
+        assertEquals("{\"message\"}", readFrame());
+    }
+
+    @Test
+    void testSkipsBlankLines() {
+        channel.writeInbound(bytes("\n\r\nabc\n"));
+
+        assertEquals("abc", readFrame());
+        assertNull(channel.readInbound());
+    }
+
+    @Test
+    void testDiscardsOversizeFrameWithDelimiter() {
+        channel.writeInbound(bytes("0123456789abcdefXYZ\nok\n"));
+
+        assertEquals("ok", readFrame());
+        assertEquals(1.0, metrics.oversizeCount());
+    }
+
+    @Test
+    void testDiscardsOversizeFrameSpanningChunks() {
+        channel.writeInbound(bytes("0123456789abcdefXYZ"));
+        channel.writeInbound(bytes("still the same line"));
+        channel.writeInbound(bytes(" end\nnext\n"));
+
+        assertEquals("next", readFrame());
+        assertNull(channel.readInbound());
+        assertEquals(1.0, metrics.oversizeCount());
+    }
+
+    @Test
+    void testEmitsUnterminatedLineOnClose() {
+        channel.writeInbound(bytes("last"));
+        assertNull(channel.readInbound());
+
+        channel.finish();
+        assertEquals("last", readFrame());
+    }
+
+    @Test
+    void testRejectsNonPositiveLimit() {
+        assertThrows(IllegalArgumentException.class, () -> new LineFrameDecoder(0, metrics));
+    }
+
+    private String readFrame() {
+        ByteBuf frame = channel.readInbound();
+        assertNotNull(frame);
+        try {
+            return frame.toString(StandardCharsets.UTF_8);
+        } finally {
+            frame.release();
+        }
+    }
+
+    private static ByteBuf bytes(String s) {
+        return Unpooled.copiedBuffer(s, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,85 @@
+package com.log_collector.tcp;
+
+import com.log_collector.config.CollectorProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueueBackpressureTest {
+
+    private BlockingQueue<String> queue;
+    private CollectorProperties.Tcp config;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        queue = new ArrayBlockingQueue<>(10);
+        config = new CollectorProperties.Tcp();
+        config.setReadCredit(4);
+        registry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void testPausesAboveHighWaterWithoutDropping() {
+        QueueBackpressure backpressure = new QueueBackpressure(queue, config, registry);
+        AtomicBoolean done = new AtomicBoolean();
+
+        backpressure.feed("c1", lines(30)).subscribe(null, null, () -> done.set(true));
+
+        assertTrue(queue.size() >= 8);
+        assertEquals(1, backpressure.pausedConnections());
+        assertFalse(done.get());
+
+        List<String> received = new ArrayList<>();
+        while (!done.get()) {
+            queue.drainTo(received);
+            backpressure.resumeIfDrained();
+        }
+        queue.drainTo(received);
+
+        assertEquals(30, received.size());
+        for (int i = 0; i < 30; i++) {
+            assertEquals(String.valueOf(i), received.get(i));
+        }
+        assertEquals(0, backpressure.pausedConnections());
+        assertTrue(registry.get("collector.tcp.read.paused").timer().count() > 0);
+    }
+
+    @Test
+    void testStaysPausedUntilLowWater() {
+        QueueBackpressure backpressure = new QueueBackpressure(queue, config, registry);
+
+        backpressure.feed("c1", lines(30)).subscribe();
+        int depth = queue.size();
+
+        // Above the low-water mark of 5, nothing resumes
+        queue.poll();
+        queue.poll();
+        backpressure.resumeIfDrained();
+
+        assertEquals(depth - 2, queue.size());
+        assertEquals(1, backpressure.pausedConnections());
+        assertTrue(backpressure.pausedTimeByConnection().containsKey("c1"));
+    }
+
+    @Test
+    void testRejectsInvertedWaterMarks() {
+        config.setLowWaterMark(0.9);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new QueueBackpressure(queue, config, registry));
+    }
+
+    private static Flux<String> lines(int count) {
+        return Flux.range(0, count).map(String::valueOf);
+    }
+}
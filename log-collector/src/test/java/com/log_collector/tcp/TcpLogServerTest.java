@@ -1,14 +1,27 @@
 package com.log_collector.tcp;
 
+import com.log_collector.config.CollectorProperties;
+import com.log_collector.pipeline.LinePipeline;
+import com.log_collector.pipeline.ReactivePipeline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.Unpooled;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
 import reactor.netty.DisposableServer;
 
+import java.io.OutputStream;
 import java.lang.reflect.Field;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 /**
@@ -180,4 +193,139 @@ class TcpLogServerTest {
         assertNotNull(serverField);
         assertEquals(DisposableServer.class, serverField.getType());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testToMessageDecodesUtf8Frame() {
+        String msg = server.toMessage(Unpooled.copiedBuffer("{\"message\":\"h\u00e9llo\"}", StandardCharsets.UTF_8));
+
+        assertEquals("{\"message\":\"h\u00e9llo\"}", msg);
+        assertEquals(1.0, server.frameMetrics().acceptedCount());
+    }
+
+    @Test
+    void testToMessageCountsMalformedFrame() {
+        String msg = server.toMessage(Unpooled.wrappedBuffer(new byte[]{'a', (byte) 0xC3, (byte) 0x28}));
+
+        assertNull(msg);
+        assertEquals(1.0, server.frameMetrics().malformedCount());
+        assertEquals(0.0, server.frameMetrics().acceptedCount());
+    }
+
+    @Test
+    void testFramesLinesFromSocket() throws Exception {
+        CollectorProperties properties = new CollectorProperties();
+        properties.getTcp().setHost("127.0.0.1");
+        properties.getTcp().setPort(freePort());
+        TcpLogServer live = new TcpLogServer(queue, properties, new SimpleMeterRegistry());
+        live.start();
+
+        try (Socket socket = new Socket("127.0.0.1", properties.getTcp().getPort())) {
+            OutputStream out = socket.getOutputStream();
+            out.write("{\"message\":\"a\"}\n{\"mess".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            Thread.sleep(100);
+            out.write("age\":\"b\"}\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+
+            assertEquals("{\"message\":\"a\"}", queue.poll(2, TimeUnit.SECONDS));
+            assertEquals("{\"message\":\"b\"}", queue.poll(2, TimeUnit.SECONDS));
+        } finally {
+            live.stop();
+        }
+    }
+
+    @Test
+    void testPausePolicyDeliversEveryLine() throws Exception {
+        CollectorProperties properties = new CollectorProperties();
+        properties.getTcp().setHost("127.0.0.1");
+        properties.getTcp().setPort(freePort());
+        properties.getTcp().setOverflowPolicy(CollectorProperties.OverflowPolicy.PAUSE);
+        TcpLogServer live = new TcpLogServer(queue, properties, new SimpleMeterRegistry());
+        live.start();
+
+        try (Socket socket = new Socket("127.0.0.1", properties.getTcp().getPort())) {
+            OutputStream out = socket.getOutputStream();
+            for (int i = 0; i < 200; i++) {
+                out.write(("line" + i + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            out.flush();
+
+            for (int i = 0; i < 200; i++) {
+                assertEquals("line" + i, queue.poll(2, TimeUnit.SECONDS));
+            }
+        } finally {
+            live.stop();
+        }
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @Test
+    void testReactiveModeNeedsPipeline() {
+        CollectorProperties properties = new CollectorProperties();
+        properties.getPipeline().setMode(CollectorProperties.PipelineMode.REACTIVE);
+
+        assertThrows(IllegalStateException.class,
+                () -> new TcpLogServer(queue, properties, new SimpleMeterRegistry()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testReactiveModeBypassesQueue() throws Exception {
+        CollectorProperties properties = new CollectorProperties();
+        properties.getTcp().setHost("127.0.0.1");
+        properties.getTcp().setPort(freePort());
+        properties.getPipeline().setMode(CollectorProperties.PipelineMode.REACTIVE);
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        ReactivePipeline pipeline = mock(ReactivePipeline.class);
+        when(pipeline.process(any(), any())).thenAnswer(inv ->
+                ((Flux<String>) inv.getArgument(1)).doOnNext(received::add).then());
+        TcpLogServer live = new TcpLogServer(queue, properties, new SimpleMeterRegistry(), pipeline);
+        live.start();
+
+        try (Socket socket = new Socket("127.0.0.1", properties.getTcp().getPort())) {
+            OutputStream out = socket.getOutputStream();
+            out.write("{\"message\":\"a\"}\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+
+            assertEquals("{\"message\":\"a\"}", received.poll(2, TimeUnit.SECONDS));
+            assertTrue(queue.isEmpty());
+            assertNull(live.backpressure());
+        } finally {
+            live.stop();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testConfiguredEventLoopsReadConnections() throws Exception {
+        CollectorProperties properties = new CollectorProperties();
+        properties.getTcp().setHost("127.0.0.1");
+        properties.getTcp().setPort(freePort());
+        properties.getTcp().setEventLoops(2);
+        properties.getPipeline().setMode(CollectorProperties.PipelineMode.INLINE);
+        BlockingQueue<String> threads = new LinkedBlockingQueue<>();
+        LinePipeline pipeline = mock(LinePipeline.class);
+        when(pipeline.process(any(), any())).thenAnswer(inv ->
+                ((Flux<String>) inv.getArgument(1))
+                        .doOnNext(line -> threads.add(Thread.currentThread().getName()))
+                        .then());
+        TcpLogServer live = new TcpLogServer(queue, properties, new SimpleMeterRegistry(), pipeline);
+        live.start();
+
+        try (Socket socket = new Socket("127.0.0.1", properties.getTcp().getPort())) {
+            socket.getOutputStream().write("{\"message\":\"a\"}\n".getBytes(StandardCharsets.UTF_8));
+            socket.getOutputStream().flush();
+
+            String thread = threads.poll(2, TimeUnit.SECONDS);
+            assertNotNull(thread);
+            assertTrue(thread.startsWith("collector-tcp"), thread);
+        } finally {
+            live.stop();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.log_collector.template;
+
+import com.log_collector.classify.ClassificationRule;
+import com.log_collector.classify.EventClassifier;
+import com.log_collector.config.CollectorProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TemplateMinerTest {
+
+    private EventClassifier classifier;
+    private CollectorProperties.Templates config;
+
+    @BeforeEach
+    void setUp() {
+        classifier = new EventClassifier();
+        config = new CollectorProperties.Templates();
+    }
+
+    @Test
+    void testRepeatedShapesShareOneTemplate() {
+        TemplateMiner miner = new TemplateMiner(classifier, config, new SimpleMeterRegistry());
+
+        TemplateMiner.Match first = miner.match("<86> aiops9242 sudo: pam_unix(sudo:session): session opened for user root(uid=0)");
+        TemplateMiner.Match second = miner.match("<86> aiops9242 sudo: pam_unix(sudo:session): session opened for user alice(uid=1000)");
+
+        assertSame(first.template(), second.template());
+        assertEquals("<*> <*> sudo: pam_unix(sudo:session): session opened for user <*>", second.template().getText());
+        assertEquals("aiops9242", second.hostname());
+        assertEquals("alice", second.username());
+        assertEquals("linux_login", second.rule().getService());
+        assertEquals(1, miner.size());
+    }
+
+    @Test
+    void testDifferingConstantBecomesSlot() {
+        TemplateMiner miner = new TemplateMiner(classifier, config, new SimpleMeterRegistry());
+
+        miner.match("hostb user alice session closed");
+        TemplateMiner.Match merged = miner.match("hostb user bob session closed");
+
+        assertEquals("hostb user <*> session closed", merged.template().getText());
+        assertEquals("bob", merged.username());
+        assertEquals("user", merged.hostname());
+        assertEquals("bob", merged.slot(2));
+        assertEquals(1, miner.size());
+    }
+
+    @Test
+    void testMergeThatChangesClassificationIsRefused() {
+        TemplateMiner miner = new TemplateMiner(classifier, config, new SimpleMeterRegistry());
+
+        TemplateMiner.Match sudo = miner.match("<86> host sudo: x");
+        TemplateMiner.Match cron = miner.match("<86> host cron: x");
+
+        assertNotSame(sudo.template(), cron.template());
+        assertEquals("linux_login", sudo.rule().getService());
+        assertEquals("linux_logout", cron.rule().getService());
+        assertEquals(2, miner.size());
+    }
+
+    @Test
+    void testLeastRecentlyUsedTemplateIsEvicted() {
+        config.setMaxTemplates(2);
+        TemplateMiner miner = new TemplateMiner(classifier, config, new SimpleMeterRegistry());
+
+        LogTemplate a = miner.match("alpha one").template();
+        miner.match("beta two three");
+        miner.match("alpha one");
+        miner.match("gamma four five six");
+
+        assertEquals(2, miner.size());
+        assertSame(a, miner.match("alpha one").template());
+        assertEquals(2, miner.size());
+    }
+
+    @Test
+    void testCachedRuleFollowsReload() {
+        TemplateMiner miner = new TemplateMiner(classifier, config, new SimpleMeterRegistry());
+        assertNull(miner.match("kernel: oom").rule());
+
+        classifier.reload(List.of(new ClassificationRule(List.of("kernel"), "kernel", "system.event", "WARN", 1)));
+
+        assertEquals("kernel", miner.match("kernel: oom").rule().getService());
+    }
+
+    @Test
+    void testTokenizeFollowsSplit() {
+        for (String s : new String[]{"", " ", "a", "a ", "a  b", " a", "a  ", "a b c"}) {
+            assertEquals(s.split(" ").length, TemplateMiner.tokenize(s).length / 2, "'" + s + "'");
+        }
+    }
+
+    @Test
+    void testTemplateIdIsStableAcrossInstances() {
+        TemplateMiner one = new TemplateMiner(classifier, config, new SimpleMeterRegistry());
+        TemplateMiner two = new TemplateMiner(classifier, config, new SimpleMeterRegistry());
+
+        assertEquals(one.match("session closed for x").template().getId(),
+                two.match("session closed for x").template().getId());
+    }
+}
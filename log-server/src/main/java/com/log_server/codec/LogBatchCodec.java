@@ -0,0 +1,390 @@
+package com.log_server.codec;
+
+import com.log_server.model.LogEvent;
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compact binary encoding of a batch of {@link LogEvent}s, accepted by
+ * {@code /ingest/batch} as {@value #CONTENT_TYPE}. The collector keeps a
+ * copy of this codec in step with this one; both test suites pin the same
+ * encoded bytes, so a change to either copy fails its tests.
+ * <p>
+ * Layout: the bytes {@code 'L' 'B'}, a version byte and a flags byte. With
+ * {@link #FLAG_DEFLATE} set, the uncompressed length follows as a varint
+ * and the rest is raw deflate; otherwise the body follows as is. The body
+ * is the event count, then per event:
+ * <ul>
+ *   <li>a varint bitmap of the non-null fields, with bit 7 for {@code blacklisted};</li>
+ *   <li>the timestamp as zigzag varint deltas of epoch seconds and of
+ *       nanos from the previous event in the batch;</li>
+ *   <li>each present string field in declaration order.</li>
+ * </ul>
+ * {@code rawMessage} and {@code structuredData} are written as a varint
+ * UTF-8 length and the bytes. All other strings go through a per-batch
+ * dictionary: a varint {@code 0} is followed by a new string, which gets
+ * the next index, and {@code n > 0} repeats entry {@code n - 1}. Service,
+ * category, severity and host names therefore cost one byte after their
+ * first use in a batch.
+ */
+public final class LogBatchCodec {
+
+    public static final String CONTENT_TYPE = "application/x-log-batch";
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(CONTENT_TYPE);
+
+    static final int VERSION = 1;
+    static final int FLAG_DEFLATE = 1;
+
+    // Largest batch accepted once inflated, so a small body cannot expand without bound
+    public static final int MAX_BATCH_BYTES = 16 * 1024 * 1024;
+
+    private static final byte MAGIC_0 = 'L';
+    private static final byte MAGIC_1 = 'B';
+
+    private static final int TIMESTAMP = 0;
+    private static final int SERVICE = 1;
+    private static final int EVENT_CATEGORY = 2;
+    private static final int SEVERITY = 3;
+    private static final int USERNAME = 4;
+    private static final int HOSTNAME = 5;
+    private static final int RAW_MESSAGE = 6;
+    private static final int BLACKLISTED = 7;
+    private static final int FACILITY = 8;
+    private static final int APP_NAME = 9;
+    private static final int PROC_ID = 10;
+    private static final int MSG_ID = 11;
+    private static final int STRUCTURED_DATA = 12;
+    private static final int TEMPLATE_ID = 13;
+
+    private LogBatchCodec() {
+    }
+
+    public static byte[] encode(List<LogEvent> events, boolean compress) {
+        Writer body = new Writer(64 + events.size() * 96);
+        Map<String, Integer> dictionary = new HashMap<>();
+        long seconds = 0;
+        int nanos = 0;
+
+        body.varint(events.size());
+        for (LogEvent event : events) {
+            Instant timestamp = event.getTimestamp();
+            int present = (timestamp != null ? 1 << TIMESTAMP : 0)
+                    | bit(event.getService(), SERVICE)
+                    | bit(event.getEventCategory(), EVENT_CATEGORY)
+                    | bit(event.getSeverity(), SEVERITY)
+                    | bit(event.getUsername(), USERNAME)
+                    | bit(event.getHostname(), HOSTNAME)
+                    | bit(event.getRawMessage(), RAW_MESSAGE)
+                    | (event.isBlacklisted() ? 1 << BLACKLISTED : 0)
+                    | bit(event.getFacility(), FACILITY)
+                    | bit(event.getAppName(), APP_NAME)
+                    | bit(event.getProcId(), PROC_ID)
+                    | bit(event.getMsgId(), MSG_ID)
+                    | bit(event.getStructuredData(), STRUCTURED_DATA)
+                    | bit(event.getTemplateId(), TEMPLATE_ID);
+            body.varint(present);
+
+            if (timestamp != null) {
+                body.zigzag(timestamp.getEpochSecond() - seconds);
+                body.zigzag(timestamp.getNano() - nanos);
+                seconds = timestamp.getEpochSecond();
+                nanos = timestamp.getNano();
+            }
+            body.ref(event.getService(), dictionary);
+            body.ref(event.getEventCategory(), dictionary);
+            body.ref(event.getSeverity(), dictionary);
+            body.ref(event.getUsername(), dictionary);
+            body.ref(event.getHostname(), dictionary);
+            body.literal(event.getRawMessage());
+            body.ref(event.getFacility(), dictionary);
+            body.ref(event.getAppName(), dictionary);
+            body.ref(event.getProcId(), dictionary);
+            body.ref(event.getMsgId(), dictionary);
+            body.literal(event.getStructuredData());
+            body.ref(event.getTemplateId(), dictionary);
+        }
+
+        Writer out = new Writer(compress ? 16 + body.size / 2 : 4 + body.size);
+        out.raw(MAGIC_0);
+        out.raw(MAGIC_1);
+        out.raw(VERSION);
+        out.raw(compress ? FLAG_DEFLATE : 0);
+        if (!compress) {
+            out.bytes(body.buf, 0, body.size);
+            return out.toByteArray();
+        }
+
+        out.varint(body.size);
+        // Level 1: most of the gain on repetitive text at a fraction of the CPU
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(body.buf, 0, body.size);
+            deflater.finish();
+            while (!deflater.finished()) {
+                out.ensure(Math.max(256, body.size / 4));
+                out.size += deflater.deflate(out.buf, out.size, out.buf.length - out.size);
+            }
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code data} is not a well-formed batch
+     */
+    public static List<LogEvent> decode(byte[] data) {
+        Reader in = new Reader(data, 0, data.length);
+        if (in.u8() != MAGIC_0 || in.u8() != MAGIC_1) {
+            throw malformed("bad magic");
+        }
+        int version = in.u8();
+        if (version != VERSION) {
+            throw malformed("unsupported version " + version);
+        }
+        int flags = in.u8();
+        if ((flags & ~FLAG_DEFLATE) != 0) {
+            throw malformed("unknown flags " + flags);
+        }
+        if ((flags & FLAG_DEFLATE) != 0) {
+            in = inflate(in);
+        }
+
+        int count = in.varint();
+        // Every event takes at least its bitmap byte
+        if (count > in.remaining()) {
+            throw malformed("event count " + count + " exceeds body");
+        }
+        List<LogEvent> events = new ArrayList<>(count);
+        List<String> dictionary = new ArrayList<>();
+        long seconds = 0;
+        long nanos = 0;
+
+        for (int i = 0; i < count; i++) {
+            int present = in.varint();
+            if (present >>> (TEMPLATE_ID + 1) != 0) {
+                throw malformed("unknown field bits " + present);
+            }
+            LogEvent event = new LogEvent();
+            if (has(present, TIMESTAMP)) {
+                seconds += in.zigzag();
+                nanos += in.zigzag();
+                if (nanos < 0 || nanos > 999_999_999) {
+                    throw malformed("nanos out of range");
+                }
+                try {
+                    event.setTimestamp(Instant.ofEpochSecond(seconds, nanos));
+                } catch (DateTimeException e) {
+                    throw malformed("timestamp out of range");
+                }
+            }
+            event.setService(has(present, SERVICE) ? in.ref(dictionary) : null);
+            event.setEventCategory(has(present, EVENT_CATEGORY) ? in.ref(dictionary) : null);
+            event.setSeverity(has(present, SEVERITY) ? in.ref(dictionary) : null);
+            event.setUsername(has(present, USERNAME) ? in.ref(dictionary) : null);
+            event.setHostname(has(present, HOSTNAME) ? in.ref(dictionary) : null);
+            event.setRawMessage(has(present, RAW_MESSAGE) ? in.string() : null);
+            event.setBlacklisted(has(present, BLACKLISTED));
+            event.setFacility(has(present, FACILITY) ? in.ref(dictionary) : null);
+            event.setAppName(has(present, APP_NAME) ? in.ref(dictionary) : null);
+            event.setProcId(has(present, PROC_ID) ? in.ref(dictionary) : null);
+            event.setMsgId(has(present, MSG_ID) ? in.ref(dictionary) : null);
+            event.setStructuredData(has(present, STRUCTURED_DATA) ? in.string() : null);
+            event.setTemplateId(has(present, TEMPLATE_ID) ? in.ref(dictionary) : null);
+            events.add(event);
+        }
+        if (in.remaining() != 0) {
+            throw malformed(in.remaining() + " trailing bytes");
+        }
+        return events;
+    }
+
+    private static Reader inflate(Reader in) {
+        int length = in.varint();
+        if (length > MAX_BATCH_BYTES) {
+            throw malformed("inflated size " + length + " over limit");
+        }
+        byte[] body = new byte[length];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(in.buf, in.pos, in.remaining());
+            int n = 0;
+            while (n < length && !inflater.finished()) {
+                int read = inflater.inflate(body, n, length - n);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                n += read;
+            }
+            if (n != length) {
+                throw malformed("inflated to " + n + " bytes, expected " + length);
+            }
+        } catch (DataFormatException e) {
+            throw malformed("corrupt deflate stream: " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+        return new Reader(body, 0, length);
+    }
+
+    private static int bit(String value, int field) {
+        return value != null ? 1 << field : 0;
+    }
+
+    private static boolean has(int present, int field) {
+        return (present & (1 << field)) != 0;
+    }
+
+    private static IllegalArgumentException malformed(String reason) {
+        return new IllegalArgumentException("Malformed log batch: " + reason);
+    }
+
+    private static final class Writer {
+
+        byte[] buf;
+        int size;
+
+        Writer(int capacity) {
+            this.buf = new byte[capacity];
+        }
+
+        void ensure(int extra) {
+            if (size + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + extra));
+            }
+        }
+
+        void raw(int b) {
+            ensure(1);
+            buf[size++] = (byte) b;
+        }
+
+        void bytes(byte[] b, int off, int len) {
+            ensure(len);
+            System.arraycopy(b, off, buf, size, len);
+            size += len;
+        }
+
+        void varint(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                buf[size++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[size++] = (byte) v;
+        }
+
+        void zigzag(long v) {
+            varint((v << 1) ^ (v >> 63));
+        }
+
+        void literal(String s) {
+            if (s != null) {
+                byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+                varint(utf8.length);
+                bytes(utf8, 0, utf8.length);
+            }
+        }
+
+        void ref(String s, Map<String, Integer> dictionary) {
+            if (s == null) {
+                return;
+            }
+            Integer index = dictionary.get(s);
+            if (index != null) {
+                varint(index + 1);
+                return;
+            }
+            dictionary.put(s, dictionary.size());
+            varint(0);
+            literal(s);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, size);
+        }
+    }
+
+    private static final class Reader {
+
+        final byte[] buf;
+        final int end;
+        int pos;
+
+        Reader(byte[] buf, int pos, int end) {
+            this.buf = buf;
+            this.pos = pos;
+            this.end = end;
+        }
+
+        int remaining() {
+            return end - pos;
+        }
+
+        int u8() {
+            if (pos >= end) {
+                throw malformed("truncated");
+            }
+            return buf[pos++] & 0xFF;
+        }
+
+        long varlong() {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = u8();
+                v |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return v;
+                }
+            }
+            throw malformed("varint too long");
+        }
+
+        int varint() {
+            long v = varlong();
+            if (v < 0 || v > Integer.MAX_VALUE) {
+                throw malformed("length out of range");
+            }
+            return (int) v;
+        }
+
+        long zigzag() {
+            long v = varlong();
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        String string() {
+            int length = varint();
+            if (length > remaining()) {
+                throw malformed("string runs past the end");
+            }
+            String s = new String(buf, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return s;
+        }
+
+        String ref(List<String> dictionary) {
+            int index = varint();
+            if (index == 0) {
+                String s = string();
+                dictionary.add(s);
+                return s;
+            }
+            if (index > dictionary.size()) {
+                throw malformed("dictionary index " + index + " of " + dictionary.size());
+            }
+            return dictionary.get(index - 1);
+        }
+    }
+}
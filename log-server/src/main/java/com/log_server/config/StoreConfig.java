@@ -0,0 +1,12 @@
+package com.log_server.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Binds {@link StoreProperties} for the log store.
+ */
+@Configuration
+@EnableConfigurationProperties(StoreProperties.class)
+public class StoreConfig {
+}
@@ -0,0 +1,74 @@
+package com.log_server.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Tunables for the in-memory log store, bound from the {@code store.*} keys.
+ */
+@Data
+@ConfigurationProperties(prefix = "store")
+public class StoreProperties {
+
+    // ROW keeps the ingested event objects; COLUMNAR dictionary-encodes them column by column;
+    // OFF_HEAP encodes them into direct memory pages; FILE writes them to segment files that outlive a restart
+    private Layout layout = Layout.ROW;
+
+    private Segment segment = new Segment();
+    private OffHeap offHeap = new OffHeap();
+    private Disk disk = new Disk();
+    private Retention retention = new Retention();
+
+    @Data
+    public static class Segment {
+
+        // Events arriving within one bucket of this length share a segment
+        private Duration duration = Duration.ofMinutes(1);
+
+        // Most events per segment, at most 65535 unless ROW; also sealed at an eighth of any retention limit
+        private int size = 4096;
+    }
+
+    @Data
+    public static class OffHeap {
+
+        // OFF_HEAP only; a segment holds at least one page
+        private DataSize pageSize = DataSize.ofKilobytes(64);
+
+        // Direct memory for pages; the oldest segments are dropped to stay within it.
+        // -XX:MaxDirectMemorySize must allow at least this much
+        private DataSize maxSize = DataSize.ofMegabytes(256);
+    }
+
+    @Data
+    public static class Disk {
+
+        // FILE only: where segment files live; existing ones are loaded at startup
+        private String directory = "data";
+
+        // Group commit: appended events are forced to disk together at this interval; 0 forces every event
+        private Duration fsyncInterval = Duration.ofSeconds(1);
+
+        // Events per entry of each file's sparse timestamp index
+        private int indexInterval = 256;
+    }
+
+    @Data
+    public static class Retention {
+
+        // Limits on what is kept; whole segments are dropped, oldest first. 0 turns a limit off
+        private long maxEvents = 1_000_000;
+        private DataSize maxBytes = DataSize.ofMegabytes(512);
+        private Duration maxAge = Duration.ofHours(24);
+    }
+
+    public enum Layout {
+        ROW,
+        COLUMNAR,
+        OFF_HEAP,
+        FILE
+    }
+}
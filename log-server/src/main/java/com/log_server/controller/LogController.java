@@ -1,12 +1,21 @@
 package com.log_server.controller;
 
+import com.log_server.codec.LogBatchCodec;
 import com.log_server.model.LogEvent;
 import com.log_server.service.LogStore;
+import com.log_server.store.LogQuery;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebInputException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.Comparator;
+import java.time.Instant;
 
 @RestController
 @RequestMapping
@@ -24,6 +33,35 @@ public class LogController {
         return log.doOnNext(store::add).then();
     }
 
+    // Accepts a JSON array or an NDJSON stream; events are stored as they are decoded
+    @PostMapping(
+            value = "/ingest/batch",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE}
+    )
+    public Mono<Void> ingestBatch(@RequestBody Flux<LogEvent> logs) {
+        return logs.doOnNext(store::add).then();
+    }
+
+    // Binary batches from the collector; the body is decoded once it has fully arrived
+    @PostMapping(value = "/ingest/batch", consumes = LogBatchCodec.CONTENT_TYPE)
+    public Mono<Void> ingestBinaryBatch(@RequestBody Flux<DataBuffer> body) {
+        return DataBufferUtils.join(body, LogBatchCodec.MAX_BATCH_BYTES)
+                .map(buffer -> {
+                    try {
+                        byte[] bytes = new byte[buffer.readableByteCount()];
+                        buffer.read(bytes);
+                        return LogBatchCodec.decode(bytes);
+                    } finally {
+                        DataBufferUtils.release(buffer);
+                    }
+                })
+                .onErrorMap(IllegalArgumentException.class, e -> new ServerWebInputException(e.getMessage()))
+                .onErrorMap(DataBufferLimitException.class,
+                        e -> new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, e.getMessage()))
+                .doOnNext(events -> events.forEach(store::add))
+                .then();
+    }
+
     // -------------------- Query API --------------------
     @GetMapping("/logs")
     public Flux<LogEvent> getLogs(
@@ -31,20 +69,26 @@ public class LogController {
             @RequestParam(name = "level", required = false) String level,
             @RequestParam(name = "username", required = false) String username,
             @RequestParam(name = "isBlacklisted", required = false) Boolean isBlacklisted,
+            @RequestParam(name = "templateId", required = false) String templateId,
+            // Event time range, ISO-8601 instants; from is inclusive, to is exclusive
+            @RequestParam(name = "from", required = false) Instant from,
+            @RequestParam(name = "to", required = false) Instant to,
             @RequestParam(name = "limit", required = false, defaultValue = "50") Integer limit,
             @RequestParam(name = "sort", required = false, defaultValue = "timestamp") String sort
     ) {
 
-        Flux<LogEvent> flux = Flux.fromIterable(store.getAll())
-                .filter(log -> service == null || service.equalsIgnoreCase(log.getService()))
-                .filter(log -> level == null || level.equalsIgnoreCase(log.getSeverity()))
-                .filter(log -> username == null || username.equals(log.getUsername()))
-                .filter(log -> isBlacklisted == null || isBlacklisted.equals(log.isBlacklisted()));
-
-        if ("timestamp".equalsIgnoreCase(sort)) {
-            flux = flux.sort(Comparator.comparing(LogEvent::getTimestamp));
-        }
+        LogQuery query = new LogQuery();
+        query.setService(service);
+        query.setLevel(level);
+        query.setUsername(username);
+        query.setBlacklisted(isBlacklisted);
+        query.setTemplateId(templateId);
+        query.setFrom(from);
+        query.setTo(to);
+        query.setLimit(limit);
+        query.setOrderByTimestamp("timestamp".equalsIgnoreCase(sort));
 
-        return flux.take(limit);
+        // The store skips segments that cannot match and builds only the events it returns
+        return Flux.fromIterable(store.query(query));
     }
 }
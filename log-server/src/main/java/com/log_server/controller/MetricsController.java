@@ -1,14 +1,12 @@
 package com.log_server.controller;
 
-import com.log_server.model.LogEvent;
 import com.log_server.service.LogStore;
+import com.log_server.store.LogField;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Mono;
 
-import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @RestController
 public class MetricsController {
@@ -22,26 +20,18 @@ public class MetricsController {
     @GetMapping("/metrics")
     public Mono<Map<String, Object>> metrics() {
 
-        List<LogEvent> logs = logStore.getAll();
+        // Counts come from the store's segment summaries rather than a copy of every event
+        Map<String, Long> byCategory = logStore.countBy(LogField.CATEGORY);
+        Map<String, Long> bySeverity = logStore.countBy(LogField.SEVERITY);
 
-        Map<String, Long> byCategory =
-                logs.stream()
-                        .collect(Collectors.groupingBy(
-                                LogEvent::getEventCategory,
-                                Collectors.counting()
-                        ));
-
-        Map<String, Long> bySeverity =
-                logs.stream()
-                        .collect(Collectors.groupingBy(
-                                LogEvent::getSeverity,
-                                Collectors.counting()
-                        ));
+        // Only events the collector matched to a template
+        Map<String, Long> byTemplate = logStore.countBy(LogField.TEMPLATE);
 
         Map<String, Object> metrics = Map.of(
-                "totalLogs", logs.size(),
+                "totalLogs", logStore.size(),
                 "logsByCategory", byCategory,
-                "logsBySeverity", bySeverity
+                "logsBySeverity", bySeverity,
+                "logsByTemplate", byTemplate
         );
 
         return Mono.just(metrics);
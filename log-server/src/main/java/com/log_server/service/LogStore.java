@@ -1,27 +1,545 @@
 package com.log_server.service;
 
+import com.log_server.config.StoreProperties;
 import com.log_server.model.LogEvent;
+import com.log_server.store.ColumnarSegment;
+import com.log_server.store.DurableSegment;
+import com.log_server.store.LogField;
+import com.log_server.store.LogQuery;
+import com.log_server.store.MappedSegment;
+import com.log_server.store.OffHeapSegment;
+import com.log_server.store.PagePool;
+import com.log_server.store.RowSegment;
+import com.log_server.store.Segment;
+import com.log_server.store.SegmentDirectory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PreDestroy;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * In-memory event store bounded by event count, estimated heap bytes and
+ * age ({@code store.retention.*}).
+ * <p>
+ * Events are appended to a head {@link Segment}, which is sealed when its
+ * time bucket ({@code store.segment.duration}, by arrival) ends, when it is
+ * full or when it holds an eighth of any limit. Retention drops the oldest
+ * sealed segments whole, so eviction costs one deque operation per segment
+ * rather than one per event, and the store stays within a segment of each
+ * limit. Queries skip segments whose timestamp range or field summaries
+ * rule them out, and scan sealed segments outside the lock.
+ * <p>
+ * {@code store.layout} picks how segments hold events: {@link RowSegment}
+ * keeps the ingested objects, {@link ColumnarSegment} encodes them into
+ * columns and builds events only for the rows a query returns, and
+ * {@link OffHeapSegment} encodes them into pages of direct memory. When
+ * the {@link PagePool} is used up, the oldest segments are dropped to make
+ * room.
+ * <p>
+ * With the FILE layout the head is a {@link DurableSegment} that also
+ * appends to a file, forced to disk every {@code store.disk.fsync-interval}
+ * for all events since the last time. Sealed segments are
+ * {@link MappedSegment}s over their files, and at startup the files of the
+ * previous run are mapped again instead of being re-ingested.
+ */
 @Service
 public class LogStore {
 
-    private final Queue<LogEvent> logs = new ConcurrentLinkedQueue<>();
+    private static final Logger log = LoggerFactory.getLogger(LogStore.class);
+
+    private static final Comparator<Hit> BY_TIMESTAMP = Comparator.<Hit>comparingLong(hit -> hit.second)
+            .thenComparingInt(hit -> hit.nano)
+            .thenComparingLong(hit -> hit.seq);
+
+    private final StoreProperties.Layout layout;
+    private final PagePool pages;
+    private final SegmentDirectory files;
+    private final ScheduledExecutorService committer;
+    private final int segmentCapacity;
+    private final long bucketMillis;
+    private final long maxEvents;
+    private final long maxBytes;
+    private final long maxAgeMillis;
+    private final long sealBytes;
+    private final long sealAgeMillis;
+    private final Clock clock;
+
+    private final Counter evictedByCount;
+    private final Counter evictedByBytes;
+    private final Counter evictedByAge;
+    private final Counter evictedByOffHeap;
+
+    // All guarded by this
+    private final ArrayDeque<Segment> sealed = new ArrayDeque<>();
+    private Segment head;
+    private long events;
+    private long bytes;
+
+    public LogStore() {
+        this(new StoreProperties(), new SimpleMeterRegistry());
+    }
+
+    @Autowired
+    public LogStore(ObjectProvider<StoreProperties> properties, ObjectProvider<MeterRegistry> registry) {
+        this(properties.getIfAvailable(StoreProperties::new), registry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    public LogStore(StoreProperties properties, MeterRegistry registry) {
+        this(properties, registry, Clock.systemUTC());
+    }
+
+    LogStore(StoreProperties properties, MeterRegistry registry, Clock clock) {
+        StoreProperties.Retention retention = properties.getRetention();
+        StoreProperties.Segment segment = properties.getSegment();
+        if (segment.getSize() <= 0 || segment.getDuration().toMillis() <= 0) {
+            throw new IllegalArgumentException("store.segment size and duration must be positive");
+        }
+        if (retention.getMaxEvents() < 0 || retention.getMaxBytes().isNegative() || retention.getMaxAge().isNegative()) {
+            throw new IllegalArgumentException("store.retention limits must not be negative");
+        }
+        this.maxEvents = retention.getMaxEvents();
+        this.maxBytes = retention.getMaxBytes().toBytes();
+        this.maxAgeMillis = retention.getMaxAge().toMillis();
+        this.segmentCapacity = maxEvents > 0
+                ? (int) Math.max(1, Math.min(segment.getSize(), maxEvents / 8))
+                : segment.getSize();
+        this.layout = properties.getLayout();
+        if (layout != StoreProperties.Layout.ROW && segmentCapacity > ColumnarSegment.MAX_CAPACITY) {
+            throw new IllegalArgumentException("store.segment.size must be at most "
+                    + ColumnarSegment.MAX_CAPACITY + " with the " + layout + " layout");
+        }
+        if (layout == StoreProperties.Layout.OFF_HEAP) {
+            StoreProperties.OffHeap offHeap = properties.getOffHeap();
+            if (offHeap.getPageSize().toBytes() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("store.off-heap.page-size must be under 2GB");
+            }
+            this.pages = new PagePool((int) offHeap.getPageSize().toBytes(), offHeap.getMaxSize().toBytes());
+        } else {
+            this.pages = null;
+        }
+        StoreProperties.Disk disk = properties.getDisk();
+        if (layout == StoreProperties.Layout.FILE) {
+            if (disk.getFsyncInterval().isNegative()) {
+                throw new IllegalArgumentException("store.disk.fsync-interval must not be negative");
+            }
+            try {
+                this.files = new SegmentDirectory(Paths.get(disk.getDirectory()), disk.getIndexInterval(),
+                        disk.getFsyncInterval().isZero());
+                for (MappedSegment loaded : files.load()) {
+                    sealed.addLast(loaded);
+                    events += loaded.size();
+                    bytes += loaded.bytes();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot load segments from " + disk.getDirectory(), e);
+            }
+        } else {
+            this.files = null;
+        }
+        this.bucketMillis = segment.getDuration().toMillis();
+        this.sealBytes = maxBytes > 0 ? Math.max(1, maxBytes / 8) : Long.MAX_VALUE;
+        this.sealAgeMillis = maxAgeMillis > 0 ? Math.max(1, maxAgeMillis / 8) : Long.MAX_VALUE;
+        this.clock = clock;
+        this.head = newSegment(clock.millis());
+
+        this.evictedByCount = evicted(registry, "count");
+        this.evictedByBytes = evicted(registry, "bytes");
+        this.evictedByAge = evicted(registry, "age");
+        this.evictedByOffHeap = evicted(registry, "off-heap");
+        Gauge.builder("store.events", this, LogStore::size)
+                .description("Events held by the log store")
+                .register(registry);
+        Gauge.builder("store.bytes", this, LogStore::bytes)
+                .description("Estimated heap taken by stored events")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("store.bytes.per.event", this, LogStore::bytesPerEvent)
+                .description("Estimated heap per stored event")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("store.segments", this, LogStore::segments)
+                .description("Segments held by the log store, head included")
+                .register(registry);
+        if (pages != null) {
+            Gauge.builder("store.offheap.used", pages, PagePool::used)
+                    .description("Direct memory in pages held by segments")
+                    .baseUnit("bytes")
+                    .register(registry);
+            Gauge.builder("store.offheap.allocated", pages, PagePool::allocated)
+                    .description("Direct memory allocated for pages, idle ones included")
+                    .baseUnit("bytes")
+                    .register(registry);
+        }
+
+        // Segments loaded from disk may already be past retention
+        evict(clock.millis());
+
+        if (files != null && !disk.getFsyncInterval().isZero()) {
+            committer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "store-fsync");
+                t.setDaemon(true);
+                return t;
+            });
+            long nanos = disk.getFsyncInterval().toNanos();
+            committer.scheduleWithFixedDelay(this::commit, nanos, nanos, TimeUnit.NANOSECONDS);
+        } else {
+            committer = null;
+        }
+    }
+
+    private static Counter evicted(MeterRegistry registry, String reason) {
+        return Counter.builder("store.evicted")
+                .description("Events dropped by retention")
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    public synchronized void add(LogEvent event) {
+        long now = clock.millis();
+        // A head from an earlier bucket, or open too long, would keep fresh events alive with stale ones
+        if (head.size() > 0 && (head.bucket() != bucket(now) || now - head.firstAppendMillis() >= sealAgeMillis)) {
+            seal(now);
+        }
+        long cost = head.append(event, now);
+        while (cost < 0) {
+            // Off-heap pages are used up: drop the oldest data to make room
+            if (!sealed.isEmpty()) {
+                drop(sealed.pollFirst(), evictedByOffHeap);
+            } else if (head.size() > 0) {
+                drop(head, evictedByOffHeap);
+                head = newSegment(now);
+            } else {
+                log.warn("Dropping event too large for store.off-heap.max-size");
+                evictedByOffHeap.increment();
+                return;
+            }
+            cost = head.append(event, now);
+        }
+        events++;
+        bytes += cost;
+        if (head.isFull() || head.bytes() >= sealBytes) {
+            seal(now);
+        }
+        evict(now);
+    }
+
+    public synchronized List<LogEvent> getAll() {
+        evict(clock.millis());
+        List<LogEvent> all = new ArrayList<>((int) events);
+        for (Segment segment : sealed) {
+            segment.copyTo(all);
+        }
+        head.copyTo(all);
+        return all;
+    }
+
+    /**
+     * Matching events up to the query's limit, oldest first by timestamp
+     * (events without one last) or in arrival order.
+     */
+    public List<LogEvent> query(LogQuery query) {
+        int limit = query.getLimit();
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        return query.isOrderByTimestamp() ? oldest(query, limit) : firstArrived(query, limit);
+    }
+
+    private List<LogEvent> firstArrived(LogQuery query, int limit) {
+        List<LogEvent> fromHead = new ArrayList<>();
+        List<Segment> segments;
+        synchronized (this) {
+            segments = snapshot();
+            head.select(query, (segment, row) -> {
+                fromHead.add(segment.event(row));
+                return fromHead.size() < limit;
+            });
+        }
+        try {
+            // Sealed segments no longer change, so they are scanned without the lock
+            List<LogEvent> out = new ArrayList<>();
+            for (Segment segment : segments) {
+                if (!segment.select(query, (s, row) -> {
+                    out.add(s.event(row));
+                    return out.size() < limit;
+                })) {
+                    return out;
+                }
+            }
+            for (LogEvent event : fromHead) {
+                if (out.size() == limit) {
+                    break;
+                }
+                out.add(event);
+            }
+            return out;
+        } finally {
+            release(segments);
+        }
+    }
+
+    // Keeps the `limit` oldest matches in a max-heap and builds events only for those
+    private List<LogEvent> oldest(LogQuery query, int limit) {
+        PriorityQueue<Hit> kept = new PriorityQueue<>(Collections.reverseOrder(BY_TIMESTAMP));
+        List<Segment> segments;
+        synchronized (this) {
+            segments = snapshot();
+            long base = (long) segments.size() << 32;
+            // Head rows are built now, while the lock keeps the head from changing under us
+            head.select(query, (segment, row) -> {
+                Hit hit = keep(kept, limit, segment, row, base + row);
+                if (hit != null) {
+                    hit.event = segment.event(row);
+                }
+                return true;
+            });
+        }
+        try {
+            for (int i = 0; i < segments.size(); i++) {
+                long base = (long) i << 32;
+                segments.get(i).select(query, (segment, row) -> {
+                    keep(kept, limit, segment, row, base + row);
+                    return true;
+                });
+            }
+            List<Hit> hits = new ArrayList<>(kept);
+            hits.sort(BY_TIMESTAMP);
+            List<LogEvent> out = new ArrayList<>(hits.size());
+            for (Hit hit : hits) {
+                out.add(hit.event != null ? hit.event : hit.segment.event(hit.row));
+            }
+            return out;
+        } finally {
+            release(segments);
+        }
+    }
+
+    // Sealed segments, kept readable until released even if retention drops them
+    private List<Segment> snapshot() {
+        evict(clock.millis());
+        List<Segment> segments = new ArrayList<>(sealed);
+        for (Segment segment : segments) {
+            segment.retain();
+        }
+        return segments;
+    }
+
+    private static void release(List<Segment> segments) {
+        for (Segment segment : segments) {
+            segment.release();
+        }
+    }
+
+    private static Hit keep(PriorityQueue<Hit> kept, int limit, Segment segment, int row, long seq) {
+        Hit hit = new Hit(segment, row, segment.epochSecond(row), segment.nano(row), seq);
+        if (kept.size() < limit) {
+            kept.add(hit);
+            return hit;
+        }
+        if (BY_TIMESTAMP.compare(hit, kept.peek()) < 0) {
+            kept.poll();
+            kept.add(hit);
+            return hit;
+        }
+        return null;
+    }
+
+    /**
+     * Number of events per non-null value of the field, mostly read off the segment summaries.
+     */
+    public Map<String, Long> countBy(LogField field) {
+        Map<String, Long> totals = new HashMap<>();
+        List<Segment> segments;
+        synchronized (this) {
+            segments = snapshot();
+            head.countBy(field, totals);
+        }
+        try {
+            for (Segment segment : segments) {
+                segment.countBy(field, totals);
+            }
+        } finally {
+            release(segments);
+        }
+        return totals;
+    }
+
+    /**
+     * Forces the events written to the head's file since the last commit to
+     * disk, all with one fsync.
+     */
+    void commit() {
+        DurableSegment durable;
+        synchronized (this) {
+            if (!(head instanceof DurableSegment)) {
+                return;
+            }
+            durable = (DurableSegment) head;
+            try {
+                durable.flush();
+            } catch (IOException e) {
+                log.warn("Failed to flush log segment", e);
+                return;
+            }
+        }
+        try {
+            durable.force();
+        } catch (ClosedChannelException e) {
+            // Sealed meanwhile, which forces the file itself
+        } catch (IOException e) {
+            log.warn("Failed to sync log segment", e);
+        }
+    }
+
+    /**
+     * Stops the commit thread and seals the head's file, so that the next
+     * start maps every segment without scanning any.
+     */
+    @PreDestroy
+    public void close() {
+        if (committer != null) {
+            committer.shutdownNow();
+        }
+        synchronized (this) {
+            if (head instanceof DurableSegment) {
+                if (head.size() > 0) {
+                    seal(clock.millis());
+                }
+                // Nothing is written after this, so the empty head's file goes
+                head.release();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        release(new ArrayList<>(sealed));
+        head.release();
+        sealed.clear();
+        head = newSegment(clock.millis());
+        events = 0;
+        bytes = 0;
+    }
+
+    public synchronized int size() {
+        evict(clock.millis());
+        return (int) events;
+    }
 
-    public void add(LogEvent log) {
-        logs.add(log);
+    /**
+     * Estimated heap taken by the stored events, as each segment layout accounts for it.
+     */
+    public synchronized long bytes() {
+        return bytes;
     }
 
-    public List<LogEvent> getAll() {
-        return logs.stream().collect(Collectors.toList());
+    /**
+     * Average estimated heap per stored event, 0 when empty.
+     */
+    public synchronized double bytesPerEvent() {
+        return events == 0 ? 0 : (double) bytes / events;
     }
 
-    public int size() {
-        return logs.size();
+    public synchronized int segments() {
+        return sealed.size() + 1;
+    }
+
+    private void evict(long now) {
+        while (!sealed.isEmpty()) {
+            Segment oldest = sealed.peekFirst();
+            Counter reason;
+            if (maxEvents > 0 && events > maxEvents) {
+                reason = evictedByCount;
+            } else if (maxBytes > 0 && bytes > maxBytes) {
+                reason = evictedByBytes;
+            } else if (maxAgeMillis > 0 && now - oldest.lastAppendMillis() > maxAgeMillis) {
+                reason = evictedByAge;
+            } else {
+                break;
+            }
+            drop(sealed.pollFirst(), reason);
+        }
+        // An idle head can outlive the age limit too
+        if (sealed.isEmpty() && head.size() > 0 && maxAgeMillis > 0 && now - head.lastAppendMillis() > maxAgeMillis) {
+            drop(head, evictedByAge);
+            head = newSegment(now);
+        }
+    }
+
+    private Segment newSegment(long now) {
+        switch (layout) {
+            case COLUMNAR:
+                return new ColumnarSegment(segmentCapacity, bucket(now));
+            case OFF_HEAP:
+                return new OffHeapSegment(segmentCapacity, bucket(now), pages);
+            case FILE:
+                try {
+                    return files.create(segmentCapacity, bucket(now));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot create log segment file", e);
+                }
+            default:
+                return new RowSegment(segmentCapacity, bucket(now));
+        }
+    }
+
+    private void seal(long now) {
+        Segment kept = head.seal();
+        events += kept.size() - head.size();
+        bytes += kept.bytes() - head.bytes();
+        sealed.addLast(kept);
+        head = newSegment(now);
+    }
+
+    private long bucket(long millis) {
+        return millis / bucketMillis;
+    }
+
+    private void drop(Segment segment, Counter reason) {
+        events -= segment.size();
+        bytes -= segment.bytes();
+        reason.increment(segment.size());
+        segment.release();
+    }
+
+    private static final class Hit {
+
+        final Segment segment;
+        final int row;
+        final long second;
+        final int nano;
+        final long seq;
+        LogEvent event;
+
+        Hit(Segment segment, int row, long second, int nano, long seq) {
+            this.segment = segment;
+            this.row = row;
+            this.second = second;
+            this.nano = nano;
+            this.seq = seq;
+        }
     }
 }
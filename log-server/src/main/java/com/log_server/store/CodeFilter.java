@@ -0,0 +1,42 @@
+package com.log_server.store;
+
+/**
+ * The string filters of a query turned into the dictionary codes each
+ * column accepts in one segment, so rows can be tested without decoding.
+ */
+final class CodeFilter {
+
+    private final boolean[][] accepted = new boolean[Column.values().length][];
+    private boolean empty;
+
+    CodeFilter(LogQuery query, Dictionary[] dictionaries) {
+        accept(Column.SERVICE, query.getService(), true, dictionaries);
+        accept(Column.SEVERITY, query.getLevel(), true, dictionaries);
+        accept(Column.USERNAME, query.getUsername(), false, dictionaries);
+        accept(Column.TEMPLATE, query.getTemplateId(), false, dictionaries);
+    }
+
+    private void accept(Column column, String value, boolean ignoreCase, Dictionary[] dictionaries) {
+        if (value != null) {
+            boolean[] codes = dictionaries[column.ordinal()].accepting(value, ignoreCase);
+            if (codes == null) {
+                empty = true;
+            }
+            accepted[column.ordinal()] = codes;
+        }
+    }
+
+    /**
+     * True when some filtered value does not occur in the segment at all.
+     */
+    boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * Accepted codes of the column, or null when it is not filtered.
+     */
+    boolean[] accepted(Column column) {
+        return accepted[column.ordinal()];
+    }
+}
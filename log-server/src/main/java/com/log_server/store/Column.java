@@ -0,0 +1,41 @@
+package com.log_server.store;
+
+import com.log_server.model.LogEvent;
+
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Event fields that encoded segment layouts keep as dictionary codes.
+ */
+enum Column {
+    SERVICE(LogField.SERVICE, LogEvent::getService, LogEvent::setService),
+    CATEGORY(LogField.CATEGORY, LogEvent::getEventCategory, LogEvent::setEventCategory),
+    SEVERITY(LogField.SEVERITY, LogEvent::getSeverity, LogEvent::setSeverity),
+    USERNAME(LogField.USERNAME, LogEvent::getUsername, LogEvent::setUsername),
+    HOSTNAME(LogField.HOSTNAME, LogEvent::getHostname, LogEvent::setHostname),
+    TEMPLATE(LogField.TEMPLATE, LogEvent::getTemplateId, LogEvent::setTemplateId),
+    FACILITY(null, LogEvent::getFacility, LogEvent::setFacility),
+    APP_NAME(null, LogEvent::getAppName, LogEvent::setAppName),
+    PROC_ID(null, LogEvent::getProcId, LogEvent::setProcId),
+    MSG_ID(null, LogEvent::getMsgId, LogEvent::setMsgId);
+
+    private final LogField field;
+    final Function<LogEvent, String> getter;
+    final BiConsumer<LogEvent, String> setter;
+
+    Column(LogField field, Function<LogEvent, String> getter, BiConsumer<LogEvent, String> setter) {
+        this.field = field;
+        this.getter = getter;
+        this.setter = setter;
+    }
+
+    static Column of(LogField field) {
+        for (Column column : values()) {
+            if (column.field == field) {
+                return column;
+            }
+        }
+        throw new IllegalArgumentException("No column for " + field);
+    }
+}
@@ -0,0 +1,185 @@
+package com.log_server.store;
+
+import com.log_server.model.LogEvent;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+
+/**
+ * Segment holding events column by column instead of as objects.
+ * <p>
+ * Low-cardinality strings are replaced by short codes into a per-segment
+ * {@link Dictionary}, which also serves as the field summary. Timestamps
+ * are kept as seconds and nanos, {@code blacklisted} as a bitset, and the
+ * message and structured data as UTF-8 bytes in a {@link TextColumn}.
+ * Filters compare codes and primitives; a {@link LogEvent} is built only
+ * for a row that is returned.
+ */
+public final class ColumnarSegment extends Segment {
+
+    // A code column per field, a timestamp pair, two text end offsets
+    private static final long ROW_BYTES = Column.values().length * Short.BYTES + Long.BYTES + Integer.BYTES
+            + 2 * Integer.BYTES;
+
+    // Segments hold at most this many events so that dictionary codes fit in a short
+    public static final int MAX_CAPACITY = 0xFFFF;
+
+    private static final int INITIAL_ROWS = 64;
+
+    private final Dictionary[] dictionaries = new Dictionary[Column.values().length];
+    private final short[][] codes = new short[Column.values().length][];
+    private long[] seconds;
+    private int[] nanos;
+    private final BitSet blacklisted = new BitSet();
+    private final TextColumn rawMessages;
+    private final TextColumn structuredData;
+    private int rows;
+
+    public ColumnarSegment(int capacity, long bucket) {
+        super(capacity, bucket);
+        if (capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Columnar segments hold at most " + MAX_CAPACITY + " events");
+        }
+        rows = Math.min(capacity, INITIAL_ROWS);
+        for (int c = 0; c < codes.length; c++) {
+            dictionaries[c] = new Dictionary();
+            codes[c] = new short[rows];
+        }
+        seconds = new long[rows];
+        nanos = new int[rows];
+        rawMessages = new TextColumn(rows);
+        structuredData = new TextColumn(rows);
+    }
+
+    @Override
+    protected long store(int row, LogEvent event, long nowMillis) {
+        if (row == rows) {
+            resize(Math.min(capacity(), rows * 2));
+        }
+        long cost = ROW_BYTES;
+        for (Column column : Column.values()) {
+            Dictionary dictionary = dictionaries[column.ordinal()];
+            String value = column.getter.apply(event);
+            int entries = dictionary.size();
+            codes[column.ordinal()][row] = (short) dictionary.encode(value);
+            if (dictionary.size() > entries) {
+                cost += Dictionary.ENTRY_BYTES + HeapEstimate.of(value);
+            }
+        }
+        Instant ts = event.getTimestamp();
+        seconds[row] = ts == null ? Long.MAX_VALUE : ts.getEpochSecond();
+        nanos[row] = ts == null ? 0 : ts.getNano();
+        if (event.isBlacklisted()) {
+            blacklisted.set(row);
+        }
+        cost += rawMessages.set(row, event.getRawMessage());
+        cost += structuredData.set(row, event.getStructuredData());
+        return cost;
+    }
+
+    private void resize(int newRows) {
+        for (int c = 0; c < codes.length; c++) {
+            codes[c] = Arrays.copyOf(codes[c], newRows);
+        }
+        seconds = Arrays.copyOf(seconds, newRows);
+        nanos = Arrays.copyOf(nanos, newRows);
+        rawMessages.grow(newRows);
+        structuredData.grow(newRows);
+        rows = newRows;
+    }
+
+    @Override
+    public Segment seal() {
+        if (rows > size()) {
+            resize(size());
+        }
+        rawMessages.trim(size());
+        structuredData.trim(size());
+        for (Dictionary dictionary : dictionaries) {
+            dictionary.trim();
+        }
+        return this;
+    }
+
+    @Override
+    public LogEvent event(int row) {
+        LogEvent event = new LogEvent();
+        for (Column column : Column.values()) {
+            column.setter.accept(event, dictionaries[column.ordinal()].decode(code(column, row)));
+        }
+        if (seconds[row] != Long.MAX_VALUE) {
+            event.setTimestamp(Instant.ofEpochSecond(seconds[row], nanos[row]));
+        }
+        event.setBlacklisted(blacklisted.get(row));
+        event.setRawMessage(rawMessages.get(row));
+        event.setStructuredData(structuredData.get(row));
+        return event;
+    }
+
+    private int code(Column column, int row) {
+        return codes[column.ordinal()][row] & 0xFFFF;
+    }
+
+    @Override
+    public long epochSecond(int row) {
+        return seconds[row];
+    }
+
+    @Override
+    public int nano(int row) {
+        return nanos[row];
+    }
+
+    @Override
+    protected boolean summaryMayContain(LogField field, String value, boolean ignoreCase) {
+        return dictionaries[Column.of(field).ordinal()].mayContain(value, ignoreCase);
+    }
+
+    @Override
+    protected boolean scan(LogQuery query, RowVisitor visitor) {
+        // Filters become sets of accepted codes once per segment
+        CodeFilter filter = new CodeFilter(query, dictionaries);
+        if (filter.isEmpty()) {
+            return true;
+        }
+        boolean[] services = filter.accepted(Column.SERVICE);
+        boolean[] severities = filter.accepted(Column.SEVERITY);
+        boolean[] usernames = filter.accepted(Column.USERNAME);
+        boolean[] templates = filter.accepted(Column.TEMPLATE);
+        short[] service = codes[Column.SERVICE.ordinal()];
+        short[] severity = codes[Column.SEVERITY.ordinal()];
+        short[] username = codes[Column.USERNAME.ordinal()];
+        short[] template = codes[Column.TEMPLATE.ordinal()];
+        Boolean wantBlacklisted = query.getBlacklisted();
+        Instant from = query.getFrom();
+        Instant to = query.getTo();
+
+        for (int i = 0; i < size(); i++) {
+            if ((services != null && !services[service[i] & 0xFFFF])
+                    || (severities != null && !severities[severity[i] & 0xFFFF])
+                    || (usernames != null && !usernames[username[i] & 0xFFFF])
+                    || (templates != null && !templates[template[i] & 0xFFFF])
+                    || (wantBlacklisted != null && wantBlacklisted != blacklisted.get(i))
+                    || (from != null && (seconds[i] == Long.MAX_VALUE || compare(i, from) < 0))
+                    || (to != null && (seconds[i] == Long.MAX_VALUE || compare(i, to) >= 0))) {
+                continue;
+            }
+            if (!visitor.visit(this, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int compare(int row, Instant instant) {
+        int bySeconds = Long.compare(seconds[row], instant.getEpochSecond());
+        return bySeconds != 0 ? bySeconds : Integer.compare(nanos[row], instant.getNano());
+    }
+
+    @Override
+    public void countBy(LogField field, Map<String, Long> totals) {
+        dictionaries[Column.of(field).ordinal()].countInto(totals);
+    }
+}
@@ -0,0 +1,99 @@
+package com.log_server.store;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Distinct values of one column in a segment. Codes start at 1; 0 stands
+ * for null. A segment never holds more than 65535 events, so codes fit in
+ * an unsigned short.
+ */
+final class Dictionary {
+
+    static final int NULL = 0;
+
+    // Lookup map node, boxed code, table slot, value and count slots
+    static final long ENTRY_BYTES = 32 + 16 + 4 + 4 + 4;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private String[] values = new String[8];
+    private int[] counts = new int[8];
+    private int size;
+
+    /**
+     * Code of the value, added if it is new.
+     */
+    int encode(String value) {
+        if (value == null) {
+            return NULL;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+                counts = Arrays.copyOf(counts, size * 2);
+            }
+            values[size] = value;
+            code = ++size;
+            codes.put(value, code);
+        }
+        counts[code - 1]++;
+        return code;
+    }
+
+    /**
+     * Code of the value, or {@link #NULL} if the segment does not hold it.
+     */
+    int codeOf(String value) {
+        Integer code = codes.get(value);
+        return code == null ? NULL : code;
+    }
+
+    String decode(int code) {
+        return code == NULL ? null : values[code - 1];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Codes accepted by a filter on the value, indexed by code; null if none is.
+     */
+    boolean[] accepting(String value, boolean ignoreCase) {
+        boolean[] accepted = null;
+        if (!ignoreCase) {
+            int code = codeOf(value);
+            if (code != NULL) {
+                accepted = new boolean[size + 1];
+                accepted[code] = true;
+            }
+            return accepted;
+        }
+        for (int i = 0; i < size; i++) {
+            if (values[i].equalsIgnoreCase(value)) {
+                if (accepted == null) {
+                    accepted = new boolean[size + 1];
+                }
+                accepted[i + 1] = true;
+            }
+        }
+        return accepted;
+    }
+
+    boolean mayContain(String value, boolean ignoreCase) {
+        return accepting(value, ignoreCase) != null;
+    }
+
+    void countInto(Map<String, Long> totals) {
+        for (int i = 0; i < size; i++) {
+            totals.merge(values[i], (long) counts[i], Long::sum);
+        }
+    }
+
+    void trim() {
+        values = Arrays.copyOf(values, size);
+        counts = Arrays.copyOf(counts, size);
+    }
+}
@@ -0,0 +1,97 @@
+package com.log_server.store;
+
+import com.log_server.model.LogEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * Head segment that keeps its events in memory like a {@link RowSegment}
+ * and also appends each one to a {@link SegmentFile}. Sealing writes the
+ * file's footer and hands back a {@link MappedSegment} over it, so sealed
+ * data is read from the file rather than kept on the heap.
+ */
+public final class DurableSegment extends RowSegment {
+
+    private static final Logger log = LoggerFactory.getLogger(DurableSegment.class);
+
+    private final SegmentWriter writer;
+    private final boolean forceEachAppend;
+    private boolean failed;
+
+    DurableSegment(int capacity, long bucket, SegmentWriter writer, boolean forceEachAppend) {
+        super(capacity, bucket);
+        this.writer = writer;
+        this.forceEachAppend = forceEachAppend;
+    }
+
+    @Override
+    protected long store(int row, LogEvent event, long nowMillis) {
+        long cost = super.store(row, event, nowMillis);
+        try {
+            writer.append(event, nowMillis);
+            if (forceEachAppend) {
+                writer.flush();
+                writer.force();
+            }
+        } catch (IOException e) {
+            // The event stays queryable in memory, and seal() keeps the segment there; report once per segment
+            if (!failed) {
+                log.warn("Failed to write {}", writer.path(), e);
+                failed = true;
+            }
+        }
+        return cost;
+    }
+
+    /**
+     * Hands buffered records to the file; called under the store's lock.
+     */
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    /**
+     * Forces flushed records to disk. Runs without the store's lock, so
+     * ingestion continues while the disk catches up.
+     */
+    public void force() throws IOException {
+        writer.force();
+    }
+
+    @Override
+    public Segment seal() {
+        if (writer.rows() != size()) {
+            // The file lacks events this segment holds; restart only gets the intact ones
+            log.warn("Segment file incomplete, keeping it in memory: {}", writer.path());
+            writer.close();
+            return this;
+        }
+        try {
+            writer.finish();
+            MappedSegment mapped = MappedSegment.open(writer.path());
+            if (mapped != null) {
+                return mapped;
+            }
+            log.warn("Sealed segment unreadable, keeping it in memory: {}", writer.path());
+        } catch (IOException e) {
+            log.warn("Failed to seal {}, keeping it in memory", writer.path(), e);
+        }
+        return this;
+    }
+
+    /**
+     * Closes the file and deletes it: the segment was dropped, or never sealed and is being discarded.
+     */
+    @Override
+    public void release() {
+        writer.close();
+        try {
+            Files.deleteIfExists(writer.path());
+        } catch (IOException e) {
+            log.warn("Failed to delete {}", writer.path(), e);
+        }
+    }
+}
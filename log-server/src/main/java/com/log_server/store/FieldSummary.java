@@ -0,0 +1,68 @@
+package com.log_server.store;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Distinct values of one field in a segment with their counts. Past
+ * {@link #MAX_VALUES} values the summary gives up and can no longer rule
+ * a segment out.
+ */
+final class FieldSummary {
+
+    static final int MAX_VALUES = 256;
+
+    private Map<String, Integer> counts = new HashMap<>();
+
+    FieldSummary() {
+    }
+
+    /**
+     * A summary read back with its counts, or given up if {@code counts} is null.
+     */
+    FieldSummary(Map<String, Integer> counts) {
+        this.counts = counts;
+    }
+
+    void add(String value) {
+        if (counts != null && value != null) {
+            counts.merge(value, 1, Integer::sum);
+            if (counts.size() > MAX_VALUES) {
+                counts = null;
+            }
+        }
+    }
+
+    boolean isComplete() {
+        return counts != null;
+    }
+
+    /**
+     * The counts by value, or null once the summary has given up.
+     */
+    Map<String, Integer> counts() {
+        return counts;
+    }
+
+    /**
+     * False only when no event in the segment can have the value.
+     */
+    boolean mayContain(String value, boolean ignoreCase) {
+        if (counts == null) {
+            return true;
+        }
+        if (!ignoreCase) {
+            return counts.containsKey(value);
+        }
+        for (String present : counts.keySet()) {
+            if (present.equalsIgnoreCase(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void countInto(Map<String, Long> totals) {
+        counts.forEach((value, count) -> totals.merge(value, (long) count, Long::sum));
+    }
+}
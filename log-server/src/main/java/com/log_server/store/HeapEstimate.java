@@ -0,0 +1,69 @@
+package com.log_server.store;
+
+import com.log_server.model.LogEvent;
+
+/**
+ * Estimated heap footprint of stored events, assuming a 64-bit JVM with
+ * compressed oops and compact strings: 12-byte object headers, 4-byte
+ * references and 8-byte alignment. Strings shared between events are
+ * counted for each of them, so the estimate errs on the high side.
+ */
+public final class HeapEstimate {
+
+    private static final int HEADER = 12;
+    private static final int REF = 4;
+    private static final int ARRAY_HEADER = 16;
+
+    // 13 references (the timestamp and 12 strings), the boolean, the header
+    private static final long LOG_EVENT = align(HEADER + 13 * REF + 1);
+    // seconds + nanos
+    private static final long INSTANT = align(HEADER + 8 + 4);
+    // value, hash, coder, hashIsZero
+    private static final long STRING = align(HEADER + REF + 4 + 1 + 1);
+
+    private HeapEstimate() {
+    }
+
+    /**
+     * Bytes one event takes, including the slot that references it.
+     */
+    public static long of(LogEvent event) {
+        long bytes = REF + LOG_EVENT;
+        if (event.getTimestamp() != null) {
+            bytes += INSTANT;
+        }
+        bytes += of(event.getService());
+        bytes += of(event.getEventCategory());
+        bytes += of(event.getSeverity());
+        bytes += of(event.getUsername());
+        bytes += of(event.getHostname());
+        bytes += of(event.getRawMessage());
+        bytes += of(event.getFacility());
+        bytes += of(event.getAppName());
+        bytes += of(event.getProcId());
+        bytes += of(event.getMsgId());
+        bytes += of(event.getStructuredData());
+        bytes += of(event.getTemplateId());
+        return bytes;
+    }
+
+    static long of(String s) {
+        if (s == null) {
+            return 0;
+        }
+        return STRING + align(ARRAY_HEADER + (long) s.length() * (isLatin1(s) ? 1 : 2));
+    }
+
+    private static boolean isLatin1(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
@@ -0,0 +1,27 @@
+package com.log_server.store;
+
+import com.log_server.model.LogEvent;
+
+import java.util.function.Function;
+
+/**
+ * Low-cardinality event fields that segments summarise and the store can count by.
+ */
+public enum LogField {
+    SERVICE(LogEvent::getService),
+    CATEGORY(LogEvent::getEventCategory),
+    SEVERITY(LogEvent::getSeverity),
+    USERNAME(LogEvent::getUsername),
+    HOSTNAME(LogEvent::getHostname),
+    TEMPLATE(LogEvent::getTemplateId);
+
+    private final Function<LogEvent, String> getter;
+
+    LogField(Function<LogEvent, String> getter) {
+        this.getter = getter;
+    }
+
+    public String get(LogEvent event) {
+        return getter.apply(event);
+    }
+}
@@ -0,0 +1,37 @@
+package com.log_server.store;
+
+import com.log_server.model.LogEvent;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Filter over stored events; null fields match anything. {@code service}
+ * and {@code level} ignore case, {@code from} is inclusive and {@code to}
+ * exclusive. At most {@code limit} events are returned, the oldest by
+ * timestamp when {@code orderByTimestamp} is set and otherwise the first
+ * to arrive.
+ */
+@Data
+public class LogQuery {
+
+    private String service;
+    private String level;
+    private String username;
+    private Boolean blacklisted;
+    private String templateId;
+    private Instant from;
+    private Instant to;
+    private int limit = Integer.MAX_VALUE;
+    private boolean orderByTimestamp;
+
+    public boolean matches(LogEvent log) {
+        return (service == null || service.equalsIgnoreCase(log.getService()))
+                && (level == null || level.equalsIgnoreCase(log.getSeverity()))
+                && (username == null || username.equals(log.getUsername()))
+                && (blacklisted == null || blacklisted == log.isBlacklisted())
+                && (templateId == null || templateId.equals(log.getTemplateId()))
+                && (from == null || (log.getTimestamp() != null && !log.getTimestamp().isBefore(from)))
+                && (to == null || (log.getTimestamp() != null && log.getTimestamp().isBefore(to)));
+    }
+}
@@ -0,0 +1,251 @@
+package com.log_server.store;
+
+import com.log_server.model.LogEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+/**
+ * Sealed {@link SegmentFile} read through a memory mapping. Opening one
+ * reads only the footer; record offsets stay in the mapping, so the heap
+ * holds the field summaries and the sparse timestamp index. Scans skip
+ * blocks whose timestamp range cannot match and check the flags and
+ * timestamp in place before decoding a record.
+ * <p>
+ * The file is deleted once the store drops the segment and no query is
+ * still reading it.
+ */
+public final class MappedSegment extends Segment {
+
+    private static final Logger log = LoggerFactory.getLogger(MappedSegment.class);
+
+    // Object, mapping and views
+    private static final long FIXED_BYTES = 256;
+    private static final long BLOCK_BYTES = 2 * Long.BYTES + 2 * Integer.BYTES;
+
+    private final Path path;
+    private final ByteBuffer file;
+    private final IntBuffer offsets;
+    private final Map<LogField, FieldSummary> summaries;
+    private final int indexInterval;
+    private final long[] blockMin;
+    private final int[] blockMinNano;
+    private final long[] blockMax;
+    private final int[] blockMaxNano;
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    private MappedSegment(Path path, ByteBuffer file, long bucket, IntBuffer offsets,
+                          Map<LogField, FieldSummary> summaries, int indexInterval, long[] blockMin, int[] blockMinNano, long[] blockMax, int[] blockMaxNano) {
+        super(offsets.capacity(), bucket);
+        this.path = path;
+        this.file = file;
+        this.offsets = offsets;
+        this.summaries = summaries;
+        this.indexInterval = indexInterval;
+        this.blockMin = blockMin;
+        this.blockMinNano = blockMinNano;
+        this.blockMax = blockMax;
+        this.blockMaxNano = blockMaxNano;
+    }
+
+    /**
+     * Maps a sealed segment file, or returns null if it has no valid footer.
+     */
+    public static MappedSegment open(Path path) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Segment file too large: " + path);
+            }
+            if (size < SegmentFile.HEADER_BYTES + SegmentFile.TRAILER_BYTES) {
+                return null;
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        ByteBuffer file = mapped.duplicate();
+        int end = file.capacity();
+        int trailer = end - SegmentFile.TRAILER_BYTES;
+        if (file.getInt(0) != SegmentFile.MAGIC || file.getInt(trailer + Long.BYTES + 2 * Integer.BYTES) != SegmentFile.FOOTER_MAGIC) {
+            return null;
+        }
+        long footerOffset = file.getLong(trailer);
+        int rows = file.getInt(trailer + Long.BYTES);
+        if (footerOffset < SegmentFile.HEADER_BYTES || footerOffset > trailer || rows < 0
+                || (long) rows * Integer.BYTES > trailer - footerOffset) {
+            return null;
+        }
+        ByteBuffer footer = file.duplicate();
+        footer.position((int) footerOffset).limit(trailer);
+        footer = footer.slice();
+        CRC32 crc = new CRC32();
+        crc.update(footer.duplicate());
+        if ((int) crc.getValue() != file.getInt(trailer + Long.BYTES + Integer.BYTES)) {
+            return null;
+        }
+
+        ByteBuffer offsetBytes = footer.duplicate();
+        offsetBytes.limit(rows * Integer.BYTES);
+        IntBuffer offsets = offsetBytes.slice().asIntBuffer();
+        footer.position(rows * Integer.BYTES);
+        long firstAppendMillis = footer.getLong();
+        long lastAppendMillis = footer.getLong();
+        int blacklisted = footer.getInt();
+        long minSecond = footer.getLong();
+        int minNano = footer.getInt();
+        long maxSecond = footer.getLong();
+        int maxNano = footer.getInt();
+
+        long bytes = FIXED_BYTES;
+        Map<LogField, FieldSummary> summaries = new EnumMap<>(LogField.class);
+        for (LogField field : LogField.values()) {
+            int values = footer.getInt();
+            if (values < 0) {
+                summaries.put(field, new FieldSummary(null));
+                continue;
+            }
+            Map<String, Integer> counts = new HashMap<>();
+            for (int v = 0; v < values; v++) {
+                byte[] value = new byte[footer.getInt()];
+                footer.get(value);
+                String string = new String(value, StandardCharsets.UTF_8);
+                counts.put(string, footer.getInt());
+                bytes += Dictionary.ENTRY_BYTES + HeapEstimate.of(string);
+            }
+            summaries.put(field, new FieldSummary(counts));
+        }
+        int indexInterval = footer.getInt();
+        int blocks = footer.getInt();
+        long[] blockMin = new long[blocks];
+        int[] blockMinNano = new int[blocks];
+        long[] blockMax = new long[blocks];
+        int[] blockMaxNano = new int[blocks];
+        for (int b = 0; b < blocks; b++) {
+            blockMin[b] = footer.getLong();
+            blockMinNano[b] = footer.getInt();
+            blockMax[b] = footer.getLong();
+            blockMaxNano[b] = footer.getInt();
+        }
+        bytes += blocks * BLOCK_BYTES;
+
+        MappedSegment segment = new MappedSegment(path, file, file.getLong(SegmentFile.BUCKET), offsets, summaries,
+                indexInterval, blockMin, blockMinNano, blockMax, blockMaxNano);
+        segment.restore(rows, bytes, blacklisted,
+                minSecond == Long.MAX_VALUE ? null : Instant.ofEpochSecond(minSecond, minNano),
+                maxSecond == Long.MAX_VALUE ? null : Instant.ofEpochSecond(maxSecond, maxNano),
+                firstAppendMillis, lastAppendMillis);
+        return segment;
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    @Override
+    protected long store(int row, LogEvent event, long nowMillis) {
+        throw new IllegalStateException("Sealed segment " + path + " takes no events");
+    }
+
+    @Override
+    public LogEvent event(int row) {
+        return SegmentFile.decode(file, offsets.get(row));
+    }
+
+    @Override
+    public long epochSecond(int row) {
+        return file.getLong(offsets.get(row) + SegmentFile.SECOND);
+    }
+
+    @Override
+    public int nano(int row) {
+        return file.getInt(offsets.get(row) + SegmentFile.NANO);
+    }
+
+    @Override
+    protected boolean summaryMayContain(LogField field, String value, boolean ignoreCase) {
+        return summaries.get(field).mayContain(value, ignoreCase);
+    }
+
+    @Override
+    protected boolean scan(LogQuery query, RowVisitor visitor) {
+        Instant from = query.getFrom();
+        Instant to = query.getTo();
+        Boolean wantBlacklisted = query.getBlacklisted();
+        for (int block = 0; block * indexInterval < size(); block++) {
+            if ((from != null || to != null) && !blockMayMatch(block, from, to)) {
+                continue;
+            }
+            int end = Math.min(size(), (block + 1) * indexInterval);
+            for (int row = block * indexInterval; row < end; row++) {
+                int at = offsets.get(row);
+                if (wantBlacklisted != null && wantBlacklisted != ((file.get(at + SegmentFile.FLAGS) & SegmentFile.BLACKLISTED) != 0)) {
+                    continue;
+                }
+                if ((from != null || to != null)
+                        && !inRange(file.getLong(at + SegmentFile.SECOND), file.getInt(at + SegmentFile.NANO), from, to)) {
+                    continue;
+                }
+                if (query.matches(SegmentFile.decode(file, at)) && !visitor.visit(this, row)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean blockMayMatch(int block, Instant from, Instant to) {
+        if (blockMin[block] == Long.MAX_VALUE) {
+            return false;
+        }
+        if (from != null && compare(blockMax[block], blockMaxNano[block], from) < 0) {
+            return false;
+        }
+        return to == null || compare(blockMin[block], blockMinNano[block], to) < 0;
+    }
+
+    @Override
+    public void countBy(LogField field, Map<String, Long> totals) {
+        FieldSummary summary = summaries.get(field);
+        if (summary.isComplete()) {
+            summary.countInto(totals);
+            return;
+        }
+        for (int row = 0; row < size(); row++) {
+            String value = field.get(event(row));
+            if (value != null) {
+                totals.merge(value, 1L, Long::sum);
+            }
+        }
+    }
+
+    @Override
+    public void retain() {
+        references.incrementAndGet();
+    }
+
+    @Override
+    public void release() {
+        if (references.decrementAndGet() == 0) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                log.warn("Failed to delete {}", path, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.log_server.store;
+
+import com.log_server.model.LogEvent;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Segment whose events are encoded into direct buffers from a
+ * {@link PagePool}, so that the heap holds only an offset per event and
+ * the per-segment {@link Dictionary} of each {@link Column}.
+ * <p>
+ * A record never spans pages:
+ * <pre>
+ *   long  epoch second (Long.MAX_VALUE: no timestamp)
+ *   int   nano
+ *   byte  flags, bit 0 blacklisted
+ *   short dictionary code per column
+ *   int   message length (-1: null), UTF-8 bytes
+ *   int   structured data length (-1: null), UTF-8 bytes
+ * </pre>
+ * Filters read the codes, flags and timestamp in place; only returned
+ * rows are decoded into a {@link LogEvent}. Pages go back to the pool
+ * once the segment is dropped and no query is reading it.
+ */
+public final class OffHeapSegment extends Segment {
+
+    private static final int NANO = Long.BYTES;
+    private static final int FLAGS = NANO + Integer.BYTES;
+    private static final int CODES = FLAGS + 1;
+    private static final int HEADER = CODES + Column.values().length * Short.BYTES;
+    private static final byte BLACKLISTED = 1;
+
+    // Heap per row: its offset; dictionary entries are added as they appear
+    private static final long ROW_BYTES = Integer.BYTES;
+
+    private static final int INITIAL_ROWS = 64;
+
+    private final PagePool pool;
+    private final Dictionary[] dictionaries = new Dictionary[Column.values().length];
+    private final List<ByteBuffer> pages = new ArrayList<>();
+    private int[] pageFirstRow = new int[4];
+    private int[] offsets;
+    private int writeOffset;
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    public OffHeapSegment(int capacity, long bucket, PagePool pool) {
+        super(capacity, bucket);
+        if (capacity > ColumnarSegment.MAX_CAPACITY) {
+            throw new IllegalArgumentException("Off-heap segments hold at most " + ColumnarSegment.MAX_CAPACITY + " events");
+        }
+        this.pool = pool;
+        for (int c = 0; c < dictionaries.length; c++) {
+            dictionaries[c] = new Dictionary();
+        }
+        offsets = new int[Math.min(capacity, INITIAL_ROWS)];
+    }
+
+    @Override
+    protected long store(int row, LogEvent event, long nowMillis) {
+        byte[] message = utf8(event.getRawMessage());
+        byte[] structured = utf8(event.getStructuredData());
+        int length = HEADER + Integer.BYTES + lengthOf(message) + Integer.BYTES + lengthOf(structured);
+
+        ByteBuffer page = pages.isEmpty() ? null : pages.get(pages.size() - 1);
+        if (page == null || page.capacity() - writeOffset < length) {
+            page = pool.acquire(length);
+            if (page == null) {
+                return -1;
+            }
+            if (pages.size() == pageFirstRow.length) {
+                pageFirstRow = Arrays.copyOf(pageFirstRow, pages.size() * 2);
+            }
+            pageFirstRow[pages.size()] = row;
+            pages.add(page);
+            writeOffset = 0;
+        }
+        if (row == offsets.length) {
+            offsets = Arrays.copyOf(offsets, Math.min(capacity(), row * 2));
+        }
+
+        long cost = ROW_BYTES;
+        int at = writeOffset;
+        Instant ts = event.getTimestamp();
+        page.putLong(at, ts == null ? Long.MAX_VALUE : ts.getEpochSecond());
+        page.putInt(at + NANO, ts == null ? 0 : ts.getNano());
+        page.put(at + FLAGS, event.isBlacklisted() ? BLACKLISTED : 0);
+        for (Column column : Column.values()) {
+            Dictionary dictionary = dictionaries[column.ordinal()];
+            String value = column.getter.apply(event);
+            int entries = dictionary.size();
+            page.putShort(at + CODES + column.ordinal() * Short.BYTES, (short) dictionary.encode(value));
+            if (dictionary.size() > entries) {
+                cost += Dictionary.ENTRY_BYTES + HeapEstimate.of(value);
+            }
+        }
+        int next = write(page, at + HEADER, message);
+        writeOffset = write(page, next, structured);
+        offsets[row] = at;
+        return cost;
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int lengthOf(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    private static int write(ByteBuffer page, int at, byte[] bytes) {
+        if (bytes == null) {
+            page.putInt(at, -1);
+            return at + Integer.BYTES;
+        }
+        page.putInt(at, bytes.length);
+        ByteBuffer target = page.duplicate();
+        target.position(at + Integer.BYTES);
+        target.put(bytes);
+        return at + Integer.BYTES + bytes.length;
+    }
+
+    private static String read(ByteBuffer page, int at) {
+        int length = page.getInt(at);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        ByteBuffer source = page.duplicate();
+        source.position(at + Integer.BYTES);
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public Segment seal() {
+        offsets = Arrays.copyOf(offsets, size());
+        pageFirstRow = Arrays.copyOf(pageFirstRow, pages.size());
+        for (Dictionary dictionary : dictionaries) {
+            dictionary.trim();
+        }
+        return this;
+    }
+
+    @Override
+    public void retain() {
+        references.incrementAndGet();
+    }
+
+    @Override
+    public void release() {
+        if (references.decrementAndGet() == 0) {
+            for (ByteBuffer page : pages) {
+                pool.release(page);
+            }
+            pages.clear();
+        }
+    }
+
+    /**
+     * Pool bytes held by this segment's pages.
+     */
+    public long offHeapBytes() {
+        long bytes = 0;
+        for (ByteBuffer page : pages) {
+            bytes += page.capacity();
+        }
+        return bytes;
+    }
+
+    private ByteBuffer pageOf(int row) {
+        int index = Arrays.binarySearch(pageFirstRow, 0, pages.size(), row);
+        // Between two page starts: the page that starts before the row
+        return pages.get(index >= 0 ? index : -index - 2);
+    }
+
+    @Override
+    public LogEvent event(int row) {
+        ByteBuffer page = pageOf(row);
+        int at = offsets[row];
+        LogEvent event = new LogEvent();
+        long second = page.getLong(at);
+        if (second != Long.MAX_VALUE) {
+            event.setTimestamp(Instant.ofEpochSecond(second, page.getInt(at + NANO)));
+        }
+        event.setBlacklisted((page.get(at + FLAGS) & BLACKLISTED) != 0);
+        for (Column column : Column.values()) {
+            int code = page.getShort(at + CODES + column.ordinal() * Short.BYTES) & 0xFFFF;
+            column.setter.accept(event, dictionaries[column.ordinal()].decode(code));
+        }
+        int next = at + HEADER;
+        event.setRawMessage(read(page, next));
+        int length = page.getInt(next);
+        event.setStructuredData(read(page, next + Integer.BYTES + Math.max(0, length)));
+        return event;
+    }
+
+    @Override
+    public long epochSecond(int row) {
+        return pageOf(row).getLong(offsets[row]);
+    }
+
+    @Override
+    public int nano(int row) {
+        return pageOf(row).getInt(offsets[row] + NANO);
+    }
+
+    @Override
+    protected boolean summaryMayContain(LogField field, String value, boolean ignoreCase) {
+        return dictionaries[Column.of(field).ordinal()].mayContain(value, ignoreCase);
+    }
+
+    @Override
+    protected boolean scan(LogQuery query, RowVisitor visitor) {
+        CodeFilter filter = new CodeFilter(query, dictionaries);
+        if (filter.isEmpty()) {
+            return true;
+        }
+        boolean[][] accepted = new boolean[Column.values().length][];
+        for (Column column : Column.values()) {
+            accepted[column.ordinal()] = filter.accepted(column);
+        }
+        Boolean wantBlacklisted = query.getBlacklisted();
+        Instant from = query.getFrom();
+        Instant to = query.getTo();
+
+        int pageIndex = 0;
+        for (int i = 0; i < size(); i++) {
+            while (pageIndex + 1 < pages.size() && pageFirstRow[pageIndex + 1] <= i) {
+                pageIndex++;
+            }
+            ByteBuffer page = pages.get(pageIndex);
+            int at = offsets[i];
+            if (!matchesCodes(page, at, accepted)
+                    || (wantBlacklisted != null && wantBlacklisted != ((page.get(at + FLAGS) & BLACKLISTED) != 0))
+                    || ((from != null || to != null) && !inRange(page.getLong(at), page.getInt(at + NANO), from, to))) {
+                continue;
+            }
+            if (!visitor.visit(this, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matchesCodes(ByteBuffer page, int at, boolean[][] accepted) {
+        for (int c = 0; c < accepted.length; c++) {
+            if (accepted[c] != null && !accepted[c][page.getShort(at + CODES + c * Short.BYTES) & 0xFFFF]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void countBy(LogField field, Map<String, Long> totals) {
+        dictionaries[Column.of(field).ordinal()].countInto(totals);
+    }
+}
@@ -0,0 +1,89 @@
+package com.log_server.store;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * Direct (off-heap) buffers for {@link OffHeapSegment}s, capped at a
+ * total size. Pages are recycled rather than left for the garbage
+ * collector, since direct memory is only returned when its buffer object
+ * is collected. A record larger than a page gets a buffer of its own,
+ * which is not recycled.
+ */
+public final class PagePool {
+
+    private final int pageSize;
+    private final long maxBytes;
+    private final ArrayDeque<ByteBuffer> free = new ArrayDeque<>();
+    private long allocated;
+    private long used;
+
+    public PagePool(int pageSize, long maxBytes) {
+        if (pageSize <= 0 || maxBytes < pageSize) {
+            throw new IllegalArgumentException("Page size must be positive and at most the pool size");
+        }
+        this.pageSize = pageSize;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * A page with room for at least {@code minBytes}, or null when the pool
+     * is at its limit.
+     */
+    public synchronized ByteBuffer acquire(int minBytes) {
+        if (minBytes <= pageSize) {
+            ByteBuffer page = free.pollFirst();
+            if (page == null) {
+                if (allocated + pageSize > maxBytes) {
+                    return null;
+                }
+                page = ByteBuffer.allocateDirect(pageSize);
+                allocated += pageSize;
+            }
+            used += pageSize;
+            return page;
+        }
+        // Oversized: give up idle pages to make room
+        while (allocated + minBytes > maxBytes && !free.isEmpty()) {
+            free.pollFirst();
+            allocated -= pageSize;
+        }
+        if (allocated + minBytes > maxBytes) {
+            return null;
+        }
+        allocated += minBytes;
+        used += minBytes;
+        return ByteBuffer.allocateDirect(minBytes);
+    }
+
+    public synchronized void release(ByteBuffer page) {
+        used -= page.capacity();
+        if (page.capacity() == pageSize) {
+            free.addFirst(page);
+        } else {
+            allocated -= page.capacity();
+        }
+    }
+
+    public int pageSize() {
+        return pageSize;
+    }
+
+    public long maxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Bytes in pages held by segments.
+     */
+    public synchronized long used() {
+        return used;
+    }
+
+    /**
+     * Bytes of direct memory allocated, idle pages included.
+     */
+    public synchronized long allocated() {
+        return allocated;
+    }
+}
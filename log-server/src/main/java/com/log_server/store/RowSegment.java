@@ -0,0 +1,78 @@
+package com.log_server.store;
+
+import com.log_server.model.LogEvent;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Segment holding the {@link LogEvent} objects as they were ingested,
+ * with a {@link FieldSummary} per field.
+ */
+public class RowSegment extends Segment {
+
+    private final LogEvent[] events;
+    private final Map<LogField, FieldSummary> summaries = new EnumMap<>(LogField.class);
+
+    public RowSegment(int capacity, long bucket) {
+        super(capacity, bucket);
+        this.events = new LogEvent[capacity];
+        for (LogField field : LogField.values()) {
+            summaries.put(field, new FieldSummary());
+        }
+    }
+
+    @Override
+    protected long store(int row, LogEvent event, long nowMillis) {
+        events[row] = event;
+        for (Map.Entry<LogField, FieldSummary> summary : summaries.entrySet()) {
+            summary.getValue().add(summary.getKey().get(event));
+        }
+        return HeapEstimate.of(event);
+    }
+
+    @Override
+    public LogEvent event(int row) {
+        return events[row];
+    }
+
+    @Override
+    public long epochSecond(int row) {
+        return events[row].getTimestamp() == null ? Long.MAX_VALUE : events[row].getTimestamp().getEpochSecond();
+    }
+
+    @Override
+    public int nano(int row) {
+        return events[row].getTimestamp() == null ? 0 : events[row].getTimestamp().getNano();
+    }
+
+    @Override
+    protected boolean summaryMayContain(LogField field, String value, boolean ignoreCase) {
+        return summaries.get(field).mayContain(value, ignoreCase);
+    }
+
+    @Override
+    protected boolean scan(LogQuery query, RowVisitor visitor) {
+        for (int i = 0; i < size(); i++) {
+            if (query.matches(events[i]) && !visitor.visit(this, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void countBy(LogField field, Map<String, Long> totals) {
+        FieldSummary summary = summaries.get(field);
+        if (summary.isComplete()) {
+            summary.countInto(totals);
+            return;
+        }
+        for (int i = 0; i < size(); i++) {
+            String value = field.get(events[i]);
+            if (value != null) {
+                totals.merge(value, 1L, Long::sum);
+            }
+        }
+    }
+}
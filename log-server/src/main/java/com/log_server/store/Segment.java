@@ -0,0 +1,239 @@
+package com.log_server.store;
+
+import com.log_server.model.LogEvent;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Run of stored events that arrived in one time bucket. The store appends
+ * to its head segment and seals it when the bucket ends or it fills up;
+ * sealed segments are never written again and are dropped whole.
+ * <p>
+ * Each segment keeps the range of its event timestamps and a summary of
+ * the values of each {@link LogField}, so a query can skip it without
+ * looking at its events and counts can be read off the summaries. How the
+ * events themselves are held is up to the subclass.
+ */
+public abstract class Segment {
+
+    private final long bucket;
+    private final int capacity;
+    private int size;
+    private long bytes;
+    private int blacklisted;
+    private Instant minTimestamp;
+    private Instant maxTimestamp;
+    private long firstAppendMillis;
+    private long lastAppendMillis;
+
+    protected Segment(int capacity, long bucket) {
+        this.capacity = capacity;
+        this.bucket = bucket;
+    }
+
+    /**
+     * Appends an event and returns its estimated heap cost in this segment,
+     * or -1 if the segment could not find room for it and is unchanged.
+     */
+    public final long append(LogEvent event, long nowMillis) {
+        long cost = store(size, event, nowMillis);
+        if (cost < 0) {
+            return -1;
+        }
+        if (size == 0) {
+            firstAppendMillis = nowMillis;
+        }
+        size++;
+        bytes += cost;
+        lastAppendMillis = nowMillis;
+
+        Instant ts = event.getTimestamp();
+        if (ts != null) {
+            if (minTimestamp == null || ts.isBefore(minTimestamp)) {
+                minTimestamp = ts;
+            }
+            if (maxTimestamp == null || ts.isAfter(maxTimestamp)) {
+                maxTimestamp = ts;
+            }
+        }
+        if (event.isBlacklisted()) {
+            blacklisted++;
+        }
+        return cost;
+    }
+
+    /**
+     * Called once the segment stops taking events; spare capacity can be
+     * released. Returns the segment the store keeps in its place, which may
+     * hold the same events in another form.
+     */
+    public Segment seal() {
+        return this;
+    }
+
+    /**
+     * Keeps the segment readable while a query scans it outside the store's
+     * lock, even if retention drops it meanwhile. Each call is paired with
+     * {@link #release()}; the store holds one reference of its own.
+     */
+    public void retain() {
+    }
+
+    /**
+     * Gives up a reference; memory outside the heap is freed with the last one.
+     */
+    public void release() {
+    }
+
+    /**
+     * False when the timestamp range or field summaries show that no event
+     * here matches the query.
+     */
+    public boolean mayMatch(LogQuery query) {
+        if (size == 0) {
+            return false;
+        }
+        if (query.getFrom() != null || query.getTo() != null) {
+            if (minTimestamp == null) {
+                return false;
+            }
+            if (query.getFrom() != null && maxTimestamp.isBefore(query.getFrom())) {
+                return false;
+            }
+            if (query.getTo() != null && !minTimestamp.isBefore(query.getTo())) {
+                return false;
+            }
+        }
+        if (query.getBlacklisted() != null && (query.getBlacklisted() ? blacklisted == 0 : blacklisted == size)) {
+            return false;
+        }
+        return mayContain(LogField.SERVICE, query.getService(), true)
+                && mayContain(LogField.SEVERITY, query.getLevel(), true)
+                && mayContain(LogField.USERNAME, query.getUsername(), false)
+                && mayContain(LogField.TEMPLATE, query.getTemplateId(), false);
+    }
+
+    private boolean mayContain(LogField field, String value, boolean ignoreCase) {
+        return value == null || summaryMayContain(field, value, ignoreCase);
+    }
+
+    public void select(LogQuery query, List<LogEvent> out) {
+        select(query, (segment, row) -> {
+            out.add(event(row));
+            return true;
+        });
+    }
+
+    /**
+     * Passes the rows matching the query to the visitor in order, until it returns false.
+     * Returns false if the visitor stopped early.
+     */
+    public boolean select(LogQuery query, RowVisitor visitor) {
+        if (!mayMatch(query)) {
+            return true;
+        }
+        return scan(query, visitor);
+    }
+
+    public void copyTo(List<LogEvent> out) {
+        for (int i = 0; i < size; i++) {
+            out.add(event(i));
+        }
+    }
+
+    /**
+     * Stores the event at {@code row} and returns its estimated heap cost,
+     * or -1 without storing anything if there is no room for it.
+     */
+    protected abstract long store(int row, LogEvent event, long nowMillis);
+
+    /**
+     * Sets the bookkeeping of a segment whose events were stored earlier, such as one read back from disk.
+     */
+    protected final void restore(int size, long bytes, int blacklisted, Instant minTimestamp, Instant maxTimestamp,
+                                 long firstAppendMillis, long lastAppendMillis) {
+        this.size = size;
+        this.bytes = bytes;
+        this.blacklisted = blacklisted;
+        this.minTimestamp = minTimestamp;
+        this.maxTimestamp = maxTimestamp;
+        this.firstAppendMillis = firstAppendMillis;
+        this.lastAppendMillis = lastAppendMillis;
+    }
+
+    /**
+     * The event at {@code row}, built if the segment does not hold it as an object.
+     */
+    public abstract LogEvent event(int row);
+
+    /**
+     * Timestamp seconds of the event at {@code row}, {@link Long#MAX_VALUE} when it has none.
+     */
+    public abstract long epochSecond(int row);
+
+    public abstract int nano(int row);
+
+    protected abstract boolean summaryMayContain(LogField field, String value, boolean ignoreCase);
+
+    protected abstract boolean scan(LogQuery query, RowVisitor visitor);
+
+    /**
+     * Adds the number of events per non-null value of the field to the totals.
+     */
+    public abstract void countBy(LogField field, Map<String, Long> totals);
+
+    /**
+     * Whether a timestamp held as seconds and nanos ({@link Long#MAX_VALUE}
+     * seconds: none) lies in {@code [from, to)}; either bound may be null.
+     */
+    protected static boolean inRange(long second, int nano, Instant from, Instant to) {
+        if (second == Long.MAX_VALUE) {
+            return false;
+        }
+        if (from != null && compare(second, nano, from) < 0) {
+            return false;
+        }
+        return to == null || compare(second, nano, to) < 0;
+    }
+
+    protected static int compare(long second, int nano, Instant instant) {
+        int bySeconds = Long.compare(second, instant.getEpochSecond());
+        return bySeconds != 0 ? bySeconds : Integer.compare(nano, instant.getNano());
+    }
+
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public long bytes() {
+        return bytes;
+    }
+
+    public long bucket() {
+        return bucket;
+    }
+
+    public long firstAppendMillis() {
+        return firstAppendMillis;
+    }
+
+    public long lastAppendMillis() {
+        return lastAppendMillis;
+    }
+
+    @FunctionalInterface
+    public interface RowVisitor {
+
+        boolean visit(Segment segment, int row);
+    }
+}
@@ -0,0 +1,90 @@
+package com.log_server.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Directory of {@link SegmentFile}s, named by an increasing sequence
+ * number so that their order is the order events arrived in.
+ */
+public final class SegmentDirectory {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentDirectory.class);
+
+    private final Path directory;
+    private final int indexInterval;
+    private final boolean forceEachAppend;
+    private long nextSequence;
+
+    public SegmentDirectory(Path directory, int indexInterval, boolean forceEachAppend) throws IOException {
+        if (indexInterval <= 0) {
+            throw new IllegalArgumentException("Index interval must be positive");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.indexInterval = indexInterval;
+        this.forceEachAppend = forceEachAppend;
+    }
+
+    /**
+     * Maps the segments left by an earlier run, oldest first. Sealed files
+     * are mapped from their footers; a file that was still being written is
+     * scanned, cut at its last intact record and sealed first.
+     */
+    public List<MappedSegment> load() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SegmentFile.SUFFIX)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        Collections.sort(files);
+
+        List<MappedSegment> segments = new ArrayList<>();
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            try {
+                nextSequence = Math.max(nextSequence,
+                        Long.parseLong(name.substring(0, name.length() - SegmentFile.SUFFIX.length())) + 1);
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring {}: not a segment name", file);
+                continue;
+            }
+            MappedSegment segment = MappedSegment.open(file);
+            if (segment == null) {
+                SegmentWriter writer = SegmentWriter.recover(file, indexInterval);
+                if (writer.rows() == 0) {
+                    writer.close();
+                    Files.delete(file);
+                    continue;
+                }
+                writer.finish();
+                segment = MappedSegment.open(file);
+                if (segment == null) {
+                    throw new IOException("Recovered segment unreadable: " + file);
+                }
+            }
+            if (segment.size() == 0) {
+                Files.delete(file);
+                continue;
+            }
+            segments.add(segment);
+        }
+        return segments;
+    }
+
+    /**
+     * A new head segment with its own file.
+     */
+    public DurableSegment create(int capacity, long bucket) throws IOException {
+        Path file = directory.resolve(SegmentFile.name(nextSequence++));
+        return new DurableSegment(capacity, bucket, SegmentWriter.create(file, bucket, indexInterval), forceEachAppend);
+    }
+}
@@ -0,0 +1,154 @@
+package com.log_server.store;
+
+import com.log_server.model.LogEvent;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.zip.CRC32;
+
+/**
+ * On-disk layout of a store segment. Every multi-byte value is big-endian.
+ * <pre>
+ *   int  MAGIC, int VERSION, long bucket
+ *   record*                          appended as events arrive
+ *   footer                           written when the segment is sealed
+ *   long footer offset, int rows, int footer CRC32, int FOOTER_MAGIC
+ * </pre>
+ * A record is {@code int payload length, int payload CRC32, payload} with
+ * the payload
+ * <pre>
+ *   long  append millis
+ *   long  epoch second (Long.MAX_VALUE: no timestamp), int nano
+ *   byte  flags, bit 0 blacklisted
+ *   (int length (-1: null), UTF-8 bytes) for each {@link Column}, the message and structured data
+ * </pre>
+ * The footer starts with an int offset per record, so they can be read in
+ * place, followed by the segment bookkeeping, the {@link FieldSummary} of
+ * each {@link LogField} and a sparse index holding the timestamp range of
+ * every block of records. A file without the trailer was not sealed; its
+ * records are scanned up to the first one that is incomplete or fails its
+ * CRC.
+ */
+final class SegmentFile {
+
+    static final int MAGIC = 0x4C534547;          // "LSEG"
+    static final int FOOTER_MAGIC = 0x4C534546;   // "LSEF"
+    static final int VERSION = 1;
+    static final int BUCKET = 2 * Integer.BYTES;
+    static final int HEADER_BYTES = BUCKET + Long.BYTES;
+    static final int TRAILER_BYTES = Long.BYTES + 3 * Integer.BYTES;
+    static final String SUFFIX = ".seg";
+
+    // Offsets within a record
+    static final int RECORD_HEADER = 2 * Integer.BYTES;
+    static final int APPEND_MILLIS = RECORD_HEADER;
+    static final int SECOND = APPEND_MILLIS + Long.BYTES;
+    static final int NANO = SECOND + Long.BYTES;
+    static final int FLAGS = NANO + Integer.BYTES;
+    static final int STRINGS = FLAGS + 1;
+    static final byte BLACKLISTED = 1;
+
+    // A record claiming more than this is treated as corrupt
+    static final int MAX_RECORD_BYTES = 64 * 1024 * 1024;
+
+    private SegmentFile() {
+    }
+
+    static String name(long sequence) {
+        return String.format("%016d%s", sequence, SUFFIX);
+    }
+
+    /**
+     * The record for an event, header included.
+     */
+    static byte[] encode(LogEvent event, long appendMillis) {
+        byte[][] strings = new byte[Column.values().length + 2][];
+        int length = STRINGS - RECORD_HEADER;
+        for (Column column : Column.values()) {
+            strings[column.ordinal()] = utf8(column.getter.apply(event));
+        }
+        strings[strings.length - 2] = utf8(event.getRawMessage());
+        strings[strings.length - 1] = utf8(event.getStructuredData());
+        for (byte[] string : strings) {
+            length += Integer.BYTES + (string == null ? 0 : string.length);
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + length);
+        record.position(RECORD_HEADER);
+        Instant ts = event.getTimestamp();
+        record.putLong(appendMillis);
+        record.putLong(ts == null ? Long.MAX_VALUE : ts.getEpochSecond());
+        record.putInt(ts == null ? 0 : ts.getNano());
+        record.put(event.isBlacklisted() ? BLACKLISTED : 0);
+        for (byte[] string : strings) {
+            if (string == null) {
+                record.putInt(-1);
+            } else {
+                record.putInt(string.length);
+                record.put(string);
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), RECORD_HEADER, length);
+        record.putInt(0, length);
+        record.putInt(Integer.BYTES, (int) crc.getValue());
+        return record.array();
+    }
+
+    /**
+     * Length of the whole record at {@code at}, or -1 if it is cut short or
+     * fails its CRC.
+     */
+    static int check(ByteBuffer file, int at, int end) {
+        if (end - at < RECORD_HEADER) {
+            return -1;
+        }
+        int length = file.getInt(at);
+        if (length < STRINGS - RECORD_HEADER || length > MAX_RECORD_BYTES || length > end - at - RECORD_HEADER) {
+            return -1;
+        }
+        byte[] payload = new byte[length];
+        ByteBuffer source = file.duplicate();
+        source.position(at + RECORD_HEADER);
+        source.get(payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, length);
+        return (int) crc.getValue() == file.getInt(at + Integer.BYTES) ? RECORD_HEADER + length : -1;
+    }
+
+    static LogEvent decode(ByteBuffer file, int at) {
+        LogEvent event = new LogEvent();
+        long second = file.getLong(at + SECOND);
+        if (second != Long.MAX_VALUE) {
+            event.setTimestamp(Instant.ofEpochSecond(second, file.getInt(at + NANO)));
+        }
+        event.setBlacklisted((file.get(at + FLAGS) & BLACKLISTED) != 0);
+        ByteBuffer source = file.duplicate();
+        source.position(at + STRINGS);
+        for (Column column : Column.values()) {
+            column.setter.accept(event, read(source));
+        }
+        event.setRawMessage(read(source));
+        event.setStructuredData(read(source));
+        return event;
+    }
+
+    static long appendMillis(ByteBuffer file, int at) {
+        return file.getLong(at + APPEND_MILLIS);
+    }
+
+    private static String read(ByteBuffer source) {
+        int length = source.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+}
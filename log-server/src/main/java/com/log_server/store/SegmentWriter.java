@@ -0,0 +1,299 @@
+package com.log_server.store;
+
+import com.log_server.model.LogEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Appends records to a {@link SegmentFile} and writes its footer when the
+ * segment is sealed. Records collect in a buffer until {@link #flush()};
+ * durability comes from {@link #force()}, which the store calls for all
+ * events written since the previous call at once.
+ * <p>
+ * Not thread-safe, except that {@link #force()} may run while another
+ * thread appends.
+ */
+final class SegmentWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentWriter.class);
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final int indexInterval;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+    private long position;
+
+    // Set once a write fails; the file no longer matches position and offsets
+    private boolean broken;
+
+    private int rows;
+    private int[] offsets = new int[64];
+    private long firstAppendMillis;
+    private long lastAppendMillis;
+    private int blacklisted;
+    private long minSecond = Long.MAX_VALUE;
+    private int minNano;
+    private long maxSecond = Long.MAX_VALUE;
+    private int maxNano;
+    private final Map<LogField, FieldSummary> summaries = new EnumMap<>(LogField.class);
+
+    // Timestamp range per block of indexInterval records; Long.MAX_VALUE: none in the block
+    private long[] blockMin = new long[8];
+    private int[] blockMinNano = new int[8];
+    private long[] blockMax = new long[8];
+    private int[] blockMaxNano = new int[8];
+
+    private SegmentWriter(Path path, FileChannel channel, int indexInterval) {
+        this.path = path;
+        this.channel = channel;
+        this.indexInterval = indexInterval;
+        for (LogField field : LogField.values()) {
+            summaries.put(field, new FieldSummary());
+        }
+    }
+
+    static SegmentWriter create(Path path, long bucket, int indexInterval) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        SegmentWriter writer = new SegmentWriter(path, channel, indexInterval);
+        writer.buffer.putInt(SegmentFile.MAGIC).putInt(SegmentFile.VERSION).putLong(bucket);
+        writer.position = SegmentFile.HEADER_BYTES;
+        return writer;
+    }
+
+    /**
+     * Reopens a file that was never sealed: keeps the records up to the
+     * first incomplete or corrupt one and cuts the rest off.
+     */
+    static SegmentWriter recover(Path path, int indexInterval) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            SegmentWriter writer = new SegmentWriter(path, channel, indexInterval);
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Segment file too large: " + path);
+            }
+            int end = (int) size;
+            int at = SegmentFile.HEADER_BYTES;
+            if (end >= at) {
+                MappedByteBuffer file = channel.map(FileChannel.MapMode.READ_ONLY, 0, end);
+                if (file.getInt(0) != SegmentFile.MAGIC || file.getInt(Integer.BYTES) != SegmentFile.VERSION) {
+                    throw new IOException("Not a segment file: " + path);
+                }
+                int length;
+                while ((length = SegmentFile.check(file, at, end)) > 0) {
+                    writer.track(SegmentFile.decode(file, at), at, SegmentFile.appendMillis(file, at));
+                    at += length;
+                }
+            } else {
+                // Crashed before the header reached disk
+                channel.truncate(0);
+                channel.position(0);
+                // Without records the bucket no longer matters
+                writer.buffer.putInt(SegmentFile.MAGIC).putInt(SegmentFile.VERSION).putLong(0);
+                writer.position = at;
+                return writer;
+            }
+            channel.truncate(at);
+            channel.position(at);
+            writer.position = at;
+            return writer;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    void append(LogEvent event, long appendMillis) throws IOException {
+        checkWritable();
+        byte[] record = SegmentFile.encode(event, appendMillis);
+        if (position + record.length > Integer.MAX_VALUE) {
+            throw new IOException("Segment file full: " + path);
+        }
+        if (record.length > buffer.remaining()) {
+            flush();
+        }
+        if (record.length > buffer.capacity()) {
+            write(ByteBuffer.wrap(record));
+        } else {
+            buffer.put(record);
+        }
+        track(event, (int) position, appendMillis);
+        position += record.length;
+    }
+
+    private void track(LogEvent event, int offset, long appendMillis) {
+        if (rows == offsets.length) {
+            offsets = Arrays.copyOf(offsets, rows * 2);
+        }
+        offsets[rows] = offset;
+        if (rows == 0) {
+            firstAppendMillis = appendMillis;
+        }
+        lastAppendMillis = appendMillis;
+        if (event.isBlacklisted()) {
+            blacklisted++;
+        }
+        for (Map.Entry<LogField, FieldSummary> summary : summaries.entrySet()) {
+            summary.getValue().add(summary.getKey().get(event));
+        }
+
+        int block = rows / indexInterval;
+        if (rows % indexInterval == 0) {
+            if (block == blockMin.length) {
+                blockMin = Arrays.copyOf(blockMin, block * 2);
+                blockMinNano = Arrays.copyOf(blockMinNano, block * 2);
+                blockMax = Arrays.copyOf(blockMax, block * 2);
+                blockMaxNano = Arrays.copyOf(blockMaxNano, block * 2);
+            }
+            blockMin[block] = Long.MAX_VALUE;
+            blockMax[block] = Long.MAX_VALUE;
+        }
+        Instant ts = event.getTimestamp();
+        if (ts != null) {
+            long second = ts.getEpochSecond();
+            int nano = ts.getNano();
+            if (blockMin[block] == Long.MAX_VALUE || before(second, nano, blockMin[block], blockMinNano[block])) {
+                blockMin[block] = second;
+                blockMinNano[block] = nano;
+            }
+            if (blockMax[block] == Long.MAX_VALUE || before(blockMax[block], blockMaxNano[block], second, nano)) {
+                blockMax[block] = second;
+                blockMaxNano[block] = nano;
+            }
+            if (minSecond == Long.MAX_VALUE || before(second, nano, minSecond, minNano)) {
+                minSecond = second;
+                minNano = nano;
+            }
+            if (maxSecond == Long.MAX_VALUE || before(maxSecond, maxNano, second, nano)) {
+                maxSecond = second;
+                maxNano = nano;
+            }
+        }
+        rows++;
+    }
+
+    private static boolean before(long second, int nano, long otherSecond, int otherNano) {
+        return second < otherSecond || (second == otherSecond && nano < otherNano);
+    }
+
+    void flush() throws IOException {
+        checkWritable();
+        buffer.flip();
+        try {
+            write(buffer);
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    private void checkWritable() throws IOException {
+        if (broken) {
+            throw new IOException("Earlier write failed: " + path);
+        }
+    }
+
+    private void write(ByteBuffer bytes) throws IOException {
+        try {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        } catch (IOException e) {
+            broken = true;
+            throw e;
+        }
+    }
+
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    /**
+     * Writes the footer and trailer, forces the file to disk and closes it.
+     */
+    void finish() throws IOException {
+        flush();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(rows * Integer.BYTES + 1024);
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (int i = 0; i < rows; i++) {
+            out.writeInt(offsets[i]);
+        }
+        out.writeLong(firstAppendMillis);
+        out.writeLong(lastAppendMillis);
+        out.writeInt(blacklisted);
+        out.writeLong(minSecond);
+        out.writeInt(minNano);
+        out.writeLong(maxSecond);
+        out.writeInt(maxNano);
+        for (LogField field : LogField.values()) {
+            Map<String, Integer> counts = summaries.get(field).counts();
+            if (counts == null) {
+                out.writeInt(-1);
+                continue;
+            }
+            out.writeInt(counts.size());
+            for (Map.Entry<String, Integer> count : counts.entrySet()) {
+                byte[] value = count.getKey().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(value.length);
+                out.write(value);
+                out.writeInt(count.getValue());
+            }
+        }
+        int blocks = (rows + indexInterval - 1) / indexInterval;
+        out.writeInt(indexInterval);
+        out.writeInt(blocks);
+        for (int b = 0; b < blocks; b++) {
+            out.writeLong(blockMin[b]);
+            out.writeInt(blockMinNano[b]);
+            out.writeLong(blockMax[b]);
+            out.writeInt(blockMaxNano[b]);
+        }
+        out.flush();
+        byte[] footer = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(footer, 0, footer.length);
+
+        ByteBuffer trailer = ByteBuffer.allocate(SegmentFile.TRAILER_BYTES)
+                .putLong(position)
+                .putInt(rows)
+                .putInt((int) crc.getValue())
+                .putInt(SegmentFile.FOOTER_MAGIC);
+        trailer.flip();
+        write(ByteBuffer.wrap(footer));
+        write(trailer);
+        channel.force(true);
+        channel.close();
+    }
+
+    void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close {}", path, e);
+        }
+    }
+
+    Path path() {
+        return path;
+    }
+
+    int rows() {
+        return rows;
+    }
+}
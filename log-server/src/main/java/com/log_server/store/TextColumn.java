@@ -0,0 +1,57 @@
+package com.log_server.store;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Free-text column: every value's UTF-8 bytes back to back in one array,
+ * with the end offset of each row.
+ */
+final class TextColumn {
+
+    private byte[] data = new byte[1024];
+    private int length;
+    private int[] ends;
+    private final BitSet nulls = new BitSet();
+
+    TextColumn(int rows) {
+        this.ends = new int[rows];
+    }
+
+    /**
+     * Stores the value at {@code row}, the next row, and returns the bytes it took.
+     * The caller grows the column first.
+     */
+    long set(int row, String value) {
+        if (value == null) {
+            nulls.set(row);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (length + bytes.length > data.length) {
+                data = Arrays.copyOf(data, Math.max(length + bytes.length, data.length * 2));
+            }
+            System.arraycopy(bytes, 0, data, length, bytes.length);
+            length += bytes.length;
+        }
+        ends[row] = length;
+        return length - (row == 0 ? 0 : ends[row - 1]);
+    }
+
+    String get(int row) {
+        if (nulls.get(row)) {
+            return null;
+        }
+        int start = row == 0 ? 0 : ends[row - 1];
+        return new String(data, start, ends[row] - start, StandardCharsets.UTF_8);
+    }
+
+    void grow(int rows) {
+        ends = Arrays.copyOf(ends, rows);
+    }
+
+    void trim(int rows) {
+        ends = Arrays.copyOf(ends, rows);
+        data = Arrays.copyOf(data, length);
+    }
+}
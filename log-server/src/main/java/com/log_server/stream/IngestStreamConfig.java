@@ -0,0 +1,37 @@
+package com.log_server.stream;
+
+import com.log_server.codec.LogBatchCodec;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.handler.SimpleUrlHandlerMapping;
+import org.springframework.web.reactive.socket.server.WebSocketService;
+import org.springframework.web.reactive.socket.server.support.HandshakeWebSocketService;
+import org.springframework.web.reactive.socket.server.upgrade.ReactorNettyRequestUpgradeStrategy;
+import reactor.netty.http.server.WebsocketServerSpec;
+
+import java.util.Map;
+
+@Configuration
+public class IngestStreamConfig {
+
+    @Bean
+    public HandlerMapping ingestStreamMapping(IngestStreamHandler handler) {
+        // Ahead of the annotated controllers
+        return new SimpleUrlHandlerMapping(Map.of(IngestStreamHandler.PATH, handler), -1);
+    }
+
+    @Bean
+    public WebFluxConfigurer ingestStreamWebSocket() {
+        return new WebFluxConfigurer() {
+            @Override
+            public WebSocketService getWebSocketService() {
+                // Reactor Netty's 64 KB frame default is smaller than a full batch
+                return new HandshakeWebSocketService(new ReactorNettyRequestUpgradeStrategy(
+                        () -> WebsocketServerSpec.builder()
+                                .maxFramePayloadLength(Long.BYTES + LogBatchCodec.MAX_BATCH_BYTES)));
+            }
+        };
+    }
+}
@@ -0,0 +1,103 @@
+package com.log_server.stream;
+
+import com.log_server.codec.LogBatchCodec;
+import com.log_server.model.LogEvent;
+import com.log_server.service.LogStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.socket.CloseStatus;
+import org.springframework.web.reactive.socket.WebSocketHandler;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streaming ingest over one WebSocket per collector, at {@value #PATH}.
+ * <p>
+ * The collector sends binary messages, each an 8-byte sequence number
+ * followed by a {@link LogBatchCodec} batch. The server opens with
+ * {@code credit <window>}. After storing a batch it replies
+ * {@code ack <seq>} and {@code credit 1}, so at most {@code window}
+ * batches are ever waiting here and a slow store slows the collector
+ * down. A batch that cannot be decoded is answered with
+ * {@code nack <seq> <reason>} and {@code credit 1}, and the collector
+ * fails it instead of sending it again. A message too short to carry a
+ * sequence number closes the connection with 1007.
+ */
+@Component
+public class IngestStreamHandler implements WebSocketHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestStreamHandler.class);
+
+    public static final String PATH = "/ingest/stream";
+    private static final long NO_SEQ = -1;
+
+    private final LogStore store;
+    private final int window;
+
+    public IngestStreamHandler(LogStore store, @Value("${ingest.stream.window:16}") int window) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("ingest.stream.window must be positive: " + window);
+        }
+        this.store = store;
+        this.window = window;
+    }
+
+    @Override
+    public Mono<Void> handle(WebSocketSession session) {
+        Flux<String> replies = session.receive()
+                .filter(message -> message.getType() == WebSocketMessage.Type.BINARY)
+                // Decoded right away: the frame is released once this returns
+                .map(message -> read(message.getPayload()))
+                .concatMap(batch -> {
+                    if (batch.seq == NO_SEQ) {
+                        // Failing the inbound flux would drop the connection without a close code
+                        return session.close(CloseStatus.BAD_DATA.withReason(batch.error)).thenMany(Flux.empty());
+                    }
+                    if (batch.error != null) {
+                        log.warn("Rejecting stream batch {}: {}", batch.seq, batch.error);
+                        return Flux.just("nack " + batch.seq + " " + batch.error, "credit 1");
+                    }
+                    batch.events.forEach(store::add);
+                    return Flux.just("ack " + batch.seq, "credit 1");
+                });
+
+        return session.send(Flux.concat(Mono.just("credit " + window), replies)
+                .map(session::textMessage));
+    }
+
+    private static Batch read(DataBuffer payload) {
+        byte[] bytes = new byte[payload.readableByteCount()];
+        payload.read(bytes);
+        if (bytes.length < Long.BYTES) {
+            return new Batch(NO_SEQ, null, "Stream message shorter than its sequence number");
+        }
+        long seq = ByteBuffer.wrap(bytes).getLong();
+        try {
+            return new Batch(seq, LogBatchCodec.decode(Arrays.copyOfRange(bytes, Long.BYTES, bytes.length)), null);
+        } catch (IllegalArgumentException e) {
+            return new Batch(seq, null, e.getMessage());
+        }
+    }
+
+    private static final class Batch {
+
+        final long seq;
+        final List<LogEvent> events;
+        final String error;
+
+        Batch(long seq, List<LogEvent> events, String error) {
+            this.seq = seq;
+            this.events = events;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.log_server.bench;
+
+import com.log_server.config.StoreProperties;
+import com.log_server.model.LogEvent;
+import com.log_server.service.LogStore;
+import com.log_server.store.LogQuery;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Ingest throughput and GC pauses for each store layout while the store
+ * is held at {@link #RETAINED} events and keeps evicting, followed by a
+ * round of {@code /logs}-shaped queries. Pauses come from the JVM's GC
+ * notifications, so they include every collection during the run.
+ * <p>
+ * Run with {@code mvn test -Dtest=StoreGcBenchmark -Dbench=true}.
+ */
+@EnabledIfSystemProperty(named = "bench", matches = "true")
+class StoreGcBenchmark {
+
+    private static final int RETAINED = 500_000;
+    private static final int INGESTED = 2_000_000;
+    private static final int QUERIES = 20;
+    private static final String[] HOSTS = {"aiops9242", "DESKTOP-1", "srv-7", "web-03"};
+    private static final String[] USERS = {"root", "alice", "bob", "svc_backup", "admin"};
+
+    @TempDir
+    Path dir;
+
+    private final List<Long> pauses = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    void compareLayouts() {
+        NotificationListener listener = (notification, handback) -> {
+            if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                GarbageCollectionNotificationInfo info =
+                        GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                pauses.add(info.getGcInfo().getDuration());
+            }
+        };
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ((NotificationEmitter) gc).addNotificationListener(listener, null, null);
+        }
+
+        for (StoreProperties.Layout layout : StoreProperties.Layout.values()) {
+            System.gc();
+            pauses.clear();
+            LogStore store = new LogStore(properties(layout), new SimpleMeterRegistry());
+
+            long start = System.nanoTime();
+            Instant time = Instant.parse("2026-01-04T10:00:00.000123Z");
+            for (int i = 0; i < INGESTED; i++) {
+                time = time.plusNanos(37_000 + (i * 7919L) % 50_000);
+                store.add(event(i, time));
+            }
+            double ingestSeconds = (System.nanoTime() - start) / 1e9;
+            List<Long> ingestPauses = new ArrayList<>(pauses);
+
+            pauses.clear();
+            LogQuery query = new LogQuery();
+            query.setLevel("warning");
+            query.setLimit(50);
+            query.setOrderByTimestamp(true);
+            start = System.nanoTime();
+            for (int i = 0; i < QUERIES; i++) {
+                store.query(query);
+            }
+            double queryMs = (System.nanoTime() - start) / 1e6 / QUERIES;
+
+            System.out.printf("%-8s ingest %,9.0f events/s  %s%n", layout, INGESTED / ingestSeconds, summary(ingestPauses));
+            System.out.printf("%-8s query  %9.1f ms each    %s%n", layout, queryMs, summary(new ArrayList<>(pauses)));
+            store.clear();
+            store.close();
+        }
+    }
+
+    private StoreProperties properties(StoreProperties.Layout layout) {
+        StoreProperties props = new StoreProperties();
+        props.setLayout(layout);
+        props.getDisk().setDirectory(dir.resolve(layout.name()).toString());
+        props.getRetention().setMaxEvents(RETAINED);
+        props.getRetention().setMaxBytes(DataSize.ofBytes(0));
+        props.getRetention().setMaxAge(Duration.ZERO);
+        props.getOffHeap().setMaxSize(DataSize.ofMegabytes(256));
+        return props;
+    }
+
+    private static String summary(List<Long> pauses) {
+        long total = 0;
+        long max = 0;
+        for (long pause : pauses) {
+            total += pause;
+            max = Math.max(max, pause);
+        }
+        return String.format("gc count=%d total=%d ms max=%d ms", pauses.size(), total, max);
+    }
+
+    private static LogEvent event(int i, Instant time) {
+        String host = HOSTS[i % HOSTS.length];
+        String user = USERS[i % USERS.length];
+        LogEvent event = new LogEvent();
+        event.setTimestamp(time);
+        event.setHostname(new String(host.toCharArray()));
+        event.setUsername(new String(user.toCharArray()));
+        event.setBlacklisted("root".equals(user) || "admin".equals(user));
+        event.setService(i % 3 == 0 ? "windows_login" : "linux_login");
+        event.setEventCategory(i % 2 == 0 ? "login.audit" : "logout.audit");
+        event.setSeverity(i % 10 == 1 ? "WARNING" : "INFO");
+        event.setRawMessage("<86> " + host + " sudo[" + (1000 + i % 40) + "]: pam_unix(sudo:session): session opened for user " + user + "(uid=0)");
+        event.setProcId(String.valueOf(1000 + i % 40));
+        return event;
+    }
+}
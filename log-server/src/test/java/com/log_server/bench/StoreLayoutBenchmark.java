@@ -0,0 +1,132 @@
+package com.log_server.bench;
+
+import com.log_server.config.StoreProperties;
+import com.log_server.model.LogEvent;
+import com.log_server.service.LogStore;
+import com.log_server.store.LogField;
+import com.log_server.store.LogQuery;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Supplier;
+
+/**
+ * Heap per event and query time for each store layout,
+ * with the queries shaped like {@code /logs} defaults (50 oldest matches),
+ * filled with events whose strings are all distinct objects, as they are
+ * after JSON decoding. Heap is measured as the used-heap growth after GC
+ * and also read from the store's own estimate.
+ * <p>
+ * Run with {@code mvn test -Dtest=StoreLayoutBenchmark -Dbench=true}.
+ */
+@EnabledIfSystemProperty(named = "bench", matches = "true")
+class StoreLayoutBenchmark {
+
+    private static final int EVENTS = 200_000;
+    private static final int ROUNDS = 5;
+    private static final String[] HOSTS = {"aiops9242", "DESKTOP-1", "srv-7", "web-03"};
+    private static final String[] USERS = {"root", "alice", "bob", "svc_backup", "admin"};
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void compareLayouts() {
+        for (StoreProperties.Layout layout : StoreProperties.Layout.values()) {
+            long before = usedHeap();
+            LogStore store = fill(layout);
+            long measured = usedHeap() - before;
+            System.out.printf("%-8s heap bytes/event  measured=%.0f  estimated=%.0f%n",
+                    layout, (double) measured / EVENTS, store.bytesPerEvent());
+
+            LogQuery warnings = new LogQuery();
+            warnings.setLevel("warning");
+            warnings.setLimit(50);
+            warnings.setOrderByTimestamp(true);
+            LogQuery rootLogins = new LogQuery();
+            rootLogins.setService("linux_login");
+            rootLogins.setUsername("root");
+            rootLogins.setLimit(50);
+            rootLogins.setOrderByTimestamp(true);
+            for (int round = 0; round < ROUNDS; round++) {
+                double warningsMs = millis(() -> store.query(warnings).size());
+                double rootMs = millis(() -> store.query(rootLogins).size());
+                double countMs = millis(() -> store.countBy(LogField.CATEGORY).size());
+                System.out.printf("%-8s round %d  level=warning top50 %6.1f ms  linux_login root top50 %6.1f ms  countBy %6.2f ms%n",
+                        layout, round, warningsMs, rootMs, countMs);
+            }
+            store.clear();
+            store.close();
+        }
+    }
+
+    private LogStore fill(StoreProperties.Layout layout) {
+        StoreProperties props = new StoreProperties();
+        props.setLayout(layout);
+        props.getDisk().setDirectory(dir.resolve(layout.name()).toString());
+        props.getRetention().setMaxEvents(0);
+        props.getRetention().setMaxBytes(DataSize.ofBytes(0));
+        props.getRetention().setMaxAge(Duration.ZERO);
+        LogStore store = new LogStore(props, new SimpleMeterRegistry());
+        Instant time = Instant.parse("2026-01-04T10:00:00.000123Z");
+        for (int i = 0; i < EVENTS; i++) {
+            time = time.plusNanos(37_000 + (i * 7919L) % 50_000);
+            store.add(event(i, time));
+        }
+        return store;
+    }
+
+    private static LogEvent event(int i, Instant time) {
+        String host = HOSTS[i % HOSTS.length];
+        String user = USERS[i % USERS.length];
+        LogEvent event = new LogEvent();
+        event.setTimestamp(time);
+        event.setHostname(copy(host));
+        event.setUsername(copy(user));
+        event.setBlacklisted("root".equals(user) || "admin".equals(user));
+        if (i % 3 == 0) {
+            event.setService(copy("windows_login"));
+            event.setEventCategory(copy("login.audit"));
+            event.setSeverity(copy("INFO"));
+            event.setRawMessage("<13> " + host + " Microsoft-Windows-Security-Auditing An account was logged on. Account Name: " + user);
+        } else {
+            event.setService(copy("linux_login"));
+            event.setEventCategory(copy(i % 2 == 0 ? "login.audit" : "logout.audit"));
+            event.setSeverity(copy(i % 10 == 1 ? "WARNING" : "INFO"));
+            event.setRawMessage("<86> " + host + " sudo[" + (1000 + i % 40) + "]: pam_unix(sudo:session): session opened for user " + user + "(uid=0)");
+            event.setFacility(copy("authpriv"));
+            event.setAppName(copy("sudo"));
+            event.setProcId(String.valueOf(1000 + i % 40));
+        }
+        return event;
+    }
+
+    // A fresh String, as a JSON decoder would produce
+    private static String copy(String s) {
+        return new String(s.toCharArray());
+    }
+
+    private static double millis(Supplier<Integer> query) {
+        long start = System.nanoTime();
+        int sink = query.get();
+        long elapsed = System.nanoTime() - start;
+        if (sink == -1) {
+            System.out.print("");
+        }
+        return elapsed / 1e6;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,105 @@
+package com.log_server.bench;
+
+import com.log_server.config.StoreProperties;
+import com.log_server.model.LogEvent;
+import com.log_server.service.LogStore;
+import com.log_server.store.LogQuery;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Startup time of a FILE store over the segments of an earlier run, for
+ * growing amounts of data, next to the time it takes to ingest the same
+ * events again, which is what a restart replaying them would cost at the
+ * least. The first query after startup is timed too, since mapped pages
+ * are read on first use.
+ * <p>
+ * Run with {@code mvn test -Dtest=StoreRestartBenchmark -Dbench=true}.
+ */
+@EnabledIfSystemProperty(named = "bench", matches = "true")
+class StoreRestartBenchmark {
+
+    private static final int[] SIZES = {100_000, 300_000, 900_000};
+    private static final String[] HOSTS = {"aiops9242", "DESKTOP-1", "srv-7", "web-03"};
+    private static final String[] USERS = {"root", "alice", "bob", "svc_backup", "admin"};
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void compareRestartWithReplay() {
+        for (int events : SIZES) {
+            StoreProperties props = properties(dir.resolve("events-" + events));
+            LogStore store = new LogStore(props, new SimpleMeterRegistry());
+            long start = System.nanoTime();
+            fill(store, events);
+            double ingestMs = (System.nanoTime() - start) / 1e6;
+            store.close();
+
+            start = System.nanoTime();
+            LogStore reopened = new LogStore(props, new SimpleMeterRegistry());
+            double openMs = (System.nanoTime() - start) / 1e6;
+
+            LogQuery rootLogins = new LogQuery();
+            rootLogins.setService("linux_login");
+            rootLogins.setUsername("root");
+            rootLogins.setLimit(50);
+            rootLogins.setOrderByTimestamp(true);
+            start = System.nanoTime();
+            List<LogEvent> found = reopened.query(rootLogins);
+            double queryMs = (System.nanoTime() - start) / 1e6;
+
+            System.out.printf("%,9d events  %4d segments  restart %7.1f ms  first query %6.1f ms (%d hits)  re-ingest %8.1f ms%n",
+                    reopened.size(), reopened.segments() - 1, openMs, queryMs, found.size(), ingestMs);
+            reopened.clear();
+            reopened.close();
+        }
+    }
+
+    private static StoreProperties properties(Path directory) {
+        StoreProperties props = new StoreProperties();
+        props.setLayout(StoreProperties.Layout.FILE);
+        props.getDisk().setDirectory(directory.toString());
+        props.getRetention().setMaxEvents(0);
+        props.getRetention().setMaxBytes(DataSize.ofBytes(0));
+        props.getRetention().setMaxAge(Duration.ZERO);
+        return props;
+    }
+
+    private static void fill(LogStore store, int events) {
+        Instant time = Instant.parse("2026-01-04T10:00:00.000123Z");
+        for (int i = 0; i < events; i++) {
+            time = time.plusNanos(37_000 + (i * 7919L) % 50_000);
+            String host = HOSTS[i % HOSTS.length];
+            String user = USERS[i % USERS.length];
+            LogEvent event = new LogEvent();
+            event.setTimestamp(time);
+            event.setHostname(host);
+            event.setUsername(user);
+            event.setBlacklisted("root".equals(user) || "admin".equals(user));
+            if (i % 3 == 0) {
+                event.setService("windows_login");
+                event.setEventCategory("login.audit");
+                event.setSeverity("INFO");
+                event.setRawMessage("<13> " + host + " Microsoft-Windows-Security-Auditing An account was logged on. Account Name: " + user);
+            } else {
+                event.setService("linux_login");
+                event.setEventCategory(i % 2 == 0 ? "login.audit" : "logout.audit");
+                event.setSeverity(i % 10 == 1 ? "WARNING" : "INFO");
+                event.setRawMessage("<86> " + host + " sudo[" + (1000 + i % 40) + "]: pam_unix(sudo:session): session opened for user " + user + "(uid=0)");
+                event.setFacility("authpriv");
+                event.setAppName("sudo");
+                event.setProcId(String.valueOf(1000 + i % 40));
+            }
+            store.add(event);
+        }
+    }
+}
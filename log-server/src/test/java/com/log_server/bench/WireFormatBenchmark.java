@@ -0,0 +1,106 @@
+package com.log_server.bench;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.log_server.codec.LogBatchCodec;
+import com.log_server.model.LogEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bytes per event and decode time per event for a collector batch as a
+ * JSON array (decoded by the same Jackson setup WebFlux uses), in the
+ * binary format, and in the binary format with deflate.
+ * <p>
+ * Run with {@code mvn test -Dtest=WireFormatBenchmark -Dbench=true}.
+ */
+@EnabledIfSystemProperty(named = "bench", matches = "true")
+class WireFormatBenchmark {
+
+    private static final int ROUNDS = 5;
+    private static final int BATCH = 500;
+    private static final int DECODES = 400;
+    private static final String[] HOSTS = {"aiops9242", "DESKTOP-1", "srv-7", "web-03"};
+    private static final String[] USERS = {"root", "alice", "bob", "svc_backup", "admin"};
+
+    private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+    private final TypeReference<List<LogEvent>> listType = new TypeReference<>() {
+    };
+
+    @Test
+    void compareWireFormats() throws Exception {
+        List<LogEvent> batch = batch();
+        byte[] json = mapper.writeValueAsBytes(batch);
+        byte[] binary = LogBatchCodec.encode(batch, false);
+        byte[] deflated = LogBatchCodec.encode(batch, true);
+
+        System.out.printf("bytes/event  json=%.1f  binary=%.1f  binary+deflate=%.1f%n",
+                (double) json.length / BATCH, (double) binary.length / BATCH, (double) deflated.length / BATCH);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long jsonNanos = time(() -> mapper.readValue(json, listType));
+            long binaryNanos = time(() -> LogBatchCodec.decode(binary));
+            long deflatedNanos = time(() -> LogBatchCodec.decode(deflated));
+            System.out.printf("round %d  decode ns/event  json=%,7.0f  binary=%,7.0f  binary+deflate=%,7.0f%n",
+                    round, perEvent(jsonNanos), perEvent(binaryNanos), perEvent(deflatedNanos));
+        }
+    }
+
+    private static double perEvent(long nanos) {
+        return (double) nanos / DECODES / BATCH;
+    }
+
+    private static long time(Decode decode) throws Exception {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < DECODES; i++) {
+            sink += decode.run().size();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (sink == 42) {
+            System.out.print("");
+        }
+        return elapsed;
+    }
+
+    // A batch as the collector would send it: Instant.now() times, syslog fields on some events
+    private static List<LogEvent> batch() {
+        List<LogEvent> batch = new ArrayList<>(BATCH);
+        Instant time = Instant.parse("2026-01-04T10:00:00.000123Z");
+        for (int i = 0; i < BATCH; i++) {
+            time = time.plusNanos(37_000 + (i * 7919L) % 50_000);
+            String host = HOSTS[i % HOSTS.length];
+            String user = USERS[i % USERS.length];
+            LogEvent event = new LogEvent();
+            event.setTimestamp(time);
+            event.setHostname(host);
+            event.setUsername(user);
+            event.setBlacklisted("root".equals(user) || "admin".equals(user));
+            if (i % 3 == 0) {
+                event.setService("windows_login");
+                event.setEventCategory("login.audit");
+                event.setSeverity("INFO");
+                event.setRawMessage("<13> " + host + " Microsoft-Windows-Security-Auditing An account was logged on. Account Name: " + user);
+            } else {
+                event.setService("linux_login");
+                event.setEventCategory(i % 2 == 0 ? "login.audit" : "logout.audit");
+                event.setSeverity(i % 10 == 1 ? "WARNING" : "INFO");
+                event.setRawMessage("<86> " + host + " sudo[" + (1000 + i % 40) + "]: pam_unix(sudo:session): session opened for user " + user + "(uid=0)");
+                event.setFacility("authpriv");
+                event.setAppName("sudo");
+                event.setProcId(String.valueOf(1000 + i % 40));
+            }
+            batch.add(event);
+        }
+        return batch;
+    }
+
+    private interface Decode {
+        List<LogEvent> run() throws Exception;
+    }
+}
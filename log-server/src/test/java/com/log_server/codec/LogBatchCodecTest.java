@@ -0,0 +1,92 @@
+package com.log_server.codec;
+
+import com.log_server.model.LogEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LogBatchCodecTest {
+
+    // Collector encodings, pinned byte for byte here and in the collector's LogBatchCodecTest
+    private static final byte[] COLLECTOR_BATCH = {
+            'L', 'B', 1, 0,
+            1,                                      // one event
+            (byte) 0xB3, 0x41,                      // timestamp, service, username, hostname, blacklisted, templateId
+            (byte) 0xC8, 0x01, 0x02,                // +100 s, +1 ns
+            0, 3, 's', 's', 'h',                    // service: new entry 0
+            0, 4, 'r', 'o', 'o', 't',               // username: new entry 1
+            1,                                      // hostname: entry 0
+            0, 2, 't', '1'                          // templateId: new entry 2
+    };
+
+    // Three events in every encoding path: all fields, a backwards timestamp with a repeated host, no timestamp
+    private static final byte[] FULL_BATCH = {
+            'L', 'B', 1, 0,
+            3,
+            -1, 127, -64, -24, -47, -107, 13, -24, 7, 0, 4, 115, 115, 104, 100, 0,
+            11, 108, 111, 103, 105, 110, 46, 97, 117, 100, 105, 116, 0, 4, 73, 78,
+            70, 79, 0, 4, 114, 111, 111, 116, 0, 2, 104, 49, 2, 111, 107, 0,
+            4, 97, 117, 116, 104, 1, 0, 2, 52, 50, 0, 3, 73, 68, 49, 3,
+            91, 97, 93, 0, 2, 116, 49,
+            97, 1, -25, 7, 5, 2, -61, -87,
+            2, 1
+    };
+
+    @Test
+    void testDecodesCollectorLayout() {
+        LogEvent expected = new LogEvent();
+        expected.setTimestamp(Instant.ofEpochSecond(100, 1));
+        expected.setService("ssh");
+        expected.setUsername("root");
+        expected.setHostname("ssh");
+        expected.setBlacklisted(true);
+        expected.setTemplateId("t1");
+
+        assertEquals(List.of(expected), LogBatchCodec.decode(COLLECTOR_BATCH));
+        assertEquals(List.of(expected), LogBatchCodec.decode(LogBatchCodec.encode(List.of(expected), true)));
+        assertEquals(Arrays.toString(COLLECTOR_BATCH), Arrays.toString(LogBatchCodec.encode(List.of(expected), false)));
+    }
+
+    @Test
+    void testDecodesPinnedBatchWithEveryField() {
+        assertEquals(fullBatch(), LogBatchCodec.decode(FULL_BATCH));
+        assertEquals(Arrays.toString(FULL_BATCH), Arrays.toString(LogBatchCodec.encode(fullBatch(), false)));
+    }
+
+    @Test
+    void testRejectsBadDictionaryReference() {
+        byte[] bad = {'L', 'B', 1, 0, 1, 0x02, 5};
+
+        assertThrows(IllegalArgumentException.class, () -> LogBatchCodec.decode(bad));
+    }
+
+    private static List<LogEvent> fullBatch() {
+        LogEvent full = new LogEvent();
+        full.setTimestamp(Instant.ofEpochSecond(1767520800L, 500));
+        full.setService("sshd");
+        full.setEventCategory("login.audit");
+        full.setSeverity("INFO");
+        full.setUsername("root");
+        full.setHostname("h1");
+        full.setBlacklisted(true);
+        full.setRawMessage("ok");
+        full.setFacility("auth");
+        full.setAppName("sshd");
+        full.setProcId("42");
+        full.setMsgId("ID1");
+        full.setStructuredData("[a]");
+        full.setTemplateId("t1");
+        LogEvent earlier = new LogEvent();
+        earlier.setTimestamp(Instant.ofEpochSecond(1767520799L, 0));
+        earlier.setHostname("h1");
+        earlier.setRawMessage("\u00e9");
+        LogEvent untimed = new LogEvent();
+        untimed.setService("sshd");
+        return List.of(full, earlier, untimed);
+    }
+}
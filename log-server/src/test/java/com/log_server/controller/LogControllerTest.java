@@ -1,5 +1,6 @@
 package com.log_server.controller;
 
+import com.log_server.codec.LogBatchCodec;
 import com.log_server.model.LogEvent;
 import com.log_server.service.LogStore;
 import org.junit.jupiter.api.BeforeEach;
@@ -7,8 +8,14 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 @WebFluxTest(controllers = LogController.class)
 @Import(LogStore.class)
 class LogControllerTest {
@@ -21,7 +28,7 @@ class LogControllerTest {
 
     @BeforeEach
     void setup() {
-        logStore.getAll().clear();
+        logStore.clear();
     }
 
     @Test
@@ -79,4 +86,132 @@ class LogControllerTest {
                 .expectBody()
                 .jsonPath("$.length()").isEqualTo(1);
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldIngestJsonArrayBatch() {
+        LogEvent log1 = new LogEvent();
+        log1.setUsername("alice");
+        LogEvent log2 = new LogEvent();
+        log2.setUsername("bob");
+
+        webTestClient.post()
+                .uri("/ingest/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of(log1, log2))
+                .exchange()
+                .expectStatus().isOk();
+
+        assertEquals(2, logStore.size());
+    }
+
+    @Test
+    void shouldIngestNdjsonBatch() {
+        String body = "{\"username\":\"carol\",\"severity\":\"INFO\"}\n"
+                + "{\"username\":\"dave\",\"severity\":\"ERROR\"}\n";
+
+        webTestClient.post()
+                .uri("/ingest/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk();
+
+        assertEquals(2, logStore.size());
+    }
+
+    @Test
+    void shouldIngestBinaryBatch() {
+        LogEvent log1 = new LogEvent();
+        log1.setTimestamp(Instant.parse("2026-01-04T10:00:00.5Z"));
+        log1.setUsername("erin");
+        log1.setBlacklisted(true);
+        LogEvent log2 = new LogEvent();
+        log2.setUsername("frank");
+
+        webTestClient.post()
+                .uri("/ingest/batch")
+                .contentType(MediaType.parseMediaType(LogBatchCodec.CONTENT_TYPE))
+                .bodyValue(LogBatchCodec.encode(List.of(log1, log2), true))
+                .exchange()
+                .expectStatus().isOk();
+
+        assertEquals(List.of(log1, log2), logStore.getAll());
+    }
+
+    @Test
+    void shouldRejectMalformedBinaryBatch() {
+        webTestClient.post()
+                .uri("/ingest/batch")
+                .contentType(MediaType.parseMediaType(LogBatchCodec.CONTENT_TYPE))
+                .bodyValue(new byte[]{'L', 'B', 1, 0, 5})
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        assertEquals(0, logStore.size());
+    }
+
+    @Test
+    void shouldRejectUnknownBatchType() {
+        webTestClient.post()
+                .uri("/ingest/batch")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .bodyValue(new byte[]{1, 2, 3})
+                .exchange()
+                .expectStatus().isEqualTo(415);
+    }
+
+    @Test
+    void shouldFilterByTimeRange() {
+        for (String time : List.of("2026-01-04T09:59:59Z", "2026-01-04T10:00:00Z", "2026-01-04T10:30:00Z", "2026-01-04T11:00:00Z")) {
+            LogEvent log = new LogEvent();
+            log.setTimestamp(Instant.parse(time));
+            log.setRawMessage(time);
+            logStore.add(log);
+        }
+
+        webTestClient.get()
+                .uri("/logs?from=2026-01-04T10:00:00Z&to=2026-01-04T11:00:00Z")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].rawMessage").isEqualTo("2026-01-04T10:00:00Z")
+                .jsonPath("$[1].rawMessage").isEqualTo("2026-01-04T10:30:00Z");
+    }
+
+    @Test
+    void shouldKeepSyslogHeaderFields() {
+        String body = "{\"appName\":\"sshd\",\"procId\":\"42\",\"facility\":\"authpriv\"}";
+
+        webTestClient.post()
+                .uri("/ingest")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk();
+
+        LogEvent stored = logStore.getAll().get(0);
+        assertEquals("sshd", stored.getAppName());
+        assertEquals("42", stored.getProcId());
+        assertEquals("authpriv", stored.getFacility());
+    }
+
+    @Test
+    void shouldFilterByTemplateId() {
+        LogEvent log1 = new LogEvent();
+        log1.setTemplateId("9f86d081884c7d65");
+        LogEvent log2 = new LogEvent();
+        log2.setTemplateId("2c26b46b68ffc68f");
+
+        logStore.add(log1);
+        logStore.add(log2);
+
+        webTestClient.get()
+                .uri("/logs?templateId=9f86d081884c7d65")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].templateId").isEqualTo("9f86d081884c7d65");
+    }
+}
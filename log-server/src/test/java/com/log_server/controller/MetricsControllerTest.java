@@ -74,4 +74,31 @@ class MetricsControllerTest {
         assertTrue(byCategory.isEmpty());
         assertTrue(bySeverity.isEmpty());
     }
+
+    @Test
+    void metrics_shouldCountByTemplate() {
+
+        LogEvent log1 = new LogEvent();
+        log1.setEventCategory("login.audit");
+        log1.setSeverity("INFO");
+        log1.setTemplateId("a1");
+
+        LogEvent log2 = new LogEvent();
+        log2.setEventCategory("login.audit");
+        log2.setSeverity("INFO");
+        log2.setTemplateId("a1");
+
+        LogEvent log3 = new LogEvent();
+        log3.setEventCategory("logout.audit");
+        log3.setSeverity("INFO");
+
+        logStore.add(log1);
+        logStore.add(log2);
+        logStore.add(log3);
+
+        Map<String, Long> byTemplate =
+                (Map<String, Long>) metricsController.metrics().block().get("logsByTemplate");
+
+        assertEquals(Map.of("a1", 2L), byTemplate);
+    }
 }
@@ -1,12 +1,40 @@
 package com.log_server.service;
 
+import com.log_server.config.StoreProperties;
 import com.log_server.model.LogEvent;
+import com.log_server.store.LogField;
+import com.log_server.store.LogQuery;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class LogStoreTest {
 
+    @TempDir
+    Path dir;
+
     @Test
     void shouldStoreLogsInMemory() {
         LogStore store = new LogStore();
@@ -18,4 +46,324 @@ class LogStoreTest {
         assertEquals(2, store.size());
 
     }
+
+    @Test
+    void dropsOldestWholeSegmentsPastMaxEvents() {
+        StoreProperties props = unbounded();
+        props.getSegment().setSize(10);
+        props.getRetention().setMaxEvents(80);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        LogStore store = new LogStore(props, registry);
+
+        for (int i = 0; i < 100; i++) {
+            store.add(event("m" + i));
+        }
+
+        // 80 / 8 = 10 per segment: the first two segments go whole
+        List<LogEvent> all = store.getAll();
+        assertEquals(80, all.size());
+        assertEquals("m20", all.get(0).getRawMessage());
+        assertEquals("m99", all.get(79).getRawMessage());
+        assertEquals(20, registry.get("store.evicted").tag("reason", "count").counter().count());
+    }
+
+    @Test
+    void dropsOldestSegmentsPastMaxBytes() {
+        StoreProperties props = unbounded();
+        props.getRetention().setMaxBytes(DataSize.ofKilobytes(64));
+        LogStore store = new LogStore(props, new SimpleMeterRegistry());
+
+        for (int i = 0; i < 10_000; i++) {
+            store.add(event("message number " + i));
+        }
+
+        assertTrue(store.bytes() <= 64 * 1024, "bytes " + store.bytes());
+        assertTrue(store.bytes() > 64 * 1024 * 7 / 8 - 1024, "bytes " + store.bytes());
+        List<LogEvent> all = store.getAll();
+        assertEquals("message number 9999", all.get(all.size() - 1).getRawMessage());
+    }
+
+    @Test
+    void dropsSegmentsOlderThanMaxAge() {
+        StoreProperties props = unbounded();
+        props.getRetention().setMaxAge(Duration.ofMinutes(8));
+        MutableClock clock = new MutableClock();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        LogStore store = new LogStore(props, registry, clock);
+
+        store.add(event("old"));
+        clock.advance(Duration.ofMinutes(2));
+        store.add(event("new"));
+        clock.advance(Duration.ofMinutes(7));
+
+        assertEquals(List.of("new"), messages(store));
+        clock.advance(Duration.ofMinutes(2));
+        assertEquals(0, store.size());
+        assertEquals(2, registry.get("store.evicted").tag("reason", "age").counter().count());
+    }
+
+    @Test
+    void exposesEstimatedHeapPerEvent() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        LogStore store = new LogStore(new StoreProperties(), registry);
+
+        store.add(event("short"));
+        store.add(event("a much longer message than the first one"));
+
+        assertTrue(store.bytesPerEvent() > 100, "per event " + store.bytesPerEvent());
+        assertEquals(store.bytes(), registry.get("store.bytes").gauge().value());
+        assertEquals(store.bytesPerEvent(), registry.get("store.bytes.per.event").gauge().value());
+        assertEquals(2, registry.get("store.events").gauge().value());
+
+        store.clear();
+        assertEquals(0, store.bytes());
+        assertEquals(0, store.bytesPerEvent());
+    }
+
+    @Test
+    void startsASegmentPerMinuteOfArrival() {
+        MutableClock clock = new MutableClock();
+        LogStore store = new LogStore(new StoreProperties(), new SimpleMeterRegistry(), clock);
+
+        store.add(event("a"));
+        store.add(event("b"));
+        clock.advance(Duration.ofMinutes(1));
+        store.add(event("c"));
+
+        assertEquals(2, store.segments());
+        assertEquals(List.of("a", "b", "c"), messages(store));
+    }
+
+    @Test
+    void queriesAcrossSegmentsInArrivalOrder() {
+        MutableClock clock = new MutableClock();
+        LogStore store = new LogStore(new StoreProperties(), new SimpleMeterRegistry(), clock);
+        for (int minute = 0; minute < 5; minute++) {
+            LogEvent event = event("m" + minute);
+            event.setTimestamp(Instant.parse("2026-01-04T10:00:00Z").plus(Duration.ofMinutes(minute)));
+            event.setUsername(minute % 2 == 0 ? "root" : "user");
+            store.add(event);
+            clock.advance(Duration.ofMinutes(1));
+        }
+
+        LogQuery query = new LogQuery();
+        query.setFrom(Instant.parse("2026-01-04T10:01:00Z"));
+        query.setTo(Instant.parse("2026-01-04T10:04:00Z"));
+        query.setUsername("root");
+
+        assertEquals(List.of("m2"), messages(store.query(query)));
+    }
+
+    @ParameterizedTest
+    @EnumSource(StoreProperties.Layout.class)
+    void returnsTheOldestMatchesUpToTheLimit(StoreProperties.Layout layout) {
+        StoreProperties props = new StoreProperties();
+        props.setLayout(layout);
+        props.getDisk().setDirectory(dir.toString());
+        MutableClock clock = new MutableClock();
+        LogStore store = new LogStore(props, new SimpleMeterRegistry(), clock);
+        // Arrival order differs from timestamp order, and segments overlap in time
+        int[] seconds = {50, 10, 40, 20, 30, 0};
+        for (int i = 0; i < seconds.length; i++) {
+            LogEvent event = event("s" + seconds[i]);
+            event.setTimestamp(Instant.parse("2026-01-04T10:00:00Z").plusSeconds(seconds[i]));
+            store.add(event);
+            if (i % 2 == 1) {
+                clock.advance(Duration.ofMinutes(1));
+            }
+        }
+        LogEvent untimed = event("untimed");
+        untimed.setTimestamp(null);
+        store.add(untimed);
+
+        LogQuery query = new LogQuery();
+        query.setLimit(3);
+        query.setOrderByTimestamp(true);
+        assertEquals(List.of("s0", "s10", "s20"), messages(store.query(query)));
+
+        query.setLimit(10);
+        assertEquals(List.of("s0", "s10", "s20", "s30", "s40", "s50", "untimed"), messages(store.query(query)));
+
+        query.setOrderByTimestamp(false);
+        query.setLimit(4);
+        assertEquals(List.of("s50", "s10", "s40", "s20"), messages(store.query(query)));
+        store.close();
+    }
+
+    @Test
+    void reopensSealedSegmentFilesAfterRestart() {
+        StoreProperties props = onDisk();
+        MutableClock clock = new MutableClock();
+        LogStore store = new LogStore(props, new SimpleMeterRegistry(), clock);
+        for (int i = 0; i < 6; i++) {
+            LogEvent event = event("m" + i);
+            event.setUsername(i % 2 == 0 ? "root" : "alice");
+            store.add(event);
+            if (i % 2 == 1) {
+                clock.advance(Duration.ofMinutes(1));
+            }
+        }
+        store.close();
+
+        LogStore reopened = new LogStore(props, new SimpleMeterRegistry(), clock);
+        assertEquals(6, reopened.size());
+        assertEquals(3, reopened.segments() - 1);
+        assertEquals(List.of("m0", "m1", "m2", "m3", "m4", "m5"), messages(reopened));
+        LogQuery query = new LogQuery();
+        query.setUsername("root");
+        assertEquals(List.of("m0", "m2", "m4"), messages(reopened.query(query)));
+
+        reopened.add(event("m6"));
+        reopened.close();
+        assertEquals(List.of("m0", "m1", "m2", "m3", "m4", "m5", "m6"),
+                messages(new LogStore(props, new SimpleMeterRegistry(), clock)));
+    }
+
+    @Test
+    void recoversCommittedEventsOfAnUnsealedSegment() throws IOException {
+        StoreProperties props = onDisk();
+        // Commits only when the test asks for them
+        props.getDisk().setFsyncInterval(Duration.ofHours(1));
+        LogStore crashed = new LogStore(props, new SimpleMeterRegistry());
+        crashed.add(event("a"));
+        crashed.add(event("b"));
+        crashed.commit();
+
+        // A record torn by the crash
+        List<Path> files;
+        try (Stream<Path> list = Files.list(dir)) {
+            files = list.sorted().collect(Collectors.toList());
+        }
+        Files.write(files.get(files.size() - 1), new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        LogStore recovered = new LogStore(props, new SimpleMeterRegistry());
+        assertEquals(List.of("a", "b"), messages(recovered));
+        recovered.add(event("c"));
+        assertEquals(List.of("a", "b", "c"), messages(recovered));
+        recovered.close();
+    }
+
+    @Test
+    void deletesTheFilesOfEvictedSegments() throws IOException {
+        StoreProperties props = onDisk();
+        props.getRetention().setMaxEvents(8);
+        props.getSegment().setSize(1);
+        LogStore store = new LogStore(props, new SimpleMeterRegistry());
+
+        for (int i = 0; i < 20; i++) {
+            store.add(event("m" + i));
+        }
+        store.close();
+
+        try (Stream<Path> list = Files.list(dir)) {
+            assertEquals(store.segments() - 1, list.count());
+        }
+        assertFalse(messages(store).contains("m0"));
+    }
+
+    @Test
+    void countsByFieldSkippingNulls() {
+        LogStore store = new LogStore();
+        LogEvent a = event("a");
+        a.setEventCategory("login.audit");
+        LogEvent b = event("b");
+        b.setEventCategory("login.audit");
+        LogEvent c = event("c");
+
+        store.add(a);
+        store.add(b);
+        store.add(c);
+
+        assertEquals(Map.of("login.audit", 2L), store.countBy(LogField.CATEGORY));
+        assertEquals(Map.of("INFO", 3L), store.countBy(LogField.SEVERITY));
+    }
+
+    @Test
+    void dropsOldestSegmentsToStayWithinOffHeapPages() {
+        StoreProperties props = unbounded();
+        props.setLayout(StoreProperties.Layout.OFF_HEAP);
+        props.getSegment().setSize(100);
+        props.getOffHeap().setPageSize(DataSize.ofKilobytes(4));
+        props.getOffHeap().setMaxSize(DataSize.ofKilobytes(64));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        LogStore store = new LogStore(props, registry);
+
+        for (int i = 0; i < 5000; i++) {
+            store.add(event("message number " + i));
+        }
+
+        assertTrue(registry.get("store.offheap.used").gauge().value() <= 64 * 1024);
+        assertTrue(registry.get("store.evicted").tag("reason", "off-heap").counter().count() > 0);
+        List<String> kept = messages(store);
+        assertEquals(store.size(), kept.size());
+        assertEquals("message number 4999", kept.get(kept.size() - 1));
+
+        store.clear();
+        assertEquals(0, registry.get("store.offheap.used").gauge().value());
+    }
+
+    @Test
+    void rejectsInvalidLimits() {
+        StoreProperties props = new StoreProperties();
+        props.getSegment().setSize(0);
+
+        assertThrows(IllegalArgumentException.class, () -> new LogStore(props, new SimpleMeterRegistry()));
+    }
+
+    private static StoreProperties unbounded() {
+        StoreProperties props = new StoreProperties();
+        props.getRetention().setMaxEvents(0);
+        props.getRetention().setMaxBytes(DataSize.ofBytes(0));
+        props.getRetention().setMaxAge(Duration.ZERO);
+        return props;
+    }
+
+    private StoreProperties onDisk() {
+        StoreProperties props = unbounded();
+        props.setLayout(StoreProperties.Layout.FILE);
+        props.getDisk().setDirectory(dir.toString());
+        return props;
+    }
+
+    private static LogEvent event(String message) {
+        LogEvent event = new LogEvent();
+        event.setTimestamp(Instant.parse("2026-01-04T10:00:00Z"));
+        event.setService("linux_login");
+        event.setHostname("aiops9242");
+        event.setSeverity("INFO");
+        event.setRawMessage(message);
+        return event;
+    }
+
+    private static List<String> messages(LogStore store) {
+        return messages(store.getAll());
+    }
+
+    private static List<String> messages(List<LogEvent> events) {
+        return events.stream().map(LogEvent::getRawMessage).collect(Collectors.toList());
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2026-01-04T10:00:00Z");
+
+        void advance(Duration by) {
+            now = now.plus(by);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
 }
@@ -0,0 +1,88 @@
+package com.log_server.store;
+
+import com.log_server.model.LogEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ColumnarSegmentTest {
+
+    @Test
+    void rebuildsEveryFieldAcrossGrowthAndSeal() {
+        ColumnarSegment segment = new ColumnarSegment(1000, 0);
+        List<LogEvent> events = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            LogEvent event = full(i);
+            events.add(event);
+            segment.append(event, 0);
+        }
+        LogEvent bare = new LogEvent();
+        events.add(bare);
+        segment.append(bare, 0);
+        segment.seal();
+
+        for (int i = 0; i < events.size(); i++) {
+            assertEquals(events.get(i), segment.event(i));
+        }
+        assertNull(segment.event(300).getTimestamp());
+        assertEquals(Long.MAX_VALUE, segment.epochSecond(300));
+    }
+
+    @Test
+    void countsFromDictionaries() {
+        ColumnarSegment segment = new ColumnarSegment(16, 0);
+        for (int i = 0; i < 10; i++) {
+            segment.append(full(i), 0);
+        }
+
+        Map<String, Long> bySeverity = new HashMap<>();
+        segment.countBy(LogField.SEVERITY, bySeverity);
+
+        assertEquals(Map.of("INFO", 5L, "ERROR", 5L), bySeverity);
+    }
+
+    @Test
+    void costsFarLessThanTheEventObjects() {
+        ColumnarSegment columnar = new ColumnarSegment(4096, 0);
+        RowSegment rows = new RowSegment(4096, 0);
+        for (int i = 0; i < 4096; i++) {
+            columnar.append(full(i), 0);
+            rows.append(full(i), 0);
+        }
+
+        assertTrue(rows.bytes() > 3 * columnar.bytes(), rows.bytes() + " vs " + columnar.bytes());
+    }
+
+    @Test
+    void rejectsSegmentsTooLargeForShortCodes() {
+        assertThrows(IllegalArgumentException.class, () -> new ColumnarSegment(ColumnarSegment.MAX_CAPACITY + 1, 0));
+    }
+
+    private static LogEvent full(int i) {
+        LogEvent event = new LogEvent();
+        event.setTimestamp(Instant.parse("2026-01-04T10:00:00Z").plusNanos(i * 1_000_001L));
+        event.setService(i % 2 == 0 ? "linux_login" : "windows_event");
+        event.setEventCategory("login.audit");
+        event.setSeverity(i % 2 == 0 ? "INFO" : "ERROR");
+        event.setUsername("user" + (i % 10));
+        event.setHostname("aiops" + (i % 4));
+        event.setRawMessage("<86> aiops9242 sudo: pam_unix(sudo:session): session opened for user root(uid=0) #" + i);
+        event.setBlacklisted(i % 3 == 0);
+        event.setFacility("authpriv");
+        event.setAppName("sudo");
+        event.setProcId(String.valueOf(1000 + i % 7));
+        event.setMsgId("ID47");
+        event.setStructuredData(i % 5 == 0 ? "[exampleSDID@32473 iut=\"3\"]" : null);
+        event.setTemplateId("5b1e0c3a9d7f2e41");
+        return event;
+    }
+}
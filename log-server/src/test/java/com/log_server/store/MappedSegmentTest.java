@@ -0,0 +1,132 @@
+package com.log_server.store;
+
+import com.log_server.model.LogEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedSegmentTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsBackEveryFieldAndSummaryFromTheFile() throws IOException {
+        SegmentDirectory directory = new SegmentDirectory(dir, 4, false);
+        DurableSegment head = directory.create(100, 7);
+        List<LogEvent> events = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            LogEvent event = event(i, i == 3 ? "x".repeat(100_000) : "session opened for user root #" + i);
+            events.add(event);
+            head.append(event, 1000 + i);
+        }
+        LogEvent bare = new LogEvent();
+        events.add(bare);
+        head.append(bare, 2000);
+
+        Segment sealed = head.seal();
+        assertTrue(sealed instanceof MappedSegment);
+        assertEquals(events.size(), sealed.size());
+        assertEquals(7, sealed.bucket());
+        assertEquals(1000, sealed.firstAppendMillis());
+        for (int i = 0; i < events.size(); i++) {
+            assertEquals(events.get(i), sealed.event(i));
+        }
+        Map<String, Long> severities = new HashMap<>();
+        sealed.countBy(LogField.SEVERITY, severities);
+        assertEquals(Map.of("INFO", 15L, "ERROR", 15L), severities);
+
+        LogQuery query = new LogQuery();
+        query.setLevel("ERROR");
+        query.setFrom(Instant.parse("2026-01-04T10:00:10Z"));
+        query.setTo(Instant.parse("2026-01-04T10:00:20Z"));
+        List<LogEvent> out = new ArrayList<>();
+        sealed.select(query, out);
+        assertEquals(List.of(events.get(11), events.get(13), events.get(15), events.get(17), events.get(19)), out);
+    }
+
+    @Test
+    void loadRecoversAnUnsealedFileUpToItsLastIntactRecord() throws IOException {
+        SegmentDirectory directory = new SegmentDirectory(dir, 256, false);
+        DurableSegment head = directory.create(100, 0);
+        for (int i = 0; i < 10; i++) {
+            head.append(event(i, "message " + i), 0);
+        }
+        head.flush();
+        Path file = dir.resolve(SegmentFile.name(0));
+        // Cut the last record short, as a crash mid-write would
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        assertNull(MappedSegment.open(file));
+
+        SegmentDirectory reloaded = new SegmentDirectory(dir, 256, false);
+        List<MappedSegment> segments = reloaded.load();
+        assertEquals(1, segments.size());
+        MappedSegment segment = segments.get(0);
+        assertEquals(9, segment.size());
+        assertEquals(event(8, "message 8"), segment.event(8));
+
+        // The next head gets a file after the recovered one
+        DurableSegment next = reloaded.create(100, 0);
+        assertTrue(Files.exists(dir.resolve(SegmentFile.name(1))));
+        next.release();
+    }
+
+    @Test
+    void keepsTheSegmentInMemoryWhenItsFileMissesEvents() throws IOException {
+        SegmentWriter writer = SegmentWriter.create(dir.resolve(SegmentFile.name(0)), 0, 256);
+        DurableSegment head = new DurableSegment(10, 0, writer, false);
+        head.append(event(0, "message"), 0);
+        // The next write hits a closed file
+        writer.close();
+        head.append(event(1, "x".repeat(100_000)), 0);
+        head.append(event(2, "after"), 0);
+
+        Segment sealed = head.seal();
+        assertTrue(sealed == head);
+        assertEquals(3, sealed.size());
+        assertEquals(event(2, "after"), sealed.event(2));
+    }
+
+    @Test
+    void deletesTheFileAfterTheLastReference() throws IOException {
+        DurableSegment head = new SegmentDirectory(dir, 256, false).create(10, 0);
+        head.append(event(0, "message"), 0);
+        MappedSegment sealed = (MappedSegment) head.seal();
+
+        sealed.retain();
+        sealed.release();
+        assertTrue(Files.exists(sealed.path()));
+        sealed.release();
+        assertFalse(Files.exists(sealed.path()));
+    }
+
+    private static LogEvent event(int i, String message) {
+        LogEvent event = new LogEvent();
+        event.setTimestamp(Instant.parse("2026-01-04T10:00:00Z").plusSeconds(i));
+        event.setService("linux_login");
+        event.setSeverity(i % 2 == 0 ? "INFO" : "ERROR");
+        event.setUsername("user" + (i % 3));
+        event.setHostname("\u00e9t\u00e9-host");
+        event.setBlacklisted(i % 5 == 0);
+        event.setRawMessage(message);
+        event.setAppName("sudo");
+        return event;
+    }
+}
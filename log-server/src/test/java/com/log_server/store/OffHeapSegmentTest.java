@@ -0,0 +1,81 @@
+package com.log_server.store;
+
+import com.log_server.model.LogEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapSegmentTest {
+
+    @Test
+    void rebuildsEventsFromPagesIncludingOversizedRecords() {
+        PagePool pool = new PagePool(512, 64 * 1024);
+        OffHeapSegment segment = new OffHeapSegment(100, 0, pool);
+        List<LogEvent> events = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            LogEvent event = event(i, i == 20 ? "x".repeat(2000) : "session opened for user root #" + i);
+            events.add(event);
+            segment.append(event, 0);
+        }
+        LogEvent bare = new LogEvent();
+        events.add(bare);
+        segment.append(bare, 0);
+        segment.seal();
+
+        for (int i = 0; i < events.size(); i++) {
+            assertEquals(events.get(i), segment.event(i));
+        }
+        assertTrue(segment.offHeapBytes() >= pool.used());
+        long onHeap = events.stream().mapToLong(HeapEstimate::of).sum();
+        assertTrue(segment.bytes() * 4 < onHeap, segment.bytes() + " vs " + onHeap);
+    }
+
+    @Test
+    void refusesEventsOnceThePoolIsFull() {
+        PagePool pool = new PagePool(256, 1024);
+        OffHeapSegment segment = new OffHeapSegment(1000, 0, pool);
+        int stored = 0;
+        while (segment.append(event(stored, "message " + stored), 0) >= 0) {
+            stored++;
+        }
+
+        assertEquals(stored, segment.size());
+        assertEquals(1024, pool.used());
+        assertEquals(event(stored - 1, "message " + (stored - 1)), segment.event(stored - 1));
+    }
+
+    @Test
+    void returnsPagesAfterTheLastReference() {
+        PagePool pool = new PagePool(256, 4096);
+        OffHeapSegment segment = new OffHeapSegment(100, 0, pool);
+        for (int i = 0; i < 20; i++) {
+            segment.append(event(i, "message " + i), 0);
+        }
+        long used = pool.used();
+
+        segment.retain();
+        segment.release();
+        assertEquals(used, pool.used());
+        segment.release();
+        assertEquals(0, pool.used());
+        assertEquals(used, pool.allocated());
+    }
+
+    private static LogEvent event(int i, String message) {
+        LogEvent event = new LogEvent();
+        event.setTimestamp(Instant.parse("2026-01-04T10:00:00Z").plusMillis(i));
+        event.setService("linux_login");
+        event.setSeverity(i % 2 == 0 ? "INFO" : "ERROR");
+        event.setUsername("user" + (i % 3));
+        event.setHostname("\u00e9t\u00e9-host");
+        event.setRawMessage(message);
+        event.setBlacklisted(i % 4 == 0);
+        event.setStructuredData(i % 5 == 0 ? "[origin ip=\"10.0.0.1\"]" : null);
+        return event;
+    }
+}
@@ -0,0 +1,163 @@
+package com.log_server.store;
+
+import com.log_server.config.StoreProperties;
+import com.log_server.model.LogEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SegmentTest {
+
+    @TempDir
+    static Path dir;
+
+    @ParameterizedTest
+    @EnumSource(StoreProperties.Layout.class)
+    void skipsByTimestampRange(StoreProperties.Layout layout) {
+        Segment segment = segment(layout, event("10:00:00", "linux_login", "INFO", false),
+                event("10:00:59", "linux_login", "INFO", false));
+
+        assertTrue(segment.mayMatch(range("10:00:59", "10:01:00")));
+        assertFalse(segment.mayMatch(range("10:01:00", null)));
+        assertFalse(segment.mayMatch(range(null, "10:00:00")));
+        assertTrue(segment.mayMatch(range(null, "10:00:00.000000001")));
+    }
+
+    @ParameterizedTest
+    @EnumSource(StoreProperties.Layout.class)
+    void skipsByFieldSummaries(StoreProperties.Layout layout) {
+        Segment segment = segment(layout, event("10:00:00", "linux_login", "INFO", false),
+                event("10:00:01", "windows_event", "ERROR", false));
+
+        LogQuery service = new LogQuery();
+        service.setService("LINUX_LOGIN");
+        assertTrue(segment.mayMatch(service));
+        service.setService("linux_syslog");
+        assertFalse(segment.mayMatch(service));
+
+        LogQuery blacklisted = new LogQuery();
+        blacklisted.setBlacklisted(true);
+        assertFalse(segment.mayMatch(blacklisted));
+        blacklisted.setBlacklisted(false);
+        assertTrue(segment.mayMatch(blacklisted));
+    }
+
+    @ParameterizedTest
+    @EnumSource(StoreProperties.Layout.class)
+    void selectsTheSameRowsAsTheQueryMatches(StoreProperties.Layout layout) {
+        List<LogEvent> events = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            LogEvent event = event(String.format("10:%02d:%02d", i / 60, i % 60),
+                    i % 3 == 0 ? "linux_login" : "windows_event", i % 5 == 0 ? "ERROR" : "INFO", i % 7 == 0);
+            event.setUsername(i % 2 == 0 ? "root" : "user" + i);
+            events.add(event);
+        }
+        Segment segment = segment(layout, events.toArray(new LogEvent[0]));
+        segment.seal();
+
+        LogQuery query = new LogQuery();
+        query.setService("Linux_Login");
+        query.setLevel("error");
+        query.setFrom(Instant.parse("2026-01-04T10:00:30Z"));
+        query.setTo(Instant.parse("2026-01-04T10:03:00Z"));
+        List<LogEvent> expected = new ArrayList<>();
+        for (LogEvent event : events) {
+            if (query.matches(event)) {
+                expected.add(event);
+            }
+        }
+        List<LogEvent> selected = new ArrayList<>();
+        segment.select(query, selected);
+
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, selected);
+
+        LogQuery blacklistedRoot = new LogQuery();
+        blacklistedRoot.setUsername("root");
+        blacklistedRoot.setBlacklisted(true);
+        List<LogEvent> roots = new ArrayList<>();
+        segment.select(blacklistedRoot, roots);
+        assertEquals(15, roots.size());
+    }
+
+    @Test
+    void countsFromSummaryAndFallsBackToScanningPastItsCap() {
+        Segment segment = new RowSegment(FieldSummary.MAX_VALUES + 10, 0);
+        for (int i = 0; i <= FieldSummary.MAX_VALUES; i++) {
+            LogEvent event = event("10:00:00", "linux_login", "INFO", false);
+            event.setUsername("user" + i);
+            segment.append(event, 0);
+        }
+
+        Map<String, Long> services = new HashMap<>();
+        segment.countBy(LogField.SERVICE, services);
+        assertEquals(Map.of("linux_login", (long) FieldSummary.MAX_VALUES + 1), services);
+
+        Map<String, Long> users = new HashMap<>();
+        segment.countBy(LogField.USERNAME, users);
+        assertEquals(FieldSummary.MAX_VALUES + 1, users.size());
+
+        LogQuery unknownUser = new LogQuery();
+        unknownUser.setUsername("nobody");
+        assertTrue(segment.mayMatch(unknownUser));
+        List<LogEvent> out = new ArrayList<>();
+        segment.select(unknownUser, out);
+        assertTrue(out.isEmpty());
+    }
+
+    private static Segment segment(StoreProperties.Layout layout, LogEvent... events) {
+        Segment segment;
+        if (layout == StoreProperties.Layout.COLUMNAR) {
+            segment = new ColumnarSegment(events.length, 0);
+        } else if (layout == StoreProperties.Layout.OFF_HEAP) {
+            // Small pages so that rows spread over several
+            segment = new OffHeapSegment(events.length, 0, new PagePool(1024, 1 << 20));
+        } else if (layout == StoreProperties.Layout.FILE) {
+            try {
+                // Blocks of two records so that the sparse index skips some
+                segment = new SegmentDirectory(Files.createTempDirectory(dir, "segment"), 2, false)
+                        .create(events.length, 0);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else {
+            segment = new RowSegment(events.length, 0);
+        }
+        for (LogEvent event : events) {
+            segment.append(event, 0);
+        }
+        // Sealed file segments are read back through the mapped file
+        return layout == StoreProperties.Layout.FILE ? segment.seal() : segment;
+    }
+
+    private static LogQuery range(String from, String to) {
+        LogQuery query = new LogQuery();
+        query.setFrom(from == null ? null : Instant.parse("2026-01-04T" + from + "Z"));
+        query.setTo(to == null ? null : Instant.parse("2026-01-04T" + to + "Z"));
+        return query;
+    }
+
+    static LogEvent event(String time, String service, String severity, boolean blacklisted) {
+        LogEvent event = new LogEvent();
+        event.setTimestamp(Instant.parse("2026-01-04T" + time + "Z"));
+        event.setService(service);
+        event.setSeverity(severity);
+        event.setBlacklisted(blacklisted);
+        return event;
+    }
+}
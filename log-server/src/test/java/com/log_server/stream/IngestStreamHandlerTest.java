@@ -0,0 +1,104 @@
+package com.log_server.stream;
+
+import com.log_server.codec.LogBatchCodec;
+import com.log_server.model.LogEvent;
+import com.log_server.service.LogStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.web.reactive.socket.CloseStatus;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "ingest.stream.window=4")
+class IngestStreamHandlerTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private LogStore logStore;
+
+    @BeforeEach
+    void setup() {
+        logStore.clear();
+    }
+
+    @Test
+    void shouldGrantCreditStoreAndAcknowledge() {
+        LogEvent log1 = new LogEvent();
+        log1.setUsername("alice");
+        LogEvent log2 = new LogEvent();
+        log2.setUsername("bob");
+        List<String> replies = new CopyOnWriteArrayList<>();
+
+        new ReactorNettyWebSocketClient().execute(uri(), session -> session
+                .send(Mono.just(session.binaryMessage(f -> f.wrap(frame(7, LogBatchCodec.encode(List.of(log1, log2), false))))))
+                .thenMany(session.receive().map(WebSocketMessage::getPayloadAsText).doOnNext(replies::add).take(3))
+                .then())
+                .block(Duration.ofSeconds(10));
+
+        assertEquals(List.of("credit 4", "ack 7", "credit 1"), replies);
+        assertEquals(List.of(log1, log2), logStore.getAll());
+    }
+
+    @Test
+    void shouldRejectMalformedBatchAndKeepStoring() {
+        LogEvent log1 = new LogEvent();
+        log1.setUsername("alice");
+        List<String> replies = new CopyOnWriteArrayList<>();
+
+        new ReactorNettyWebSocketClient().execute(uri(), session -> session
+                .send(Flux.just(
+                                frame(1, new byte[]{'L', 'B', 1, 0, 9}),
+                                frame(2, LogBatchCodec.encode(List.of(log1), false)))
+                        .map(bytes -> session.binaryMessage(f -> f.wrap(bytes))))
+                .thenMany(session.receive().map(WebSocketMessage::getPayloadAsText).doOnNext(replies::add).take(5))
+                .then())
+                .block(Duration.ofSeconds(10));
+
+        assertEquals(5, replies.size());
+        assertEquals("credit 4", replies.get(0));
+        assertTrue(replies.get(1).startsWith("nack 1 "), replies.get(1));
+        assertEquals(List.of("credit 1", "ack 2", "credit 1"), replies.subList(2, 5));
+        assertEquals(List.of(log1), logStore.getAll());
+    }
+
+    @Test
+    void shouldCloseOnMessageWithoutSequenceNumber() {
+        AtomicReference<CloseStatus> status = new AtomicReference<>();
+
+        new ReactorNettyWebSocketClient().execute(uri(), session -> {
+                    session.closeStatus().subscribe(status::set);
+                    return session.send(Mono.just(session.binaryMessage(f -> f.wrap(new byte[]{1, 2, 3}))))
+                            .thenMany(session.receive())
+                            .then();
+                })
+                .block(Duration.ofSeconds(10));
+
+        assertEquals(CloseStatus.BAD_DATA.getCode(), status.get().getCode());
+        assertEquals(0, logStore.size());
+    }
+
+    private URI uri() {
+        return URI.create("ws://localhost:" + port + IngestStreamHandler.PATH);
+    }
+
+    private static byte[] frame(long seq, byte[] batch) {
+        return ByteBuffer.allocate(Long.BYTES + batch.length).putLong(seq).put(batch).array();
+    }
+}